@@ -17,6 +17,7 @@
 package org.apache.commons.imaging;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -32,10 +33,13 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryFileParser;
 import org.apache.commons.imaging.common.BufferedImageFactory;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RowConsumer;
 import org.apache.commons.imaging.common.SimpleBufferedImageFactory;
+import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.formats.bmp.BmpImageParser;
 import org.apache.commons.imaging.formats.dcx.DcxImageParser;
 import org.apache.commons.imaging.formats.gif.GifImageParser;
@@ -157,6 +161,41 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
         return false;
     }
 
+    /**
+     * Decodes the image specified by the byte source row by row, handing each row to the consumer instead of building a BufferedImage.
+     * <p>
+     * Parsers that can decode a row at a time keep only a row or a few rows of pixels in memory; this is the case for PNG (non-interlaced, without an ICC
+     * profile to apply), BMP, PNM, PCX and strip-organized TIFF. Other parsers decode the whole image and then deliver its rows. Either way the delivered
+     * values are those {@link #getBufferedImage(ByteSource, ImagingParameters)} would produce.
+     * </p>
+     *
+     * @param byteSource  A valid instance of ByteSource
+     * @param params      Optional instructions for special-handling or interpretation of the input data (null objects are permitted and must be supported by
+     *                    implementations).
+     * @param rowConsumer receives each row of the image exactly once.
+     * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+     * @throws IOException      In the event of unsuccessful read or access operation.
+     * @since 1.0-alpha6
+     */
+    public void decodeRows(final ByteSource byteSource, final T params, final RowConsumer rowConsumer) throws ImagingException, IOException {
+        deliverRows(getBufferedImage(byteSource, params), rowConsumer);
+    }
+
+    /**
+     * Hands the rows of a decoded image to a consumer, for parsers that cannot decode a row at a time.
+     *
+     * @param image       the decoded image.
+     * @param rowConsumer receives each row of the image.
+     */
+    protected static void deliverRows(final BufferedImage image, final RowConsumer rowConsumer) {
+        final int width = image.getWidth();
+        final int[] row = Allocator.intArray(width);
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            rowConsumer.accept(y, row);
+        }
+    }
+
     /**
      * Write the ImageInfo and format-specific information for the image content of the specified byte array to a string.
      *
@@ -205,7 +244,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             LOGGER.finest(getName() + ": " + file.getName());
         }
 
-        return dumpImageFile(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return dumpImageFile(byteSource);
+        }
     }
 
     /**
@@ -279,7 +320,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return null;
         }
 
-        return getAllBufferedImages(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getAllBufferedImages(byteSource);
+        }
     }
 
     /**
@@ -326,7 +369,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return null;
         }
 
-        return getBufferedImage(ByteSource.file(file), params);
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getBufferedImage(byteSource, params);
+        }
     }
 
     /**
@@ -347,9 +392,39 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return result;
         }
 
+        if (params.getDestinationImage() != null || params.getPixelBufferPool() != null) {
+            return new SimpleBufferedImageFactory(params);
+        }
         return new SimpleBufferedImageFactory();
     }
 
+    /**
+     * Gets the {@link ImagingParameters#getRegion() region} of the image to read, checking that it lies within the image.
+     *
+     * @param params optional parameters.
+     * @param width  the width of the image.
+     * @param height the height of the image.
+     * @return the region, or null if none is set or it covers the whole image.
+     * @throws ImagingException if the region is empty or not within the image.
+     * @since 1.0-alpha6
+     */
+    protected static Rectangle getRegion(final ImagingParameters<?> params, final int width, final int height) throws ImagingException {
+        final Rectangle region = params == null ? null : params.getRegion();
+        if (region == null) {
+            return null;
+        }
+        if (region.width <= 0 || region.height <= 0) {
+            throw new ImagingException("Empty region: " + region);
+        }
+        if (region.x < 0 || region.y < 0 || region.x > width - region.width || region.y > height - region.height) {
+            throw new ImagingException("Region " + region + " is outside the " + width + "x" + height + " image");
+        }
+        if (region.x == 0 && region.y == 0 && region.width == width && region.height == height) {
+            return null;
+        }
+        return region;
+    }
+
     /**
      * Gets the default extension for the format specified by an implementation of ImageParser. Some parsers can support more than one extension (i.e. .JPEG,
      * .JPG; .TIF, .TIFF, etc.).
@@ -402,7 +477,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return null;
         }
 
-        return getFormatCompliance(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getFormatCompliance(byteSource);
+        }
     }
 
     /**
@@ -476,7 +553,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             LOGGER.finest(getName() + ": " + file.getName());
         }
 
-        return getIccProfileBytes(ByteSource.file(file), params);
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getIccProfileBytes(byteSource, params);
+        }
     }
 
     /**
@@ -549,7 +628,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return null;
         }
 
-        return getImageInfo(ByteSource.file(file), params);
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getImageInfo(byteSource, params);
+        }
     }
 
     /**
@@ -615,7 +696,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return null;
         }
 
-        return getImageSize(ByteSource.file(file), params);
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getImageSize(byteSource, params);
+        }
     }
 
     /**
@@ -723,7 +806,9 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
             return null;
         }
 
-        return getMetadata(ByteSource.file(file), params);
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getMetadata(byteSource, params);
+        }
     }
 
     /**
@@ -733,6 +818,29 @@ public abstract class AbstractImageParser<T extends ImagingParameters<T>> extend
      */
     public abstract String getName();
 
+    /**
+     * Probes an image's basic properties and, if asked, which kinds of metadata it carries.
+     * <p>
+     * This implementation runs a parser pass for the image info and one for each kind of metadata. Parsers that can answer all of them from one read of the
+     * file's structure override it.
+     * </p>
+     *
+     * @param byteSource A valid instance of ByteSource
+     * @param metadata   whether to check for an ICC profile, XMP and other metadata.
+     * @return the probe result.
+     * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+     * @throws IOException      In the event of unsuccessful read or access operation.
+     * @since 1.0-alpha6
+     */
+    public ImageProbe probe(final ByteSource byteSource, final boolean metadata) throws ImagingException, IOException {
+        final ImageInfo imageInfo = getImageInfo(byteSource, null);
+        if (!metadata) {
+            return new ImageProbe(imageInfo);
+        }
+        final boolean xmpXml = this instanceof XmpEmbeddable && ((XmpEmbeddable<?>) this).getXmpXml(byteSource, null) != null;
+        return new ImageProbe(imageInfo, getIccProfileBytes(byteSource, null) != null, xmpXml, getMetadata(byteSource, null) != null);
+    }
+
     /**
      * Writes the content of a BufferedImage to the specified output stream.
      *
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+/**
+ * The result of {@link Imaging#probe(org.apache.commons.imaging.bytesource.ByteSource, int)}: an image's format, basic properties and which kinds of
+ * metadata it carries.
+ *
+ * @since 1.0-alpha6
+ */
+public final class ImageProbe {
+
+    private final ImageInfo imageInfo;
+    private final boolean metadataProbed;
+    private final boolean iccProfile;
+    private final boolean xmpXml;
+    private final boolean metadata;
+
+    /**
+     * Constructs a probe result that did not check for metadata.
+     *
+     * @param imageInfo the image information.
+     */
+    public ImageProbe(final ImageInfo imageInfo) {
+        this.imageInfo = imageInfo;
+        this.metadataProbed = false;
+        this.iccProfile = false;
+        this.xmpXml = false;
+        this.metadata = false;
+    }
+
+    /**
+     * Constructs a probe result that checked for metadata.
+     *
+     * @param imageInfo  the image information.
+     * @param iccProfile whether an ICC profile is present.
+     * @param xmpXml     whether XMP is present.
+     * @param metadata   whether other metadata is present.
+     */
+    public ImageProbe(final ImageInfo imageInfo, final boolean iccProfile, final boolean xmpXml, final boolean metadata) {
+        this.imageInfo = imageInfo;
+        this.metadataProbed = true;
+        this.iccProfile = iccProfile;
+        this.xmpXml = xmpXml;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Gets the bits per pixel of the image data.
+     *
+     * @return bits per pixel of the image data.
+     */
+    public int getBitsPerPixel() {
+        return imageInfo.getBitsPerPixel();
+    }
+
+    /**
+     * Gets the image format.
+     *
+     * @return the image format.
+     */
+    public ImageFormat getFormat() {
+        return imageInfo.getFormat();
+    }
+
+    /**
+     * Gets the height of the first image, in pixels.
+     *
+     * @return image height in pixels.
+     */
+    public int getHeight() {
+        return imageInfo.getHeight();
+    }
+
+    /**
+     * Gets the full image information the probe was built from.
+     *
+     * @return the image information.
+     */
+    public ImageInfo getImageInfo() {
+        return imageInfo;
+    }
+
+    /**
+     * Gets the number of images, or frames, in the file.
+     *
+     * @return number of images in the file.
+     */
+    public int getNumberOfImages() {
+        return imageInfo.getNumberOfImages();
+    }
+
+    /**
+     * Gets the width of the first image, in pixels.
+     *
+     * @return image width in pixels.
+     */
+    public int getWidth() {
+        return imageInfo.getWidth();
+    }
+
+    /**
+     * Tests whether the image embeds an ICC color profile.
+     *
+     * @return whether an ICC profile is present, false if the probe skipped metadata.
+     */
+    public boolean hasIccProfile() {
+        return iccProfile;
+    }
+
+    /**
+     * Tests whether the image has format-specific metadata, such as EXIF or text chunks.
+     *
+     * @return whether metadata is present, false if the probe skipped metadata.
+     */
+    public boolean hasMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Tests whether the image embeds XMP metadata.
+     *
+     * @return whether XMP is present, false if the probe skipped metadata.
+     */
+    public boolean hasXmpXml() {
+        return xmpXml;
+    }
+
+    /**
+     * Tests whether the probe checked for metadata, which tells a false {@link #hasIccProfile()}, {@link #hasMetadata()} or {@link #hasXmpXml()} that means
+     * absent from one that means not checked.
+     *
+     * @return whether the probe checked for metadata.
+     */
+    public boolean isMetadataProbed() {
+        return metadataProbed;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageProbe [format=" + getFormat() + ", width=" + getWidth() + ", height=" + getHeight() + ", bitsPerPixel=" + getBitsPerPixel()
+                + ", numberOfImages=" + getNumberOfImages() + (metadataProbed ? ", iccProfile=" + iccProfile + ", xmpXml=" + xmpXml + ", metadata=" + metadata : "")
+                + "]";
+    }
+
+}
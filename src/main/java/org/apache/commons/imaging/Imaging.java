@@ -26,7 +26,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -86,6 +85,9 @@ import org.apache.commons.imaging.internal.ImageParserFactory;
  */
 public final class Imaging {
 
+    /** The default number of leading bytes {@link #probe(ByteSource)} reads at once. */
+    public static final int DEFAULT_PROBE_LENGTH = 64 * 1024;
+
     private static final int[] MAGIC_NUMBERS_GIF = { 0x47, 0x49, };
     private static final int[] MAGIC_NUMBERS_PNG = { 0x89, 0x50, };
     private static final int[] MAGIC_NUMBERS_JPEG = { 0xff, 0xd8, };
@@ -109,11 +111,43 @@ public final class Imaging {
     private static final int[] MAGIC_NUMBERS_RIFF_2 = { 0x46, 0x46, };
     private static final byte[] MAGIC_NUMBERS_WEBP = { 0x57, 0x45, 0x42, 0x50, };
 
-    private static boolean compareBytePair(final int[] a, final int[] b) {
-        if (a.length != 2 && b.length != 2) {
-            throw new IllegalArgumentException("Invalid Byte Pair.");
-        }
-        return a[0] == b[0] && a[1] == b[1];
+    /** The most bytes {@link #guessFormat(ByteSource)} needs to see; a RIFF header is 12 bytes. */
+    private static final int MAGIC_NUMBERS_LENGTH = 12;
+
+    /**
+     * Formats indexed by the first two bytes of their data, as {@code b1 << 8 | b2}. JBIG2 and WebP entries only mark candidates, which are confirmed
+     * against the following bytes.
+     */
+    private static final ImageFormat[] MAGIC_NUMBER_FORMATS = new ImageFormat[0x10000];
+
+    static {
+        putMagicNumbers(MAGIC_NUMBERS_GIF, ImageFormats.GIF);
+        putMagicNumbers(MAGIC_NUMBERS_PNG, ImageFormats.PNG);
+        putMagicNumbers(MAGIC_NUMBERS_JPEG, ImageFormats.JPEG);
+        putMagicNumbers(MAGIC_NUMBERS_BMP, ImageFormats.BMP);
+        putMagicNumbers(MAGIC_NUMBERS_TIFF_MOTOROLA, ImageFormats.TIFF);
+        putMagicNumbers(MAGIC_NUMBERS_TIFF_INTEL, ImageFormats.TIFF);
+        putMagicNumbers(MAGIC_NUMBERS_PSD, ImageFormats.PSD);
+        putMagicNumbers(MAGIC_NUMBERS_PAM, ImageFormats.PAM);
+        putMagicNumbers(MAGIC_NUMBERS_PBM_A, ImageFormats.PBM);
+        putMagicNumbers(MAGIC_NUMBERS_PBM_B, ImageFormats.PBM);
+        putMagicNumbers(MAGIC_NUMBERS_PGM_A, ImageFormats.PGM);
+        putMagicNumbers(MAGIC_NUMBERS_PGM_B, ImageFormats.PGM);
+        putMagicNumbers(MAGIC_NUMBERS_PPM_A, ImageFormats.PPM);
+        putMagicNumbers(MAGIC_NUMBERS_PPM_B, ImageFormats.PPM);
+        putMagicNumbers(MAGIC_NUMBERS_JBIG2_1, ImageFormats.JBIG2);
+        putMagicNumbers(MAGIC_NUMBERS_ICNS, ImageFormats.ICNS);
+        putMagicNumbers(MAGIC_NUMBERS_DCX, ImageFormats.DCX);
+        putMagicNumbers(MAGIC_NUMBERS_RGBE, ImageFormats.RGBE);
+        putMagicNumbers(MAGIC_NUMBERS_RIFF_1, ImageFormats.WEBP);
+    }
+
+    private static boolean compareBytePair(final int[] a, final byte[] bytes, final int offset) {
+        return a[0] == (0xff & bytes[offset]) && a[1] == (0xff & bytes[offset + 1]);
+    }
+
+    private static void putMagicNumbers(final int[] bytePair, final ImageFormat format) {
+        MAGIC_NUMBER_FORMATS[bytePair[0] << 8 | bytePair[1]] = format;
     }
 
     /**
@@ -142,7 +176,9 @@ public final class Imaging {
      * @throws IOException      In the event of unsuccessful read or access operation.
      */
     public static String dumpImageFile(final File file) throws ImagingException, IOException {
-        return dumpImageFile(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return dumpImageFile(byteSource);
+        }
     }
 
     /**
@@ -171,7 +207,9 @@ public final class Imaging {
      * @throws IOException      In the event of unsuccessful read or access operation.
      */
     public static List<BufferedImage> getAllBufferedImages(final File file) throws ImagingException, IOException {
-        return getAllBufferedImages(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getAllBufferedImages(byteSource);
+        }
     }
 
     /**
@@ -184,7 +222,9 @@ public final class Imaging {
      * @throws IOException      In the event of unsuccessful read or access operation.
      */
     public static List<BufferedImage> getAllBufferedImages(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getAllBufferedImages(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getAllBufferedImages(byteSource);
+        }
     }
 
     /**
@@ -225,7 +265,9 @@ public final class Imaging {
      * @throws IOException      in the event of an unrecoverable I/O exception.
      */
     public static BufferedImage getBufferedImage(final File file) throws ImagingException, IOException {
-        return getBufferedImage(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getBufferedImage(byteSource);
+        }
     }
 
     /**
@@ -262,7 +304,9 @@ public final class Imaging {
      * @throws IOException      in the event of an unrecoverable I/O exception.
      */
     public static BufferedImage getBufferedImage(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getBufferedImage(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getBufferedImage(byteSource);
+        }
     }
 
     /**
@@ -296,7 +340,9 @@ public final class Imaging {
      * @throws IOException      in the event of an unrecoverable I/O condition.
      */
     public static FormatCompliance getFormatCompliance(final File file) throws ImagingException, IOException {
-        return getFormatCompliance(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getFormatCompliance(byteSource);
+        }
     }
 
     /**
@@ -338,7 +384,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static ICC_Profile getIccProfile(final File file) throws ImagingException, IOException {
-        return getIccProfile(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getIccProfile(byteSource);
+        }
     }
 
     /**
@@ -351,7 +399,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static ICC_Profile getIccProfile(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getIccProfile(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getIccProfile(byteSource);
+        }
     }
 
     /**
@@ -392,7 +442,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static byte[] getIccProfileBytes(final File file) throws ImagingException, IOException {
-        return getIccProfileBytes(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getIccProfileBytes(byteSource);
+        }
     }
 
     /**
@@ -438,7 +490,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static ImageInfo getImageInfo(final File file) throws ImagingException, IOException {
-        return getImageInfo(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getImageInfo(byteSource);
+        }
     }
 
     /**
@@ -460,7 +514,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static ImageInfo getImageInfo(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getImageInfo(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getImageInfo(byteSource);
+        }
     }
 
     /**
@@ -519,7 +575,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static Dimension getImageSize(final File file) throws ImagingException, IOException {
-        return getImageSize(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getImageSize(byteSource);
+        }
     }
 
     /**
@@ -532,7 +590,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static Dimension getImageSize(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getImageSize(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getImageSize(byteSource);
+        }
     }
 
     /**
@@ -587,7 +647,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static ImageMetadata getMetadata(final File file) throws ImagingException, IOException {
-        return getMetadata(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getMetadata(byteSource);
+        }
     }
 
     /**
@@ -613,7 +675,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static ImageMetadata getMetadata(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getMetadata(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getMetadata(byteSource);
+        }
     }
 
     /**
@@ -653,7 +717,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static String getXmpXml(final File file) throws ImagingException, IOException {
-        return getXmpXml(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getXmpXml(byteSource);
+        }
     }
 
     /**
@@ -666,7 +732,9 @@ public final class Imaging {
      * @throws IOException      if it fails to read the image data
      */
     public static String getXmpXml(final InputStream is, final String fileName) throws ImagingException, IOException {
-        return getXmpXml(ByteSource.inputStream(is, fileName));
+        try (ByteSource byteSource = ByteSource.inputStream(is, fileName)) {
+            return getXmpXml(byteSource);
+        }
     }
 
     /**
@@ -705,111 +773,52 @@ public final class Imaging {
             return ImageFormats.UNKNOWN;
         }
 
-        try (InputStream is = byteSource.getInputStream()) {
-            final int i1 = is.read();
-            final int i2 = is.read();
-            if (i1 < 0 || i2 < 0) {
-                throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-            }
-
-            final int b1 = i1 & 0xff;
-            final int b2 = i2 & 0xff;
-            final int[] bytePair = { b1, b2, };
+        final byte[] bytes = new byte[MAGIC_NUMBERS_LENGTH];
+        final int length = Math.max(0, byteSource.read(0, bytes, 0, bytes.length));
+        if (length < 2) {
+            throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
+        }
 
-            if (compareBytePair(MAGIC_NUMBERS_GIF, bytePair)) {
-                return ImageFormats.GIF;
-                // } else if (b1 == 0x00 && b2 == 0x00) // too similar to TGA
-                // {
-                // return ImageFormat.IMAGE_FORMAT_ICO;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PNG, bytePair)) {
-                return ImageFormats.PNG;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_JPEG, bytePair)) {
-                return ImageFormats.JPEG;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_BMP, bytePair)) {
-                return ImageFormats.BMP;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_TIFF_MOTOROLA, bytePair)) {
-                return ImageFormats.TIFF;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_TIFF_INTEL, bytePair)) {
-                return ImageFormats.TIFF;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PSD, bytePair)) {
-                return ImageFormats.PSD;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PAM, bytePair)) {
-                return ImageFormats.PAM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PBM_A, bytePair)) {
-                return ImageFormats.PBM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PBM_B, bytePair)) {
-                return ImageFormats.PBM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PGM_A, bytePair)) {
-                return ImageFormats.PGM;
-            }
-            if (compareBytePair(MAGIC_NUMBERS_PGM_B, bytePair)) {
-                return ImageFormats.PGM;
+        ImageFormat format = MAGIC_NUMBER_FORMATS[(0xff & bytes[0]) << 8 | 0xff & bytes[1]];
+        if (format == ImageFormats.JBIG2) {
+            if (length < 4) {
+                throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
             }
-            if (compareBytePair(MAGIC_NUMBERS_PPM_A, bytePair)) {
-                return ImageFormats.PPM;
+            if (!compareBytePair(MAGIC_NUMBERS_JBIG2_2, bytes, 2)) {
+                format = null;
             }
-            if (compareBytePair(MAGIC_NUMBERS_PPM_B, bytePair)) {
-                return ImageFormats.PPM;
+        } else if (format == ImageFormats.WEBP) {
+            if (length < 4) {
+                throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
             }
-            if (compareBytePair(MAGIC_NUMBERS_JBIG2_1, bytePair)) {
-                final int i3 = is.read();
-                final int i4 = is.read();
-                if (i3 < 0 || i4 < 0) {
-                    throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-                }
-
-                final int b3 = i3 & 0xff;
-                final int b4 = i4 & 0xff;
-                final int[] bytePair2 = { b3, b4, };
-                if (compareBytePair(MAGIC_NUMBERS_JBIG2_2, bytePair2)) {
-                    return ImageFormats.JBIG2;
-                }
-            } else if (compareBytePair(MAGIC_NUMBERS_ICNS, bytePair)) {
-                return ImageFormats.ICNS;
-            } else if (compareBytePair(MAGIC_NUMBERS_DCX, bytePair)) {
-                return ImageFormats.DCX;
-            } else if (compareBytePair(MAGIC_NUMBERS_RGBE, bytePair)) {
-                return ImageFormats.RGBE;
-            } else if (compareBytePair(MAGIC_NUMBERS_RIFF_1, bytePair)) {
-                final int i3 = is.read();
-                final int i4 = is.read();
-                if (i3 < 0 || i4 < 0) {
-                    throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-                }
-
-                final int b3 = i3 & 0xff;
-                final int b4 = i4 & 0xff;
-                final int[] bytePair2 = { b3, b4, };
-                if (compareBytePair(MAGIC_NUMBERS_RIFF_2, bytePair2)) {
-                    final byte[] bytes = new byte[4];
-                    if (is.read(bytes) < 4) { // Skip file size
-                        throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
-                    }
-
-                    if (is.read(bytes) == 4 && Arrays.equals(MAGIC_NUMBERS_WEBP, bytes)) {
-                        return ImageFormats.WEBP;
+            if (!compareBytePair(MAGIC_NUMBERS_RIFF_2, bytes, 2)) {
+                format = null;
+            } else if (length < 8) { // Skip file size
+                throw new IllegalArgumentException("Couldn't read magic numbers to guess format.");
+            } else if (length < 12) {
+                format = null;
+            } else {
+                for (int i = 0; i < MAGIC_NUMBERS_WEBP.length; i++) {
+                    if (bytes[8 + i] != MAGIC_NUMBERS_WEBP[i]) {
+                        format = null;
+                        break;
                     }
                 }
             }
-            return Stream.of(ImageFormats.values()).filter(imageFormat -> Stream.of(imageFormat.getExtensions()).anyMatch(extension -> {
-                final String fileName = byteSource.getFileName();
-                if (fileName == null || fileName.trim().isEmpty()) {
-                    return false;
-                }
-                final String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1);
-                return extension != null && !extension.trim().isEmpty() && fileExtension.equalsIgnoreCase(extension);
-            })).findFirst().orElse(ImageFormats.UNKNOWN);
         }
+        if (format != null) {
+            return format;
+        }
+
+        final String fileName = byteSource.getFileName();
+        if (fileName == null || fileName.trim().isEmpty()) {
+            return ImageFormats.UNKNOWN;
+        }
+        final String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        return Stream.of(ImageFormats.values())
+                .filter(imageFormat -> Stream.of(imageFormat.getExtensions())
+                        .anyMatch(extension -> extension != null && !extension.trim().isEmpty() && fileExtension.equalsIgnoreCase(extension)))
+                .findFirst().orElse(ImageFormats.UNKNOWN);
     }
 
     /**
@@ -826,7 +835,9 @@ public final class Imaging {
      * @throws IOException in the event of an unrecoverable I/O condition.
      */
     public static ImageFormat guessFormat(final File file) throws IOException {
-        return guessFormat(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return guessFormat(byteSource);
+        }
     }
 
     /**
@@ -857,7 +868,7 @@ public final class Imaging {
 
         final String normalizedFileName = fileName.toLowerCase(Locale.ROOT);
 
-        for (final AbstractImageParser<?> imageParser : AbstractImageParser.getAllImageParsers()) {
+        for (final AbstractImageParser<?> imageParser : ImageParserFactory.getImageParsers()) {
             for (final String extension : imageParser.getAcceptedExtensions()) {
                 if (normalizedFileName.endsWith(extension.toLowerCase(Locale.ROOT))) {
                     return true;
@@ -868,6 +879,61 @@ public final class Imaging {
         return false;
     }
 
+    /**
+     * Probes an image's format, dimensions, bit depth, frame count and metadata, reading up to {@link #DEFAULT_PROBE_LENGTH} leading bytes at once.
+     *
+     * @param byteSource a valid ByteSource object potentially supplying data for an image.
+     * @return the probe result.
+     * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+     * @throws IOException      In the event of unsuccessful read or access operation.
+     * @see #probe(ByteSource, int)
+     * @since 1.0-alpha6
+     */
+    public static ImageProbe probe(final ByteSource byteSource) throws ImagingException, IOException {
+        return probe(byteSource, DEFAULT_PROBE_LENGTH);
+    }
+
+    /**
+     * Probes an image's format, dimensions, bit depth, frame count and metadata.
+     *
+     * <p>
+     * The first {@code maxBytes} bytes are read from the source in one read, and format detection and every parser pass over the headers are served from
+     * that copy. The source is read again only for data beyond the prefix, such as metadata stored after the image data.
+     * </p>
+     *
+     * @param byteSource a valid ByteSource object potentially supplying data for an image.
+     * @param maxBytes   the number of leading bytes to read at once.
+     * @return the probe result.
+     * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+     * @throws IOException      In the event of unsuccessful read or access operation.
+     * @see #probe(ByteSource, int, boolean)
+     * @since 1.0-alpha6
+     */
+    public static ImageProbe probe(final ByteSource byteSource, final int maxBytes) throws ImagingException, IOException {
+        return probe(byteSource, maxBytes, true);
+    }
+
+    /**
+     * Probes an image's format, dimensions, bit depth, frame count and, unless skipped, metadata.
+     *
+     * <p>
+     * Works like {@link #probe(ByteSource, int)}. Checking for metadata costs extra parser passes with some formats, so callers that only need the image's
+     * basic properties can skip it; the probe's metadata flags are then all false. JPEG answers everything from one walk of its segments either way.
+     * </p>
+     *
+     * @param byteSource a valid ByteSource object potentially supplying data for an image.
+     * @param maxBytes   the number of leading bytes to read at once.
+     * @param metadata   whether to check for an ICC profile, XMP and other metadata.
+     * @return the probe result.
+     * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+     * @throws IOException      In the event of unsuccessful read or access operation.
+     * @since 1.0-alpha6
+     */
+    public static ImageProbe probe(final ByteSource byteSource, final int maxBytes, final boolean metadata) throws ImagingException, IOException {
+        final ByteSource prefix = ByteSource.prefix(byteSource, maxBytes);
+        return ImageParserFactory.getImageParser(prefix).probe(prefix, metadata);
+    }
+
     /**
      * Writes the content of a BufferedImage to a file using the specified image format.
      *
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.internal.ImageParserFactory;
+
+/**
+ * Runs an operation, such as reading image info, metadata or images, over many byte sources on an {@link Executor}.
+ * <p>
+ * Each run keeps at most {@code maxConcurrency} sources in flight. Before a source is processed, its operation estimates the heap it needs, for example
+ * the decoded size of an image; a source only starts once its estimate fits in the memory budget alongside the sources already running. An estimate beyond
+ * the {@link Allocator} limit fails that source immediately, and one beyond the budget alone waits until it can run by itself.
+ * </p>
+ * <p>
+ * Results are streamed back in completion order. A source that fails yields a result holding the failure; the rest of the batch carries on.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public final class ImagingBatch {
+
+    /**
+     * An operation run on each source of a batch.
+     *
+     * @param <R> the result type.
+     */
+    @FunctionalInterface
+    public interface Operation<R> {
+
+        /**
+         * Runs the operation on one source.
+         *
+         * @param byteSource the source.
+         * @return the result.
+         * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+         * @throws IOException      In the event of unsuccessful read or access operation.
+         */
+        R apply(ByteSource byteSource) throws ImagingException, IOException;
+
+        /**
+         * Estimates the heap, in bytes, that {@link #apply(ByteSource)} needs for a source. The default is zero, for operations that only read headers.
+         *
+         * @param byteSource the source.
+         * @return the estimate in bytes.
+         * @throws ImagingException In the event that the specified content does not conform to the format of the specific parser implementation.
+         * @throws IOException      In the event of unsuccessful read or access operation.
+         */
+        default long estimateMemory(final ByteSource byteSource) throws ImagingException, IOException {
+            return 0;
+        }
+    }
+
+    /**
+     * The outcome of an operation on one source.
+     *
+     * @param <R> the result type.
+     */
+    public static final class Result<R> {
+
+        private final ByteSource byteSource;
+        private final R value;
+        private final Throwable failure;
+
+        Result(final ByteSource byteSource, final R value, final Throwable failure) {
+            this.byteSource = byteSource;
+            this.value = value;
+            this.failure = failure;
+        }
+
+        /**
+         * Gets the source this result is for.
+         *
+         * @return the source.
+         */
+        public ByteSource getByteSource() {
+            return byteSource;
+        }
+
+        /**
+         * Gets the failure, if the operation did not complete.
+         *
+         * @return the failure, or null on success.
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * Gets the value the operation returned.
+         *
+         * @return the value, or null on failure.
+         */
+        public R getValue() {
+            return value;
+        }
+
+        /**
+         * Tests whether the operation completed.
+         *
+         * @return whether there is no failure.
+         */
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            return "Result [byteSource=" + byteSource + ", " + (isSuccess() ? "value=" + value : "failure=" + failure) + "]";
+        }
+    }
+
+    private final class Run<R> implements Iterator<Result<R>> {
+
+        private final Operation<R> operation;
+        private final Iterator<ByteSource> pending;
+        private final int count;
+        private final BlockingQueue<Result<R>> results = new LinkedBlockingQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        /** Counts requests to submit more sources; only the thread that raises it from zero submits, so completions never recurse into submission. */
+        private final AtomicInteger submitRequests = new AtomicInteger();
+        private int returned;
+        private long reserved;
+
+        Run(final List<ByteSource> byteSources, final Operation<R> operation) {
+            this.operation = operation;
+            this.pending = byteSources.iterator();
+            this.count = byteSources.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return returned < count;
+        }
+
+        @Override
+        public Result<R> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                final Result<R> result = results.take();
+                returned++;
+                return result;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for batch results", e);
+            }
+        }
+
+        private void process(final ByteSource byteSource) {
+            long bytes = 0;
+            Result<R> result;
+            try {
+                final long estimate = operation.estimateMemory(byteSource);
+                Allocator.check(estimate, Byte.BYTES);
+                final long request = Math.min(Math.max(0, estimate), memoryBudget);
+                reserve(request);
+                bytes = request;
+                result = new Result<>(byteSource, operation.apply(byteSource), null);
+            } catch (final Exception | Error e) {
+                result = new Result<>(byteSource, null, e);
+            } finally {
+                release(bytes);
+            }
+            results.add(result);
+            inFlight.decrementAndGet();
+            submit();
+        }
+
+        private synchronized void release(final long bytes) {
+            if (bytes > 0) {
+                reserved -= bytes;
+                notifyAll();
+            }
+        }
+
+        private synchronized void reserve(final long bytes) throws InterruptedIOException {
+            while (reserved > 0 && reserved + bytes > memoryBudget) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for memory budget");
+                }
+            }
+            reserved += bytes;
+        }
+
+        void start() {
+            submit();
+        }
+
+        private void submit() {
+            if (submitRequests.getAndIncrement() != 0) {
+                // the thread already submitting picks up this request.
+                return;
+            }
+            int requests = 1;
+            do {
+                while (inFlight.get() < maxConcurrency && pending.hasNext()) {
+                    final ByteSource byteSource = pending.next();
+                    inFlight.incrementAndGet();
+                    try {
+                        executor.execute(() -> process(byteSource));
+                    } catch (final RejectedExecutionException e) {
+                        inFlight.decrementAndGet();
+                        results.add(new Result<>(byteSource, null, e));
+                    }
+                }
+                requests = submitRequests.addAndGet(-requests);
+            } while (requests != 0);
+        }
+    }
+
+    /**
+     * Creates byte sources for files.
+     * <p>
+     * A source keeps its file open once read until it is closed, so close each one when done with it, for example as its result is consumed.
+     * </p>
+     *
+     * @param files the files.
+     * @return a new list of byte sources, in the same order.
+     */
+    public static List<ByteSource> files(final Collection<? extends File> files) {
+        return files.stream().map(ByteSource::file).collect(Collectors.toList());
+    }
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final long memoryBudget;
+
+    /**
+     * Constructs a batch whose memory budget is the {@link Allocator} limit.
+     *
+     * @param executor       the executor to run operations on, for example a {@link java.util.concurrent.ForkJoinPool}.
+     * @param maxConcurrency the maximum number of sources in flight per run.
+     */
+    public ImagingBatch(final Executor executor, final int maxConcurrency) {
+        this(executor, maxConcurrency, Allocator.getLimit());
+    }
+
+    /**
+     * Constructs a batch.
+     *
+     * @param executor       the executor to run operations on, for example a {@link java.util.concurrent.ForkJoinPool}.
+     * @param maxConcurrency the maximum number of sources in flight per run.
+     * @param memoryBudget   the maximum estimated heap, in bytes, for the sources in flight per run.
+     */
+    public ImagingBatch(final Executor executor, final int maxConcurrency, final long memoryBudget) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency < 1: " + maxConcurrency);
+        }
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("memoryBudget < 1: " + memoryBudget);
+        }
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.maxConcurrency = maxConcurrency;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Reads the first image of each source. Each image is budgeted at its width times height times four bytes, read from its header.
+     *
+     * @param byteSources the sources.
+     * @return the results, in completion order.
+     */
+    public Stream<Result<BufferedImage>> getBufferedImages(final Collection<? extends ByteSource> byteSources) {
+        return run(byteSources, new Operation<BufferedImage>() {
+
+            @Override
+            public BufferedImage apply(final ByteSource byteSource) throws ImagingException, IOException {
+                return ImageParserFactory.getImageParser(byteSource).getBufferedImage(byteSource, null);
+            }
+
+            @Override
+            public long estimateMemory(final ByteSource byteSource) throws ImagingException, IOException {
+                // the header is parsed from one read of the leading bytes, as by Imaging.probe.
+                final ByteSource prefix = ByteSource.prefix(byteSource, Imaging.DEFAULT_PROBE_LENGTH);
+                final Dimension size = ImageParserFactory.getImageParser(prefix).getImageSize(prefix, null);
+                return (long) size.width * size.height * Integer.BYTES;
+            }
+        });
+    }
+
+    /**
+     * Reads the image info of each source.
+     *
+     * @param byteSources the sources.
+     * @return the results, in completion order.
+     */
+    public Stream<Result<ImageInfo>> getImageInfos(final Collection<? extends ByteSource> byteSources) {
+        return run(byteSources, byteSource -> ImageParserFactory.getImageParser(byteSource).getImageInfo(byteSource, null));
+    }
+
+    /**
+     * Reads the metadata of each source.
+     *
+     * @param byteSources the sources.
+     * @return the results, in completion order.
+     */
+    public Stream<Result<ImageMetadata>> getMetadata(final Collection<? extends ByteSource> byteSources) {
+        return run(byteSources, byteSource -> ImageParserFactory.getImageParser(byteSource).getMetadata(byteSource, null));
+    }
+
+    /**
+     * Runs an operation on each source.
+     * <p>
+     * Work starts before this method returns. Consuming the stream waits for results as they complete.
+     * </p>
+     *
+     * @param <R>         the result type.
+     * @param byteSources the sources.
+     * @param operation   the operation.
+     * @return the results, in completion order; one for each source.
+     */
+    public <R> Stream<Result<R>> run(final Collection<? extends ByteSource> byteSources, final Operation<R> operation) {
+        Objects.requireNonNull(operation, "operation");
+        final Run<R> run = new Run<>(new ArrayList<>(byteSources), operation);
+        run.start();
+        return StreamSupport.stream(Spliterators.spliterator(run, run.count, Spliterator.NONNULL), false);
+    }
+
+}
@@ -16,7 +16,11 @@
  */
 package org.apache.commons.imaging;
 
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
 import org.apache.commons.imaging.common.BufferedImageFactory;
+import org.apache.commons.imaging.common.PixelBufferPool;
 
 /**
  * Imaging parameters.
@@ -53,6 +57,21 @@ public class ImagingParameters<E extends ImagingParameters<E>> {
      */
     private PixelDensity pixelDensity;
 
+    /**
+     * An image to decode into, reused when its size and type match the decoded image. Default is {@code null}.
+     */
+    private BufferedImage destinationImage;
+
+    /**
+     * A pool that decoders obtain pixel buffers from. Default is {@code null}.
+     */
+    private PixelBufferPool pixelBufferPool;
+
+    /**
+     * The region of the image to read. Default is {@code null}, for the whole image.
+     */
+    private Rectangle region;
+
     /**
      * Returns this instance typed as the subclass type {@code E}.
      * <p>
@@ -73,6 +92,16 @@ public class ImagingParameters<E extends ImagingParameters<E>> {
         return bufferedImageFactory;
     }
 
+    /**
+     * Gets the image to decode into.
+     *
+     * @return the destination image, or null.
+     * @since 1.0-alpha6
+     */
+    public BufferedImage getDestinationImage() {
+        return destinationImage;
+    }
+
     public String getFileName() {
         return fileName;
     }
@@ -81,6 +110,26 @@ public class ImagingParameters<E extends ImagingParameters<E>> {
         return pixelDensity;
     }
 
+    /**
+     * Gets the pool that decoders obtain pixel buffers from.
+     *
+     * @return the pool, or null.
+     * @since 1.0-alpha6
+     */
+    public PixelBufferPool getPixelBufferPool() {
+        return pixelBufferPool;
+    }
+
+    /**
+     * Gets the region of the image to read.
+     *
+     * @return a copy of the region, or null for the whole image.
+     * @since 1.0-alpha6
+     */
+    public Rectangle getRegion() {
+        return region == null ? null : new Rectangle(region);
+    }
+
     public boolean isStrict() {
         return strict;
     }
@@ -90,6 +139,20 @@ public class ImagingParameters<E extends ImagingParameters<E>> {
         return asThis();
     }
 
+    /**
+     * Sets an image to decode into. It is used, and returned by the read, when it has the decoded size and is of type {@link BufferedImage#TYPE_INT_RGB},
+     * {@link BufferedImage#TYPE_INT_ARGB} or {@link BufferedImage#TYPE_INT_ARGB_PRE} as the decoded image requires; otherwise a new image is returned.
+     * Decoders that do not produce packed {@code int} pixels ignore it.
+     *
+     * @param destinationImage the image to overwrite, or null.
+     * @return this instance.
+     * @since 1.0-alpha6
+     */
+    public E setDestinationImage(final BufferedImage destinationImage) {
+        this.destinationImage = destinationImage;
+        return asThis();
+    }
+
     public E setFileName(final String fileName) {
         this.fileName = fileName;
         return asThis();
@@ -100,6 +163,32 @@ public class ImagingParameters<E extends ImagingParameters<E>> {
         return asThis();
     }
 
+    /**
+     * Sets a pool that decoders obtain pixel buffers from, instead of allocating them.
+     *
+     * @param pixelBufferPool the pool, or null.
+     * @return this instance.
+     * @since 1.0-alpha6
+     */
+    public E setPixelBufferPool(final PixelBufferPool pixelBufferPool) {
+        this.pixelBufferPool = pixelBufferPool;
+        return asThis();
+    }
+
+    /**
+     * Sets the region of the image to read; reads then return an image of the region's size. PNG, BMP, PNM and PSD decoders skip the work for pixels
+     * outside the region where the format allows it, and TIFF reads it as a sub-image; other decoders ignore it. The region must lie within the image, or
+     * the read fails.
+     *
+     * @param region the region to read, or null for the whole image.
+     * @return this instance.
+     * @since 1.0-alpha6
+     */
+    public E setRegion(final Rectangle region) {
+        this.region = region == null ? null : new Rectangle(region);
+        return asThis();
+    }
+
     public E setStrict(final boolean strict) {
         this.strict = strict;
         return asThis();
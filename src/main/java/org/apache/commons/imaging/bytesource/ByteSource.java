@@ -16,10 +16,16 @@
  */
 package org.apache.commons.imaging.bytesource;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 import org.apache.commons.imaging.common.BinaryFunctions;
@@ -29,7 +35,7 @@ import org.apache.commons.io.build.AbstractOrigin.ByteArrayOrigin;
 import org.apache.commons.io.build.AbstractOrigin.FileOrigin;
 import org.apache.commons.io.build.AbstractOrigin.PathOrigin;
 
-public class ByteSource {
+public class ByteSource implements Closeable {
 
     public static ByteSource array(final byte[] array) {
         return new ByteSource(new ByteArrayOrigin(array), null);
@@ -43,6 +49,20 @@ public class ByteSource {
         return new ByteSource(new FileOrigin(file), file.getName());
     }
 
+    /**
+     * Creates a byte source that serves all reads, from any number of threads, from one shared channel on the given file.
+     * <p>
+     * Close the returned source when done with it; see {@link FileChannelByteSource} for sharing it between owners.
+     * </p>
+     *
+     * @param file the file to read.
+     * @return a new byte source holding one reference.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static FileChannelByteSource fileChannel(final Path file) throws IOException {
+        return new FileChannelByteSource(file);
+    }
+
     public static final InputStream getInputStream(final ByteSource byteSource, final long skip) throws IOException {
         InputStream is = null;
         boolean succeeded = false;
@@ -62,22 +82,148 @@ public class ByteSource {
         return new InputStreamByteSource(is, name);
     }
 
+    /**
+     * Creates a byte source that caches the contents of an input stream, keeping at most {@code memoryLimit} bytes on the heap.
+     * <p>
+     * Once the limit is reached, the least recently used blocks are spilled to a temporary file. The default limit used by
+     * {@link #inputStream(InputStream, String)} is 64 MiB, unless set with the system property
+     * {@code org.apache.commons.imaging.bytesource.InputStreamByteSource.memoryLimit}.
+     * </p>
+     * <p>
+     * The caller closes the returned source when done with it, which deletes the temporary file; closing it does not close the input stream.
+     * </p>
+     *
+     * @param is          the input stream to read.
+     * @param name        the file name, may be null.
+     * @param memoryLimit the maximum number of bytes to cache on the heap.
+     * @return a new byte source.
+     */
+    public static ByteSource inputStream(final InputStream is, final String name, final long memoryLimit) {
+        return new InputStreamByteSource(is, name, memoryLimit);
+    }
+
+    /**
+     * Creates a byte source backed by read-only memory mappings of the given file.
+     * <p>
+     * Calls to {@link #getByteBuffer(long, int)} on the returned source return slices of the mapping rather than copies.
+     * </p>
+     *
+     * @param file the file to map.
+     * @return a new byte source.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static ByteSource mapped(final Path file) throws IOException {
+        return new MappedByteSource(file);
+    }
+
     public static ByteSource path(final Path file) {
         return new ByteSource(new PathOrigin(file), Objects.toString(file.getFileName(), null));
     }
 
+    /**
+     * Creates a byte source that reads up to {@code maxLength} leading bytes of another source at once, and serves later reads of them from memory.
+     * <p>
+     * This suits callers such as format detection, which make many small reads near the start of the data. Reads past the prefix fall through to
+     * {@code source}.
+     * </p>
+     *
+     * @param source    the source to read.
+     * @param maxLength the maximum number of bytes to read up front.
+     * @return a new byte source.
+     * @throws IOException if the prefix cannot be read.
+     * @since 1.0-alpha6
+     */
+    public static ByteSource prefix(final ByteSource source, final int maxLength) throws IOException {
+        return new PrefixByteSource(source, maxLength);
+    }
+
+    static void checkPosition(final long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position < 0: " + position);
+        }
+    }
+
+    /**
+     * Reads from a channel at a position until the buffer is full or the end of the channel is reached.
+     */
+    static int readChannel(final FileChannel channel, final long position, final ByteBuffer dst) throws IOException {
+        int total = 0;
+        while (dst.hasRemaining()) {
+            final int read = channel.read(dst, position + total);
+            if (read < 0) {
+                return total == 0 ? -1 : total;
+            }
+            total += read;
+        }
+        return total;
+    }
+
     private final String fileName;
     private final AbstractOrigin<?, ?> origin;
+    /** The channel that positional reads of a file or path go through, opened by the first of them and kept open until the source is closed. */
+    private volatile FileChannel channel;
 
     ByteSource(final AbstractOrigin<?, ?> origin, final String fileName) {
         this.origin = Objects.requireNonNull(origin, "origin");
         this.fileName = fileName; // may be null
     }
 
+    /**
+     * Releases the resources the source holds, such as the channel that positional reads of a file or path open.
+     * <p>
+     * Whoever creates a source closes it; parsers never close the sources passed to them. Sources of arrays hold nothing, and a closed source of a file or
+     * path can still be read, holding a channel again until closed again.
+     * </p>
+     *
+     * @throws IOException if a resource cannot be released.
+     */
+    @Override
+    public void close() throws IOException {
+        final FileChannel current;
+        synchronized (this) {
+            current = channel;
+            channel = null;
+        }
+        IOUtils.close(current);
+    }
+
     public byte[] getByteArray(final long position, final int length) throws IOException {
         return origin.getByteArray(position, length);
     }
 
+    /**
+     * Gets the channel for positional reads, opening it if it is not open yet or was closed by an interrupt.
+     */
+    private FileChannel getChannel() throws IOException {
+        FileChannel current = channel;
+        if (current == null || !current.isOpen()) {
+            synchronized (this) {
+                current = channel;
+                if (current == null || !current.isOpen()) {
+                    current = FileChannel.open(origin.getPath(), StandardOpenOption.READ);
+                    channel = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets a read-only view of a range of bytes.
+     * <p>
+     * Memory-mapped sources return a slice of the mapping without copying; other sources return a buffer wrapping the result of
+     * {@link #getByteArray(long, int)}.
+     * </p>
+     *
+     * @param position the start of the range.
+     * @param length   the length of the range.
+     * @return a read-only buffer positioned at zero with {@code length} bytes remaining.
+     * @throws IOException if the range cannot be read.
+     */
+    public ByteBuffer getByteBuffer(final long position, final int length) throws IOException {
+        return ByteBuffer.wrap(getByteArray(position, length)).asReadOnlyBuffer();
+    }
+
     public final String getFileName() {
         return fileName;
     }
@@ -86,6 +232,63 @@ public class ByteSource {
         return origin.getInputStream();
     }
 
+    /**
+     * Reads bytes at a position into a caller-supplied array, without allocating.
+     *
+     * @param position the position in the source to read from.
+     * @param dst      the array to read into.
+     * @param off      the offset in {@code dst} to start writing at.
+     * @param len      the maximum number of bytes to read.
+     * @return the number of bytes read, which is less than {@code len} only if the end of the source was reached, or -1 if {@code position} is at or
+     *         beyond the end of the source.
+     * @throws IOException if the source cannot be read.
+     */
+    public int read(final long position, final byte[] dst, final int off, final int len) throws IOException {
+        return read(position, ByteBuffer.wrap(dst, off, len));
+    }
+
+    /**
+     * Reads bytes at a position into a caller-supplied buffer, without allocating.
+     * <p>
+     * Bytes are written from the buffer's position up to its limit, and the buffer's position is advanced by the number of bytes read.
+     * </p>
+     * <p>
+     * Sources of a file or path open a read-only channel on the first call and keep it for later calls until the source is {@link #close() closed}.
+     * </p>
+     *
+     * @param position the position in the source to read from.
+     * @param dst      the buffer to read into.
+     * @return the number of bytes read, which is less than {@code dst.remaining()} only if the end of the source was reached, or -1 if {@code position} is
+     *         at or beyond the end of the source.
+     * @throws IOException if the source cannot be read.
+     */
+    public int read(final long position, final ByteBuffer dst) throws IOException {
+        checkPosition(position);
+        if (origin instanceof ByteArrayOrigin) {
+            // the origin hands back its array without copying.
+            final byte[] array = origin.getByteArray();
+            if (position >= array.length) {
+                return dst.hasRemaining() ? -1 : 0;
+            }
+            final int count = (int) Math.min(dst.remaining(), array.length - position);
+            dst.put(array, (int) position, count);
+            return count;
+        }
+        final int start = dst.position();
+        while (true) {
+            final FileChannel current = getChannel();
+            try {
+                return readChannel(current, position, dst);
+            } catch (final ClosedByInterruptException e) {
+                // this thread was interrupted; the next read opens a new channel.
+                throw e;
+            } catch (final ClosedChannelException e) {
+                // closed by an interrupt in another thread or by close(); retry on a new channel.
+                dst.position(start);
+            }
+        }
+    }
+
     /**
      * This operation can be VERY expensive; for InputStream byte sources, the entire stream must be drained to determine its length.
      *
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.io.build.AbstractOrigin.PathOrigin;
+
+/**
+ * A byte source that serves every read from one shared {@link FileChannel}, and may be used from many threads at once.
+ * <p>
+ * Reads are positional, so they don't contend on a shared file position, and input streams don't reopen the file. The source is reference counted: it
+ * starts with one reference, each {@link #retain()} adds one, and each {@link #close()} releases one; the channel is closed when the last reference is
+ * released.
+ * </p>
+ * <p>
+ * A {@link FileChannel} is closed when a thread blocked on it is interrupted. The interrupted read fails as usual, but the channel is reopened so reads in
+ * other threads carry on.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public final class FileChannelByteSource extends ByteSource {
+
+    private final class ChannelInputStream extends InputStream {
+        private long position;
+
+        @Override
+        public int available() {
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size - position));
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 1 ? -1 : 0xff & single[0];
+        }
+
+        @Override
+        public int read(final byte[] array, final int off, final int len) throws IOException {
+            Objects.requireNonNull(array, "array");
+            if (off < 0 || len < 0 || off + len > array.length || off + len < 0) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            final int read = FileChannelByteSource.this.read(position, array, off, len);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            final long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    private final Path path;
+    private final long size;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private volatile FileChannel channel;
+
+    FileChannelByteSource(final Path path) throws IOException {
+        super(new PathOrigin(path), Objects.toString(path.getFileName(), null));
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    /**
+     * Releases one reference, closing the channel when no references remain. Releasing more references than were taken has no effect.
+     *
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        while (true) {
+            final int count = references.get();
+            if (count <= 0) {
+                return;
+            }
+            if (references.compareAndSet(count, count - 1)) {
+                if (count == 1) {
+                    synchronized (this) {
+                        channel.close();
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public byte[] getByteArray(final long position, final int length) throws IOException {
+        // We include a separate check for long overflow.
+        if (position < 0 || length < 0 || position + length < 0 || position + length > size) {
+            throw new ImagingException("Could not read block (block start: " + position + ", block length: " + length + ", data length: " + size + ").");
+        }
+        final byte[] bytes = Allocator.byteArray(length);
+        if (length > 0 && read(position, bytes, 0, length) < length) {
+            throw new ImagingException("Could not read block.");
+        }
+        return bytes;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (references.get() <= 0) {
+            throw new ClosedChannelException();
+        }
+        return new BufferedInputStream(new ChannelInputStream());
+    }
+
+    /**
+     * Tests whether any references remain.
+     *
+     * @return whether the channel is still open for reading.
+     */
+    public boolean isOpen() {
+        return references.get() > 0;
+    }
+
+    @Override
+    public int read(final long position, final ByteBuffer dst) throws IOException {
+        checkPosition(position);
+        final int start = dst.position();
+        while (true) {
+            final FileChannel current = channel;
+            try {
+                return readChannel(current, position, dst);
+            } catch (final ClosedByInterruptException e) {
+                // this thread was interrupted; don't let that break the channel for the others.
+                reopen(current);
+                throw e;
+            } catch (final ClosedChannelException e) {
+                // closed by an interrupt in another thread, or by the last close().
+                if (!reopen(current)) {
+                    throw e;
+                }
+                dst.position(start);
+            }
+        }
+    }
+
+    /**
+     * Reopens the channel if it is still the given, now closed, channel and references remain.
+     *
+     * @return whether a usable channel is available.
+     */
+    private synchronized boolean reopen(final FileChannel closed) throws IOException {
+        if (references.get() <= 0) {
+            return false;
+        }
+        if (channel == closed && !closed.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a reference, which must be released with {@link #close()}.
+     *
+     * @return this instance.
+     * @throws IllegalStateException if the last reference has already been released.
+     */
+    public FileChannelByteSource retain() {
+        while (true) {
+            final int count = references.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Already closed: " + this);
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        return size;
+    }
+
+}
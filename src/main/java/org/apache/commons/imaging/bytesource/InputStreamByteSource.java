@@ -16,69 +16,49 @@
  */
 package org.apache.commons.imaging.bytesource;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
-import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.build.AbstractOrigin.InputStreamOrigin;
 
+/**
+ * Caches the contents of a one-shot input stream in fixed-size blocks so it can be read many times and randomly accessed.
+ * <p>
+ * Blocks are indexed by {@code position / BLOCK_SIZE}. At most {@code memoryLimit} bytes of blocks are kept on the heap; the least recently used blocks
+ * beyond that are spilled to a temporary file and read back on demand.
+ * </p>
+ * <p>
+ * Closing the source deletes the temporary file and drops the cached blocks, after which it cannot be read. The input stream is left open for its owner to
+ * close.
+ * </p>
+ */
 final class InputStreamByteSource extends ByteSource {
 
-    private final class Block {
-
-        final byte[] bytes;
-        private Block next;
-        private boolean triedNext;
-
-        Block(final byte[] bytes) {
-            this.bytes = bytes;
-        }
-
-        Block getNext() throws IOException {
-            if (null != next) {
-                return next;
-            }
-            if (triedNext) {
-                return null;
-            }
-            triedNext = true;
-            next = readBlock();
-            return next;
-        }
-
-    }
-
     private final class BlockInputStream extends InputStream {
-        private Block block;
-        private boolean readFirst;
-        private int blockIndex;
+        private long position;
 
         @Override
         public int read() throws IOException {
-            if (null == block) {
-                if (readFirst) {
-                    return -1;
-                }
-                block = getFirstBlock();
-                readFirst = true;
-            }
-            if (block != null && blockIndex >= block.bytes.length) {
-                block = block.getNext();
-                blockIndex = 0;
-            }
-            if (null == block) {
+            final byte[] block = getBlock(blockIndex(position));
+            final int blockOffset = blockOffset(position);
+            if (null == block || blockOffset >= block.length) {
                 return -1;
             }
-            if (blockIndex >= block.bytes.length) {
-                return -1;
-            }
-            return 0xff & block.bytes[blockIndex++];
+            position++;
+            return 0xff & block[blockOffset];
         }
 
         @Override
@@ -92,104 +72,152 @@ final class InputStreamByteSource extends ByteSource {
                 return 0;
             }
             // optimized block read
-            if (null == block) {
-                if (readFirst) {
-                    return -1;
-                }
-                block = getFirstBlock();
-                readFirst = true;
-            }
-            if (block != null && blockIndex >= block.bytes.length) {
-                block = block.getNext();
-                blockIndex = 0;
-            }
-            if (null == block) {
+            final byte[] block = getBlock(blockIndex(position));
+            final int blockOffset = blockOffset(position);
+            if (null == block || blockOffset >= block.length) {
                 return -1;
             }
-            if (blockIndex >= block.bytes.length) {
-                return -1;
-            }
-            final int readSize = Math.min(len, block.bytes.length - blockIndex);
-            System.arraycopy(block.bytes, blockIndex, array, off, readSize);
-            blockIndex += readSize;
+            final int readSize = Math.min(len, block.length - blockOffset);
+            System.arraycopy(block, blockOffset, array, off, readSize);
+            position += readSize;
             return readSize;
         }
 
         @Override
         public long skip(final long n) throws IOException {
-            long remaining = n;
             if (n <= 0) {
                 return 0;
             }
-            while (remaining > 0) {
-                // read the first block
-                if (null == block) {
-                    if (readFirst) {
-                        return -1;
-                    }
-                    block = getFirstBlock();
-                    readFirst = true;
-                }
-                // get next block
-                if (block != null && blockIndex >= block.bytes.length) {
-                    block = block.getNext();
-                    blockIndex = 0;
-                }
-                if (null == block) {
-                    break;
-                }
-                if (blockIndex >= block.bytes.length) {
+            // the stream must still be read up to the new position, a block at a time.
+            final long target = position + Math.min(n, Long.MAX_VALUE - position);
+            while (position < target) {
+                final byte[] block = getBlock(blockIndex(position));
+                final int blockOffset = blockOffset(position);
+                if (null == block || blockOffset >= block.length) {
                     break;
                 }
-                final int readSize = Math.min((int) Math.min(BLOCK_SIZE, remaining), block.bytes.length - blockIndex);
-                blockIndex += readSize;
-                remaining -= readSize;
+                position += Math.min(block.length - blockOffset, target - position);
             }
-            return n - remaining;
+            return n - (target - position);
         }
 
     }
 
     private static final int BLOCK_SIZE = IOUtils.DEFAULT_BUFFER_SIZE;
+
+    /**
+     * The default heap budget for cached blocks, set with the system property {@code org.apache.commons.imaging.bytesource.InputStreamByteSource.memoryLimit};
+     * 64 MiB by default.
+     */
+    static final long DEFAULT_MEMORY_LIMIT = Long.getLong(InputStreamByteSource.class.getCanonicalName() + ".memoryLimit", 64L * 1024 * 1024);
+
+    private static int blockIndex(final long position) {
+        return (int) (position / BLOCK_SIZE);
+    }
+
+    private static int blockOffset(final long position) {
+        return (int) (position % BLOCK_SIZE);
+    }
+
     private final InputStream inputStream;
-    private Block headBlock;
-    private byte[] readBuffer;
+    private final int maxBlocksInMemory;
+    // access order, so iteration starts at the least recently used block.
+    private final LinkedHashMap<Integer, byte[]> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private int blockCount;
+    private boolean exhausted;
+    private FileChannel spillChannel;
+    private final BitSet spilled = new BitSet();
     private long streamLength = -1;
+    private boolean closed;
 
     InputStreamByteSource(final InputStream inputStream, final String fileName) {
+        this(inputStream, fileName, DEFAULT_MEMORY_LIMIT);
+    }
+
+    InputStreamByteSource(final InputStream inputStream, final String fileName, final long memoryLimit) {
         super(new InputStreamOrigin(inputStream), fileName);
-        this.inputStream = new BufferedInputStream(inputStream);
+        this.inputStream = inputStream;
+        this.maxBlocksInMemory = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryLimit / BLOCK_SIZE));
+    }
+
+    private void cacheBlock(final int index, final byte[] block) throws IOException {
+        blocks.put(index, block);
+        if (blocks.size() > maxBlocksInMemory) {
+            final Iterator<Map.Entry<Integer, byte[]>> iterator = blocks.entrySet().iterator();
+            final Map.Entry<Integer, byte[]> eldest = iterator.next();
+            spillBlock(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Already closed: " + this);
+        }
+    }
+
+    /**
+     * Drops the cached blocks and closes, which deletes, the temporary file they were spilled to. The input stream is not closed.
+     *
+     * @throws IOException if the temporary file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        blocks.clear();
+        final FileChannel channel = spillChannel;
+        spillChannel = null;
+        IOUtils.close(channel);
+    }
+
+    /**
+     * Reads the stream until it holds at least {@code end} bytes or is exhausted.
+     */
+    private void fill(final long end) throws IOException {
+        while ((long) blockCount * BLOCK_SIZE < end && readBlock()) {
+            // keep reading
+        }
+    }
+
+    private byte[] getBlock(final int index) throws IOException {
+        checkOpen();
+        while (index >= blockCount) {
+            if (!readBlock()) {
+                return null;
+            }
+        }
+        byte[] block = blocks.get(index);
+        if (null == block) {
+            block = readSpilledBlock(index);
+            cacheBlock(index, block);
+        }
+        return block;
     }
 
-    @SuppressWarnings("resource") // accesses input stream more than once, don't close here.
     @Override
     public byte[] getByteArray(final long position, final int length) throws IOException {
         // We include a separate check for int overflow.
-        if (position < 0 || length < 0 || position + length < 0 || position + length > size()) {
+        if (position < 0 || length < 0 || position + length < 0) {
+            throw new ImagingException(
+                    "Could not read block (block start: " + position + ", block length: " + length + ", data length: " + streamLength + ").");
+        }
+        // only read as far as needed, rather than draining the stream to learn its size.
+        fill(position + length);
+        if (exhausted && position + length > streamLength) {
             throw new ImagingException(
                     "Could not read block (block start: " + position + ", block length: " + length + ", data length: " + streamLength + ").");
         }
-        final InputStream cis = getInputStream();
-        BinaryFunctions.skipBytes(cis, position);
         final byte[] bytes = Allocator.byteArray(length);
         int total = 0;
-        while (true) {
-            final int read = cis.read(bytes, total, bytes.length - total);
-            if (read < 1) {
-                throw new ImagingException("Could not read block.");
-            }
-            total += read;
-            if (total >= length) {
-                return bytes;
-            }
+        while (total < length) {
+            final long current = position + total;
+            final byte[] block = getBlock(blockIndex(current));
+            final int blockOffset = blockOffset(current);
+            final int readSize = Math.min(length - total, block.length - blockOffset);
+            System.arraycopy(block, blockOffset, bytes, total, readSize);
+            total += readSize;
         }
-    }
-
-    private Block getFirstBlock() throws IOException {
-        if (null == headBlock) {
-            headBlock = readBlock();
-        }
-        return headBlock;
+        return bytes;
     }
 
     @Override
@@ -197,33 +225,86 @@ final class InputStreamByteSource extends ByteSource {
         return new BlockInputStream();
     }
 
-    private Block readBlock() throws IOException {
-        if (null == readBuffer) {
-            readBuffer = new byte[BLOCK_SIZE];
+    private int getBlockLength(final int index) {
+        if (exhausted && index == blockCount - 1) {
+            return (int) (streamLength - (long) index * BLOCK_SIZE);
         }
+        return BLOCK_SIZE;
+    }
 
-        final int read = inputStream.read(readBuffer);
-        if (read < 1) {
-            return null;
+    private boolean readBlock() throws IOException {
+        checkOpen();
+        if (exhausted) {
+            return false;
         }
+        final byte[] buffer = new byte[BLOCK_SIZE];
+        final int read = IOUtils.read(inputStream, buffer);
         if (read < BLOCK_SIZE) {
-            // return a copy.
-            return new Block(Arrays.copyOf(readBuffer, read));
+            exhausted = true;
+            streamLength = (long) blockCount * BLOCK_SIZE + read;
+            if (read < 1) {
+                return false;
+            }
+            cacheBlock(blockCount++, Arrays.copyOf(buffer, read));
+            return true;
         }
-        // return current buffer.
-        final byte[] result = readBuffer;
-        readBuffer = null;
-        return new Block(result);
+        cacheBlock(blockCount++, buffer);
+        return true;
+    }
+
+    @Override
+    public int read(final long position, final ByteBuffer dst) throws IOException {
+        checkPosition(position);
+        int total = 0;
+        while (dst.hasRemaining()) {
+            final long current = position + total;
+            final byte[] block = getBlock(blockIndex(current));
+            final int blockOffset = blockOffset(current);
+            if (null == block || blockOffset >= block.length) {
+                return total == 0 ? -1 : total;
+            }
+            final int readSize = Math.min(dst.remaining(), block.length - blockOffset);
+            dst.put(block, blockOffset, readSize);
+            total += readSize;
+        }
+        return total;
+    }
+
+    private byte[] readSpilledBlock(final int index) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(getBlockLength(index));
+        final long position = (long) index * BLOCK_SIZE;
+        while (buffer.hasRemaining()) {
+            if (spillChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new ImagingException("Could not read spilled block " + index + ".");
+            }
+        }
+        return buffer.array();
     }
 
     @Override
     public long size() throws IOException {
-        if (streamLength >= 0) {
-            return streamLength;
+        while (readBlock()) {
+            // keep reading
+        }
+        return streamLength;
+    }
+
+    private void spillBlock(final int index, final byte[] block) throws IOException {
+        // blocks never change, so each only needs writing once.
+        if (spilled.get(index)) {
+            return;
+        }
+        if (null == spillChannel) {
+            // deleted once close() closes the channel; on most platforms the file is unlinked right away, and its space is held until then.
+            spillChannel = FileChannel.open(Files.createTempFile("imaging", ".blocks"), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
         }
-        try (InputStream cis = getInputStream()) {
-            return streamLength = IOUtils.consume(cis);
+        final ByteBuffer buffer = ByteBuffer.wrap(block);
+        final long position = (long) index * BLOCK_SIZE;
+        while (buffer.hasRemaining()) {
+            spillChannel.write(buffer, position + buffer.position());
         }
+        spilled.set(index);
     }
 
 }
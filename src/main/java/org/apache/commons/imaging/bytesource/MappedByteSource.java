@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.io.build.AbstractOrigin.PathOrigin;
+
+/**
+ * A byte source backed by read-only memory mappings of a file.
+ * <p>
+ * Files larger than {@link #SEGMENT_SIZE} are mapped as several consecutive segments, since a single mapping cannot exceed {@link Integer#MAX_VALUE} bytes.
+ * Requests that fall within one segment are served as zero-copy slices; requests spanning a segment boundary are copied.
+ * </p>
+ */
+final class MappedByteSource extends ByteSource {
+
+    private final class MappedInputStream extends InputStream {
+        private long position;
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, size - position);
+        }
+
+        @Override
+        public int read() {
+            if (position >= size) {
+                return -1;
+            }
+            final ByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+            return 0xff & segment.get((int) (position++ % SEGMENT_SIZE));
+        }
+
+        @Override
+        public int read(final byte[] array, final int off, final int len) {
+            Objects.requireNonNull(array, "array");
+            if (off < 0 || len < 0 || off + len > array.length || off + len < 0) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            final int readSize = (int) Math.min(len, size - position);
+            copy(position, array, off, readSize);
+            position += readSize;
+            return readSize;
+        }
+
+        @Override
+        public long skip(final long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            final long skipped = Math.min(n, size - position);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    /** One GB; the size of each mapped segment except possibly the last. */
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    MappedByteSource(final Path file) throws IOException {
+        super(new PathOrigin(file), Objects.toString(file.getFileName(), null));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // mappings remain valid after the channel is closed.
+            size = channel.size();
+            segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                final long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+        }
+    }
+
+    private void checkBounds(final long position, final int length) throws ImagingException {
+        // We include a separate check for long overflow.
+        if (position < 0 || length < 0 || position + length < 0 || position + length > size) {
+            throw new ImagingException("Could not read block (block start: " + position + ", block length: " + length + ", data length: " + size + ").");
+        }
+    }
+
+    private void copy(final long position, final byte[] array, final int off, final int len) {
+        long srcPosition = position;
+        int dstOffset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final ByteBuffer segment = segments[(int) (srcPosition / SEGMENT_SIZE)].duplicate();
+            final int segmentOffset = (int) (srcPosition % SEGMENT_SIZE);
+            final int count = Math.min(remaining, segment.limit() - segmentOffset);
+            segment.position(segmentOffset);
+            segment.get(array, dstOffset, count);
+            srcPosition += count;
+            dstOffset += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public byte[] getByteArray(final long position, final int length) throws IOException {
+        checkBounds(position, length);
+        final byte[] bytes = Allocator.byteArray(length);
+        copy(position, bytes, 0, length);
+        return bytes;
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer(final long position, final int length) throws IOException {
+        checkBounds(position, length);
+        if (length == 0) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+        final int index = (int) (position / SEGMENT_SIZE);
+        final int segmentOffset = (int) (position % SEGMENT_SIZE);
+        if (segmentOffset + (long) length <= segments[index].limit()) {
+            final ByteBuffer slice = segments[index].duplicate();
+            slice.position(segmentOffset);
+            slice.limit(segmentOffset + length);
+            return slice.slice().asReadOnlyBuffer();
+        }
+        // spans a segment boundary.
+        final byte[] bytes = Allocator.byteArray(length);
+        copy(position, bytes, 0, length);
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new MappedInputStream();
+    }
+
+    @Override
+    public int read(final long position, final ByteBuffer dst) throws IOException {
+        checkPosition(position);
+        if (position >= size) {
+            return dst.hasRemaining() ? -1 : 0;
+        }
+        final int count = (int) Math.min(dst.remaining(), size - position);
+        long srcPosition = position;
+        int remaining = count;
+        while (remaining > 0) {
+            final ByteBuffer segment = segments[(int) (srcPosition / SEGMENT_SIZE)].duplicate();
+            final int segmentOffset = (int) (srcPosition % SEGMENT_SIZE);
+            final int n = Math.min(remaining, segment.limit() - segmentOffset);
+            segment.position(segmentOffset);
+            segment.limit(segmentOffset + n);
+            dst.put(segment);
+            srcPosition += n;
+            remaining -= n;
+        }
+        return count;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return size;
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.build.AbstractOrigin.ByteArrayOrigin;
+
+/**
+ * A byte source that reads the leading bytes of another source once, and serves every later read of them from memory.
+ * <p>
+ * Reads that extend past the prefix fall through to the underlying source. If the underlying source ended within the prefix, it is never read again.
+ * </p>
+ */
+final class PrefixByteSource extends ByteSource {
+
+    private final class PrefixInputStream extends InputStream {
+        private int position;
+        private InputStream rest;
+
+        @Override
+        public int available() throws IOException {
+            if (position < length) {
+                return length - position;
+            }
+            return rest == null ? 0 : rest.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(rest);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position < length) {
+                return 0xff & prefix[position++];
+            }
+            return complete ? -1 : rest().read();
+        }
+
+        @Override
+        public int read(final byte[] array, final int off, final int len) throws IOException {
+            Objects.requireNonNull(array, "array");
+            if (off < 0 || len < 0 || off + len > array.length || off + len < 0) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (position < length) {
+                final int count = Math.min(len, length - position);
+                System.arraycopy(prefix, position, array, off, count);
+                position += count;
+                return count;
+            }
+            return complete ? -1 : rest().read(array, off, len);
+        }
+
+        private InputStream rest() throws IOException {
+            if (rest == null) {
+                rest = getInputStream(source, length);
+            }
+            return rest;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            if (position < length) {
+                final int skipped = (int) Math.min(n, length - position);
+                position += skipped;
+                return skipped;
+            }
+            return complete ? 0 : rest().skip(n);
+        }
+    }
+
+    private final ByteSource source;
+    private final byte[] prefix;
+    private final int length;
+    /** Whether the underlying source ends within the prefix. */
+    private final boolean complete;
+
+    PrefixByteSource(final ByteSource source, final int maxLength) throws IOException {
+        this(source, readPrefix(source, maxLength), maxLength);
+    }
+
+    private PrefixByteSource(final ByteSource source, final byte[] prefix, final int maxLength) {
+        super(new ByteArrayOrigin(prefix), source.getFileName());
+        this.source = source;
+        this.prefix = prefix;
+        this.length = prefix.length;
+        this.complete = prefix.length < maxLength;
+    }
+
+    private static byte[] readPrefix(final ByteSource source, final int maxLength) throws IOException {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("maxLength < 0: " + maxLength);
+        }
+        final byte[] prefix = Allocator.byteArray(maxLength);
+        final int read = maxLength == 0 ? 0 : source.read(0, prefix, 0, maxLength);
+        return read < maxLength ? Arrays.copyOf(prefix, Math.max(0, read)) : prefix;
+    }
+
+    @Override
+    public byte[] getByteArray(final long position, final int length) throws IOException {
+        // We include a separate check for long overflow.
+        if (position < 0 || length < 0 || position + length < 0) {
+            throw new ImagingException("Could not read block (block start: " + position + ", block length: " + length + ").");
+        }
+        if (position + length <= this.length) {
+            return Arrays.copyOfRange(prefix, (int) position, (int) position + length);
+        }
+        if (complete) {
+            throw new ImagingException("Could not read block (block start: " + position + ", block length: " + length + ", data length: " + this.length + ").");
+        }
+        return source.getByteArray(position, length);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new PrefixInputStream();
+    }
+
+    @Override
+    public int read(final long position, final ByteBuffer dst) throws IOException {
+        checkPosition(position);
+        if (position >= length) {
+            if (complete) {
+                return dst.hasRemaining() ? -1 : 0;
+            }
+            return source.read(position, dst);
+        }
+        final int count = (int) Math.min(dst.remaining(), length - position);
+        dst.put(prefix, (int) position, count);
+        if (!dst.hasRemaining() || complete) {
+            return count;
+        }
+        return count + Math.max(0, source.read(length, dst));
+    }
+
+    @Override
+    public long size() throws IOException {
+        return complete ? length : source.size();
+    }
+
+}
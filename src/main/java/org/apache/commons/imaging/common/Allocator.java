@@ -210,6 +210,16 @@ public class Allocator {
         return new float[check(request, Float.BYTES)];
     }
 
+    /**
+     * Gets the limit, in bytes, that allocation requests are checked against.
+     *
+     * @return the allocation limit.
+     * @since 1.0-alpha6
+     */
+    public static int getLimit() {
+        return LIMIT;
+    }
+
     /**
      * Allocates a int array of the requested size.
      *
@@ -25,9 +25,14 @@ import java.awt.image.DataBufferInt;
 import java.awt.image.DirectColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RasterFormatException;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
+import java.util.Arrays;
 import java.util.Properties;
 
+import org.apache.commons.imaging.ImagingParameters;
+
 /*
  * Development notes:
  * This class was introduced to the Apache Commons Imaging library in
@@ -53,12 +58,36 @@ import java.util.Properties;
 /**
  * A utility class primary intended for storing data obtained by reading image files.
  */
-public class ImageBuilder {
+public class ImageBuilder implements PixelSink {
+
+    /**
+     * Tests whether an image can be decoded into directly: it must be backed by one packed {@code int[]} of exactly the given size, in the layout
+     * {@link #getBufferedImage()} would build.
+     */
+    private static boolean isCompatible(final BufferedImage image, final int width, final int height, final boolean hasAlpha,
+            final boolean isAlphaPremultiplied) {
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            return false;
+        }
+        final int type = !hasAlpha ? BufferedImage.TYPE_INT_RGB : isAlphaPremultiplied ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_ARGB;
+        if (image.getType() != type) {
+            return false;
+        }
+        final WritableRaster raster = image.getRaster();
+        final SampleModel sampleModel = raster.getSampleModel();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        return raster.getParent() == null && sampleModel instanceof SinglePixelPackedSampleModel
+                && ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride() == width && dataBuffer instanceof DataBufferInt
+                && dataBuffer.getNumBanks() == 1 && dataBuffer.getOffset() == 0;
+    }
+
     private final int[] data;
     private final int width;
     private final int height;
     private final boolean hasAlpha;
     private final boolean isAlphaPremultiplied;
+    /** The caller's image that {@link #data} belongs to, or null. */
+    private final BufferedImage destination;
 
     /**
      * Constructs an ImageBuilder instance.
@@ -70,13 +99,7 @@ public class ImageBuilder {
      * @throws RasterFormatException if {@code width} or {@code height} are equal or less than zero
      */
     public ImageBuilder(final int width, final int height, final boolean hasAlpha) {
-        checkDimensions(width, height);
-
-        data = Allocator.intArray(width * height);
-        this.width = width;
-        this.height = height;
-        this.hasAlpha = hasAlpha;
-        this.isAlphaPremultiplied = false;
+        this(width, height, hasAlpha, false, null);
     }
 
     /**
@@ -90,8 +113,34 @@ public class ImageBuilder {
      * @throws RasterFormatException if {@code width} or {@code height} are equal or less than zero
      */
     public ImageBuilder(final int width, final int height, final boolean hasAlpha, final boolean isAlphaPremultiplied) {
+        this(width, height, hasAlpha, isAlphaPremultiplied, null);
+    }
+
+    /**
+     * Constructs an ImageBuilder instance whose pixels are stored in the destination image or pooled buffer given by the parameters, if any.
+     *
+     * @param width                the width of the image to be built
+     * @param height               the height of the image to be built
+     * @param hasAlpha             indicates whether the image has an alpha channel (the selection of alpha channel does not change the memory requirements for
+     *                             the ImageBuilder or resulting BufferedImage.
+     * @param isAlphaPremultiplied indicates whether alpha values are pre-multiplied; this setting is relevant only if alpha is true.
+     * @param params               the parameters supplying a {@link ImagingParameters#getDestinationImage() destination image} or
+     *                             {@link ImagingParameters#getPixelBufferPool() pixel buffer pool}; may be null.
+     * @throws RasterFormatException if {@code width} or {@code height} are equal or less than zero
+     * @since 1.0-alpha6
+     */
+    public ImageBuilder(final int width, final int height, final boolean hasAlpha, final boolean isAlphaPremultiplied, final ImagingParameters<?> params) {
         checkDimensions(width, height);
-        data = Allocator.intArray(width * height);
+        final BufferedImage image = params == null ? null : params.getDestinationImage();
+        final PixelBufferPool pool = params == null ? null : params.getPixelBufferPool();
+        if (isCompatible(image, width, height, hasAlpha, isAlphaPremultiplied)) {
+            data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            Arrays.fill(data, 0);
+            destination = image;
+        } else {
+            data = pool != null ? pool.acquire(width * height) : Allocator.intArray(width * height);
+            destination = null;
+        }
         this.width = width;
         this.height = height;
         this.hasAlpha = hasAlpha;
@@ -145,11 +194,14 @@ public class ImageBuilder {
     }
 
     /**
-     * Create a BufferedImage using the data stored in the ImageBuilder.
+     * Create a BufferedImage using the data stored in the ImageBuilder. If the builder was given a compatible destination image, that image is returned.
      *
      * @return a valid BufferedImage.
      */
     public BufferedImage getBufferedImage() {
+        if (destination != null) {
+            return destination;
+        }
         return makeBufferedImage(data, width, height, hasAlpha);
     }
 
@@ -158,6 +210,7 @@ public class ImageBuilder {
      *
      * @return a positive integer
      */
+    @Override
     public int getHeight() {
         return height;
     }
@@ -232,6 +285,7 @@ public class ImageBuilder {
      *
      * @return a positive integer
      */
+    @Override
     public int getWidth() {
         return width;
     }
@@ -260,6 +314,7 @@ public class ImageBuilder {
      * @throws ArithmeticException      if the index computation overflows an int.
      * @throws IllegalArgumentException if the resulting index is illegal.
      */
+    @Override
     public void setRgb(final int x, final int y, final int argb) {
         // Throw ArithmeticException if the result overflows an int.
         final int rowOffset = Math.multiplyExact(y, width);
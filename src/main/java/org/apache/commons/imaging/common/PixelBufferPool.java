@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of {@code int[]} pixel buffers, for reuse across decodes of similarly sized images.
+ * <p>
+ * Buffers are handed out in size classes: requests are rounded up to one of four steps between consecutive powers of two, so a buffer may be up to a
+ * quarter longer than asked for. Buffers are zeroed when acquired. The pool retains released buffers up to a total size, and is safe to share between
+ * threads.
+ * </p>
+ * <p>
+ * Set a pool with {@link org.apache.commons.imaging.ImagingParameters#setPixelBufferPool(PixelBufferPool)}, and release each image, once no longer needed,
+ * with {@link #release(BufferedImage)}. A released buffer must not be used again by the caller.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public final class PixelBufferPool {
+
+    /** The smallest size class, in pixels. */
+    private static final int MIN_SIZE_CLASS = 4096;
+
+    static int sizeClass(final int length) {
+        if (length <= MIN_SIZE_CLASS) {
+            return MIN_SIZE_CLASS;
+        }
+        final int step = Integer.highestOneBit(length - 1) >> 2;
+        final long rounded = ((long) length + step - 1) / step * step;
+        return rounded > Integer.MAX_VALUE - 8 ? length : (int) rounded;
+    }
+
+    private final long maxRetainedBytes;
+    private final Map<Integer, ArrayDeque<int[]>> free = new HashMap<>();
+    private long retainedBytes;
+
+    /**
+     * Constructs a pool that retains up to the {@link Allocator} limit.
+     */
+    public PixelBufferPool() {
+        this(Allocator.getLimit());
+    }
+
+    /**
+     * Constructs a pool.
+     *
+     * @param maxRetainedBytes the maximum total size, in bytes, of the released buffers kept for reuse.
+     */
+    public PixelBufferPool(final long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Acquires a zeroed buffer of at least the given length, reusing a released one when available.
+     *
+     * @param length the number of pixels needed.
+     * @return a buffer whose first {@code length} elements are zero.
+     * @throws AllocationRequestException Thrown when the request exceeds the limit.
+     */
+    public int[] acquire(final int length) {
+        Allocator.check(length, Integer.BYTES);
+        final int sizeClass = sizeClass(length);
+        int[] buffer = null;
+        synchronized (this) {
+            final ArrayDeque<int[]> buffers = free.get(sizeClass);
+            if (buffers != null) {
+                buffer = buffers.pollLast();
+            }
+            if (buffer != null) {
+                retainedBytes -= (long) buffer.length * Integer.BYTES;
+            }
+        }
+        if (buffer == null) {
+            return sizeClass > Allocator.getLimit() / Integer.BYTES ? new int[length] : new int[sizeClass];
+        }
+        Arrays.fill(buffer, 0, length, 0);
+        return buffer;
+    }
+
+    /**
+     * Gets the total size of the buffers currently held for reuse.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Returns the pixel buffer of an image to the pool. Images that are not backed by a single {@code int[]} bank are ignored.
+     *
+     * @param image the image, which must not be used afterwards.
+     */
+    public void release(final BufferedImage image) {
+        final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        if (dataBuffer instanceof DataBufferInt && dataBuffer.getNumBanks() == 1) {
+            release(((DataBufferInt) dataBuffer).getData());
+        }
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers whose length is not a size class, or that would take the pool over its limit, are left to the garbage
+     * collector.
+     *
+     * @param buffer the buffer, which must not be used afterwards.
+     */
+    public void release(final int[] buffer) {
+        if (buffer == null || buffer.length != sizeClass(buffer.length)) {
+            return;
+        }
+        final long bytes = (long) buffer.length * Integer.BYTES;
+        synchronized (this) {
+            if (retainedBytes + bytes > maxRetainedBytes) {
+                return;
+            }
+            final ArrayDeque<int[]> buffers = free.computeIfAbsent(buffer.length, k -> new ArrayDeque<>());
+            for (final int[] retained : buffers) {
+                if (retained == buffer) {
+                    // already released.
+                    return;
+                }
+            }
+            buffers.addLast(buffer);
+            retainedBytes += bytes;
+        }
+    }
+
+}
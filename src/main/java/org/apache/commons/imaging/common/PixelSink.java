@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+/**
+ * Receives the pixels of an image as a decoder produces them. An {@link ImageBuilder} stores them to build a {@link java.awt.image.BufferedImage}; a
+ * {@link RowImageBuilder} hands each row to a {@link RowConsumer} as soon as it is complete.
+ *
+ * @since 1.0-alpha6
+ */
+public interface PixelSink {
+
+    /**
+     * Gets the height of the image.
+     *
+     * @return a positive integer.
+     */
+    int getHeight();
+
+    /**
+     * Gets the width of the image.
+     *
+     * @return a positive integer.
+     */
+    int getWidth();
+
+    /**
+     * Sets the RGB or ARGB value of the pixel at position (x,y).
+     *
+     * @param x    the X coordinate of the pixel to be set.
+     * @param y    the Y coordinate of the pixel to be set.
+     * @param argb the RGB or ARGB value to be stored.
+     */
+    void setRgb(int x, int y, int argb);
+}
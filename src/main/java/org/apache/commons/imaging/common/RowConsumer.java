@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+/**
+ * Receives the rows of a decoded image one at a time, so that an image can be processed without ever being held in memory as a whole.
+ * <p>
+ * Each row is delivered exactly once, as the non-premultiplied sRGB values {@link java.awt.image.BufferedImage#getRGB(int, int)} would return for the
+ * decoded image. Rows are delivered in the order the format stores them, which is not always top to bottom.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+@FunctionalInterface
+public interface RowConsumer {
+
+    /**
+     * Accepts one row of pixels.
+     *
+     * @param y    the index of the row within the image.
+     * @param argb the pixels of the row, one ARGB value per column. The array is reused for the next row, so it must be copied if it is to be kept.
+     */
+    void accept(int y, int[] argb);
+}
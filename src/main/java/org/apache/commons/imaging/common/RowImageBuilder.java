@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.RasterFormatException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * A {@link PixelSink} that holds a single row of pixels and hands each row to a {@link RowConsumer} as soon as the decoder moves on to another one.
+ * <p>
+ * Decoders may write rows in any order, for instance bottom to top, but must finish one row before starting the next; a row is delivered when the first
+ * pixel of a different row is set. Call {@link #finish()} once decoding is done to deliver the last row, and any rows the decoder skipped as zero
+ * pixels.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public final class RowImageBuilder implements PixelSink {
+
+    private final RowConsumer rowConsumer;
+    private final int[] row;
+    /** The values passed to the consumer; the same array as {@link #row} unless premultiplied values must be converted. */
+    private final int[] output;
+    /** Wraps {@link #row} to convert premultiplied values, or null. */
+    private final BufferedImage premultipliedRow;
+    private final int height;
+    private final boolean hasAlpha;
+    private final BitSet delivered;
+    private int currentY = -1;
+
+    /**
+     * Constructs an instance.
+     *
+     * @param width                the width of the image to be built.
+     * @param height               the height of the image to be built.
+     * @param hasAlpha             indicates whether the image has an alpha channel; if not, delivered pixels are made opaque.
+     * @param isAlphaPremultiplied indicates whether alpha values are pre-multiplied; if so, they are converted before delivery.
+     * @param rowConsumer          receives the rows.
+     * @throws RasterFormatException if {@code width} or {@code height} are equal or less than zero.
+     */
+    public RowImageBuilder(final int width, final int height, final boolean hasAlpha, final boolean isAlphaPremultiplied, final RowConsumer rowConsumer) {
+        if (width <= 0) {
+            throw new RasterFormatException("zero or negative width value");
+        }
+        if (height <= 0) {
+            throw new RasterFormatException("zero or negative height value");
+        }
+        this.rowConsumer = Objects.requireNonNull(rowConsumer, "rowConsumer");
+        this.height = height;
+        this.hasAlpha = hasAlpha;
+        if (hasAlpha && isAlphaPremultiplied) {
+            premultipliedRow = new BufferedImage(width, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+            row = ((DataBufferInt) premultipliedRow.getRaster().getDataBuffer()).getData();
+            output = Allocator.intArray(width);
+        } else {
+            premultipliedRow = null;
+            row = Allocator.intArray(width);
+            output = row;
+        }
+        this.delivered = new BitSet(height);
+    }
+
+    private void deliver(final int y) {
+        if (premultipliedRow != null) {
+            premultipliedRow.getRGB(0, 0, row.length, 1, output, 0, row.length);
+        } else if (!hasAlpha) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] |= 0xff000000;
+            }
+        }
+        delivered.set(y);
+        rowConsumer.accept(y, output);
+    }
+
+    /**
+     * Delivers the current row and then any rows never written, in top to bottom order. Has no effect when called again.
+     */
+    public void finish() {
+        if (currentY >= 0) {
+            deliver(currentY);
+        }
+        for (int y = delivered.nextClearBit(0); y < height; y = delivered.nextClearBit(y + 1)) {
+            Arrays.fill(row, 0);
+            deliver(y);
+        }
+        currentY = -1;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets a pixel of the row being built.
+     *
+     * @param x the X coordinate of the pixel.
+     * @param y the Y coordinate of the pixel.
+     * @return the ARGB value set so far.
+     * @throws IllegalStateException if {@code y} is not the row being built.
+     */
+    public int getRgb(final int x, final int y) {
+        if (y != currentY) {
+            throw new IllegalStateException("Row " + y + " is not the current row");
+        }
+        return row[x];
+    }
+
+    @Override
+    public int getWidth() {
+        return row.length;
+    }
+
+    /**
+     * Sets a pixel, first delivering the current row if {@code y} starts a new one.
+     *
+     * @throws IllegalArgumentException if {@code y} is outside the image.
+     * @throws IllegalStateException    if row {@code y} was already delivered.
+     */
+    @Override
+    public void setRgb(final int x, final int y, final int argb) {
+        if (y != currentY) {
+            if (y < 0 || y >= height) {
+                throw new IllegalArgumentException("setRGB: Illegal row " + y);
+            }
+            if (delivered.get(y)) {
+                throw new IllegalStateException("Row " + y + " was already delivered");
+            }
+            if (currentY >= 0) {
+                deliver(currentY);
+            }
+            Arrays.fill(row, 0);
+            currentY = y;
+        }
+        row[x] = argb;
+    }
+}
@@ -19,9 +19,38 @@ package org.apache.commons.imaging.common;
 
 import java.awt.image.BufferedImage;
 
+import org.apache.commons.imaging.ImagingParameters;
+
 public class SimpleBufferedImageFactory implements BufferedImageFactory {
+
+    static {
+        // the JDK fills the tables that convert between sRGB and gray on their first use, without synchronization, so images decoded concurrently
+        // on a fresh JVM could read them half filled; filling them while this class initializes publishes them to every thread that uses it.
+        new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY).setRGB(0, 0, 0xffffffff);
+        new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY).getRGB(0, 0);
+    }
+
+    private final ImagingParameters<?> params;
+
+    public SimpleBufferedImageFactory() {
+        this(null);
+    }
+
+    /**
+     * Constructs a factory that builds {@code int} images in the destination image or pooled buffers given by the parameters, if any.
+     *
+     * @param params the parameters, may be null.
+     * @since 1.0-alpha6
+     */
+    public SimpleBufferedImageFactory(final ImagingParameters<?> params) {
+        this.params = params;
+    }
+
     @Override
     public BufferedImage getColorBufferedImage(final int width, final int height, final boolean hasAlpha) {
+        if (params != null) {
+            return new ImageBuilder(width, height, hasAlpha, false, params).getBufferedImage();
+        }
         if (hasAlpha) {
             return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         }
@@ -31,6 +60,9 @@ public class SimpleBufferedImageFactory implements BufferedImageFactory {
     @Override
     public BufferedImage getGrayscaleBufferedImage(final int width, final int height, final boolean hasAlpha) {
         if (hasAlpha) {
+            if (params != null) {
+                return new ImageBuilder(width, height, true, false, params).getBufferedImage();
+            }
             return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         }
 
@@ -16,13 +16,14 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
+import java.awt.Rectangle;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 abstract class AbstractPixelParser {
 
@@ -50,6 +51,16 @@ abstract class AbstractPixelParser {
         return alpha << 24 | red << 16 | green << 8 | blue << 0;
     }
 
-    public abstract void processImage(ImageBuilder imageBuilder) throws ImagingException, IOException;
+    public void processImage(final PixelSink imageBuilder) throws ImagingException, IOException {
+        processImage(imageBuilder, new Rectangle(0, 0, bhi.width, bhi.height));
+    }
+
+    /**
+     * Decodes the pixels within a region of the image into an image builder the size of the region.
+     *
+     * @param imageBuilder receives the pixels, with coordinates relative to the region.
+     * @param region       the region to decode.
+     */
+    public abstract void processImage(PixelSink imageBuilder, Rectangle region) throws ImagingException, IOException;
 
 }
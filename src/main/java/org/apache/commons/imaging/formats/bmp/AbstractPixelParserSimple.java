@@ -16,10 +16,11 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
+import java.awt.Rectangle;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 abstract class AbstractPixelParserSimple extends AbstractPixelParser {
     AbstractPixelParserSimple(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData) {
@@ -30,13 +31,22 @@ abstract class AbstractPixelParserSimple extends AbstractPixelParser {
 
     public abstract void newline() throws ImagingException, IOException;
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The image data must start with the bottom row of the region, as {@link BmpImageParser} reads it for a region.
+     * </p>
+     */
     @Override
-    public void processImage(final ImageBuilder imageBuilder) throws ImagingException, IOException {
-        for (int y = bhi.height - 1; y >= 0; y--) {
+    public void processImage(final PixelSink imageBuilder, final Rectangle region) throws ImagingException, IOException {
+        final int right = region.x + region.width;
+        for (int y = region.y + region.height - 1; y >= region.y; y--) {
             for (int x = 0; x < bhi.width; x++) {
                 final int rgb = getNextRgb();
 
-                imageBuilder.setRgb(x, y, rgb);
+                if (x >= region.x && x < right) {
+                    imageBuilder.setRgb(x - region.x, y - region.y, rgb);
+                }
                 // db.setElem(y * bhi.width + x, rgb);
             }
             newline();
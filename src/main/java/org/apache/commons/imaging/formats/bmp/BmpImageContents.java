@@ -16,18 +16,28 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
+import java.awt.Rectangle;
+
 final class BmpImageContents {
 
     final BmpHeaderInfo bhi;
     final byte[] colorTable;
     final byte[] imageData;
     final AbstractPixelParser abstractPixelParser;
+    /** The region of the image to decode, which {@link #imageData} may be limited to. */
+    final Rectangle region;
 
     BmpImageContents(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData, final AbstractPixelParser abstractPixelParser) {
+        this(bhi, colorTable, imageData, abstractPixelParser, new Rectangle(0, 0, bhi.width, bhi.height));
+    }
+
+    BmpImageContents(final BmpHeaderInfo bhi, final byte[] colorTable, final byte[] imageData, final AbstractPixelParser abstractPixelParser,
+            final Rectangle region) {
         this.bhi = bhi;
         this.colorTable = colorTable;
         this.imageData = imageData;
         this.abstractPixelParser = abstractPixelParser;
+        this.region = region;
     }
 
 }
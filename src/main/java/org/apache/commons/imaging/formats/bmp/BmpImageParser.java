@@ -20,8 +20,10 @@ import static org.apache.commons.imaging.common.BinaryFunctions.read2Bytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.read4Bytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.readByte;
 import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
+import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -45,6 +47,8 @@ import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.BinaryOutputStream;
 import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RowConsumer;
+import org.apache.commons.imaging.common.RowImageBuilder;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.palette.SimplePalette;
 
@@ -66,6 +70,16 @@ public class BmpImageParser extends AbstractImageParser<BmpImagingParameters> {
         super(ByteOrder.LITTLE_ENDIAN);
     }
 
+    @Override
+    public void decodeRows(final ByteSource byteSource, final BmpImagingParameters params, final RowConsumer rowConsumer) throws ImagingException, IOException {
+        try (InputStream is = byteSource.getInputStream()) {
+            final BmpImageContents ic = readImageContents(is, FormatCompliance.getDefault(), params);
+            final RowImageBuilder imageBuilder = new RowImageBuilder(ic.region.width, ic.region.height, true, false, rowConsumer);
+            ic.abstractPixelParser.processImage(imageBuilder, ic.region);
+            imageBuilder.finish();
+        }
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource) throws ImagingException, IOException {
         pw.println("bmp.dumpImageFile");
@@ -120,7 +134,7 @@ public class BmpImageParser extends AbstractImageParser<BmpImagingParameters> {
     }
 
     public BufferedImage getBufferedImage(final InputStream inputStream, final BmpImagingParameters params) throws ImagingException, IOException {
-        final BmpImageContents ic = readImageContents(inputStream, FormatCompliance.getDefault());
+        final BmpImageContents ic = readImageContents(inputStream, FormatCompliance.getDefault(), params);
 
         final BmpHeaderInfo bhi = ic.bhi;
         // byte[] colorTable = ic.colorTable;
@@ -137,8 +151,8 @@ public class BmpImageParser extends AbstractImageParser<BmpImagingParameters> {
         }
 
         final AbstractPixelParser abstractPixelParser = ic.abstractPixelParser;
-        final ImageBuilder imageBuilder = new ImageBuilder(width, height, true);
-        abstractPixelParser.processImage(imageBuilder);
+        final ImageBuilder imageBuilder = new ImageBuilder(ic.region.width, ic.region.height, true, false, params);
+        abstractPixelParser.processImage(imageBuilder, ic.region);
 
         return imageBuilder.getBufferedImage();
 
@@ -448,6 +462,15 @@ public class BmpImageParser extends AbstractImageParser<BmpImagingParameters> {
     }
 
     private BmpImageContents readImageContents(final InputStream is, final FormatCompliance formatCompliance) throws ImagingException, IOException {
+        return readImageContents(is, formatCompliance, null);
+    }
+
+    /**
+     * Reads the image contents; for uncompressed images with a {@link BmpImagingParameters#getRegion() region}, only the image data for the rows of the
+     * region is read, skipping over the rest.
+     */
+    private BmpImageContents readImageContents(final InputStream is, final FormatCompliance formatCompliance, final BmpImagingParameters params)
+            throws ImagingException, IOException {
         final BmpHeaderInfo bhi = readBmpHeaderInfo(is, formatCompliance);
 
         int colorTableSize = bhi.colorsUsed;
@@ -577,7 +600,14 @@ public class BmpImageParser extends AbstractImageParser<BmpImagingParameters> {
             readBytes("BitmapDataOffset", is, extraBytes, "Not a Valid BMP File");
         }
 
-        final int imageDataSize = bhi.height * imageLineLength;
+        final Rectangle requestedRegion = getRegion(params, bhi.width, bhi.height);
+        final Rectangle region = requestedRegion == null ? new Rectangle(0, 0, bhi.width, bhi.height) : requestedRegion;
+        int imageDataSize = bhi.height * imageLineLength;
+        if (!rle && requestedRegion != null) {
+            // rows are stored bottom up; skip those below the region, and read no further than its top row.
+            skipBytes(is, (long) (bhi.height - region.y - region.height) * imageLineLength, "Not a Valid BMP File");
+            imageDataSize = region.height * imageLineLength;
+        }
 
         if (LOGGER.isLoggable(Level.FINE)) {
             debugNumber("imageDataSize", imageDataSize, 4);
@@ -610,7 +640,7 @@ public class BmpImageParser extends AbstractImageParser<BmpImagingParameters> {
             throw new ImagingException("BMP: Unknown Compression: " + bhi.compression);
         }
 
-        return new BmpImageContents(bhi, colorTable, imageData, abstractPixelParser);
+        return new BmpImageContents(bhi, colorTable, imageData, abstractPixelParser, region);
     }
 
     @Override
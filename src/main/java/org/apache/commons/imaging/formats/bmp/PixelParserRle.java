@@ -16,12 +16,13 @@
  */
 package org.apache.commons.imaging.formats.bmp;
 
+import java.awt.Rectangle;
 import java.io.IOException;
 import java.util.logging.Logger;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.BinaryFunctions;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 final class PixelParserRle extends AbstractPixelParser {
 
@@ -61,19 +62,19 @@ final class PixelParserRle extends AbstractPixelParser {
         throw new ImagingException("BMP RLE: bad BitsPerPixel: " + bhi.bitsPerPixel);
     }
 
-    private int processByteOfData(final int[] rgbs, final int repeat, int x, final int y, final int width, final int height, final ImageBuilder imageBuilder) {
+    private int processByteOfData(final int[] rgbs, final int repeat, int x, final int y, final Rectangle region, final PixelSink imageBuilder) {
         // int rbg
         int pixelsWritten = 0;
         for (int i = 0; i < repeat; i++) {
 
-            if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (x >= region.x && x < region.x + region.width && y >= region.y && y < region.y + region.height) {
                 // int rgb = 0xff000000;
                 // rgb = getNextRGB();
                 final int rgb = rgbs[i % rgbs.length];
                 // bi.setRGB(x, y, rgb);
-                imageBuilder.setRgb(x, y, rgb);
+                imageBuilder.setRgb(x - region.x, y - region.y, rgb);
                 // bi.setRGB(x, y, 0xff00ff00);
-            } else {
+            } else if (x < 0 || x >= bhi.width || y < 0 || y >= bhi.height) {
                 LOGGER.fine("skipping bad pixel (" + x + "," + y + ")");
             }
 
@@ -85,14 +86,14 @@ final class PixelParserRle extends AbstractPixelParser {
     }
 
     @Override
-    public void processImage(final ImageBuilder imageBuilder) throws ImagingException, IOException {
-        final int width = bhi.width;
+    public void processImage(final PixelSink imageBuilder, final Rectangle region) throws ImagingException, IOException {
         final int height = bhi.height;
         int x = 0;
         int y = height - 1;
 
         boolean done = false;
-        while (!done) {
+        // rows are decoded bottom up, so nothing past the region's top row is needed.
+        while (!done && y >= region.y) {
             final int a = 0xff & BinaryFunctions.readByte("RLE (" + x + "," + y + ") a", is, "BMP: Bad RLE");
             final int b = 0xff & BinaryFunctions.readByte("RLE (" + x + "," + y + ") b", is, "BMP: Bad RLE");
 
@@ -141,7 +142,7 @@ final class PixelParserRle extends AbstractPixelParser {
                         // System.out.println("SamplesPerByte: "
                         // + SamplesPerByte);
                         // System.out.println("towrite: " + towrite);
-                        final int written = processByteOfData(samples, towrite, x, y, width, height, imageBuilder);
+                        final int written = processByteOfData(samples, towrite, x, y, region, imageBuilder);
                         // System.out.println("written: " + written);
                         // System.out.println("");
                         x += written;
@@ -153,7 +154,7 @@ final class PixelParserRle extends AbstractPixelParser {
             } else {
                 final int[] rgbs = convertDataToSamples(b);
 
-                x += processByteOfData(rgbs, a, x, y, width, height, imageBuilder);
+                x += processByteOfData(rgbs, a, x, y, region, imageBuilder);
             }
         }
     }
@@ -91,8 +91,9 @@ public class DcxImageParser extends AbstractImageParser<PcxImagingParameters> {
         final List<BufferedImage> images = new ArrayList<>();
         final PcxImageParser pcxImageParser = new PcxImageParser();
         for (final long element : dcxHeader.pageTable) {
-            try (InputStream stream = ByteSource.getInputStream(byteSource, element)) {
-                images.add(pcxImageParser.getBufferedImage(ByteSource.inputStream(stream, null), new PcxImagingParameters()));
+            try (InputStream stream = ByteSource.getInputStream(byteSource, element);
+                    ByteSource pageSource = ByteSource.inputStream(stream, null)) {
+                images.add(pcxImageParser.getBufferedImage(pageSource, new PcxImagingParameters()));
             }
         }
         return images;
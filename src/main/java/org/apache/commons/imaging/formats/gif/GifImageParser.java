@@ -224,7 +224,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         final List<GifImageData> imageData = findAllImageData(imageContents);
         final List<BufferedImage> result = Allocator.arrayList(imageData.size());
         for (final GifImageData id : imageData) {
-            result.add(getBufferedImage(id, imageContents.globalColorTable));
+            result.add(getBufferedImage(id, imageContents.globalColorTable, null));
         }
         return result;
     }
@@ -240,10 +240,10 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
 
         final GifImageData imageData = findFirstImageData(imageContents);
 
-        return getBufferedImage(imageData, imageContents.globalColorTable);
+        return getBufferedImage(imageData, imageContents.globalColorTable, params);
     }
 
-    private BufferedImage getBufferedImage(final GifImageData imageData, final byte[] globalColorTable)
+    private BufferedImage getBufferedImage(final GifImageData imageData, final byte[] globalColorTable, final GifImagingParameters params)
             throws ImagingException {
         final ImageDescriptor id = imageData.descriptor;
         final GraphicControlExtension gce = imageData.gce;
@@ -256,7 +256,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
             hasAlpha = true;
         }
 
-        final ImageBuilder imageBuilder = new ImageBuilder(width, height, hasAlpha);
+        final ImageBuilder imageBuilder = new ImageBuilder(width, height, hasAlpha, false, params);
 
         final int[] colorTable;
         if (id.localColorTable != null) {
@@ -0,0 +1,59 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg;
+
+/**
+ * The resolutions at which the JPEG encoder stores the chroma (Cb and Cr) components relative to luma (Y).
+ *
+ * @since 1.0-alpha6
+ */
+public enum ChromaSubsampling {
+
+    /** 4:4:4, chroma at full resolution. */
+    H1V1(1, 1),
+
+    /** 4:2:2, chroma at half the horizontal resolution. */
+    H2V1(2, 1),
+
+    /** 4:2:0, chroma at half the horizontal and half the vertical resolution. */
+    H2V2(2, 2);
+
+    private final int horizontalFactor;
+    private final int verticalFactor;
+
+    ChromaSubsampling(final int horizontalFactor, final int verticalFactor) {
+        this.horizontalFactor = horizontalFactor;
+        this.verticalFactor = verticalFactor;
+    }
+
+    /**
+     * Gets the luma sampling factor horizontally, the number of luma samples per chroma sample in a row.
+     *
+     * @return 1 or 2.
+     */
+    public int getHorizontalFactor() {
+        return horizontalFactor;
+    }
+
+    /**
+     * Gets the luma sampling factor vertically, the number of luma samples per chroma sample in a column.
+     *
+     * @return 1 or 2.
+     */
+    public int getVerticalFactor() {
+        return verticalFactor;
+    }
+}
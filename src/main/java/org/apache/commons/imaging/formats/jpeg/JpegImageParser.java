@@ -22,6 +22,7 @@ import static org.apache.commons.imaging.common.BinaryFunctions.startsWith;
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
@@ -36,6 +37,7 @@ import org.apache.commons.imaging.AbstractImageParser;
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.ImageProbe;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.Allocator;
@@ -43,6 +45,7 @@ import org.apache.commons.imaging.common.ImageMetadata;
 import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.common.XmpImagingParameters;
 import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
+import org.apache.commons.imaging.formats.jpeg.encoder.JpegEncoder;
 import org.apache.commons.imaging.formats.jpeg.iptc.IptcParser;
 import org.apache.commons.imaging.formats.jpeg.iptc.PhotoshopApp13Data;
 import org.apache.commons.imaging.formats.jpeg.segments.AbstractSegment;
@@ -206,7 +209,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
         final JpegDecoder jpegDecoder = new JpegDecoder();
-        return jpegDecoder.decode(byteSource);
+        return jpegDecoder.decode(byteSource, params);
     }
 
     @Override
@@ -219,8 +222,22 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         return new JpegImagingParameters();
     }
 
-    public TiffImageMetadata getExifMetadata(final ByteSource byteSource, TiffImagingParameters params) throws ImagingException, IOException {
-        final byte[] bytes = getExifRawData(byteSource);
+    public TiffImageMetadata getExifMetadata(final ByteSource byteSource, final TiffImagingParameters params) throws ImagingException, IOException {
+        return getExifMetadata(JpegSegmentIndex.read(byteSource), params);
+    }
+
+    /**
+     * Gets the EXIF metadata from a segment index.
+     *
+     * @param index  the segments of the JPEG.
+     * @param params the parameters of the TIFF parser, or null.
+     * @return the metadata, or null if there is no EXIF segment.
+     * @throws ImagingException if the metadata is invalid.
+     * @throws IOException      if it fails to read the metadata.
+     * @since 1.0-alpha6
+     */
+    public TiffImageMetadata getExifMetadata(final JpegSegmentIndex index, TiffImagingParameters params) throws ImagingException, IOException {
+        final byte[] bytes = getExifRawData(index);
         if (null == bytes) {
             return null;
         }
@@ -234,7 +251,20 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     }
 
     public byte[] getExifRawData(final ByteSource byteSource) throws ImagingException, IOException {
-        final List<AbstractSegment> abstractSegments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP1_MARKER, }, false);
+        return getExifRawData(JpegSegmentIndex.read(byteSource));
+    }
+
+    /**
+     * Gets the EXIF data, without the EXIF identifier, from a segment index.
+     *
+     * @param index the segments of the JPEG.
+     * @return the data, or null if there is no EXIF segment.
+     * @throws ImagingException if the EXIF data is split across several segments.
+     * @throws IOException      if it fails to read the data.
+     * @since 1.0-alpha6
+     */
+    public byte[] getExifRawData(final JpegSegmentIndex index) throws ImagingException, IOException {
+        final List<AbstractSegment> abstractSegments = readSegments(index, new int[] { JpegConstants.JPEG_APP1_MARKER, }, false);
 
         if (abstractSegments == null || abstractSegments.isEmpty()) {
             return null;
@@ -269,7 +299,20 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     @Override
     public byte[] getIccProfileBytes(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        final List<AbstractSegment> abstractSegments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP2_MARKER, }, false);
+        return getIccProfileBytes(JpegSegmentIndex.read(byteSource));
+    }
+
+    /**
+     * Gets the ICC profile from a segment index.
+     *
+     * @param index the segments of the JPEG.
+     * @return the profile, or null if there is none.
+     * @throws ImagingException if the profile's segments are inconsistent.
+     * @throws IOException      if it fails to read the profile.
+     * @since 1.0-alpha6
+     */
+    public byte[] getIccProfileBytes(final JpegSegmentIndex index) throws ImagingException, IOException {
+        final List<AbstractSegment> abstractSegments = readSegments(index, new int[] { JpegConstants.JPEG_APP2_MARKER, }, false);
 
         final List<App2Segment> filtered = new ArrayList<>();
         if (abstractSegments != null) {
@@ -297,9 +340,21 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        // List allSegments = readSegments(byteSource, null, false);
+        return getImageInfo(JpegSegmentIndex.read(byteSource), params);
+    }
 
-        final List<AbstractSegment> SOF_segments = readSegments(byteSource, new int[] {
+    /**
+     * Gets the image info from a segment index, without reading the JPEG again.
+     *
+     * @param index  the segments of the JPEG.
+     * @param params the parameters, or null.
+     * @return the info.
+     * @throws ImagingException if there is no frame header, or the metadata is invalid.
+     * @throws IOException      if it fails to read the metadata.
+     * @since 1.0-alpha6
+     */
+    public ImageInfo getImageInfo(final JpegSegmentIndex index, final JpegImagingParameters params) throws ImagingException, IOException {
+        final List<AbstractSegment> SOF_segments = readSegments(index, new int[] {
                 // kJFIFMarker,
 
                 JpegConstants.SOF0_MARKER, JpegConstants.SOF1_MARKER, JpegConstants.SOF2_MARKER, JpegConstants.SOF3_MARKER, JpegConstants.SOF5_MARKER,
@@ -316,7 +371,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
         // System.out.println("Incoherent SOFN Data Found: "
         // + SOF_segments.size());
 
-        final List<AbstractSegment> jfifSegments = readSegments(byteSource, new int[] { JpegConstants.JFIF_MARKER, }, true);
+        final List<AbstractSegment> jfifSegments = readSegments(index, new int[] { JpegConstants.JFIF_MARKER, }, true);
 
         final SofnSegment fSOFNSegment = (SofnSegment) SOF_segments.get(0);
         // SofnSegment fSOFNSegment = (SofnSegment) findSegment(segments,
@@ -335,7 +390,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
             jfifSegment = (JfifSegment) jfifSegments.get(0);
         }
 
-        final List<AbstractSegment> app14Segments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP14_MARKER }, true);
+        final List<AbstractSegment> app14Segments = readSegments(index, new int[] { JpegConstants.JPEG_APP14_MARKER }, true);
         App14Segment app14Segment = null;
         if (app14Segments != null && !app14Segments.isEmpty()) {
             app14Segment = (App14Segment) app14Segments.get(0);
@@ -373,7 +428,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
                 break;
             }
         } else {
-            final JpegImageMetadata metadata = (JpegImageMetadata) getMetadata(byteSource, params);
+            final JpegImageMetadata metadata = (JpegImageMetadata) getMetadata(index, params);
 
             if (metadata != null) {
                 {
@@ -426,7 +481,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
             physicalHeightInch = (float) (height / (yDensity * unitsPerInch));
         }
 
-        final List<AbstractSegment> commentSegments = readSegments(byteSource, new int[] { JpegConstants.COM_MARKER }, false);
+        final List<AbstractSegment> commentSegments = readSegments(index, new int[] { JpegConstants.COM_MARKER }, false);
         final List<String> comments = Allocator.arrayList(commentSegments.size());
         for (final AbstractSegment commentSegment : commentSegments) {
             final ComSegment comSegment = (ComSegment) commentSegment;
@@ -636,13 +691,24 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     }
 
     @Override
-    public ImageMetadata getMetadata(final ByteSource byteSource, JpegImagingParameters params) throws ImagingException, IOException {
-        if (params == null) {
-            params = new JpegImagingParameters();
-        }
-        final TiffImageMetadata exif = getExifMetadata(byteSource, new TiffImagingParameters());
+    public ImageMetadata getMetadata(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
+        return getMetadata(JpegSegmentIndex.read(byteSource), params);
+    }
+
+    /**
+     * Gets the EXIF and Photoshop metadata from a segment index.
+     *
+     * @param index  the segments of the JPEG.
+     * @param params the parameters, or null.
+     * @return the metadata, or null if there is neither.
+     * @throws ImagingException if the metadata is invalid.
+     * @throws IOException      if it fails to read the metadata.
+     * @since 1.0-alpha6
+     */
+    public ImageMetadata getMetadata(final JpegSegmentIndex index, final JpegImagingParameters params) throws ImagingException, IOException {
+        final TiffImageMetadata exif = getExifMetadata(index, new TiffImagingParameters());
 
-        final JpegPhotoshopMetadata photoshop = getPhotoshopMetadata(byteSource, params);
+        final JpegPhotoshopMetadata photoshop = getPhotoshopMetadata(index, params == null ? new JpegImagingParameters() : params);
 
         if (null == exif && null == photoshop) {
             return null;
@@ -657,7 +723,21 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
     }
 
     public JpegPhotoshopMetadata getPhotoshopMetadata(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        final List<AbstractSegment> abstractSegments = readSegments(byteSource, new int[] { JpegConstants.JPEG_APP13_MARKER, }, false);
+        return getPhotoshopMetadata(JpegSegmentIndex.read(byteSource), params);
+    }
+
+    /**
+     * Gets the Photoshop metadata from a segment index.
+     *
+     * @param index  the segments of the JPEG.
+     * @param params the parameters.
+     * @return the metadata, or null if there is none.
+     * @throws ImagingException if the metadata is invalid or there is more than one Photoshop segment.
+     * @throws IOException      if it fails to read the metadata.
+     * @since 1.0-alpha6
+     */
+    public JpegPhotoshopMetadata getPhotoshopMetadata(final JpegSegmentIndex index, final JpegImagingParameters params) throws ImagingException, IOException {
+        final List<AbstractSegment> abstractSegments = readSegments(index, new int[] { JpegConstants.JPEG_APP13_MARKER, }, false);
 
         if (abstractSegments == null || abstractSegments.isEmpty()) {
             return null;
@@ -693,156 +773,100 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
      */
     @Override
     public String getXmpXml(final ByteSource byteSource, final XmpImagingParameters<JpegImagingParameters> params) throws ImagingException, IOException {
+        return getXmpXml(JpegSegmentIndex.read(byteSource));
+    }
 
-        final List<String> result = new ArrayList<>();
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSos() {
-                return false;
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes, final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImagingException {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER && new JpegXmpParser().isXmpJpegSegment(segmentData)) {
-                    result.add(new JpegXmpParser().parseXmpJpegSegment(segmentData));
-                    return false;
-                }
-
-                return true;
-            }
-
-            @Override
-            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                // don't need image data
+    /**
+     * Extracts embedded XML metadata as XML string from a segment index.
+     *
+     * @param index the segments of the JPEG.
+     * @return Xmp Xml as String, if present. Otherwise, returns null.
+     * @throws ImagingException if the XMP segment is invalid.
+     * @since 1.0-alpha6
+     */
+    public String getXmpXml(final JpegSegmentIndex index) throws ImagingException {
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.getMarker() == JpegConstants.JPEG_APP1_MARKER && new JpegXmpParser().isXmpJpegSegment(entry.data)) {
+                return new JpegXmpParser().parseXmpJpegSegment(entry.data);
             }
-        };
-        new JpegUtils().traverseJfif(byteSource, visitor);
-
-        if (result.isEmpty()) {
-            return null;
-        }
-        if (result.size() > 1) {
-            throw new ImagingException("JPEG file contains more than one XMP segment.");
         }
-        return result.get(0);
+        return null;
     }
 
     public boolean hasExifSegment(final ByteSource byteSource) throws ImagingException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSos() {
-                return false;
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes, final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER && startsWith(segmentData, JpegConstants.EXIF_IDENTIFIER_CODE)) {
-                    result[0] = true;
-                    return false;
-                }
+        return hasExifSegment(JpegSegmentIndex.read(byteSource));
+    }
 
+    /**
+     * Tests whether a segment index has an EXIF segment.
+     *
+     * @param index the segments of the JPEG.
+     * @return whether there is an APP1 segment with the EXIF identifier.
+     * @since 1.0-alpha6
+     */
+    public boolean hasExifSegment(final JpegSegmentIndex index) {
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.getMarker() == JpegConstants.JPEG_APP1_MARKER && startsWith(entry.data, JpegConstants.EXIF_IDENTIFIER_CODE)) {
                 return true;
             }
-
-            @Override
-            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                // don't need image data
-            }
-        };
-
-        new JpegUtils().traverseJfif(byteSource, visitor);
-
-        return result[0];
+        }
+        return false;
     }
 
     public boolean hasIptcSegment(final ByteSource byteSource) throws ImagingException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSos() {
-                return false;
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes, final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP13_MARKER && new IptcParser().isPhotoshopJpegSegment(segmentData)) {
-                    result[0] = true;
-                    return false;
-                }
+        return hasIptcSegment(JpegSegmentIndex.read(byteSource));
+    }
 
+    /**
+     * Tests whether a segment index has a Photoshop segment, which holds the IPTC data.
+     *
+     * @param index the segments of the JPEG.
+     * @return whether there is an APP13 segment with the Photoshop identifier.
+     * @since 1.0-alpha6
+     */
+    public boolean hasIptcSegment(final JpegSegmentIndex index) {
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.getMarker() == JpegConstants.JPEG_APP13_MARKER && new IptcParser().isPhotoshopJpegSegment(entry.data)) {
                 return true;
             }
-
-            @Override
-            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                // don't need image data
-            }
-        };
-
-        new JpegUtils().traverseJfif(byteSource, visitor);
-
-        return result[0];
+        }
+        return false;
     }
 
     public boolean hasXmpSegment(final ByteSource byteSource) throws ImagingException, IOException {
-        final boolean[] result = { false, };
-
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSos() {
-                return false;
-            }
-
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes, final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) {
-                if (marker == 0xffd9) {
-                    return false;
-                }
-
-                if (marker == JpegConstants.JPEG_APP1_MARKER && new JpegXmpParser().isXmpJpegSegment(segmentData)) {
-                    result[0] = true;
-                    return false;
-                }
+        return hasXmpSegment(JpegSegmentIndex.read(byteSource));
+    }
 
+    /**
+     * Tests whether a segment index has an XMP segment.
+     *
+     * @param index the segments of the JPEG.
+     * @return whether there is an APP1 segment with the XMP identifier.
+     * @since 1.0-alpha6
+     */
+    public boolean hasXmpSegment(final JpegSegmentIndex index) {
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            if (entry.getMarker() == JpegConstants.JPEG_APP1_MARKER && new JpegXmpParser().isXmpJpegSegment(entry.data)) {
                 return true;
             }
+        }
+        return false;
+    }
 
-            @Override
-            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                // don't need image data
-            }
-        };
-        new JpegUtils().traverseJfif(byteSource, visitor);
-
-        return result[0];
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The segments are read once, and the image info and metadata are all taken from them.
+     * </p>
+     */
+    @Override
+    public ImageProbe probe(final ByteSource byteSource, final boolean metadata) throws ImagingException, IOException {
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+        final ImageInfo imageInfo = getImageInfo(index, null);
+        if (!metadata) {
+            return new ImageProbe(imageInfo);
+        }
+        return new ImageProbe(imageInfo, getIccProfileBytes(index) != null, getXmpXml(index) != null, getMetadata(index, null) != null);
     }
 
     private boolean keepMarker(final int marker, final int[] markers) {
@@ -861,6 +885,22 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     public List<AbstractSegment> readSegments(final ByteSource byteSource, final int[] markers, final boolean returnAfterFirst)
             throws ImagingException, IOException {
+        return readSegments(JpegSegmentIndex.read(byteSource), markers, returnAfterFirst);
+    }
+
+    /**
+     * Parses the segments of a segment index with the given markers.
+     *
+     * @param index            the segments of the JPEG.
+     * @param markers          the markers of the segments to parse, or null for all.
+     * @param returnAfterFirst whether to stop after the first segment with one of the markers.
+     * @return the segments, in file order.
+     * @throws ImagingException if a segment is invalid.
+     * @throws IOException      if it fails to parse a segment.
+     * @since 1.0-alpha6
+     */
+    public List<AbstractSegment> readSegments(final JpegSegmentIndex index, final int[] markers, final boolean returnAfterFirst)
+            throws ImagingException, IOException {
         final List<AbstractSegment> result = new ArrayList<>();
         final int[] sofnSegments = {
                 // kJFIFMarker,
@@ -868,69 +908,49 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
                 JpegConstants.SOF6_MARKER, JpegConstants.SOF7_MARKER, JpegConstants.SOF9_MARKER, JpegConstants.SOF10_MARKER, JpegConstants.SOF11_MARKER,
                 JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER, };
 
-        final JpegUtils.Visitor visitor = new JpegUtils.Visitor() {
-            // return false to exit before reading image data.
-            @Override
-            public boolean beginSos() {
-                return false;
+        for (final JpegSegmentIndex.Entry entry : index.getEntries()) {
+            final int marker = entry.getMarker();
+            if (!keepMarker(marker, markers)) {
+                continue;
             }
 
-            // return false to exit traversal.
-            @Override
-            public boolean visitSegment(final int marker, final byte[] markerBytes, final int markerLength, final byte[] markerLengthBytes,
-                    final byte[] segmentData) throws ImagingException, IOException {
-                if (marker == JpegConstants.EOI_MARKER) {
-                    return false;
-                }
-
-                // Debug.debug("visitSegment marker", marker);
-                // // Debug.debug("visitSegment keepMarker(marker, markers)",
-                // keepMarker(marker, markers));
-                // Debug.debug("visitSegment keepMarker(marker, markers)",
-                // keepMarker(marker, markers));
-
-                if (!keepMarker(marker, markers)) {
-                    return true;
-                }
-
-                switch (marker) {
-                case JpegConstants.JPEG_APP13_MARKER:
-                    // Debug.debug("app 13 segment data", segmentData.length);
-                    result.add(new App13Segment(marker, segmentData));
-                    break;
-                case JpegConstants.JPEG_APP14_MARKER:
-                    result.add(new App14Segment(marker, segmentData));
-                    break;
-                case JpegConstants.JPEG_APP2_MARKER:
-                    result.add(new App2Segment(marker, segmentData));
-                    break;
-                case JpegConstants.JFIF_MARKER:
-                    result.add(new JfifSegment(marker, segmentData));
-                    break;
-                default:
-                    if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-                        result.add(new SofnSegment(marker, segmentData));
-                    } else if (marker == JpegConstants.DQT_MARKER) {
-                        result.add(new DqtSegment(marker, segmentData));
-                    } else if (marker >= JpegConstants.JPEG_APP1_MARKER && marker <= JpegConstants.JPEG_APP15_MARKER) {
-                        result.add(new UnknownSegment(marker, segmentData));
-                    } else if (marker == JpegConstants.COM_MARKER) {
-                        result.add(new ComSegment(marker, segmentData));
-                    }
-                    break;
+            final byte[] segmentData = entry.data;
+            switch (marker) {
+            case JpegConstants.JPEG_APP13_MARKER:
+                result.add(new App13Segment(marker, segmentData));
+                break;
+            case JpegConstants.JPEG_APP14_MARKER:
+                result.add(new App14Segment(marker, segmentData));
+                break;
+            case JpegConstants.JPEG_APP2_MARKER:
+                result.add(new App2Segment(marker, segmentData));
+                break;
+            case JpegConstants.JFIF_MARKER:
+                result.add(new JfifSegment(marker, segmentData));
+                break;
+            default:
+                if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
+                    result.add(new SofnSegment(marker, segmentData));
+                } else if (marker == JpegConstants.DQT_MARKER) {
+                    result.add(new DqtSegment(marker, segmentData));
+                } else if (marker >= JpegConstants.JPEG_APP1_MARKER && marker <= JpegConstants.JPEG_APP15_MARKER) {
+                    result.add(new UnknownSegment(marker, segmentData));
+                } else if (marker == JpegConstants.COM_MARKER) {
+                    result.add(new ComSegment(marker, segmentData));
                 }
-
-                return !returnAfterFirst;
+                break;
             }
 
-            @Override
-            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-                // don't need image data
+            if (returnAfterFirst) {
+                break;
             }
-        };
-
-        new JpegUtils().traverseJfif(byteSource, visitor);
+        }
 
         return result;
     }
+
+    @Override
+    public void writeImage(final BufferedImage src, final OutputStream os, final JpegImagingParameters params) throws ImagingException, IOException {
+        new JpegEncoder().encode(src, os, params);
+    }
 }
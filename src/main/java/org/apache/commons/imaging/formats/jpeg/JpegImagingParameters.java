@@ -15,6 +15,9 @@
 
 package org.apache.commons.imaging.formats.jpeg;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
 /**
@@ -23,5 +26,194 @@ import org.apache.commons.imaging.common.XmpImagingParameters;
  * @since 1.0-alpha3
  */
 public class JpegImagingParameters extends XmpImagingParameters<JpegImagingParameters> {
-    // empty
+
+    private ChromaSubsampling chromaSubsampling = ChromaSubsampling.H2V2;
+
+    private Executor decodeExecutor;
+
+    private boolean fancyUpsampling;
+
+    private boolean optimizeHuffmanTables;
+
+    private int quality = 75;
+
+    private int restartInterval;
+
+    private int scaleDenominator = 1;
+
+    /**
+     * Gets the resolution at which written images store chroma.
+     *
+     * @return the chroma subsampling, {@link ChromaSubsampling#H2V2} by default.
+     * @since 1.0-alpha6
+     */
+    public ChromaSubsampling getChromaSubsampling() {
+        return chromaSubsampling;
+    }
+
+    /**
+     * Gets the executor that decodes restart intervals in parallel.
+     *
+     * @return the executor, or null to decode on the calling thread.
+     * @since 1.0-alpha6
+     */
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    /**
+     * Gets the quality at which images are written.
+     *
+     * @return the quality, from 1 to 100, 75 by default.
+     * @since 1.0-alpha6
+     */
+    public int getQuality() {
+        return quality;
+    }
+
+    /**
+     * Gets the number of MCUs between the restart markers of written images.
+     *
+     * @return the restart interval, or 0 for none.
+     * @since 1.0-alpha6
+     */
+    public int getRestartInterval() {
+        return restartInterval;
+    }
+
+    /**
+     * Gets the factor by which images are scaled down as they are decoded.
+     *
+     * @return 1, 2, 4 or 8.
+     * @since 1.0-alpha6
+     */
+    public int getScaleDenominator() {
+        return scaleDenominator;
+    }
+
+    /**
+     * Tests whether subsampled chroma is upsampled with a triangle filter rather than by replication.
+     *
+     * @return whether fancy upsampling is enabled.
+     * @since 1.0-alpha6
+     */
+    public boolean isFancyUpsampling() {
+        return fancyUpsampling;
+    }
+
+    /**
+     * Tests whether written images use Huffman tables computed for their own coefficients rather than the typical tables of the JPEG standard.
+     *
+     * @return whether Huffman tables are optimized.
+     * @since 1.0-alpha6
+     */
+    public boolean isOptimizeHuffmanTables() {
+        return optimizeHuffmanTables;
+    }
+
+    /**
+     * Sets the resolution at which written images store chroma. Grayscale images have no chroma and ignore it.
+     *
+     * @param chromaSubsampling the chroma subsampling.
+     * @return {@code this} instance.
+     * @throws NullPointerException if the chroma subsampling is null.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setChromaSubsampling(final ChromaSubsampling chromaSubsampling) {
+        this.chromaSubsampling = Objects.requireNonNull(chromaSubsampling, "chromaSubsampling");
+        return asThis();
+    }
+
+    /**
+     * Sets an executor on which the restart intervals of a baseline JPEG are decoded concurrently. Each interval restarts the entropy decoder, so intervals
+     * decode independently into disjoint MCUs of the image. The calling thread waits for all of them; images without restart markers decode on the calling
+     * thread.
+     *
+     * @param decodeExecutor the executor, or null to decode on the calling thread.
+     * @return {@code this} instance.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setDecodeExecutor(final Executor decodeExecutor) {
+        this.decodeExecutor = decodeExecutor;
+        return asThis();
+    }
+
+    /**
+     * Sets whether chroma subsampled by 2 horizontally (4:2:2) or horizontally and vertically (4:2:0) is upsampled with the triangle filter of libjpeg's
+     * "fancy" upsampling, which weighs the nearest chroma sample 3/4 and the next nearest 1/4, instead of repeating each chroma sample. It avoids blocky
+     * colour edges and matches the output of libjpeg based decoders, for a small cost in speed and memory.
+     *
+     * @param fancyUpsampling whether to use fancy upsampling.
+     * @return {@code this} instance.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setFancyUpsampling(final boolean fancyUpsampling) {
+        this.fancyUpsampling = fancyUpsampling;
+        return asThis();
+    }
+
+    /**
+     * Sets whether written images use Huffman tables computed for their own coefficients. The encoder then quantizes the whole image before writing it, to
+     * count how often each symbol occurs, which makes files typically 5 to 10% smaller at the cost of a second pass and of memory for all the coefficients.
+     *
+     * @param optimizeHuffmanTables whether to optimize Huffman tables.
+     * @return {@code this} instance.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setOptimizeHuffmanTables(final boolean optimizeHuffmanTables) {
+        this.optimizeHuffmanTables = optimizeHuffmanTables;
+        return asThis();
+    }
+
+    /**
+     * Sets the quality at which images are written. It scales the quantization tables of section K.1 of the JPEG standard the way the IJG's libjpeg does, so
+     * that a quality gives about the same file size and fidelity as with other libjpeg based encoders; 50 uses the tables as they are.
+     *
+     * @param quality the quality, from 1 (smallest files) to 100 (best fidelity).
+     * @return {@code this} instance.
+     * @throws IllegalArgumentException if the quality is not between 1 and 100.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setQuality(final int quality) {
+        if (quality < 1 || quality > 100) {
+            throw new IllegalArgumentException("Invalid quality " + quality + ", must be between 1 and 100");
+        }
+        this.quality = quality;
+        return asThis();
+    }
+
+    /**
+     * Sets the number of MCUs between the restart markers of written images. Restart markers let decoders resynchronize after corrupt data and decode the
+     * intervals in parallel, for a few bytes each.
+     *
+     * @param restartInterval the restart interval, or 0 for none.
+     * @return {@code this} instance.
+     * @throws IllegalArgumentException if the restart interval is not between 0 and 65535.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setRestartInterval(final int restartInterval) {
+        if (restartInterval < 0 || restartInterval > 0xffff) {
+            throw new IllegalArgumentException("Invalid restart interval " + restartInterval + ", must be between 0 and 65535");
+        }
+        this.restartInterval = restartInterval;
+        return asThis();
+    }
+
+    /**
+     * Sets the factor by which images are scaled down as they are decoded. The decoder computes only the lowest frequencies of each 8x8 block, with 4x4, 2x2
+     * or 1x1 inverse DCTs, so a reduced size image decodes much faster than the full image would. The decoded image is {@code ceil(width / scaleDenominator)}
+     * by {@code ceil(height / scaleDenominator)} pixels.
+     *
+     * @param scaleDenominator 1 for the full size image, or 2, 4 or 8.
+     * @return {@code this} instance.
+     * @throws IllegalArgumentException if the denominator is not 1, 2, 4 or 8.
+     * @since 1.0-alpha6
+     */
+    public JpegImagingParameters setScaleDenominator(final int scaleDenominator) {
+        if (scaleDenominator != 1 && scaleDenominator != 2 && scaleDenominator != 4 && scaleDenominator != 8) {
+            throw new IllegalArgumentException("Invalid scale denominator " + scaleDenominator + ", must be 1, 2, 4 or 8");
+        }
+        this.scaleDenominator = scaleDenominator;
+        return asThis();
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.BinaryFunctions;
+import org.apache.commons.imaging.common.ByteConversions;
+
+/**
+ * The segments of a JPEG before its first scan, read in one sequential pass, so the info and metadata getters of {@link JpegImageParser} can share one read
+ * of the header instead of traversing the file once for each kind of segment.
+ * <p>
+ * Reading stops at the first SOS or EOI marker, so the entropy-coded data is never read.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public final class JpegSegmentIndex {
+
+    /**
+     * A segment of the header.
+     */
+    public static final class Entry {
+
+        private final int marker;
+        private final long offset;
+        final byte[] data;
+
+        private Entry(final int marker, final long offset, final byte[] data) {
+            this.marker = marker;
+            this.offset = offset;
+            this.data = data;
+        }
+
+        /**
+         * Gets a copy of the segment's data, which follows its length.
+         *
+         * @return the data.
+         */
+        public byte[] getData() {
+            return data.clone();
+        }
+
+        /**
+         * Gets the length of the segment's data.
+         *
+         * @return the length, 2 less than the segment's length field.
+         */
+        public int getLength() {
+            return data.length;
+        }
+
+        /**
+         * Gets the segment's marker.
+         *
+         * @return the marker, such as {@link JpegConstants#JPEG_APP1_MARKER}.
+         */
+        public int getMarker() {
+            return marker;
+        }
+
+        /**
+         * Gets the offset of the segment's data in the byte source.
+         *
+         * @return the offset.
+         */
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Reads the segments of a JPEG up to its first scan.
+     *
+     * @param byteSource the JPEG.
+     * @return the index.
+     * @throws ImagingException if the data is not a JPEG.
+     * @throws IOException      if the data cannot be read.
+     */
+    public static JpegSegmentIndex read(final ByteSource byteSource) throws ImagingException, IOException {
+        final List<Entry> entries = new ArrayList<>();
+        long scanOffset = -1;
+        try (InputStream is = byteSource.getInputStream()) {
+            BinaryFunctions.readAndVerifyBytes(is, JpegConstants.SOI, "Not a Valid JPEG File: doesn't begin with 0xffd8");
+            long position = JpegConstants.SOI.size();
+            while (true) {
+                // skip fill bytes, section B.1.1.2 of T.81
+                int previous;
+                int current = 0;
+                do {
+                    previous = current;
+                    current = 0xff & BinaryFunctions.readByte("marker", is, "Could not read marker");
+                    position++;
+                } while (previous != 0xff || current == 0xff);
+                final int marker = 0xff00 | current;
+                if (marker == JpegConstants.SOS_MARKER || marker == JpegConstants.EOI_MARKER) {
+                    if (marker == JpegConstants.SOS_MARKER) {
+                        scanOffset = position - 2;
+                    }
+                    break;
+                }
+                final int segmentLength = ByteConversions.toUInt16(BinaryFunctions.readBytes("segmentLengthBytes", is, 2, "segmentLengthBytes"),
+                        ByteOrder.BIG_ENDIAN);
+                if (segmentLength < 2) {
+                    throw new ImagingException("Invalid segment size");
+                }
+                final byte[] data = BinaryFunctions.readBytes("Segment Data", is, segmentLength - 2, "Invalid Segment: insufficient data");
+                entries.add(new Entry(marker, position + 2, data));
+                position += segmentLength;
+            }
+        }
+        return new JpegSegmentIndex(entries, scanOffset);
+    }
+
+    private final List<Entry> entries;
+    private final long scanOffset;
+
+    private JpegSegmentIndex(final List<Entry> entries, final long scanOffset) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.scanOffset = scanOffset;
+    }
+
+    /**
+     * Gets the segments before the first scan, in file order.
+     *
+     * @return the unmodifiable list of segments.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Gets the offset of the first SOS marker.
+     *
+     * @return the offset, or -1 if the header ends with EOI instead.
+     */
+    public long getScanOffset() {
+        return scanOffset;
+    }
+}
@@ -33,6 +33,11 @@ public class JpegUtils extends BinaryFileParser {
         // return false to exit before reading image data.
         boolean beginSos();
 
+        // return false to skip a segment without reading its data.
+        default boolean keepSegment(final int marker) {
+            return true;
+        }
+
         // return false to exit traversal.
         boolean visitSegment(int marker, byte[] markerBytes, int segmentLength, byte[] segmentLengthBytes, byte[] segmentData)
                 throws ImagingException, IOException;
@@ -177,6 +182,13 @@ public class JpegUtils extends BinaryFileParser {
                     throw new ImagingException("Invalid segment size");
                 }
 
+                if (!visitor.keepSegment(marker)) {
+                    if (BinaryFunctions.skipBytes(is, segmentLength - 2) < segmentLength - 2) {
+                        throw new IOException("Invalid Segment: insufficient data, name: Segment Data, length: " + (segmentLength - 2));
+                    }
+                    continue;
+                }
+
                 final byte[] segmentData = BinaryFunctions.readBytes("Segment Data", is, segmentLength - 2, "Invalid Segment: insufficient data");
 
                 if (!visitor.visitSegment(marker, markerBytes, segmentLength, segmentLengthBytes, segmentData)) {
@@ -0,0 +1,90 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.formats.jpeg.segments.SofnSegment;
+
+/**
+ * Holds the quantized DCT coefficients of every block of every frame component, in zig-zag order, for decoding processes that need the whole frame before
+ * any block can be transformed (progressive JPEGs).
+ * <p>
+ * Each component stores its blocks row by row, padded to whole MCUs, 64 coefficients per block.
+ * </p>
+ */
+final class CoefficientBuffer {
+
+    final int hMax;
+    final int vMax;
+    final int mcusPerLine;
+    final int mcusPerColumn;
+    private final int[] blocksPerLine;
+    private final int[] blocksWide;
+    private final int[] blocksHigh;
+    private final short[][] coefficients;
+
+    CoefficientBuffer(final SofnSegment sofnSegment) {
+        int hMax = 0;
+        int vMax = 0;
+        for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
+            hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
+            vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
+        }
+        this.hMax = hMax;
+        this.vMax = vMax;
+        mcusPerLine = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+        mcusPerColumn = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+        blocksPerLine = new int[sofnSegment.numberOfComponents];
+        blocksWide = new int[sofnSegment.numberOfComponents];
+        blocksHigh = new int[sofnSegment.numberOfComponents];
+        coefficients = new short[sofnSegment.numberOfComponents][];
+        for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
+            final SofnSegment.Component component = sofnSegment.getComponents(i);
+            final int h = component.horizontalSamplingFactor;
+            final int v = component.verticalSamplingFactor;
+            blocksPerLine[i] = mcusPerLine * h;
+            // section A.2.2 of T.81: a non-interleaved scan only covers the blocks the component's samples need
+            blocksWide[i] = ((sofnSegment.width * h + hMax - 1) / hMax + 7) / 8;
+            blocksHigh[i] = ((sofnSegment.height * v + vMax - 1) / vMax + 7) / 8;
+            coefficients[i] = Allocator.shortArray(Allocator.check(64L * blocksPerLine[i] * mcusPerColumn * v, Short.BYTES));
+        }
+    }
+
+    /**
+     * Gets the number of block rows a non-interleaved scan of the component contains.
+     */
+    int getBlocksHigh(final int component) {
+        return blocksHigh[component];
+    }
+
+    /**
+     * Gets the number of blocks per row a non-interleaved scan of the component contains.
+     */
+    int getBlocksWide(final int component) {
+        return blocksWide[component];
+    }
+
+    short[] getCoefficients(final int component) {
+        return coefficients[component];
+    }
+
+    /**
+     * Gets the offset of the block's first coefficient in {@link #getCoefficients(int)}.
+     */
+    int getOffset(final int component, final int blockX, final int blockY) {
+        return (blockY * blocksPerLine[component] + blockX) * 64;
+    }
+}
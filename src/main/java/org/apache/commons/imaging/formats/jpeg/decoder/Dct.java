@@ -15,6 +15,8 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import java.util.Arrays;
+
 final class Dct {
     /*
      * The book "JPEG still image data compression standard", by Pennebaker and Mitchell, Chapter 4, discusses a number of approaches to the fast DCT. Here's
@@ -41,8 +43,42 @@ final class Dct {
      * Other brave attempts: AA&N, best float version converted to 16:16 fixed point: 23.923 seconds
      *
      * Anyway the best float version stays. 18.5 seconds = 5.4 million transforms per second per core :-)
+     *
+     * The decoder has since moved to the integer Loeffler, Ligtenberg and Moschytz (LLM) transform of IJG's jidctint.c ("islow"). It has 12 multiplies per
+     * 1D transform instead of AA&N's 5, but it dequantizes as it reads each coefficient, skips columns whose AC terms are zero (most of them, after
+     * quantization), and produces exactly libjpeg's default output.
+     *
+     * Scaled decoding uses the reduced size transforms of IJG's jidctred.c, which compute only the 4x4, 2x2 or 1x1 lowest frequency outputs of an 8x8
+     * block, so a 1/2, 1/4 or 1/8 size image costs a fraction of the full transform.
      */
 
+    // fixed-point constants of the LLM transform, scaled by 2^CONST_BITS, as in jidctint.c
+    private static final int CONST_BITS = 13;
+    private static final int PASS1_BITS = 2;
+    private static final int FIX_0_298631336 = 2446;
+    private static final int FIX_0_390180644 = 3196;
+    private static final int FIX_0_541196100 = 4433;
+    private static final int FIX_0_765366865 = 6270;
+    private static final int FIX_0_899976223 = 7373;
+    private static final int FIX_1_175875602 = 9633;
+    private static final int FIX_1_501321110 = 12299;
+    private static final int FIX_1_847759065 = 15137;
+    private static final int FIX_1_961570560 = 16069;
+    private static final int FIX_2_053119869 = 16819;
+    private static final int FIX_2_562915447 = 20995;
+    private static final int FIX_3_072711026 = 25172;
+    // and those of the reduced size transforms of jidctred.c
+    private static final int FIX_0_211164243 = 1730;
+    private static final int FIX_0_509795579 = 4176;
+    private static final int FIX_0_601344887 = 4926;
+    private static final int FIX_0_720959822 = 5906;
+    private static final int FIX_0_850430095 = 6967;
+    private static final int FIX_1_061594337 = 8697;
+    private static final int FIX_1_272758580 = 10426;
+    private static final int FIX_1_451774981 = 11893;
+    private static final int FIX_2_172734803 = 17799;
+    private static final int FIX_3_624509785 = 29692;
+
     private static final float[] DCT_SCALING_FACTORS = { (float) (0.5 / Math.sqrt(2.0)), (float) (0.25 / Math.cos(Math.PI / 16.0)),
             (float) (0.25 / Math.cos(2.0 * Math.PI / 16.0)), (float) (0.25 / Math.cos(3.0 * Math.PI / 16.0)), (float) (0.25 / Math.cos(4.0 * Math.PI / 16.0)),
             (float) (0.25 / Math.cos(5.0 * Math.PI / 16.0)), (float) (0.25 / Math.cos(6.0 * Math.PI / 16.0)),
@@ -65,6 +101,10 @@ final class Dct {
     private static final float Q = C2 - C6;
     private static final float R = C2 + C6;
 
+    private static int clamp(final int sample) {
+        return sample < 0 ? 0 : sample > 255 ? 255 : sample;
+    }
+
     /**
      * Fast forward Dct using AA&N. Taken from the book "JPEG still image data compression standard", by Pennebaker and Mitchell, chapter 4, figure "4-8".
      *
@@ -205,6 +245,136 @@ final class Dct {
         }
     }
 
+    /**
+     * Dequantizes and transforms a block of 8-bit samples to its average, the 1x1 sample of a 1/8 size image.
+     *
+     * @param coefficients the quantized coefficients, in natural order; only the DC coefficient is used.
+     * @param quantization the quantization table, in natural order.
+     * @param output       receives the sample, from 0 to 255.
+     * @param offset       the offset of the sample in the output.
+     */
+    public static void inverseDct1x1(final int[] coefficients, final int[] quantization, final int[] output, final int offset) {
+        output[offset] = clamp((coefficients[0] * quantization[0] + 4 >> 3) + 128);
+    }
+
+    /**
+     * Dequantizes and transforms a block of 8-bit samples into the 2x2 samples of a 1/4 size image, using only the coefficients those samples depend on.
+     *
+     * @param coefficients the quantized coefficients, in natural order; not modified.
+     * @param quantization the quantization table, in natural order.
+     * @param workspace    scratch space for 64 intermediate values.
+     * @param output       receives the 2x2 samples, from 0 to 255.
+     * @param offset       the offset of the block's top left sample in the output.
+     * @param stride       the distance between rows of the block in the output.
+     */
+    public static void inverseDct2x2(final int[] coefficients, final int[] quantization, final int[] workspace, final int[] output, final int offset,
+            final int stride) {
+        // pass 1: the odd columns and column 0, which are all the even output samples depend on
+        for (int i = 0; i < 8; i++) {
+            if (i == 2 || i == 4 || i == 6) {
+                continue;
+            }
+            if (coefficients[8 + i] == 0 && coefficients[24 + i] == 0 && coefficients[40 + i] == 0 && coefficients[56 + i] == 0) {
+                final int dc = coefficients[i] * quantization[i] << PASS1_BITS;
+                workspace[i] = dc;
+                workspace[8 + i] = dc;
+                continue;
+            }
+            final int tmp10 = coefficients[i] * quantization[i] << CONST_BITS + 2;
+            final int tmp0 = coefficients[56 + i] * quantization[56 + i] * -FIX_0_720959822 + coefficients[40 + i] * quantization[40 + i] * FIX_0_850430095
+                    + coefficients[24 + i] * quantization[24 + i] * -FIX_1_272758580 + coefficients[8 + i] * quantization[8 + i] * FIX_3_624509785;
+            final int shift = CONST_BITS - PASS1_BITS + 2;
+            workspace[i] = tmp10 + tmp0 + (1 << shift - 1) >> shift;
+            workspace[8 + i] = tmp10 - tmp0 + (1 << shift - 1) >> shift;
+        }
+
+        // pass 2: the two rows
+        final int shift = CONST_BITS + PASS1_BITS + 3 + 2;
+        final int bias = (1 << shift - 1) + (128 << shift);
+        for (int row = 0, out = offset; row < 16; row += 8, out += stride) {
+            final int tmp10 = (workspace[row] << CONST_BITS + 2) + bias;
+            final int tmp0 = workspace[row + 7] * -FIX_0_720959822 + workspace[row + 5] * FIX_0_850430095 + workspace[row + 3] * -FIX_1_272758580
+                    + workspace[row + 1] * FIX_3_624509785;
+            output[out] = clamp(tmp10 + tmp0 >> shift);
+            output[out + 1] = clamp(tmp10 - tmp0 >> shift);
+        }
+    }
+
+    /**
+     * Dequantizes and transforms a block of 8-bit samples into the 4x4 samples of a 1/2 size image, using only the coefficients those samples depend on.
+     *
+     * @param coefficients the quantized coefficients, in natural order; not modified.
+     * @param quantization the quantization table, in natural order.
+     * @param workspace    scratch space for 64 intermediate values.
+     * @param output       receives the 4x4 samples, from 0 to 255.
+     * @param offset       the offset of the block's top left sample in the output.
+     * @param stride       the distance between rows of the block in the output.
+     */
+    public static void inverseDct4x4(final int[] coefficients, final int[] quantization, final int[] workspace, final int[] output, final int offset,
+            final int stride) {
+        // pass 1: all columns but 4, which none of the even output samples depend on
+        for (int i = 0; i < 8; i++) {
+            if (i == 4) {
+                continue;
+            }
+            if (coefficients[8 + i] == 0 && coefficients[16 + i] == 0 && coefficients[24 + i] == 0 && coefficients[40 + i] == 0 && coefficients[48 + i] == 0
+                    && coefficients[56 + i] == 0) {
+                final int dc = coefficients[i] * quantization[i] << PASS1_BITS;
+                workspace[i] = dc;
+                workspace[8 + i] = dc;
+                workspace[16 + i] = dc;
+                workspace[24 + i] = dc;
+                continue;
+            }
+            final int tmp0Even = coefficients[i] * quantization[i] << CONST_BITS + 1;
+            final int tmp2Even = coefficients[16 + i] * quantization[16 + i] * FIX_1_847759065 + coefficients[48 + i] * quantization[48 + i] * -FIX_0_765366865;
+            final int tmp10 = tmp0Even + tmp2Even;
+            final int tmp12 = tmp0Even - tmp2Even;
+
+            final int z1 = coefficients[56 + i] * quantization[56 + i];
+            final int z2 = coefficients[40 + i] * quantization[40 + i];
+            final int z3 = coefficients[24 + i] * quantization[24 + i];
+            final int z4 = coefficients[8 + i] * quantization[8 + i];
+            final int tmp0 = z1 * -FIX_0_211164243 + z2 * FIX_1_451774981 + z3 * -FIX_2_172734803 + z4 * FIX_1_061594337;
+            final int tmp2 = z1 * -FIX_0_509795579 + z2 * -FIX_0_601344887 + z3 * FIX_0_899976223 + z4 * FIX_2_562915447;
+
+            final int shift = CONST_BITS - PASS1_BITS + 1;
+            final int round = 1 << shift - 1;
+            workspace[i] = tmp10 + tmp2 + round >> shift;
+            workspace[24 + i] = tmp10 - tmp2 + round >> shift;
+            workspace[8 + i] = tmp12 + tmp0 + round >> shift;
+            workspace[16 + i] = tmp12 - tmp0 + round >> shift;
+        }
+
+        // pass 2: the four rows
+        final int shift = CONST_BITS + PASS1_BITS + 3 + 1;
+        final int bias = (1 << shift - 1) + (128 << shift);
+        for (int row = 0, out = offset; row < 32; row += 8, out += stride) {
+            if (workspace[row + 1] == 0 && workspace[row + 2] == 0 && workspace[row + 3] == 0 && workspace[row + 5] == 0 && workspace[row + 6] == 0
+                    && workspace[row + 7] == 0) {
+                final int dc = clamp((workspace[row] << CONST_BITS + 1) + bias >> shift);
+                Arrays.fill(output, out, out + 4, dc);
+                continue;
+            }
+            final int tmp0Even = workspace[row] << CONST_BITS + 1;
+            final int tmp2Even = workspace[row + 2] * FIX_1_847759065 + workspace[row + 6] * -FIX_0_765366865;
+            final int tmp10 = tmp0Even + tmp2Even + bias;
+            final int tmp12 = tmp0Even - tmp2Even + bias;
+
+            final int z1 = workspace[row + 7];
+            final int z2 = workspace[row + 5];
+            final int z3 = workspace[row + 3];
+            final int z4 = workspace[row + 1];
+            final int tmp0 = z1 * -FIX_0_211164243 + z2 * FIX_1_451774981 + z3 * -FIX_2_172734803 + z4 * FIX_1_061594337;
+            final int tmp2 = z1 * -FIX_0_509795579 + z2 * -FIX_0_601344887 + z3 * FIX_0_899976223 + z4 * FIX_2_562915447;
+
+            output[out] = clamp(tmp10 + tmp2 >> shift);
+            output[out + 3] = clamp(tmp10 - tmp2 >> shift);
+            output[out + 1] = clamp(tmp12 + tmp0 >> shift);
+            output[out + 2] = clamp(tmp12 - tmp0 >> shift);
+        }
+    }
+
     /**
      * Fast inverse Dct using AA&N. This is taken from the beautiful [BROEKN URL] http://vsr.finermatik.tu-chemnitz.de/~jan/MPEG/HTML/IDCT.html which gives easy
      * equations and properly explains constants and scaling factors. Terms have been inlined and the negation optimized out of existence.
@@ -355,6 +525,136 @@ final class Dct {
         }
     }
 
+    /**
+     * Dequantizes and inverse transforms a block of 8-bit samples with the integer LLM transform, then level shifts and clamps the samples into the output.
+     *
+     * @param coefficients the quantized coefficients, in natural (row-major) order; not modified.
+     * @param quantization the quantization table, in natural order.
+     * @param workspace    scratch space for 64 intermediate values.
+     * @param output       receives the 8x8 samples, from 0 to 255.
+     * @param offset       the offset of the block's top left sample in the output.
+     * @param stride       the distance between rows of the block in the output.
+     */
+    public static void inverseDct8x8(final int[] coefficients, final int[] quantization, final int[] workspace, final int[] output, final int offset,
+            final int stride) {
+        // pass 1: columns from input into the workspace, scaled up by 2^PASS1_BITS
+        for (int i = 0; i < 8; i++) {
+            if (coefficients[8 + i] == 0 && coefficients[16 + i] == 0 && coefficients[24 + i] == 0 && coefficients[32 + i] == 0 && coefficients[40 + i] == 0
+                    && coefficients[48 + i] == 0 && coefficients[56 + i] == 0) {
+                // only the DC term, so the column is constant
+                final int dc = coefficients[i] * quantization[i] << PASS1_BITS;
+                for (int j = i; j < 64; j += 8) {
+                    workspace[j] = dc;
+                }
+                continue;
+            }
+
+            // even part
+            int z2 = coefficients[16 + i] * quantization[16 + i];
+            int z3 = coefficients[48 + i] * quantization[48 + i];
+            int z1 = (z2 + z3) * FIX_0_541196100;
+            int tmp2 = z1 - z3 * FIX_1_847759065;
+            int tmp3 = z1 + z2 * FIX_0_765366865;
+            z2 = coefficients[i] * quantization[i];
+            z3 = coefficients[32 + i] * quantization[32 + i];
+            int tmp0 = z2 + z3 << CONST_BITS;
+            int tmp1 = z2 - z3 << CONST_BITS;
+            final int tmp10 = tmp0 + tmp3;
+            final int tmp13 = tmp0 - tmp3;
+            final int tmp11 = tmp1 + tmp2;
+            final int tmp12 = tmp1 - tmp2;
+
+            // odd part
+            tmp0 = coefficients[56 + i] * quantization[56 + i];
+            tmp1 = coefficients[40 + i] * quantization[40 + i];
+            tmp2 = coefficients[24 + i] * quantization[24 + i];
+            tmp3 = coefficients[8 + i] * quantization[8 + i];
+            z1 = tmp0 + tmp3;
+            z2 = tmp1 + tmp2;
+            z3 = tmp0 + tmp2;
+            int z4 = tmp1 + tmp3;
+            final int z5 = (z3 + z4) * FIX_1_175875602;
+            tmp0 *= FIX_0_298631336;
+            tmp1 *= FIX_2_053119869;
+            tmp2 *= FIX_3_072711026;
+            tmp3 *= FIX_1_501321110;
+            z1 *= -FIX_0_899976223;
+            z2 *= -FIX_2_562915447;
+            z3 = z3 * -FIX_1_961570560 + z5;
+            z4 = z4 * -FIX_0_390180644 + z5;
+            tmp0 += z1 + z3;
+            tmp1 += z2 + z4;
+            tmp2 += z2 + z3;
+            tmp3 += z1 + z4;
+
+            final int round = 1 << CONST_BITS - PASS1_BITS - 1;
+            workspace[i] = tmp10 + tmp3 + round >> CONST_BITS - PASS1_BITS;
+            workspace[56 + i] = tmp10 - tmp3 + round >> CONST_BITS - PASS1_BITS;
+            workspace[8 + i] = tmp11 + tmp2 + round >> CONST_BITS - PASS1_BITS;
+            workspace[48 + i] = tmp11 - tmp2 + round >> CONST_BITS - PASS1_BITS;
+            workspace[16 + i] = tmp12 + tmp1 + round >> CONST_BITS - PASS1_BITS;
+            workspace[40 + i] = tmp12 - tmp1 + round >> CONST_BITS - PASS1_BITS;
+            workspace[24 + i] = tmp13 + tmp0 + round >> CONST_BITS - PASS1_BITS;
+            workspace[32 + i] = tmp13 - tmp0 + round >> CONST_BITS - PASS1_BITS;
+        }
+
+        // pass 2: rows from the workspace into the output, removing the 2^PASS1_BITS and the factor of 8 of the 2D transform
+        final int shift = CONST_BITS + PASS1_BITS + 3;
+        // rounding, plus the level shift of 128 scaled up to match
+        final int bias = (1 << shift - 1) + (128 << shift);
+        for (int row = 0, out = offset; row < 64; row += 8, out += stride) {
+            if (workspace[row + 1] == 0 && workspace[row + 2] == 0 && workspace[row + 3] == 0 && workspace[row + 4] == 0 && workspace[row + 5] == 0
+                    && workspace[row + 6] == 0 && workspace[row + 7] == 0) {
+                // the same result as the full transform below, without the multiplies
+                final int dc = clamp((workspace[row] << CONST_BITS) + bias >> shift);
+                Arrays.fill(output, out, out + 8, dc);
+                continue;
+            }
+            final int z2Even = workspace[row + 2];
+            final int z3Even = workspace[row + 6];
+            int z1 = (z2Even + z3Even) * FIX_0_541196100;
+            int tmp2 = z1 - z3Even * FIX_1_847759065;
+            int tmp3 = z1 + z2Even * FIX_0_765366865;
+            int tmp0 = workspace[row] + workspace[row + 4] << CONST_BITS;
+            int tmp1 = workspace[row] - workspace[row + 4] << CONST_BITS;
+            final int tmp10 = tmp0 + tmp3 + bias;
+            final int tmp13 = tmp0 - tmp3 + bias;
+            final int tmp11 = tmp1 + tmp2 + bias;
+            final int tmp12 = tmp1 - tmp2 + bias;
+
+            tmp0 = workspace[row + 7];
+            tmp1 = workspace[row + 5];
+            tmp2 = workspace[row + 3];
+            tmp3 = workspace[row + 1];
+            z1 = tmp0 + tmp3;
+            int z2 = tmp1 + tmp2;
+            int z3 = tmp0 + tmp2;
+            int z4 = tmp1 + tmp3;
+            final int z5 = (z3 + z4) * FIX_1_175875602;
+            tmp0 *= FIX_0_298631336;
+            tmp1 *= FIX_2_053119869;
+            tmp2 *= FIX_3_072711026;
+            tmp3 *= FIX_1_501321110;
+            z1 *= -FIX_0_899976223;
+            z2 *= -FIX_2_562915447;
+            z3 = z3 * -FIX_1_961570560 + z5;
+            z4 = z4 * -FIX_0_390180644 + z5;
+            tmp0 += z1 + z3;
+            tmp1 += z2 + z4;
+            tmp2 += z2 + z3;
+            tmp3 += z1 + z4;
+
+            output[out] = clamp(tmp10 + tmp3 >> shift);
+            output[out + 7] = clamp(tmp10 - tmp3 >> shift);
+            output[out + 1] = clamp(tmp11 + tmp2 >> shift);
+            output[out + 6] = clamp(tmp11 - tmp2 >> shift);
+            output[out + 2] = clamp(tmp12 + tmp1 >> shift);
+            output[out + 5] = clamp(tmp12 - tmp1 >> shift);
+            output[out + 3] = clamp(tmp13 + tmp0 >> shift);
+            output[out + 4] = clamp(tmp13 - tmp0 >> shift);
+        }
+    }
+
     public static void scaleDequantizationMatrix(final float[] matrix) {
         for (int y = 0; y < 8; y++) {
             for (int x = 0; x < 8; x++) {
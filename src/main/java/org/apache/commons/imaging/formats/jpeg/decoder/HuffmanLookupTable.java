@@ -0,0 +1,121 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
+
+/**
+ * Decodes the symbols of a {@link DhtSegment.HuffmanTable}, resolving codes of up to {@link #LOOKAHEAD} bits with a single table lookup on the next bits of
+ * the entropy-coded data, and only walking the canonical code for longer ones.
+ */
+final class HuffmanLookupTable {
+
+    /** The number of bits looked up at once. */
+    static final int LOOKAHEAD = 9;
+
+    private final DhtSegment.HuffmanTable table;
+    /** Indexed by the next {@link #LOOKAHEAD} bits: the code length << 8 | symbol, or 0 if the code is longer. */
+    private final int[] symbols = new int[1 << LOOKAHEAD];
+    /**
+     * For AC tables, indexed by the next {@link #LOOKAHEAD} bits: the coefficient << 16 | run << 8 | length of the code and coefficient bits, or 0 if they
+     * don't fit or code an end of block or zero run.
+     */
+    private final int[] coefficients;
+
+    HuffmanLookupTable(final DhtSegment.HuffmanTable table) throws ImagingException {
+        this.table = table;
+        for (int length = 1; length <= LOOKAHEAD; length++) {
+            final int maxCode = table.getMaxCode(length);
+            if (maxCode >= 1 << length) {
+                throw new ImagingException("Invalid Huffman table");
+            }
+            for (int code = table.getMinCode(length); code <= maxCode; code++) {
+                final int symbol = table.getHuffVal(table.getValPtr(length) + code - table.getMinCode(length));
+                final int shift = LOOKAHEAD - length;
+                for (int i = code << shift; i < code + 1 << shift; i++) {
+                    symbols[i] = length << 8 | symbol;
+                }
+            }
+        }
+
+        if (table.tableClass == 1) {
+            coefficients = new int[1 << LOOKAHEAD];
+            for (int i = 0; i < coefficients.length; i++) {
+                final int codeLength = symbols[i] >> 8;
+                final int ssss = symbols[i] & 0xf;
+                final int rrrr = symbols[i] >> 4 & 0xf;
+                if (codeLength != 0 && ssss != 0 && codeLength + ssss <= LOOKAHEAD) {
+                    final int bits = i >> LOOKAHEAD - codeLength - ssss & (1 << ssss) - 1;
+                    coefficients[i] = extend(bits, ssss) << 16 | rrrr << 8 | codeLength + ssss;
+                }
+            }
+        } else {
+            coefficients = null;
+        }
+    }
+
+    /**
+     * "EXTEND", section F.2.2.1, figure F.12, page 105 of T.81.
+     *
+     * @param v the received bits.
+     * @param t the number of bits.
+     * @return the signed value.
+     */
+    static int extend(int v, final int t) {
+        int vt = 1 << t - 1;
+        if (v < vt) {
+            vt = (-1 << t) + 1;
+            v += vt;
+        }
+        return v;
+    }
+
+    /**
+     * Decodes the next symbol.
+     *
+     * @param is the entropy-coded data.
+     * @return the symbol.
+     * @throws ImagingException if the data doesn't hold a valid code.
+     */
+    int decode(final JpegInputStream is) throws ImagingException {
+        final int entry = symbols[is.peekBits(LOOKAHEAD)];
+        if (entry != 0) {
+            is.skipBits(entry >> 8);
+            return entry & 0xff;
+        }
+        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81, for the remaining code lengths
+        final int bits = is.peekBits(16);
+        for (int length = LOOKAHEAD + 1; length <= 16; length++) {
+            final int code = bits >>> 16 - length;
+            if (code <= table.getMaxCode(length)) {
+                is.skipBits(length);
+                return table.getHuffVal(table.getValPtr(length) + code - table.getMinCode(length));
+            }
+        }
+        throw new ImagingException("Invalid Huffman code");
+    }
+
+    /**
+     * Looks up the next AC coefficient, for tables of class 1.
+     *
+     * @param is the entropy-coded data.
+     * @return the coefficient << 16 | run << 8 | number of bits to skip, or 0 if {@link #decode(JpegInputStream)} must be used.
+     */
+    int lookupCoefficient(final JpegInputStream is) {
+        return coefficients[is.peekBits(LOOKAHEAD)];
+    }
+}
@@ -19,24 +19,26 @@ import static org.apache.commons.imaging.common.BinaryFunctions.read2Bytes;
 import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
 
 import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.DataBuffer;
-import java.awt.image.DirectColorModel;
-import java.awt.image.Raster;
-import java.awt.image.WritableRaster;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.ImagingParameters;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.color.ColorConversions;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
 import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
 import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment.HuffmanTable;
@@ -47,17 +49,26 @@ import org.apache.commons.imaging.formats.jpeg.segments.SosSegment;
 
 public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
 
-    private static final int[] BAND_MASK_ARGB = { 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000 };
-    private static final int[] BAND_MASK_RGB = { 0x00ff0000, 0x0000ff00, 0x000000ff };
-
     /*
      * JPEG is an advanced image format that takes significant computation to decode. Keep decoding fast: - Don't allocate memory inside loops, allocate it once
-     * and reuse. - Minimize calculations per pixel and per block (using lookup tables for YCbCr->RGB conversion doubled performance). - Math.round() is slow,
-     * use (int)(x+0.5f) instead for positive numbers.
+     * and reuse. - Minimize calculations per pixel and per block (using lookup tables for YCbCr->RGB conversion doubled performance). - Keep the per-block
+     * pipeline in integer arithmetic.
      */
 
-    private static int fastRound(final float x) {
-        return (int) (x + 0.5f);
+    /**
+     * Returns the offset of the marker ending the entropy-coded data that starts at the given offset, or the data's length if there is none.
+     */
+    private static int findEndOfScan(final byte[] imageData, final int start) {
+        for (int i = start; i + 1 < imageData.length; i++) {
+            if ((0xff & imageData[i]) == 0xff) {
+                final int next = 0xff & imageData[i + 1];
+                // stuffed zero bytes and restart markers are part of the scan
+                if (next != 0 && (next < (0xff & JpegConstants.RST0_MARKER) || next > (0xff & JpegConstants.RST7_MARKER)) && next != 0xff) {
+                    return i;
+                }
+            }
+        }
+        return imageData.length;
     }
 
     /**
@@ -65,25 +76,28 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
      * of restart markers found is equal to the number of start positions minus one (because restart markers are between intervals).
      *
      * @param scanPayload array to examine
-     * @return the start positions
+     * @param offset      the offset of the scan's entropy-coded data in the array
+     * @param length      the length of the scan's entropy-coded data
+     * @return the start positions, as offsets in the array
      */
-    static List<Integer> getIntervalStartPositions(final int[] scanPayload) {
+    static List<Integer> getIntervalStartPositions(final byte[] scanPayload, final int offset, final int length) {
         final List<Integer> intervalStarts = new ArrayList<>();
-        intervalStarts.add(0);
+        intervalStarts.add(offset);
         boolean foundFF = false;
         boolean foundD0toD7 = false;
-        int pos = 0;
-        while (pos < scanPayload.length) {
+        int pos = offset;
+        while (pos < offset + length) {
+            final int b = 0xff & scanPayload[pos];
             if (foundFF) {
                 // found 0xFF D0 .. 0xFF D7 => RST marker
-                if (scanPayload[pos] >= (0xff & JpegConstants.RST0_MARKER) && scanPayload[pos] <= (0xff & JpegConstants.RST7_MARKER)) {
+                if (b >= (0xff & JpegConstants.RST0_MARKER) && b <= (0xff & JpegConstants.RST7_MARKER)) {
                     foundD0toD7 = true;
                 } else { // found 0xFF followed by something else => no RST marker
                     foundFF = false;
                 }
             }
 
-            if (scanPayload[pos] == 0xFF) {
+            if (b == 0xFF) {
                 foundFF = true;
             }
 
@@ -100,13 +114,16 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     }
 
     /**
-     * Returns an array of JpegInputStream where each field contains the JpegInputStream for one interval.
+     * Returns an array of JpegInputStream where each field contains the JpegInputStream for one interval. The streams are views of the array, which is not
+     * copied.
      *
      * @param scanPayload array to read intervals from
+     * @param offset      the offset of the scan's entropy-coded data in the array
+     * @param length      the length of the scan's entropy-coded data
      * @return JpegInputStreams for all intervals, at least one stream is always provided
      */
-    static JpegInputStream[] splitByRstMarkers(final int[] scanPayload) {
-        final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload);
+    static JpegInputStream[] splitByRstMarkers(final byte[] scanPayload, final int offset, final int length) {
+        final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload, offset, length);
         // get number of intervals in payload to init an array of appropriate length
         final int intervalCount = intervalStarts.size();
         final JpegInputStream[] streams = Allocator.array(intervalCount, JpegInputStream[]::new, JpegInputStream.SHALLOW_SIZE);
@@ -117,33 +134,85 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 // because each restart marker needs two bytes the end of
                 // this interval is two bytes before the next interval starts
                 to = intervalStarts.get(i + 1) - 2;
-            } else { // the last interval ends with the array
-                to = scanPayload.length;
+            } else { // the last interval ends with the scan
+                to = offset + length;
             }
-            final int[] interval = Arrays.copyOfRange(scanPayload, from, to);
-            streams[i] = new JpegInputStream(interval);
+            streams[i] = new JpegInputStream(scanPayload, from, to - from);
         }
         return streams;
     }
 
+    /**
+     * Scratch buffers for transforming one block, one per decoding thread.
+     */
+    private static final class Workspace {
+        final int[] zz = new int[64];
+        final int[] blockInt = new int[64];
+        final int[] idct = new int[64];
+    }
+
     private final DqtSegment.QuantizationTable[] quantizationTables = new DqtSegment.QuantizationTable[4];
-    private final DhtSegment.HuffmanTable[] huffmanDCTables = new DhtSegment.HuffmanTable[4];
-    private final DhtSegment.HuffmanTable[] huffmanACTables = new DhtSegment.HuffmanTable[4];
+    private final HuffmanLookupTable[] huffmanDCTables = new HuffmanLookupTable[4];
+    private final HuffmanLookupTable[] huffmanACTables = new HuffmanLookupTable[4];
     private SofnSegment sofnSegment;
     private SosSegment sosSegment;
-    private final float[][] scaledQuantizationTables = new float[4][];
+    // quantization tables in natural order, the inverse DCT dequantizes as it goes
+    private final int[][] quantizationMatrices = new int[4][];
     private BufferedImage image;
     private ImagingException imageReadException;
     private IOException ioException;
 
-    private final int[] zz = new int[64];
-
-    private final int[] blockInt = new int[64];
+    private boolean progressive;
+    /** Whether to stop at the coefficients, for {@link #decodeCoefficients(ByteSource)}. */
+    private boolean coefficientsOnly;
+    private CoefficientBuffer coefficientBuffer;
+    private int restartInterval;
+    // the size each 8x8 block is decoded to, and the size of the image, after scaling down
+    private int blockSize = 8;
+    private int outputWidth;
+    private int outputHeight;
+    private boolean fancyUpsampling;
+    // the chroma of the whole image, kept for fancy upsampling once every MCU is decoded
+    private byte[] cbPlane;
+    private byte[] crPlane;
+    private int planeStride;
+    private int chromaWidth;
+    private int chromaHeight;
+    // remaining blocks of the current end-of-band run, section G.1.2.2 of T.81
+    private int eobrun;
 
-    private final float[] block = new float[64];
+    private final Workspace workspace = new Workspace();
 
     private boolean useTiffRgb;
 
+    private ImagingParameters<?> params;
+
+    /**
+     * Allocates the chroma planes if the image is to be fancy upsampled, that is if fancy upsampling is enabled and the image is YCbCr with chroma subsampled
+     * 2x1 or 2x2.
+     */
+    private void allocateChromaPlanes(final int xMCUs, final int yMCUs) {
+        cbPlane = null;
+        crPlane = null;
+        if (!fancyUpsampling || useTiffRgb || sofnSegment.numberOfComponents != 3) {
+            return;
+        }
+        final SofnSegment.Component luma = sofnSegment.getComponents(0);
+        for (int i = 1; i < 3; i++) {
+            if (sofnSegment.getComponents(i).horizontalSamplingFactor != 1 || sofnSegment.getComponents(i).verticalSamplingFactor != 1) {
+                return;
+            }
+        }
+        if (luma.horizontalSamplingFactor != 2 || luma.verticalSamplingFactor > 2) {
+            return;
+        }
+        planeStride = xMCUs * blockSize;
+        cbPlane = Allocator.byteArray((long) planeStride * yMCUs * blockSize);
+        crPlane = Allocator.byteArray((long) planeStride * yMCUs * blockSize);
+        chromaWidth = (outputWidth + 1) / 2;
+        chromaHeight = (outputHeight + luma.verticalSamplingFactor - 1) / luma.verticalSamplingFactor;
+    }
+
     private Block[] allocateMcuMemory() throws ImagingException {
         final Block[] mcu = Allocator.array(sosSegment.numberOfComponents, Block[]::new, Block.SHALLOW_SIZE);
         for (int i = 0; i < sosSegment.numberOfComponents; i++) {
@@ -158,18 +227,67 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             if (frameComponent == null) {
                 throw new ImagingException("Invalid component");
             }
-            final Block fullBlock = new Block(8 * frameComponent.horizontalSamplingFactor, 8 * frameComponent.verticalSamplingFactor);
+            final Block fullBlock = new Block(blockSize * frameComponent.horizontalSamplingFactor, blockSize * frameComponent.verticalSamplingFactor);
             mcu[i] = fullBlock;
         }
         return mcu;
     }
 
+    /**
+     * Full resolution components need no upsampling, so their MCU block is shared with the scaled MCU instead of copied into it.
+     */
+    private static Block allocateScaledBlock(final Block block, final int hSize, final int vSize) {
+        return block.width == hSize && block.height == vSize ? block : new Block(hSize, vSize);
+    }
+
     @Override
     public boolean beginSos() {
         return true;
     }
 
+    private BufferedImage createImage() throws ImagingException {
+        Allocator.check(Integer.BYTES * outputWidth * outputHeight);
+        final boolean hasAlpha;
+        switch (sofnSegment.numberOfComponents) {
+        case 4:
+            // Special handling for the application-RGB case: TIFF files with
+            // JPEG compression can support an alpha channel. This extension
+            // to the JPEG standard is implemented by specifying a color model
+            // with a fourth channel for alpha.
+            hasAlpha = useTiffRgb;
+            break;
+        case 3:
+        case 1:
+            // FIXME: why do images come out too bright with CS_GRAY?
+            // colorModel = new ComponentColorModel(
+            // ColorSpace.getInstance(ColorSpace.CS_GRAY), false, true,
+            // Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+            // raster = colorModel.createCompatibleWritableRaster(
+            // sofnSegment.width, sofnSegment.height);
+            hasAlpha = false;
+            break;
+        default:
+            throw new ImagingException(sofnSegment.numberOfComponents + " components are invalid or unsupported");
+        }
+        return new ImageBuilder(outputWidth, outputHeight, hasAlpha, false, params).getBufferedImage();
+    }
+
     public BufferedImage decode(final ByteSource byteSource) throws IOException, ImagingException {
+        return decode(byteSource, null);
+    }
+
+    /**
+     * Decodes an image into the destination image or pooled buffer given by the parameters, if any.
+     *
+     * @param byteSource the JPEG data.
+     * @param params     the parameters, may be null.
+     * @return the decoded image.
+     * @throws IOException      if the data cannot be read.
+     * @throws ImagingException if the data is not a supported JPEG.
+     * @since 1.0-alpha6
+     */
+    public BufferedImage decode(final ByteSource byteSource, final ImagingParameters<?> params) throws IOException, ImagingException {
+        this.params = params;
         final JpegUtils jpegUtils = new JpegUtils();
         jpegUtils.traverseJfif(byteSource, this);
         if (imageReadException != null) {
@@ -181,30 +299,485 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return image;
     }
 
-    private int decode(final JpegInputStream is, final DhtSegment.HuffmanTable huffmanTable) throws ImagingException {
-        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81
-        int i = 1;
-        int code = is.nextBit();
-        while (code > huffmanTable.getMaxCode(i)) {
-            i++;
-            code = code << 1 | is.nextBit();
+    private int decode(final JpegInputStream is, final HuffmanLookupTable huffmanTable) throws ImagingException {
+        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81, mostly by table lookup
+        return huffmanTable.decode(is);
+    }
+
+    private void decodeAcFirst(final JpegInputStream is, final HuffmanLookupTable acTable, final short[] coefficients, final int offset)
+            throws ImagingException {
+        // "Decode_AC_coefficients" with end-of-band runs, section G.1.2.2 of T.81
+        if (eobrun > 0) {
+            eobrun--;
+            return;
+        }
+        final int se = sosSegment.endOfSpectralSelection;
+        final int al = sosSegment.successiveApproximationBitLow;
+        for (int k = Math.max(1, sosSegment.startOfSpectralSelection); k <= se; k++) {
+            final int rs = decode(is, acTable);
+            final int ssss = rs & 0xf;
+            final int r = rs >> 4;
+            if (ssss == 0) {
+                if (r != 15) {
+                    eobrun = (1 << r) - 1;
+                    if (r > 0) {
+                        eobrun += is.readBits(r);
+                    }
+                    break;
+                }
+                k += 15;
+            } else {
+                k += r;
+                if (k > se) {
+                    throw new ImagingException("Invalid AC coefficient position " + k);
+                }
+                coefficients[offset + k] = (short) (extend(receive(ssss, is), ssss) * (1 << al));
+            }
+        }
+    }
+
+    private void decodeAcRefine(final JpegInputStream is, final HuffmanLookupTable acTable, final short[] coefficients, final int offset)
+            throws ImagingException {
+        // section G.1.2.3 of T.81: each nonzero coefficient in the band gets one correction bit,
+        // newly nonzero coefficients are coded as a zero run followed by a sign bit
+        final int se = sosSegment.endOfSpectralSelection;
+        final int p1 = 1 << sosSegment.successiveApproximationBitLow;
+        final int m1 = -1 << sosSegment.successiveApproximationBitLow;
+        int k = sosSegment.startOfSpectralSelection;
+        if (eobrun == 0) {
+            for (; k <= se; k++) {
+                final int rs = decode(is, acTable);
+                int r = rs >> 4;
+                final int ssss = rs & 0xf;
+                int value = 0;
+                if (ssss != 0) {
+                    if (ssss != 1) {
+                        throw new ImagingException("Invalid AC refinement coefficient size " + ssss);
+                    }
+                    value = is.readBits(1) != 0 ? p1 : m1;
+                } else if (r != 15) {
+                    eobrun = 1 << r;
+                    if (r > 0) {
+                        eobrun += is.readBits(r);
+                    }
+                    break;
+                }
+                // skip r zero coefficients, refining the nonzero ones passed on the way
+                while (k <= se) {
+                    final int coefficient = coefficients[offset + k];
+                    if (coefficient != 0) {
+                        refine(is, coefficients, offset + k, p1, m1);
+                    } else if (--r < 0) {
+                        break;
+                    }
+                    k++;
+                }
+                if (value != 0) {
+                    if (k > se) {
+                        throw new ImagingException("Invalid AC coefficient position " + k);
+                    }
+                    coefficients[offset + k] = (short) value;
+                }
+            }
+        }
+        if (eobrun > 0) {
+            // the rest of the band is in an end-of-band run, so only correction bits remain
+            for (; k <= se; k++) {
+                if (coefficients[offset + k] != 0) {
+                    refine(is, coefficients, offset + k, p1, m1);
+                }
+            }
+            eobrun--;
+        }
+    }
+
+    private void decodeDc(final JpegInputStream is, final HuffmanLookupTable dcTable, final short[] coefficients, final int offset, final int[] preds,
+            final int predIndex) throws ImagingException {
+        final int al = sosSegment.successiveApproximationBitLow;
+        if (sosSegment.successiveApproximationBitHigh == 0) {
+            // first scan, section G.1.2.1 of T.81
+            final int t = decode(is, dcTable);
+            final int diff = extend(receive(t, is), t);
+            preds[predIndex] += diff;
+            coefficients[offset] = (short) (preds[predIndex] * (1 << al));
+        } else if (is.readBits(1) != 0) {
+            // refinement scans carry one raw bit per block
+            coefficients[offset] |= 1 << al;
+        }
+    }
+
+    /**
+     * Decodes the restart intervals [first, last) of a sequential scan, each interval starting with fresh predictors.
+     */
+    private void decodeIntervals(final JpegInputStream[] bitInputStreams, final int first, final int last, final int xMCUs, final int yMCUs,
+            final int hSize, final int vSize, final int[] pixels, final Workspace workspace) throws ImagingException {
+        final Block[] mcu = allocateMcuMemory();
+        final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
+        Arrays.setAll(scaledMCU, i -> allocateScaledBlock(mcu[i], hSize, vSize));
+        final int[] preds = Allocator.intArray(sofnSegment.numberOfComponents);
+        final int mcuCount = xMCUs * yMCUs;
+        for (int interval = first; interval < last; interval++) {
+            Arrays.fill(preds, 0);
+            final int end = (int) Math.min((long) (interval + 1) * restartInterval, mcuCount);
+            for (int n = interval * restartInterval; n < end; n++) {
+                readMcu(bitInputStreams[interval], preds, mcu, workspace);
+                outputMcu(mcu, scaledMCU, n % xMCUs * hSize, n / xMCUs * vSize, hSize, vSize, pixels);
+            }
+        }
+    }
+
+    /**
+     * Decodes the restart intervals of a sequential scan as tasks on the executor. The intervals cover disjoint runs of MCUs, so the tasks write to
+     * disjoint parts of the raster.
+     */
+    private void decodeIntervalsInParallel(final Executor executor, final JpegInputStream[] bitInputStreams, final int xMCUs, final int yMCUs,
+            final int hSize, final int vSize, final int[] pixels) throws ImagingException {
+        final int intervalCount = (int) Math.min(bitInputStreams.length, ((long) xMCUs * yMCUs + restartInterval - 1) / restartInterval);
+        // a few tasks per core keeps the cores busy when intervals decode at different speeds
+        final int taskCount = Math.min(intervalCount, 4 * Runtime.getRuntime().availableProcessors());
+        final CompletableFuture<?>[] tasks = new CompletableFuture<?>[taskCount];
+        for (int t = 0; t < taskCount; t++) {
+            final int first = (int) ((long) t * intervalCount / taskCount);
+            final int last = (int) ((long) (t + 1) * intervalCount / taskCount);
+            tasks[t] = CompletableFuture.runAsync(() -> {
+                try {
+                    decodeIntervals(bitInputStreams, first, last, xMCUs, yMCUs, hSize, vSize, pixels, new Workspace());
+                } catch (final ImagingException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof ImagingException) {
+                throw (ImagingException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ImagingException("Error decoding restart intervals", e.getCause());
+        }
+    }
+
+    /**
+     * Decodes the quantized DCT coefficients of a baseline or progressive JPEG, without transforming them into samples, for lossless transforms.
+     *
+     * @param byteSource the JPEG data.
+     * @return for each frame component, in frame order, its blocks row by row, padded to whole MCUs, each block 64 coefficients in zig-zag order. A frame
+     *         with a single component has 1 block per MCU whatever its sampling factors.
+     * @throws IOException      if the data cannot be read.
+     * @throws ImagingException if the data is not a supported JPEG.
+     * @since 1.0-alpha6
+     */
+    public short[][] decodeCoefficients(final ByteSource byteSource) throws IOException, ImagingException {
+        coefficientsOnly = true;
+        new JpegUtils().traverseJfif(byteSource, this);
+        if (imageReadException != null) {
+            throw imageReadException;
+        }
+        if (ioException != null) {
+            throw ioException;
+        }
+        if (coefficientBuffer == null) {
+            throw new ImagingException("No image data");
+        }
+        final short[][] result = new short[sofnSegment.numberOfComponents][];
+        Arrays.setAll(result, coefficientBuffer::getCoefficients);
+        return result;
+    }
+
+    private void decodeProgressive(final int marker, final byte[] imageData) throws ImagingException, IOException {
+        final CoefficientBuffer coefficients = decodeScans(marker, imageData);
+
+        final BufferedImage result = createImage();
+        final int[] pixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        allocateChromaPlanes(coefficients.mcusPerLine, coefficients.mcusPerColumn);
+        final int hSize = blockSize * coefficients.hMax;
+        final int vSize = blockSize * coefficients.vMax;
+        final Block[] mcu = Allocator.array(sofnSegment.numberOfComponents, Block[]::new, Block.SHALLOW_SIZE);
+        for (int i = 0; i < mcu.length; i++) {
+            final SofnSegment.Component frameComponent = sofnSegment.getComponents(i);
+            mcu[i] = new Block(blockSize * frameComponent.horizontalSamplingFactor, blockSize * frameComponent.verticalSamplingFactor);
+        }
+        final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
+        Arrays.setAll(scaledMCU, i -> allocateScaledBlock(mcu[i], hSize, vSize));
+        for (int mcuY = 0; mcuY < coefficients.mcusPerColumn; mcuY++) {
+            for (int mcuX = 0; mcuX < coefficients.mcusPerLine; mcuX++) {
+                for (int i = 0; i < mcu.length; i++) {
+                    final SofnSegment.Component frameComponent = sofnSegment.getComponents(i);
+                    final short[] componentCoefficients = coefficients.getCoefficients(i);
+                    for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
+                        for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
+                            final int offset = coefficients.getOffset(i, mcuX * frameComponent.horizontalSamplingFactor + x,
+                                    mcuY * frameComponent.verticalSamplingFactor + y);
+                            for (int j = 0; j < 64; j++) {
+                                workspace.zz[j] = componentCoefficients[offset + j];
+                            }
+                            inverseDct(frameComponent, mcu[i], x, y, workspace);
+                        }
+                    }
+                }
+                outputMcu(mcu, scaledMCU, mcuX * hSize, mcuY * vSize, hSize, vSize, pixels);
+            }
+        }
+        upsampleChromaPlanes(pixels);
+        image = result;
+    }
+
+    private void decodeScan(final CoefficientBuffer coefficients, final JpegInputStream[] bitInputStreams) throws ImagingException {
+        final int ss = sosSegment.startOfSpectralSelection;
+        final int se = sosSegment.endOfSpectralSelection;
+        // section G.1.1.1 of T.81; sequential scans code each block's DC and AC coefficients together
+        if (progressive && (ss > se || se > 63 || ss == 0 && se != 0 || ss != 0 && sosSegment.numberOfComponents != 1)) {
+            throw new ImagingException("Invalid progressive scan, spectral selection " + ss + " to " + se);
+        }
+        final int[] componentIndexes = new int[sosSegment.numberOfComponents];
+        for (int i = 0; i < componentIndexes.length; i++) {
+            componentIndexes[i] = findFrameComponent(sosSegment.getComponents(i).scanComponentSelector);
+            if (ss == 0 && huffmanDCTables[sosSegment.getComponents(i).dcCodingTableSelector] == null && sosSegment.successiveApproximationBitHigh == 0
+                    || (ss != 0 || !progressive) && huffmanACTables[sosSegment.getComponents(i).acCodingTableSelector] == null) {
+                throw new ImagingException("Missing Huffman table");
+            }
+        }
+        int bitInputStreamCount = 0;
+        JpegInputStream bitInputStream = bitInputStreams[0];
+        final int[] preds = new int[componentIndexes.length];
+        eobrun = 0;
+
+        if (componentIndexes.length == 1) {
+            // non-interleaved scans code the component's blocks row by row, one block per MCU
+            final int c = componentIndexes[0];
+            final short[] componentCoefficients = coefficients.getCoefficients(c);
+            final SosSegment.Component scanComponent = sosSegment.getComponents(0);
+            final int blocksWide = coefficients.getBlocksWide(c);
+            final int blocksHigh = coefficients.getBlocksHigh(c);
+            int mcuCount = 0;
+            for (int blockY = 0; blockY < blocksHigh; blockY++) {
+                for (int blockX = 0; blockX < blocksWide; blockX++) {
+                    if (restartInterval > 0 && mcuCount > 0 && mcuCount % restartInterval == 0 && bitInputStreamCount + 1 < bitInputStreams.length) {
+                        bitInputStream = bitInputStreams[++bitInputStreamCount];
+                        preds[0] = 0;
+                        eobrun = 0;
+                    }
+                    mcuCount++;
+                    final int offset = coefficients.getOffset(c, blockX, blockY);
+                    if (!progressive) {
+                        decodeDc(bitInputStream, huffmanDCTables[scanComponent.dcCodingTableSelector], componentCoefficients, offset, preds, 0);
+                        decodeAcFirst(bitInputStream, huffmanACTables[scanComponent.acCodingTableSelector], componentCoefficients, offset);
+                    } else if (ss == 0) {
+                        decodeDc(bitInputStream, huffmanDCTables[scanComponent.dcCodingTableSelector], componentCoefficients, offset, preds, 0);
+                    } else if (sosSegment.successiveApproximationBitHigh == 0) {
+                        decodeAcFirst(bitInputStream, huffmanACTables[scanComponent.acCodingTableSelector], componentCoefficients, offset);
+                    } else {
+                        decodeAcRefine(bitInputStream, huffmanACTables[scanComponent.acCodingTableSelector], componentCoefficients, offset);
+                    }
+                }
+            }
+            return;
+        }
+
+        // interleaved progressive scans are always DC scans
+        int mcuCount = 0;
+        for (int mcuY = 0; mcuY < coefficients.mcusPerColumn; mcuY++) {
+            for (int mcuX = 0; mcuX < coefficients.mcusPerLine; mcuX++) {
+                if (restartInterval > 0 && mcuCount > 0 && mcuCount % restartInterval == 0 && bitInputStreamCount + 1 < bitInputStreams.length) {
+                    bitInputStream = bitInputStreams[++bitInputStreamCount];
+                    Arrays.fill(preds, 0);
+                }
+                mcuCount++;
+                for (int i = 0; i < componentIndexes.length; i++) {
+                    final int c = componentIndexes[i];
+                    final SofnSegment.Component frameComponent = sofnSegment.getComponents(c);
+                    final HuffmanLookupTable dcTable = huffmanDCTables[sosSegment.getComponents(i).dcCodingTableSelector];
+                    final HuffmanLookupTable acTable = huffmanACTables[sosSegment.getComponents(i).acCodingTableSelector];
+                    for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
+                        for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
+                            final int offset = coefficients.getOffset(c, mcuX * frameComponent.horizontalSamplingFactor + x,
+                                    mcuY * frameComponent.verticalSamplingFactor + y);
+                            decodeDc(bitInputStream, dcTable, coefficients.getCoefficients(c), offset, preds, i);
+                            if (!progressive) {
+                                decodeAcFirst(bitInputStream, acTable, coefficients.getCoefficients(c), offset);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the scans that follow the first SOS marker into the coefficients of the whole frame, processing any tables between them.
+     */
+    private CoefficientBuffer decodeScans(final int marker, final byte[] imageData) throws ImagingException, IOException {
+        final CoefficientBuffer coefficients = new CoefficientBuffer(sofnSegment);
+        int pos = 0;
+        int nextMarker = marker;
+        // the scans and any tables between them all follow the first SOS marker
+        while (nextMarker != JpegConstants.EOI_MARKER) {
+            if (pos + 2 > imageData.length) {
+                throw new ImagingException("Not a Valid JPEG File");
+            }
+            final int segmentLength = ByteConversions.toUInt16(imageData, pos, getByteOrder());
+            if (segmentLength < 2 || pos + segmentLength > imageData.length) {
+                throw new ImagingException("Invalid segment length " + segmentLength);
+            }
+            final byte[] segmentData = Arrays.copyOfRange(imageData, pos + 2, pos + segmentLength);
+            pos += segmentLength;
+            if (nextMarker == JpegConstants.SOS_MARKER) {
+                sosSegment = new SosSegment(nextMarker, segmentData);
+                final int end = findEndOfScan(imageData, pos);
+                // a 1/8 size image is made of DC coefficients alone, so AC scans can be skipped without decoding them
+                if (blockSize > 1 || sosSegment.startOfSpectralSelection == 0) {
+                    decodeScan(coefficients, splitByRstMarkers(imageData, pos, end - pos));
+                }
+                pos = end;
+            } else {
+                visitSegment(nextMarker, null, segmentLength, null, segmentData);
+            }
+            if (pos >= imageData.length) {
+                // truncated file, show what has been decoded so far
+                break;
+            }
+            // skip fill bytes
+            while (pos + 1 < imageData.length && (0xff & imageData[pos + 1]) == 0xff) {
+                pos++;
+            }
+            if (pos + 2 > imageData.length || (0xff & imageData[pos]) != 0xff) {
+                throw new ImagingException("Expected a JPEG marker at offset " + pos);
+            }
+            nextMarker = ByteConversions.toUInt16(imageData, pos, getByteOrder());
+            pos += 2;
+        }
+        return coefficients;
+    }
+
+    private void decodeSequential(final int marker, final byte[] imageData) throws ImagingException, IOException {
+        try (ByteArrayInputStream is = new ByteArrayInputStream(imageData)) {
+            // read the scan header
+            final int segmentLength = read2Bytes("segmentLength", is, "Not a Valid JPEG File", getByteOrder());
+            final byte[] sosSegmentBytes = readBytes("SosSegment", is, segmentLength - 2, "Not a Valid JPEG File");
+            sosSegment = new SosSegment(marker, sosSegmentBytes);
+            // the payload of the scan is the remainder of image data after the header
+            // the payload contains the entropy-encoded segments (or ECS) divided by RST markers
+            // or only one ECS if the entropy-encoded data is not divided by RST markers
+            // the intervals are read in place, without copying the payload
+            final JpegInputStream[] bitInputStreams = splitByRstMarkers(imageData, segmentLength, imageData.length - segmentLength);
+
+            int hMax = 0;
+            int vMax = 0;
+            for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
+                hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
+                vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
+            }
+            final int xMCUs = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+            final int yMCUs = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+            final int hSize = blockSize * hMax;
+            final int vSize = blockSize * vMax;
+            final BufferedImage result = createImage();
+            final int[] pixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+            allocateChromaPlanes(xMCUs, yMCUs);
+
+            final Executor executor = params instanceof JpegImagingParameters ? ((JpegImagingParameters) params).getDecodeExecutor() : null;
+            if (restartInterval > 0 && bitInputStreams.length > 1) {
+                // restart intervals start from fresh predictors, so each one decodes on its own
+                if (executor != null) {
+                    decodeIntervalsInParallel(executor, bitInputStreams, xMCUs, yMCUs, hSize, vSize, pixels);
+                } else {
+                    decodeIntervals(bitInputStreams, 0, bitInputStreams.length, xMCUs, yMCUs, hSize, vSize, pixels, workspace);
+                }
+                upsampleChromaPlanes(pixels);
+                image = result;
+                return;
+            }
+
+            final Block[] mcu = allocateMcuMemory();
+            final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
+            Arrays.setAll(scaledMCU, i -> allocateScaledBlock(mcu[i], hSize, vSize));
+            final int[] preds = Allocator.intArray(sofnSegment.numberOfComponents);
+            int bitInputStreamCount = 0;
+            JpegInputStream bitInputStream = bitInputStreams[0];
+
+            for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
+                for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
+                    // Provide the next interval if an interval is read until it's end
+                    // as long there are unread intervals available
+                    if (!bitInputStream.hasNext()) {
+                        bitInputStreamCount++;
+                        if (bitInputStreamCount < bitInputStreams.length) {
+                            bitInputStream = bitInputStreams[bitInputStreamCount];
+                        }
+                    }
+
+                    readMcu(bitInputStream, preds, mcu, workspace);
+                    outputMcu(mcu, scaledMCU, x1, y1, hSize, vSize, pixels);
+                }
+            }
+            upsampleChromaPlanes(pixels);
+            image = result;
         }
-        int j = huffmanTable.getValPtr(i);
-        j += code - huffmanTable.getMinCode(i);
-        return huffmanTable.getHuffVal(j);
     }
 
-    private int extend(int v, final int t) {
+    private int extend(final int v, final int t) {
         // "EXTEND", section F.2.2.1, figure F.12, page 105 of T.81
-        int vt = 1 << t - 1;
-        if (v < vt) {
-            vt = (-1 << t) + 1;
-            v += vt;
+        return HuffmanLookupTable.extend(v, t);
+    }
+
+    private int findFrameComponent(final int componentIdentifier) throws ImagingException {
+        for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
+            if (sofnSegment.getComponents(j).componentIdentifier == componentIdentifier) {
+                return j;
+            }
+        }
+        throw new ImagingException("Invalid component");
+    }
+
+    /**
+     * Dequantizes and transforms the zig-zag ordered coefficients in the workspace into the block at (x, y) of the component's MCU samples, at the scaled
+     * block size.
+     */
+    private void inverseDct(final SofnSegment.Component frameComponent, final Block fullBlock, final int x, final int y, final Workspace workspace) {
+        final int[] quantizationMatrix = quantizationMatrices[frameComponent.quantTabDestSelector];
+        final int stride = blockSize * frameComponent.horizontalSamplingFactor;
+        final int offset = blockSize * (y * stride + x);
+        if (blockSize == 1) {
+            // only the DC coefficient contributes, no need to reorder the rest
+            workspace.blockInt[0] = workspace.zz[0];
+            Dct.inverseDct1x1(workspace.blockInt, quantizationMatrix, fullBlock.samples, offset);
+            return;
+        }
+        ZigZag.zigZagToBlock(workspace.zz, workspace.blockInt);
+        if (blockSize == 8) {
+            Dct.inverseDct8x8(workspace.blockInt, quantizationMatrix, workspace.idct, fullBlock.samples, offset, stride);
+        } else if (blockSize == 4) {
+            Dct.inverseDct4x4(workspace.blockInt, quantizationMatrix, workspace.idct, fullBlock.samples, offset, stride);
+        } else {
+            Dct.inverseDct2x2(workspace.blockInt, quantizationMatrix, workspace.idct, fullBlock.samples, offset, stride);
+        }
+    }
+
+    /**
+     * Upsamples and converts an MCU into the pixels at (x1, y1), or stores it for fancy upsampling. YCbCr with chroma at full resolution, or subsampled by
+     * 2 in either direction, converts in one fused pass; other images go through full size blocks.
+     */
+    private void outputMcu(final Block[] mcu, final Block[] scaledMCU, final int x1, final int y1, final int hSize, final int vSize, final int[] pixels)
+            throws ImagingException {
+        final int width = Math.min(hSize, outputWidth - x1);
+        final int height = Math.min(vSize, outputHeight - y1);
+        if (cbPlane != null) {
+            storeMcu(mcu, x1, y1, width, height, pixels);
+        } else if (!useTiffRgb && mcu.length == 3 && mcu[0].width == hSize && mcu[0].height == vSize && mcu[1].width == mcu[2].width
+                && mcu[1].height == mcu[2].height && (hSize == mcu[1].width || hSize == 2 * mcu[1].width)
+                && (vSize == mcu[1].height || vSize == 2 * mcu[1].height)) {
+            YCbCrConverter.convertMcu(mcu[0], mcu[1], mcu[2], pixels, y1 * outputWidth + x1, outputWidth, width, height);
+        } else {
+            rescaleMcu(mcu, hSize, vSize, scaledMCU);
+            writeMcu(scaledMCU, x1, y1, hSize, vSize, pixels);
         }
-        return v;
     }
 
-    private void readMcu(final JpegInputStream is, final int[] preds, final Block[] mcu) throws ImagingException {
+    private void readMcu(final JpegInputStream is, final int[] preds, final Block[] mcu, final Workspace workspace) throws ImagingException {
+        final int[] zz = workspace.zz;
         for (int i = 0; i < sosSegment.numberOfComponents; i++) {
             final SosSegment.Component scanComponent = sosSegment.getComponents(i);
             SofnSegment.Component frameComponent = null;
@@ -229,9 +802,23 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                     preds[i] = zz[0];
 
                     // "Decode_AC_coefficients", figure F.13, page 106 of T.81
+                    final HuffmanLookupTable acTable = huffmanACTables[scanComponent.acCodingTableSelector];
                     int k = 1;
                     while (true) {
-                        final int rs = decode(is, huffmanACTables[scanComponent.acCodingTableSelector]);
+                        // most coefficients are resolved, code and value bits together, in one lookup
+                        final int coefficient = acTable.lookupCoefficient(is);
+                        if (coefficient != 0) {
+                            is.skipBits(coefficient & 0xff);
+                            k += coefficient >> 8 & 0xff;
+                            zz[k] = coefficient >> 16;
+                            if (k == 63) {
+                                break;
+                            }
+                            k++;
+                            continue;
+                        }
+
+                        final int rs = decode(is, acTable);
                         final int ssss = rs & 0xf;
                         final int rrrr = rs >> 4;
                         final int r = rrrr;
@@ -255,34 +842,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                         }
                     }
 
-                    final int shift = 1 << sofnSegment.precision - 1;
-                    final int max = (1 << sofnSegment.precision) - 1;
-
-                    final float[] scaledQuantizationTable = scaledQuantizationTables[frameComponent.quantTabDestSelector];
-                    ZigZag.zigZagToBlock(zz, blockInt);
-                    for (int j = 0; j < 64; j++) {
-                        block[j] = blockInt[j] * scaledQuantizationTable[j];
-                    }
-                    Dct.inverseDct8x8(block);
-
-                    int dstRowOffset = 8 * y * 8 * frameComponent.horizontalSamplingFactor + 8 * x;
-                    int srcNext = 0;
-                    for (int yy = 0; yy < 8; yy++) {
-                        for (int xx = 0; xx < 8; xx++) {
-                            float sample = block[srcNext++];
-                            sample += shift;
-                            final int result;
-                            if (sample < 0) {
-                                result = 0;
-                            } else if (sample > max) {
-                                result = max;
-                            } else {
-                                result = fastRound(sample);
-                            }
-                            fullBlock.samples[dstRowOffset + xx] = result;
-                        }
-                        dstRowOffset += 8 * frameComponent.horizontalSamplingFactor;
-                    }
+                    inverseDct(frameComponent, fullBlock, x, y, workspace);
                 }
             }
         }
@@ -290,18 +850,25 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
 
     private int receive(final int ssss, final JpegInputStream is) throws ImagingException {
         // "RECEIVE", section F.2.2.4, figure F.17, page 110 of T.81
-        int i = 0;
-        int v = 0;
-        while (i != ssss) {
-            i++;
-            v = (v << 1) + is.nextBit();
+        if (ssss > 16) {
+            throw new ImagingException("Invalid coefficient size " + ssss);
+        }
+        return is.readBits(ssss);
+    }
+
+    private void refine(final JpegInputStream is, final short[] coefficients, final int index, final int p1, final int m1) throws ImagingException {
+        final int coefficient = coefficients[index];
+        if (is.readBits(1) != 0 && (coefficient & p1) == 0) {
+            coefficients[index] = (short) (coefficient >= 0 ? coefficient + p1 : coefficient + m1);
         }
-        return v;
     }
 
     private void rescaleMcu(final Block[] dataUnits, final int hSize, final int vSize, final Block[] ret) {
         for (int i = 0; i < dataUnits.length; i++) {
             final Block dataUnit = dataUnits[i];
+            if (dataUnit == ret[i]) {
+                continue;
+            }
             if (dataUnit.width == hSize && dataUnit.height == vSize) {
                 System.arraycopy(dataUnit.samples, 0, ret[i].samples, 0, hSize * vSize);
             } else {
@@ -341,6 +908,46 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         useTiffRgb = true;
     }
 
+    /**
+     * Stores the luma of an MCU in the pixels and its chroma in the chroma planes, to be converted by {@link #upsampleChromaPlanes(int[])}.
+     */
+    private void storeMcu(final Block[] mcu, final int x1, final int y1, final int width, final int height, final int[] pixels) {
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(mcu[0].samples, row * mcu[0].width, pixels, (y1 + row) * outputWidth + x1, width);
+        }
+        final int chromaOffset = y1 * mcu[1].height / mcu[0].height * planeStride + x1 / 2;
+        for (int row = 0; row < mcu[1].height; row++) {
+            for (int x = 0; x < mcu[1].width; x++) {
+                cbPlane[chromaOffset + row * planeStride + x] = (byte) mcu[1].samples[row * mcu[1].width + x];
+                crPlane[chromaOffset + row * planeStride + x] = (byte) mcu[2].samples[row * mcu[2].width + x];
+            }
+        }
+    }
+
+    /**
+     * Converts the pixels, which hold luma samples after {@link #storeMcu(Block[], int, int, int, int, int[])}, with fancy upsampled chroma from the chroma
+     * planes.
+     */
+    private void upsampleChromaPlanes(final int[] pixels) {
+        if (cbPlane == null) {
+            return;
+        }
+        final boolean vertical = sofnSegment.getComponents(0).verticalSamplingFactor == 2;
+        for (int row = 0; row < outputHeight; row++) {
+            if (vertical) {
+                // the nearest chroma row, and the one above for even rows and below for odd rows, repeated at the edges
+                final int nearest = row >> 1;
+                final int next = Math.max(0, Math.min(chromaHeight - 1, (row & 1) == 0 ? nearest - 1 : nearest + 1));
+                YCbCrConverter.convertRowFancy(pixels, row * outputWidth, outputWidth, cbPlane, crPlane, nearest * planeStride, next * planeStride,
+                        chromaWidth);
+            } else {
+                YCbCrConverter.convertRowFancy(pixels, row * outputWidth, outputWidth, cbPlane, crPlane, row * planeStride, -1, chromaWidth);
+            }
+        }
+        cbPlane = null;
+        crPlane = null;
+    }
+
     @Override
     public boolean visitSegment(final int marker, final byte[] markerBytes, final int segmentLength, final byte[] segmentLengthBytes, final byte[] segmentData)
             throws ImagingException, IOException {
@@ -349,10 +956,31 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 JpegConstants.SOF11_MARKER, JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER, };
 
         if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-            if (marker != JpegConstants.SOF0_MARKER) {
-                throw new ImagingException("Only sequential, baseline JPEGs " + "are supported at the moment");
+            if (marker != JpegConstants.SOF0_MARKER && marker != JpegConstants.SOF2_MARKER) {
+                throw new ImagingException("Only baseline and progressive Huffman JPEGs " + "are supported at the moment");
+            }
+            if (segmentData.length > 7 && segmentData[5] == 1 && segmentData[7] != 0x11) {
+                // a lone component is coded one block per MCU whatever its sampling factors, section A.2.2 of T.81
+                final byte[] normalized = segmentData.clone();
+                normalized[7] = 0x11;
+                sofnSegment = new SofnSegment(marker, normalized);
+            } else {
+                sofnSegment = new SofnSegment(marker, segmentData);
+            }
+            if (sofnSegment.precision != 8) {
+                throw new ImagingException(sofnSegment.precision + "-bit samples are not supported at the moment");
+            }
+            final int scaleDenominator = params instanceof JpegImagingParameters ? ((JpegImagingParameters) params).getScaleDenominator() : 1;
+            blockSize = 8 / scaleDenominator;
+            outputWidth = (sofnSegment.width + scaleDenominator - 1) / scaleDenominator;
+            outputHeight = (sofnSegment.height + scaleDenominator - 1) / scaleDenominator;
+            fancyUpsampling = params instanceof JpegImagingParameters && ((JpegImagingParameters) params).isFancyUpsampling();
+            progressive = marker == JpegConstants.SOF2_MARKER;
+        } else if (marker == JpegConstants.DRI_MARKER) {
+            if (segmentData.length < 2) {
+                throw new ImagingException("Invalid DRI segment");
             }
-            sofnSegment = new SofnSegment(marker, segmentData);
+            restartInterval = ByteConversions.toUInt16(segmentData, getByteOrder());
         } else if (marker == JpegConstants.DQT_MARKER) {
             final DqtSegment dqtSegment = new DqtSegment(marker, segmentData);
             for (final QuantizationTable table : dqtSegment.quantizationTables) {
@@ -363,17 +991,12 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 final int mSize = 64;
                 final int[] quantizationMatrixInt = Allocator.intArray(mSize);
                 ZigZag.zigZagToBlock(table.getElements(), quantizationMatrixInt);
-                final float[] quantizationMatrixFloat = Allocator.floatArray(mSize);
-                for (int j = 0; j < mSize; j++) {
-                    quantizationMatrixFloat[j] = quantizationMatrixInt[j];
-                }
-                Dct.scaleDequantizationMatrix(quantizationMatrixFloat);
-                scaledQuantizationTables[table.destinationIdentifier] = quantizationMatrixFloat;
+                quantizationMatrices[table.destinationIdentifier] = quantizationMatrixInt;
             }
         } else if (marker == JpegConstants.DHT_MARKER) {
             final DhtSegment dhtSegment = new DhtSegment(marker, segmentData);
             for (final HuffmanTable table : dhtSegment.huffmanTables) {
-                final DhtSegment.HuffmanTable[] tables;
+                final HuffmanLookupTable[] tables;
                 if (table.tableClass == 0) {
                     tables = huffmanDCTables;
                 } else if (table.tableClass == 1) {
@@ -384,7 +1007,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 if (0 > table.destinationIdentifier || table.destinationIdentifier >= tables.length) {
                     throw new ImagingException("Invalid huffman table identifier " + table.destinationIdentifier);
                 }
-                tables[table.destinationIdentifier] = table;
+                tables[table.destinationIdentifier] = new HuffmanLookupTable(table);
             }
         }
         return true;
@@ -392,197 +1015,113 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
 
     @Override
     public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-        try (ByteArrayInputStream is = new ByteArrayInputStream(imageData)) {
-            // read the scan header
-            final int segmentLength = read2Bytes("segmentLength", is, "Not a Valid JPEG File", getByteOrder());
-            final byte[] sosSegmentBytes = readBytes("SosSegment", is, segmentLength - 2, "Not a Valid JPEG File");
-            sosSegment = new SosSegment(marker, sosSegmentBytes);
-            // read the payload of the scan, this is the remainder of image data after the header
-            // the payload contains the entropy-encoded segments (or ECS) divided by RST markers
-            // or only one ECS if the entropy-encoded data is not divided by RST markers
-            // length of payload = length of image data - length of data already read
-            final int[] scanPayload = Allocator.intArray(imageData.length - segmentLength);
-            int payloadReadCount = 0;
-            while (payloadReadCount < scanPayload.length) {
-                scanPayload[payloadReadCount] = is.read();
-                payloadReadCount++;
-            }
-
-            int hMax = 0;
-            int vMax = 0;
-            for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
-                hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
-                vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
+        try {
+            if (coefficientsOnly) {
+                coefficientBuffer = decodeScans(marker, imageData);
+            } else if (progressive) {
+                decodeProgressive(marker, imageData);
+            } else {
+                decodeSequential(marker, imageData);
             }
-            final int hSize = 8 * hMax;
-            final int vSize = 8 * vMax;
+        } catch (final ImagingException imageReadEx) {
+            imageReadException = imageReadEx;
+        } catch (final IOException ioEx) {
+            ioException = ioEx;
+        } catch (final RuntimeException ex) {
+            // Corrupt images can throw NPE and IOOBE
+            imageReadException = new ImagingException("Error parsing JPEG", ex);
+        }
+    }
 
-            final int xMCUs = (sofnSegment.width + hSize - 1) / hSize;
-            final int yMCUs = (sofnSegment.height + vSize - 1) / vSize;
-            final Block[] mcu = allocateMcuMemory();
-            final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
-            Arrays.setAll(scaledMCU, i -> new Block(hSize, vSize));
-            final int[] preds = Allocator.intArray(sofnSegment.numberOfComponents);
-            final ColorModel colorModel;
-            final WritableRaster raster;
-            Allocator.check(Integer.BYTES * sofnSegment.width * sofnSegment.height);
-            switch (sofnSegment.numberOfComponents) {
-            case 4:
-                // Special handling for the application-RGB case: TIFF files with
-                // JPEG compression can support an alpha channel. This extension
-                // to the JPEG standard is implemented by specifying a color model
-                // with a fourth channel for alpha.
-                if (useTiffRgb) {
-                    colorModel = new DirectColorModel(32, 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000);
-                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, BAND_MASK_ARGB, null);
-                } else {
-                    colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, BAND_MASK_RGB, null);
-                }
+    private void writeMcu(final Block[] scaledMCU, final int x1, final int y1, final int hSize, final int vSize, final int[] pixels)
+            throws ImagingException {
+        int srcRowOffset = 0;
+        int dstRowOffset = y1 * outputWidth + x1;
 
-                break;
-            case 3:
-                colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
-                        null);
-                break;
-            case 1:
-                colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
-                        null);
-                // FIXME: why do images come out too bright with CS_GRAY?
-                // colorModel = new ComponentColorModel(
-                // ColorSpace.getInstance(ColorSpace.CS_GRAY), false, true,
-                // Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
-                // raster = colorModel.createCompatibleWritableRaster(
-                // sofnSegment.width, sofnSegment.height);
-                break;
-            default:
-                throw new ImagingException(sofnSegment.numberOfComponents + " components are invalid or unsupported");
+        // The TIFF-RGB logic was adapted from the original x2,y2 loops
+        // but special handling was added for TIFF-JPEG RGB colorspace
+        // and conditional checks were reorganized for efficiency
+        if (useTiffRgb && (scaledMCU.length == 3 || scaledMCU.length == 4)) {
+            // The original (legacy) coding for the x2 and y2 loop was:
+            // for(y2 = 0; y2 < vSize && y1 + y2 < outputHeight; y2++)
+            // for(x2 = 0; x2 < hSize && x1 + x2 < outputWidth; x2++)
+            // Here, we pre-compute the limits of the loop to reduce the
+            // overhead for the loop conditional evaluation.
+            final int x2Limit;
+            if (x1 + hSize <= outputWidth) {
+                x2Limit = hSize;
+            } else {
+                x2Limit = outputWidth - x1;
+            }
+            final int y2Limit;
+            if (y1 + vSize <= outputHeight) {
+                y2Limit = vSize;
+            } else {
+                y2Limit = outputHeight - y1;
             }
-            final DataBuffer dataBuffer = raster.getDataBuffer();
-
-            final JpegInputStream[] bitInputStreams = splitByRstMarkers(scanPayload);
-            int bitInputStreamCount = 0;
-            JpegInputStream bitInputStream = bitInputStreams[0];
 
-            for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
-                for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
-                    // Provide the next interval if an interval is read until it's end
-                    // as long there are unread intervals available
-                    if (!bitInputStream.hasNext()) {
-                        bitInputStreamCount++;
-                        if (bitInputStreamCount < bitInputStreams.length) {
-                            bitInputStream = bitInputStreams[bitInputStreamCount];
-                        }
+            if (scaledMCU.length == 4) {
+                // RGBA colorspace
+                // Although conventional JPEGs don't include an alpha channel
+                // TIFF images that use JPEG encoding may do so. For example,
+                // we have seen this variation in some false-color satellite images
+                // from the U.S. National Weather Service. Ordinary JPEG files
+                // may include an APP14 marker of type Unknowm indicating that
+                // the scaledMCU.length of 3 should be interpreted as the RGB colorspace
+                // and the 4-channel variation is interpreted as CYMK. But TIFF files
+                // use their own tags to specify colorspace and do not include the APP14 marker.
+                for (int y2 = 0; y2 < y2Limit; y2++) {
+                    for (int x2 = 0; x2 < x2Limit; x2++) {
+                        final int r = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int g = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int b = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int a = scaledMCU[3].samples[srcRowOffset + x2];
+                        final int rgb = a << 24 | r << 16 | g << 8 | b;
+                        pixels[dstRowOffset + x2] = rgb;
                     }
-
-                    readMcu(bitInputStream, preds, mcu);
-                    rescaleMcu(mcu, hSize, vSize, scaledMCU);
-                    int srcRowOffset = 0;
-                    int dstRowOffset = y1 * sofnSegment.width + x1;
-
-                    // The TIFF-RGB logic was adapted from the original x2,y2 loops
-                    // but special handling was added for TIFF-JPEG RGB colorspace
-                    // and conditional checks were reorganized for efficiency
-                    if (useTiffRgb && (scaledMCU.length == 3 || scaledMCU.length == 4)) {
-                        // The original (legacy) coding for the x2 and y2 loop was:
-                        // for(y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++)
-                        // for(x2 = 0; x2 < hSize && x1 + x2 < sofnSegment.width; x2++)
-                        // Here, we pre-compute the limits of the loop to reduce the
-                        // overhead for the loop conditional evaluation.
-                        final int x2Limit;
-                        if (x1 + hSize <= sofnSegment.width) {
-                            x2Limit = hSize;
-                        } else {
-                            x2Limit = sofnSegment.width - x1;
-                        }
-                        final int y2Limit;
-                        if (y1 + vSize <= sofnSegment.height) {
-                            y2Limit = vSize;
-                        } else {
-                            y2Limit = sofnSegment.height - y1;
-                        }
-
-                        if (scaledMCU.length == 4) {
-                            // RGBA colorspace
-                            // Although conventional JPEGs don't include an alpha channel
-                            // TIFF images that use JPEG encoding may do so. For example,
-                            // we have seen this variation in some false-color satellite images
-                            // from the U.S. National Weather Service. Ordinary JPEG files
-                            // may include an APP14 marker of type Unknowm indicating that
-                            // the scaledMCU.length of 3 should be interpreted as the RGB colorspace
-                            // and the 4-channel variation is interpreted as CYMK. But TIFF files
-                            // use their own tags to specify colorspace and do not include the APP14 marker.
-                            for (int y2 = 0; y2 < y2Limit; y2++) {
-                                for (int x2 = 0; x2 < x2Limit; x2++) {
-                                    final int r = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int g = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int b = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int a = scaledMCU[3].samples[srcRowOffset + x2];
-                                    final int rgb = a << 24 | r << 16 | g << 8 | b;
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                }
-                                srcRowOffset += hSize;
-                                dstRowOffset += sofnSegment.width;
-                            }
-                        } else {
-                            // scaledMCU.length == 3, standard RGB
-                            for (int y2 = 0; y2 < y2Limit; y2++) {
-                                for (int x2 = 0; x2 < x2Limit; x2++) {
-                                    final int r = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int g = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int b = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int rgb = r << 16 | g << 8 | b;
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                }
-                                srcRowOffset += hSize;
-                                dstRowOffset += sofnSegment.width;
-                            }
-                        }
+                    srcRowOffset += hSize;
+                    dstRowOffset += outputWidth;
+                }
+            } else {
+                // scaledMCU.length == 3, standard RGB
+                for (int y2 = 0; y2 < y2Limit; y2++) {
+                    for (int x2 = 0; x2 < x2Limit; x2++) {
+                        final int r = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int g = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int b = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int rgb = r << 16 | g << 8 | b;
+                        pixels[dstRowOffset + x2] = rgb;
+                    }
+                    srcRowOffset += hSize;
+                    dstRowOffset += outputWidth;
+                }
+            }
+        } else {
+            for (int y2 = 0; y2 < vSize && y1 + y2 < outputHeight; y2++) {
+                for (int x2 = 0; x2 < hSize && x1 + x2 < outputWidth; x2++) {
+                    if (scaledMCU.length == 4) {
+                        final int c = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int m = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int y = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int k = scaledMCU[3].samples[srcRowOffset + x2];
+                        final int rgb = ColorConversions.convertCmykToRgb(c, m, y, k);
+                        pixels[dstRowOffset + x2] = rgb;
+                    } else if (scaledMCU.length == 3) {
+                        final int y = scaledMCU[0].samples[srcRowOffset + x2];
+                        final int cb = scaledMCU[1].samples[srcRowOffset + x2];
+                        final int cr = scaledMCU[2].samples[srcRowOffset + x2];
+                        final int rgb = YCbCrConverter.convertYCbCrToRgb(y, cb, cr);
+                        pixels[dstRowOffset + x2] = rgb;
+                    } else if (scaledMCU.length == 1) {
+                        final int y = scaledMCU[0].samples[srcRowOffset + x2];
+                        pixels[dstRowOffset + x2] = y << 16 | y << 8 | y;
                     } else {
-                        for (int y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++) {
-                            for (int x2 = 0; x2 < hSize && x1 + x2 < sofnSegment.width; x2++) {
-                                if (scaledMCU.length == 4) {
-                                    final int c = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int m = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int y = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int k = scaledMCU[3].samples[srcRowOffset + x2];
-                                    final int rgb = ColorConversions.convertCmykToRgb(c, m, y, k);
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                } else if (scaledMCU.length == 3) {
-                                    final int y = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int cb = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int cr = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int rgb = YCbCrConverter.convertYCbCrToRgb(y, cb, cr);
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                } else if (mcu.length == 1) {
-                                    final int y = scaledMCU[0].samples[srcRowOffset + x2];
-                                    dataBuffer.setElem(dstRowOffset + x2, y << 16 | y << 8 | y);
-                                } else {
-                                    throw new ImagingException("Unsupported JPEG with " + mcu.length + " components");
-                                }
-                            }
-                            srcRowOffset += hSize;
-                            dstRowOffset += sofnSegment.width;
-                        }
+                        throw new ImagingException("Unsupported JPEG with " + scaledMCU.length + " components");
                     }
                 }
+                srcRowOffset += hSize;
+                dstRowOffset += outputWidth;
             }
-            image = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
-            // byte[] remainder = super.getStreamBytes(is);
-            // for (int i = 0; i < remainder.length; i++)
-            // {
-            // System.out.println("" + i + " = " +
-            // Integer.toHexString(remainder[i]));
-            // }
-        } catch (final ImagingException imageReadEx) {
-            imageReadException = imageReadEx;
-        } catch (final IOException ioEx) {
-            ioException = ioEx;
-        } catch (final RuntimeException ex) {
-            // Corrupt images can throw NPE and IOOBE
-            imageReadException = new ImagingException("Error parsing JPEG", ex);
         }
     }
 }
@@ -15,23 +15,59 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
-import java.util.Arrays;
-
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
+/**
+ * Reads the bits of one restart interval of entropy-coded data. The stream is a view of the scan's bytes, so splitting a scan into intervals copies nothing.
+ */
 final class JpegInputStream {
-    static final int SHALLOW_SIZE = 32;
+    static final int SHALLOW_SIZE = 40;
     // Figure F.18, F.2.2.5, page 111 of ITU-T T.81
-    private final int[] interval;
+    private final byte[] data;
+    // end of the interval in the array, exclusive
+    private final int end;
     // next position in the array to read
     private int nextPos;
-    private int cnt;
-    private int b;
+    // unread bits, most significant first, refilled a byte at a time with stuffed bytes removed
+    private long bitBuffer;
+    private int bitsInBuffer;
+
+    JpegInputStream(final byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * Constructs a stream over part of an array, which is not copied.
+     *
+     * @param data   the entropy-coded data.
+     * @param offset the offset of the interval.
+     * @param length the length of the interval.
+     */
+    JpegInputStream(final byte[] data, final int offset, final int length) {
+        this.data = data;
+        this.nextPos = offset;
+        this.end = offset + length;
+    }
 
-    JpegInputStream(final int[] interval) {
-        this.interval = Arrays.copyOf(interval, interval.length);
-        this.nextPos = 0;
+    /**
+     * Loads as many bytes into the bit buffer as fit, stopping before the end of the interval or a marker. Those are left for
+     * {@link #readByte()} to report once the bits are actually needed.
+     */
+    private void fill() {
+        while (bitsInBuffer <= 56 && nextPos < end) {
+            final int b = 0xff & data[nextPos];
+            if (b == 0xff) {
+                if (nextPos + 1 >= end || data[nextPos + 1] != 0) {
+                    return;
+                }
+                nextPos += 2;
+            } else {
+                nextPos++;
+            }
+            bitBuffer |= (long) b << 56 - bitsInBuffer;
+            bitsInBuffer += 8;
+        }
     }
 
     /**
@@ -40,33 +76,24 @@ final class JpegInputStream {
      * @return {@code true} as long there are unread fields available, else {@code false}
      */
     public boolean hasNext() {
-        return nextPos < this.interval.length;
+        return nextPos < end || bitsInBuffer >= 8;
     }
 
     public int nextBit() throws ImagingException {
-        if (cnt == 0) {
-            b = read();
-            if (b < 0) {
-                throw new ImagingException("Premature End of File");
-            }
-            cnt = 8;
-            if (b == 0xff) {
-                final int b2 = read();
-                if (b2 < 0) {
-                    throw new ImagingException("Premature End of File");
-                }
-                if (b2 != 0) {
-                    if (b2 == (0xff & JpegConstants.DNL_MARKER)) {
-                        throw new ImagingException("DNL not yet supported");
-                    }
-                    throw new ImagingException("Invalid marker found " + "in entropy data: 0xFF " + Integer.toHexString(b2));
-                }
-            }
+        return readBits(1);
+    }
+
+    /**
+     * Returns the next bits without consuming them. Bits past the end of the entropy-coded data read as zero.
+     *
+     * @param n the number of bits, from 1 to 16.
+     * @return the bits.
+     */
+    int peekBits(final int n) {
+        if (bitsInBuffer < n) {
+            fill();
         }
-        final int bit = b >> 7 & 0x1;
-        cnt--;
-        b <<= 1;
-        return bit;
+        return (int) (bitBuffer >>> 64 - n);
     }
 
     /**
@@ -76,11 +103,64 @@ final class JpegInputStream {
      * @throws IllegalStateException if the stream hasn't any other value.
      */
     int read() {
-        if (!hasNext()) {
+        if (nextPos >= end) {
             throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
         }
-        final int value = this.interval[nextPos];
-        this.nextPos++;
-        return value;
+        return 0xff & data[nextPos++];
+    }
+
+    /**
+     * Consumes the next bits.
+     *
+     * @param n the number of bits, from 0 to 16.
+     * @return the bits.
+     * @throws ImagingException if the entropy-coded data ends or contains a marker before the bits.
+     */
+    int readBits(final int n) throws ImagingException {
+        if (n == 0) {
+            return 0;
+        }
+        final int bits = peekBits(n);
+        skipBits(n);
+        return bits;
+    }
+
+    /**
+     * Reads a byte of entropy-coded data, only to report why it cannot be loaded into the bit buffer.
+     */
+    private int readByte() throws ImagingException {
+        final int b = read();
+        if (b == 0xff) {
+            if (nextPos >= end) {
+                throw new ImagingException("Premature End of File");
+            }
+            final int b2 = read();
+            if (b2 != 0) {
+                if (b2 == (0xff & JpegConstants.DNL_MARKER)) {
+                    throw new ImagingException("DNL not yet supported");
+                }
+                throw new ImagingException("Invalid marker found " + "in entropy data: 0xFF " + Integer.toHexString(b2));
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Consumes bits previously looked at with {@link #peekBits(int)}.
+     *
+     * @param n the number of bits, from 0 to 16.
+     * @throws ImagingException if the entropy-coded data ends or contains a marker before the bits.
+     */
+    void skipBits(final int n) throws ImagingException {
+        if (bitsInBuffer < n) {
+            fill();
+            if (bitsInBuffer < n) {
+                readByte();
+                // the buffer stopped filling before valid data, so the read above should have failed
+                throw new ImagingException("Invalid entropy-coded data");
+            }
+        }
+        bitBuffer <<= n;
+        bitsInBuffer -= n;
     }
 }
@@ -15,98 +15,147 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+/**
+ * Converts YCbCr samples to packed RGB pixels, optionally upsampling the chroma in the same pass.
+ * <p>
+ * The conversion uses the fixed-point tables of IJG's jdcolor.c: each chroma sample contributes a precomputed offset to the red, green and blue of every
+ * luma sample it covers, so subsampled chroma is looked up once per 2 or 4 pixels instead of once per pixel (the "merged upsampling" of jdmerge.c).
+ * </p>
+ */
 final class YCbCrConverter {
-    private static final int[] REDS = new int[256 * 256];
-    private static final int[] BLUES = new int[256 * 256];
-    private static final int[] GREENS1 = new int[256 * 256];
-    private static final int[] GREENS2 = new int[256 * 512];
+
+    private static final int SCALE_BITS = 16;
+    private static final int ONE_HALF = 1 << SCALE_BITS - 1;
+    // the sums of a luma sample and a chroma offset lie in [-227, 481]
+    private static final int CLAMP_OFFSET = 256;
+
+    /** Cr to the offset added to Y for red. */
+    private static final int[] CR_R = new int[256];
+    /** Cb to the offset added to Y for blue. */
+    private static final int[] CB_B = new int[256];
+    /** Cr to its part of the offset added to Y for green, scaled by 2^SCALE_BITS. */
+    private static final int[] CR_G = new int[256];
+    /** Cb to its part of the offset added to Y for green, scaled by 2^SCALE_BITS and including the rounding. */
+    private static final int[] CB_G = new int[256];
+    /** Clamps a sample plus CLAMP_OFFSET to [0, 255]. */
+    private static final int[] CLAMP = new int[768];
 
     static {
-        /*
-         * Why use (Cr << 8) | Y and not (Y << 8) | Cr as the index? Y changes often, while Cb and Cr is usually subsampled less often and repeats itself
-         * between adjacent pixels, so using it as the high order byte gives higher locality of reference.
-         */
-        for (int y = 0; y < 256; y++) {
-            for (int cr = 0; cr < 256; cr++) {
-                int r = y + fastRound(1.402f * (cr - 128));
-                if (r < 0) {
-                    r = 0;
-                }
-                if (r > 255) {
-                    r = 255;
+        for (int i = 0; i < 256; i++) {
+            final int x = i - 128;
+            CR_R[i] = fix(1.40200) * x + ONE_HALF >> SCALE_BITS;
+            CB_B[i] = fix(1.77200) * x + ONE_HALF >> SCALE_BITS;
+            CR_G[i] = -fix(0.71414) * x;
+            CB_G[i] = -fix(0.34414) * x + ONE_HALF;
+        }
+        for (int i = 0; i < CLAMP.length; i++) {
+            CLAMP[i] = Math.max(0, Math.min(255, i - CLAMP_OFFSET));
+        }
+    }
+
+    /**
+     * Converts the samples of an MCU into packed RGB pixels, upsampling chroma by replication. The chroma blocks must have the same size, and either the
+     * size of the luma block or half its width, or half its width and height.
+     *
+     * @param yBlock   the luma samples.
+     * @param cbBlock  the blue difference samples.
+     * @param crBlock  the red difference samples.
+     * @param pixels   receives the pixels.
+     * @param offset   the offset of the MCU's top left pixel in the pixels.
+     * @param stride   the distance between rows of pixels.
+     * @param width    the number of columns of the MCU to convert, those inside the image.
+     * @param height   the number of rows of the MCU to convert.
+     */
+    static void convertMcu(final Block yBlock, final Block cbBlock, final Block crBlock, final int[] pixels, final int offset, final int stride,
+            final int width, final int height) {
+        final int[] ys = yBlock.samples;
+        final int[] cbs = cbBlock.samples;
+        final int[] crs = crBlock.samples;
+        final int vShift = cbBlock.height == yBlock.height ? 0 : 1;
+        if (cbBlock.width == yBlock.width) {
+            for (int row = 0; row < height; row++) {
+                final int yRow = row * yBlock.width;
+                final int chromaRow = (row >> vShift) * cbBlock.width;
+                final int out = offset + row * stride;
+                for (int x = 0; x < width; x++) {
+                    pixels[out + x] = convertYCbCrToRgb(ys[yRow + x], cbs[chromaRow + x], crs[chromaRow + x]);
                 }
-                REDS[cr << 8 | y] = r << 16;
             }
+            return;
         }
-        for (int y = 0; y < 256; y++) {
-            for (int cb = 0; cb < 256; cb++) {
-                int b = y + fastRound(1.772f * (cb - 128));
-                if (b < 0) {
-                    b = 0;
+        for (int row = 0; row < height; row++) {
+            final int yRow = row * yBlock.width;
+            final int chromaRow = (row >> vShift) * cbBlock.width;
+            final int out = offset + row * stride;
+            for (int x = 0; x < width; x += 2) {
+                final int cb = cbs[chromaRow + (x >> 1)];
+                final int cr = crs[chromaRow + (x >> 1)];
+                final int red = CR_R[cr] + CLAMP_OFFSET;
+                final int green = (CB_G[cb] + CR_G[cr] >> SCALE_BITS) + CLAMP_OFFSET;
+                final int blue = CB_B[cb] + CLAMP_OFFSET;
+                int y = ys[yRow + x];
+                pixels[out + x] = CLAMP[y + red] << 16 | CLAMP[y + green] << 8 | CLAMP[y + blue];
+                if (x + 1 < width) {
+                    y = ys[yRow + x + 1];
+                    pixels[out + x + 1] = CLAMP[y + red] << 16 | CLAMP[y + green] << 8 | CLAMP[y + blue];
                 }
-                if (b > 255) {
-                    b = 255;
-                }
-                BLUES[cb << 8 | y] = b;
             }
         }
-        // green is the hardest
-        // Math.round((float) (Y - 0.34414*(Cb-128) - 0.71414*(Cr-128)))
-        // but Y is integral
-        // = Y - Math.round((float) (0.34414*(Cb-128) + 0.71414*(Cr-128)))
-        // = Y - Math.round(f(Cb, Cr))
-        // where
-        // f(Cb, Cr) = 0.34414*(Cb-128) + 0.71414*(Cr-128)
-        // Cb and Cr terms each vary from 255-128 = 127 to 0-128 = -128
-        // Linear function, so only examine endpoints:
-        // Cb term Cr term Result
-        // 127 127 134.4
-        // -128 -128 -135.4
-        // 127 -128 -47.7
-        // -128 127 46.6
-        // Thus with -135 being the minimum and 134 the maximum,
-        // there is a range of 269 values,
-        // and 135 needs to be added to make it zero-based.
+    }
 
-        // As for Y - f(Cb, Cr)
-        // the range becomes:
-        // Y f(Cb, Cr)
-        // 255 -135
-        // 255 134
-        // 0 -135
-        // 0 134
-        // thus the range is [-134,390] and has 524 values
-        // but is clamped to [0, 255]
-        for (int cb = 0; cb < 256; cb++) {
-            for (int cr = 0; cr < 256; cr++) {
-                final int value = fastRound(0.34414f * (cb - 128) + 0.71414f * (cr - 128));
-                GREENS1[cb << 8 | cr] = value + 135;
-            }
-        }
-        for (int y = 0; y < 256; y++) {
-            for (int value = 0; value < 270; value++) {
-                int green = y - (value - 135);
-                if (green < 0) {
-                    green = 0;
-                } else if (green > 255) {
-                    green = 255;
-                }
-                GREENS2[value << 8 | y] = green << 8;
+    /**
+     * Converts a row of pixels holding luma samples in place, upsampling chroma subsampled by 2 horizontally with the triangle filter of IJG's jdsample.c:
+     * each output sample is 3/4 of the nearest chroma sample and 1/4 of the next nearest, horizontally and, for chroma subsampled vertically too, vertically.
+     * Samples beyond the edges repeat the edge samples.
+     *
+     * @param pixels      the row's luma samples, replaced by the packed RGB pixels.
+     * @param offset      the offset of the row's first pixel.
+     * @param width       the number of pixels in the row.
+     * @param cb          the blue difference plane.
+     * @param cr          the red difference plane.
+     * @param nearest     the offset of the nearest chroma row in the planes.
+     * @param next        the offset of the next nearest chroma row, or -1 if chroma is not subsampled vertically.
+     * @param chromaWidth the number of chroma samples in a row.
+     */
+    static void convertRowFancy(final int[] pixels, final int offset, final int width, final byte[] cb, final byte[] cr, final int nearest, final int next,
+            final int chromaWidth) {
+        // with vertical filtering each column sum is 3 nearest + 1 next, so the sums of the horizontal filter are 4 times larger
+        final int shift = next < 0 ? 2 : 4;
+        final int evenBias = next < 0 ? 1 : 8;
+        final int oddBias = next < 0 ? 2 : 7;
+        int cbPrevious = columnSum(cb, nearest, next, 0);
+        int crPrevious = columnSum(cr, nearest, next, 0);
+        int cbThis = cbPrevious;
+        int crThis = crPrevious;
+        for (int i = 0, x = 0; x < width; i++, x += 2) {
+            final int cbNext = i + 1 < chromaWidth ? columnSum(cb, nearest, next, i + 1) : cbThis;
+            final int crNext = i + 1 < chromaWidth ? columnSum(cr, nearest, next, i + 1) : crThis;
+            pixels[offset + x] = convertYCbCrToRgb(pixels[offset + x], 3 * cbThis + cbPrevious + evenBias >> shift, 3 * crThis + crPrevious + evenBias >> shift);
+            if (x + 1 < width) {
+                pixels[offset + x + 1] = convertYCbCrToRgb(pixels[offset + x + 1], 3 * cbThis + cbNext + oddBias >> shift,
+                        3 * crThis + crNext + oddBias >> shift);
             }
+            cbPrevious = cbThis;
+            crPrevious = crThis;
+            cbThis = cbNext;
+            crThis = crNext;
         }
     }
 
     public static int convertYCbCrToRgb(final int y, final int cb, final int cr) {
-        final int r = REDS[cr << 8 | y];
-        final int g1 = GREENS1[cb << 8 | cr];
-        final int g = GREENS2[g1 << 8 | y];
-        final int b = BLUES[cb << 8 | y];
-        return r | g | b;
+        final int r = CLAMP[y + CR_R[cr] + CLAMP_OFFSET];
+        final int g = CLAMP[y + (CB_G[cb] + CR_G[cr] >> SCALE_BITS) + CLAMP_OFFSET];
+        final int b = CLAMP[y + CB_B[cb] + CLAMP_OFFSET];
+        return r << 16 | g << 8 | b;
+    }
+
+    private static int columnSum(final byte[] plane, final int nearest, final int next, final int column) {
+        final int sample = 0xff & plane[nearest + column];
+        return next < 0 ? sample : 3 * sample + (0xff & plane[next + column]);
     }
 
-    private static int fastRound(final float x) {
-        // Math.round() is very slow
-        return (int) (x + 0.5f);
+    private static int fix(final double x) {
+        return (int) (x * (1 << SCALE_BITS) + 0.5);
     }
 
     private YCbCrConverter() {
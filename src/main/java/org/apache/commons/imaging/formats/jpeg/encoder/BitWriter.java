@@ -0,0 +1,100 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes entropy-coded data, stuffing a zero byte after each 0xFF byte as section B.1.1.5 of T.81 requires, through a buffer.
+ */
+final class BitWriter {
+
+    private final OutputStream os;
+    private final byte[] buffer = new byte[8192];
+    private int length;
+    /** The pending bits, in the low {@link #bitCount} bits. */
+    private long bits;
+    private int bitCount;
+
+    BitWriter(final OutputStream os) {
+        this.os = os;
+    }
+
+    /**
+     * Writes the pending bytes, without the pending bits of a partial byte, to the stream.
+     */
+    void flush() throws IOException {
+        os.write(buffer, 0, length);
+        length = 0;
+    }
+
+    /**
+     * Pads the data to a byte boundary with 1 bits, as section F.1.2.3 of T.81 requires before a marker.
+     */
+    void padToByte() throws IOException {
+        final int padding = -bitCount & 7;
+        if (padding != 0) {
+            write((1 << padding) - 1, padding);
+        }
+        while (bitCount > 0) {
+            writeByte();
+        }
+    }
+
+    /**
+     * Appends bits.
+     *
+     * @param value the bits, right aligned, with no bits set above them.
+     * @param size  the number of bits, at most 32.
+     */
+    void write(final int value, final int size) throws IOException {
+        bits = bits << size | value;
+        bitCount += size;
+        if (bitCount >= 32) {
+            writeByte();
+            writeByte();
+            writeByte();
+            writeByte();
+        }
+    }
+
+    private void writeByte() throws IOException {
+        if (length > buffer.length - 2) {
+            flush();
+        }
+        bitCount -= 8;
+        final byte b = (byte) (bits >>> bitCount);
+        buffer[length++] = b;
+        if (b == (byte) 0xff) {
+            buffer[length++] = 0;
+        }
+    }
+
+    /**
+     * Pads the data to a byte boundary and appends a marker.
+     *
+     * @param marker the marker, such as 0xFFD0 for RST0.
+     */
+    void writeMarker(final int marker) throws IOException {
+        padToByte();
+        if (length > buffer.length - 2) {
+            flush();
+        }
+        buffer[length++] = (byte) (marker >> 8);
+        buffer[length++] = (byte) marker;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.io.IOException;
+
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+
+/**
+ * Huffman codes the quantized coefficients of the blocks of a sequential scan, section F.1.2 of T.81, or counts the symbols they need to build optimal
+ * tables.
+ */
+final class EntropyEncoder {
+
+    private final HuffmanTable[] dcTables;
+    private final HuffmanTable[] acTables;
+    /** The symbol frequencies of each table, with a spare last entry for {@link HuffmanTable#optimal(long[])}. */
+    private final long[][] dcFrequencies;
+    private final long[][] acFrequencies;
+    private final int[] lastDc;
+
+    /**
+     * @param tableCount     the number of DC and of AC tables, 1 or 2.
+     * @param componentCount the number of components in the scan.
+     */
+    EntropyEncoder(final int tableCount, final int componentCount) {
+        dcTables = new HuffmanTable[tableCount];
+        acTables = new HuffmanTable[tableCount];
+        dcFrequencies = new long[tableCount][257];
+        acFrequencies = new long[tableCount][257];
+        lastDc = new int[componentCount];
+    }
+
+    void countBlock(final short[] coefficients, final int offset, final int component, final int table) {
+        final int diff = coefficients[offset] - lastDc[component];
+        lastDc[component] = coefficients[offset];
+        dcFrequencies[table][32 - Integer.numberOfLeadingZeros(Math.abs(diff))]++;
+        final long[] ac = acFrequencies[table];
+        int run = 0;
+        for (int k = 1; k < 64; k++) {
+            final int coefficient = coefficients[offset + k];
+            if (coefficient == 0) {
+                run++;
+            } else {
+                while (run > 15) {
+                    ac[0xf0]++;
+                    run -= 16;
+                }
+                ac[run << 4 | 32 - Integer.numberOfLeadingZeros(Math.abs(coefficient))]++;
+                run = 0;
+            }
+        }
+        if (run > 0) {
+            ac[0]++;
+        }
+    }
+
+    void encodeBlock(final short[] coefficients, final int offset, final int component, final int table, final BitWriter bitWriter) throws IOException {
+        final HuffmanTable dc = dcTables[table];
+        final HuffmanTable ac = acTables[table];
+        // section F.1.2.1 of T.81: the size category, then the low bits of the value, or of the value minus 1 if it is negative
+        int diff = coefficients[offset] - lastDc[component];
+        lastDc[component] = coefficients[offset];
+        int size = 32 - Integer.numberOfLeadingZeros(Math.abs(diff));
+        diff += diff >> 31;
+        bitWriter.write(dc.codes[size] << size | diff & (1 << size) - 1, dc.sizes[size] + size);
+        int run = 0;
+        for (int k = 1; k < 64; k++) {
+            int coefficient = coefficients[offset + k];
+            if (coefficient == 0) {
+                run++;
+            } else {
+                while (run > 15) {
+                    bitWriter.write(ac.codes[0xf0], ac.sizes[0xf0]);
+                    run -= 16;
+                }
+                size = 32 - Integer.numberOfLeadingZeros(Math.abs(coefficient));
+                coefficient += coefficient >> 31;
+                final int symbol = run << 4 | size;
+                bitWriter.write(ac.codes[symbol] << size | coefficient & (1 << size) - 1, ac.sizes[symbol] + size);
+                run = 0;
+            }
+        }
+        if (run > 0) {
+            bitWriter.write(ac.codes[0], ac.sizes[0]);
+        }
+    }
+
+    /**
+     * Replaces the tables with the optimal tables for the symbols counted so far, and starts a new scan.
+     */
+    void optimizeTables() {
+        for (int t = 0; t < dcTables.length; t++) {
+            dcTables[t] = HuffmanTable.optimal(dcFrequencies[t]);
+            acTables[t] = HuffmanTable.optimal(acFrequencies[t]);
+        }
+        resetPredictors();
+    }
+
+    /**
+     * Resets the DC predictions to 0, at the start of a scan or a restart interval.
+     */
+    void resetPredictors() {
+        for (int i = 0; i < lastDc.length; i++) {
+            lastDc[i] = 0;
+        }
+    }
+
+    /**
+     * Uses the tables of section K.3 of T.81, the luminance tables for table 0 and the chrominance tables for table 1.
+     */
+    void useStandardTables() {
+        dcTables[0] = HuffmanTable.DC_LUMINANCE;
+        acTables[0] = HuffmanTable.AC_LUMINANCE;
+        if (dcTables.length > 1) {
+            dcTables[1] = HuffmanTable.DC_CHROMINANCE;
+            acTables[1] = HuffmanTable.AC_CHROMINANCE;
+        }
+    }
+
+    /**
+     * Writes a DHT segment with all the tables.
+     */
+    void writeDht(final BinaryOutputStream bos) throws IOException {
+        int length = 2;
+        for (int t = 0; t < dcTables.length; t++) {
+            length += 34 + dcTables[t].values.length + acTables[t].values.length;
+        }
+        bos.write2Bytes(JpegConstants.DHT_MARKER);
+        bos.write2Bytes(length);
+        for (int t = 0; t < dcTables.length; t++) {
+            writeHuffmanTable(bos, t, dcTables[t]);
+            writeHuffmanTable(bos, 0x10 | t, acTables[t]);
+        }
+    }
+
+    private void writeHuffmanTable(final BinaryOutputStream bos, final int classAndId, final HuffmanTable table) throws IOException {
+        bos.write(classAndId);
+        for (final int count : table.counts) {
+            bos.write(count);
+        }
+        for (final int value : table.values) {
+            bos.write(value);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+/**
+ * The slow but accurate integer forward DCT of IJG's jfdctint.c, the Loeffler, Ligtenberg and Moschytz algorithm with 12 multiplies and 32 adds.
+ * <p>
+ * The outputs are scaled up by 8 compared to the DCT of section A.3.3 of T.81, so quantization divides them by 8 times the quantization table.
+ * </p>
+ */
+final class ForwardDct {
+
+    private static final int CONST_BITS = 13;
+    private static final int PASS1_BITS = 2;
+
+    private static final int FIX_0_298631336 = 2446;
+    private static final int FIX_0_390180644 = 3196;
+    private static final int FIX_0_541196100 = 4433;
+    private static final int FIX_0_765366865 = 6270;
+    private static final int FIX_0_899976223 = 7373;
+    private static final int FIX_1_175875602 = 9633;
+    private static final int FIX_1_501321110 = 12299;
+    private static final int FIX_1_847759065 = 15137;
+    private static final int FIX_1_961570560 = 16069;
+    private static final int FIX_2_053119869 = 16819;
+    private static final int FIX_2_562915447 = 20995;
+    private static final int FIX_3_072711026 = 25172;
+
+    /**
+     * Transforms a block of level shifted samples, in natural order, in place.
+     *
+     * @param data the 64 samples, minus 128, replaced by the coefficients scaled up by 8.
+     */
+    static void forwardDct8x8(final int[] data) {
+        // pass 1: rows, with results scaled up by sqrt(8) and by 2^PASS1_BITS
+        for (int row = 0; row < 64; row += 8) {
+            final int tmp0 = data[row] + data[row + 7];
+            final int tmp7 = data[row] - data[row + 7];
+            final int tmp1 = data[row + 1] + data[row + 6];
+            final int tmp6 = data[row + 1] - data[row + 6];
+            final int tmp2 = data[row + 2] + data[row + 5];
+            final int tmp5 = data[row + 2] - data[row + 5];
+            final int tmp3 = data[row + 3] + data[row + 4];
+            final int tmp4 = data[row + 3] - data[row + 4];
+
+            final int tmp10 = tmp0 + tmp3;
+            final int tmp13 = tmp0 - tmp3;
+            final int tmp11 = tmp1 + tmp2;
+            final int tmp12 = tmp1 - tmp2;
+            data[row] = tmp10 + tmp11 << PASS1_BITS;
+            data[row + 4] = tmp10 - tmp11 << PASS1_BITS;
+            final int z1 = (tmp12 + tmp13) * FIX_0_541196100;
+            data[row + 2] = descale(z1 + tmp13 * FIX_0_765366865, CONST_BITS - PASS1_BITS);
+            data[row + 6] = descale(z1 - tmp12 * FIX_1_847759065, CONST_BITS - PASS1_BITS);
+
+            final int z5 = (tmp4 + tmp5 + tmp6 + tmp7) * FIX_1_175875602;
+            final int z1Odd = -(tmp4 + tmp7) * FIX_0_899976223;
+            final int z2 = -(tmp5 + tmp6) * FIX_2_562915447;
+            final int z3 = -(tmp4 + tmp6) * FIX_1_961570560 + z5;
+            final int z4 = -(tmp5 + tmp7) * FIX_0_390180644 + z5;
+            data[row + 7] = descale(tmp4 * FIX_0_298631336 + z1Odd + z3, CONST_BITS - PASS1_BITS);
+            data[row + 5] = descale(tmp5 * FIX_2_053119869 + z2 + z4, CONST_BITS - PASS1_BITS);
+            data[row + 3] = descale(tmp6 * FIX_3_072711026 + z2 + z3, CONST_BITS - PASS1_BITS);
+            data[row + 1] = descale(tmp7 * FIX_1_501321110 + z1Odd + z4, CONST_BITS - PASS1_BITS);
+        }
+        // pass 2: columns, removing the 2^PASS1_BITS scaling but leaving the overall scaling by 8
+        for (int col = 0; col < 8; col++) {
+            final int tmp0 = data[col] + data[col + 56];
+            final int tmp7 = data[col] - data[col + 56];
+            final int tmp1 = data[col + 8] + data[col + 48];
+            final int tmp6 = data[col + 8] - data[col + 48];
+            final int tmp2 = data[col + 16] + data[col + 40];
+            final int tmp5 = data[col + 16] - data[col + 40];
+            final int tmp3 = data[col + 24] + data[col + 32];
+            final int tmp4 = data[col + 24] - data[col + 32];
+
+            final int tmp10 = tmp0 + tmp3;
+            final int tmp13 = tmp0 - tmp3;
+            final int tmp11 = tmp1 + tmp2;
+            final int tmp12 = tmp1 - tmp2;
+            data[col] = descale(tmp10 + tmp11, PASS1_BITS);
+            data[col + 32] = descale(tmp10 - tmp11, PASS1_BITS);
+            final int z1 = (tmp12 + tmp13) * FIX_0_541196100;
+            data[col + 16] = descale(z1 + tmp13 * FIX_0_765366865, CONST_BITS + PASS1_BITS);
+            data[col + 48] = descale(z1 - tmp12 * FIX_1_847759065, CONST_BITS + PASS1_BITS);
+
+            final int z5 = (tmp4 + tmp5 + tmp6 + tmp7) * FIX_1_175875602;
+            final int z1Odd = -(tmp4 + tmp7) * FIX_0_899976223;
+            final int z2 = -(tmp5 + tmp6) * FIX_2_562915447;
+            final int z3 = -(tmp4 + tmp6) * FIX_1_961570560 + z5;
+            final int z4 = -(tmp5 + tmp7) * FIX_0_390180644 + z5;
+            data[col + 56] = descale(tmp4 * FIX_0_298631336 + z1Odd + z3, CONST_BITS + PASS1_BITS);
+            data[col + 40] = descale(tmp5 * FIX_2_053119869 + z2 + z4, CONST_BITS + PASS1_BITS);
+            data[col + 24] = descale(tmp6 * FIX_3_072711026 + z2 + z3, CONST_BITS + PASS1_BITS);
+            data[col + 8] = descale(tmp7 * FIX_1_501321110 + z1Odd + z4, CONST_BITS + PASS1_BITS);
+        }
+    }
+
+    private static int descale(final int x, final int n) {
+        return x + (1 << n - 1) >> n;
+    }
+
+    private ForwardDct() {
+    }
+}
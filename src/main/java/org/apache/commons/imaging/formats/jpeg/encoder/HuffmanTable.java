@@ -0,0 +1,175 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.util.Arrays;
+
+/**
+ * A Huffman table as written in a DHT segment, with the code and code length of each symbol for encoding.
+ */
+final class HuffmanTable {
+
+    /** Table K.3 of T.81. */
+    static final HuffmanTable DC_LUMINANCE = new HuffmanTable(new int[] { 0, 1, 5, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0 },
+            new int[] { 0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0a, 0x0b });
+
+    /** Table K.4 of T.81. */
+    static final HuffmanTable DC_CHROMINANCE = new HuffmanTable(new int[] { 0, 3, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0 },
+            new int[] { 0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0a, 0x0b });
+
+    /** Table K.5 of T.81. */
+    static final HuffmanTable AC_LUMINANCE = new HuffmanTable(new int[] { 0, 2, 1, 3, 3, 2, 4, 3, 5, 5, 4, 4, 0, 0, 1, 0x7d },
+            new int[] { 0x01, 0x02, 0x03, 0x00, 0x04, 0x11, 0x05, 0x12, 0x21, 0x31, 0x41, 0x06, 0x13, 0x51, 0x61, 0x07, 0x22, 0x71, 0x14, 0x32, 0x81, 0x91,
+                    0xa1, 0x08, 0x23, 0x42, 0xb1, 0xc1, 0x15, 0x52, 0xd1, 0xf0, 0x24, 0x33, 0x62, 0x72, 0x82, 0x09, 0x0a, 0x16, 0x17, 0x18, 0x19, 0x1a, 0x25,
+                    0x26, 0x27, 0x28, 0x29, 0x2a, 0x34, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48, 0x49, 0x4a, 0x53, 0x54, 0x55,
+                    0x56, 0x57, 0x58, 0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7a, 0x83, 0x84,
+                    0x85, 0x86, 0x87, 0x88, 0x89, 0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5, 0xa6, 0xa7, 0xa8, 0xa9,
+                    0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3, 0xc4, 0xc5, 0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3, 0xd4, 0xd5,
+                    0xd6, 0xd7, 0xd8, 0xd9, 0xda, 0xe1, 0xe2, 0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea, 0xf1, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+                    0xf9, 0xfa });
+
+    /** Table K.6 of T.81. */
+    static final HuffmanTable AC_CHROMINANCE = new HuffmanTable(new int[] { 0, 2, 1, 2, 4, 4, 3, 4, 7, 5, 4, 4, 0, 1, 2, 0x77 },
+            new int[] { 0x00, 0x01, 0x02, 0x03, 0x11, 0x04, 0x05, 0x21, 0x31, 0x06, 0x12, 0x41, 0x51, 0x07, 0x61, 0x71, 0x13, 0x22, 0x32, 0x81, 0x08, 0x14,
+                    0x42, 0x91, 0xa1, 0xb1, 0xc1, 0x09, 0x23, 0x33, 0x52, 0xf0, 0x15, 0x62, 0x72, 0xd1, 0x0a, 0x16, 0x24, 0x34, 0xe1, 0x25, 0xf1, 0x17, 0x18,
+                    0x19, 0x1a, 0x26, 0x27, 0x28, 0x29, 0x2a, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48, 0x49, 0x4a, 0x53, 0x54,
+                    0x55, 0x56, 0x57, 0x58, 0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7a, 0x82,
+                    0x83, 0x84, 0x85, 0x86, 0x87, 0x88, 0x89, 0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5, 0xa6, 0xa7,
+                    0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3, 0xc4, 0xc5, 0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3,
+                    0xd4, 0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda, 0xe2, 0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+                    0xf9, 0xfa });
+
+    private static final int MAX_CODE_LENGTH = 32;
+
+    /**
+     * Builds the optimal table for the symbol frequencies of an image, with the procedure of section K.2 of T.81 as implemented by IJG's jchuff.c: codes
+     * longer than 16 bits are shortened, and the all 1 code is never used, by reserving a code point for a dummy symbol.
+     *
+     * @param frequencies the number of occurrences of each symbol, 257 entries of which the last is used as work space.
+     * @return the table.
+     */
+    static HuffmanTable optimal(final long[] frequencies) {
+        final int[] codeSizes = new int[257];
+        final int[] others = new int[257];
+        Arrays.fill(others, -1);
+        frequencies[256] = 1;
+        while (true) {
+            // find the 2 least frequent symbols, preferring the higher ones on ties so the dummy symbol gets the longest code
+            int c1 = -1;
+            long v = Long.MAX_VALUE;
+            for (int i = 0; i <= 256; i++) {
+                if (frequencies[i] != 0 && frequencies[i] <= v) {
+                    v = frequencies[i];
+                    c1 = i;
+                }
+            }
+            int c2 = -1;
+            v = Long.MAX_VALUE;
+            for (int i = 0; i <= 256; i++) {
+                if (frequencies[i] != 0 && frequencies[i] <= v && i != c1) {
+                    v = frequencies[i];
+                    c2 = i;
+                }
+            }
+            if (c2 < 0) {
+                break;
+            }
+            frequencies[c1] += frequencies[c2];
+            frequencies[c2] = 0;
+            codeSizes[c1]++;
+            while (others[c1] >= 0) {
+                c1 = others[c1];
+                codeSizes[c1]++;
+            }
+            others[c1] = c2;
+            codeSizes[c2]++;
+            while (others[c2] >= 0) {
+                c2 = others[c2];
+                codeSizes[c2]++;
+            }
+        }
+
+        final int[] lengthCounts = new int[MAX_CODE_LENGTH + 1];
+        for (int i = 0; i <= 256; i++) {
+            if (codeSizes[i] != 0) {
+                // a code longer than 32 bits needs more than 2^32 symbols
+                lengthCounts[Math.min(codeSizes[i], MAX_CODE_LENGTH)]++;
+            }
+        }
+        // section K.2 figure K.3: move pairs of codes longer than 16 bits up the tree
+        for (int i = MAX_CODE_LENGTH; i > 16; i--) {
+            while (lengthCounts[i] > 0) {
+                int j = i - 2;
+                while (lengthCounts[j] == 0) {
+                    j--;
+                }
+                lengthCounts[i] -= 2;
+                lengthCounts[i - 1]++;
+                lengthCounts[j + 1] += 2;
+                lengthCounts[j]--;
+            }
+        }
+        // remove the dummy symbol's code, which is one of the longest
+        int longest = 16;
+        while (lengthCounts[longest] == 0) {
+            longest--;
+        }
+        lengthCounts[longest]--;
+
+        final int[] counts = new int[16];
+        System.arraycopy(lengthCounts, 1, counts, 0, 16);
+        int symbols = 0;
+        for (final int count : counts) {
+            symbols += count;
+        }
+        // the symbols in order of code length, the order of the original, unlimited lengths
+        final int[] values = new int[symbols];
+        int p = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            for (int symbol = 0; symbol < 256; symbol++) {
+                if (codeSizes[symbol] == length) {
+                    values[p++] = symbol;
+                }
+            }
+        }
+        return new HuffmanTable(counts, values);
+    }
+
+    /** The number of codes of each length from 1 to 16, the BITS list of section B.2.4.2 of T.81. */
+    final int[] counts;
+    /** The symbols in order of increasing code length, HUFFVAL. */
+    final int[] values;
+    /** The code of each symbol, right aligned. */
+    final int[] codes = new int[256];
+    /** The length of each symbol's code, 0 for symbols without one. */
+    final int[] sizes = new int[256];
+
+    private HuffmanTable(final int[] counts, final int[] values) {
+        this.counts = counts;
+        this.values = values;
+        // section C.2 of T.81
+        int code = 0;
+        int p = 0;
+        for (int length = 1; length <= 16; length++) {
+            for (int i = 0; i < counts[length - 1]; i++) {
+                codes[values[p]] = code++;
+                sizes[values[p]] = length;
+                p++;
+            }
+            code <<= 1;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.PixelDensity;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.formats.jpeg.ChromaSubsampling;
+import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
+
+/**
+ * Encodes images as baseline sequential JPEGs in the JFIF format.
+ * <p>
+ * Color images are converted to YCbCr, with chroma optionally subsampled, and {@link BufferedImage#TYPE_BYTE_GRAY} images are written with a single
+ * component; alpha is discarded. The quantization tables are those of section K.1 of T.81 scaled by the quality, and the Huffman tables either those of
+ * section K.3 or tables computed for the image. The color conversion, downsampling, forward DCT and quantization follow IJG's libjpeg, so an image written
+ * at a given quality is very close to what libjpeg based encoders such as ImageIO's write.
+ * </p>
+ * <p>
+ * The image is encoded one MCU row at a time, so unless Huffman tables are optimized, memory use does not grow with the image height.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public class JpegEncoder {
+
+    /** The luminance table of section K.1 of T.81, in natural order. */
+    private static final int[] LUMINANCE_QUANTIZATION = { 16, 11, 10, 16, 24, 40, 51, 61, 12, 12, 14, 19, 26, 58, 60, 55, 14, 13, 16, 24, 40, 57, 69, 56, 14,
+            17, 22, 29, 51, 87, 80, 62, 18, 22, 37, 56, 68, 109, 103, 77, 24, 35, 55, 64, 81, 104, 113, 92, 49, 64, 78, 87, 103, 121, 120, 101, 72, 92, 95,
+            98, 112, 100, 103, 99 };
+
+    /** The chrominance table of section K.1 of T.81, in natural order. */
+    private static final int[] CHROMINANCE_QUANTIZATION = { 17, 18, 24, 47, 99, 99, 99, 99, 18, 21, 26, 66, 99, 99, 99, 99, 24, 26, 56, 99, 99, 99, 99, 99,
+            47, 66, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99, 99,
+            99, 99, 99, 99 };
+
+    /** The natural order index of each zig-zag order index. */
+    static final int[] NATURAL_ORDER = { 0, 1, 8, 16, 9, 2, 3, 10, 17, 24, 32, 25, 18, 11, 4, 5, 12, 19, 26, 33, 40, 48, 41, 34, 27, 20, 13, 6, 7, 14,
+            21, 28, 35, 42, 49, 56, 57, 50, 43, 36, 29, 22, 15, 23, 30, 37, 44, 51, 58, 59, 52, 45, 38, 31, 39, 46, 53, 60, 61, 54, 47, 55, 62, 63 };
+
+    private static final byte[] JFIF_IDENTIFIER = "JFIF\0".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Scales a quantization table by a quality, the way IJG's jcparam.c does: qualities below 50 scale by 50 / quality, and qualities above 50 by
+     * 2 - quality / 50. Entries are limited to [1, 255] to stay valid for baseline JPEG.
+     *
+     * @param table   the table.
+     * @param quality the quality, from 1 to 100.
+     * @return the scaled table.
+     */
+    static int[] scaleQuantizationTable(final int[] table, final int quality) {
+        final int scale = quality < 50 ? 5000 / quality : 200 - quality * 2;
+        final int[] scaled = new int[64];
+        for (int i = 0; i < 64; i++) {
+            scaled[i] = Math.max(1, Math.min(255, (table[i] * scale + 50) / 100));
+        }
+        return scaled;
+    }
+
+    private int width;
+    private int height;
+    private boolean grayscale;
+    private int componentCount;
+    private int hMax;
+    private int vMax;
+    private int mcusPerLine;
+    private int mcusPerColumn;
+    private int blocksPerMcu;
+    /** The component of each block of an MCU. */
+    private int[] blockComponent;
+    private int[][] quantizationTables;
+    /**
+     * The reciprocals of the quantization tables times 8, the divisors that undo the scaling of the forward DCT too, as floor(2^32 / divisor) + 1: the
+     * quotient of any dividend below 2^32 / divisor, which includes all the DCT produces, is then the product shifted right by 32.
+     */
+    private long[][] reciprocals;
+
+    /** The samples of an MCU row, in rows of lumaStride samples for luma and lumaStride / hMax for chroma. */
+    private int[][] planes;
+    private int lumaStride;
+    /** The full resolution chroma of an MCU row, before downsampling. */
+    private int[] cbSamples;
+    private int[] crSamples;
+    /** The pixels of an MCU row. */
+    private int[] pixels;
+    private byte[] pixelBytes;
+    private final int[] workspace = new int[64];
+
+    private EntropyEncoder entropyEncoder;
+    private int restartInterval;
+    private int restartsToGo;
+    private int nextRestart;
+
+    /**
+     * Averages the full resolution chroma of an MCU row over 2x1 or 2x2 samples, with the alternating rounding biases of IJG's jcsample.c so that the
+     * rounding is not always upwards. As in IJG's jcprepct.c, rows below the image repeat the last downsampled row rather than being downsampled from
+     * repeated samples.
+     */
+    private void downsample(final int[] samples, final int[] plane, final int rows) {
+        final int chromaStride = lumaStride / 2;
+        for (int row = 0; row < rows; row++) {
+            final int in = row * vMax * lumaStride;
+            final int out = row * chromaStride;
+            if (vMax == 2) {
+                for (int x = 0; x < chromaStride; x++) {
+                    final int i = in + 2 * x;
+                    plane[out + x] = samples[i] + samples[i + 1] + samples[i + lumaStride] + samples[i + lumaStride + 1] + 1 + (x & 1) >> 2;
+                }
+            } else {
+                for (int x = 0; x < chromaStride; x++) {
+                    final int i = in + 2 * x;
+                    plane[out + x] = samples[i] + samples[i + 1] + (x & 1) >> 1;
+                }
+            }
+        }
+        for (int row = rows; row < 8; row++) {
+            System.arraycopy(plane, (rows - 1) * chromaStride, plane, row * chromaStride, chromaStride);
+        }
+    }
+
+    /**
+     * Encodes an image.
+     *
+     * @param src    the image.
+     * @param os     the stream to write the JPEG to.
+     * @param params the parameters, or null for the defaults.
+     * @throws ImagingException if the image is too large for JPEG, or the XMP XML too large for a segment.
+     * @throws IOException      if it fails to write to the stream.
+     */
+    public void encode(final BufferedImage src, final OutputStream os, final JpegImagingParameters params) throws ImagingException, IOException {
+        final JpegImagingParameters parameters = params == null ? new JpegImagingParameters() : params;
+        width = src.getWidth();
+        height = src.getHeight();
+        if (width > 0xffff || height > 0xffff) {
+            throw new ImagingException("Image of " + width + "x" + height + " pixels is too large for JPEG");
+        }
+        grayscale = src.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        componentCount = grayscale ? 1 : 3;
+        final ChromaSubsampling subsampling = grayscale ? ChromaSubsampling.H1V1 : parameters.getChromaSubsampling();
+        hMax = subsampling.getHorizontalFactor();
+        vMax = subsampling.getVerticalFactor();
+        mcusPerLine = (width + 8 * hMax - 1) / (8 * hMax);
+        mcusPerColumn = (height + 8 * vMax - 1) / (8 * vMax);
+        blocksPerMcu = hMax * vMax + componentCount - 1;
+        blockComponent = new int[blocksPerMcu];
+        for (int i = hMax * vMax; i < blocksPerMcu; i++) {
+            blockComponent[i] = i - hMax * vMax + 1;
+        }
+
+        quantizationTables = new int[grayscale ? 1 : 2][];
+        quantizationTables[0] = scaleQuantizationTable(LUMINANCE_QUANTIZATION, parameters.getQuality());
+        if (!grayscale) {
+            quantizationTables[1] = scaleQuantizationTable(CHROMINANCE_QUANTIZATION, parameters.getQuality());
+        }
+        reciprocals = new long[quantizationTables.length][64];
+        for (int t = 0; t < quantizationTables.length; t++) {
+            for (int i = 0; i < 64; i++) {
+                reciprocals[t][i] = (1L << 32) / (quantizationTables[t][i] * 8) + 1;
+            }
+        }
+
+        lumaStride = mcusPerLine * 8 * hMax;
+        pixels = Allocator.intArray(width * 8 * vMax);
+        planes = new int[componentCount][];
+        planes[0] = Allocator.intArray(lumaStride * 8 * vMax);
+        if (!grayscale) {
+            cbSamples = Allocator.intArray(lumaStride * 8 * vMax);
+            crSamples = Allocator.intArray(lumaStride * 8 * vMax);
+            if (hMax == 1 && vMax == 1) {
+                planes[1] = cbSamples;
+                planes[2] = crSamples;
+            } else {
+                planes[1] = Allocator.intArray(mcusPerLine * 64);
+                planes[2] = Allocator.intArray(mcusPerLine * 64);
+            }
+        }
+        restartInterval = parameters.getRestartInterval();
+
+        final BinaryOutputStream bos = BinaryOutputStream.bigEndian(os);
+        JpegConstants.SOI.writeTo(bos);
+        writeApp0(bos, parameters.getPixelDensity());
+        if (parameters.getXmpXml() != null) {
+            writeXmp(bos, parameters.getXmpXml());
+        }
+        writeDqt(bos);
+        writeSof0(bos);
+
+        final int mcuRowLength = mcusPerLine * blocksPerMcu * 64;
+        final BitWriter bitWriter = new BitWriter(os);
+        entropyEncoder = new EntropyEncoder(quantizationTables.length, componentCount);
+        if (parameters.isOptimizeHuffmanTables()) {
+            final short[] coefficients = Allocator.shortArray(Allocator.check((long) mcuRowLength * mcusPerColumn, Short.BYTES));
+            for (int mcuY = 0; mcuY < mcusPerColumn; mcuY++) {
+                quantizeMcuRow(src, mcuY, coefficients, mcuY * mcuRowLength);
+            }
+            startScan();
+            encodeMcus(coefficients, 0, mcusPerLine * mcusPerColumn, null);
+            entropyEncoder.optimizeTables();
+            writeScanHeaders(bos);
+            startScan();
+            encodeMcus(coefficients, 0, mcusPerLine * mcusPerColumn, bitWriter);
+        } else {
+            entropyEncoder.useStandardTables();
+            writeScanHeaders(bos);
+            startScan();
+            final short[] coefficients = Allocator.shortArray(mcuRowLength);
+            for (int mcuY = 0; mcuY < mcusPerColumn; mcuY++) {
+                quantizeMcuRow(src, mcuY, coefficients, 0);
+                encodeMcus(coefficients, 0, mcusPerLine, bitWriter);
+            }
+        }
+        bitWriter.padToByte();
+        bitWriter.flush();
+        JpegConstants.EOI.writeTo(bos);
+        bos.flush();
+    }
+
+    /**
+     * Entropy codes MCUs, or only counts their symbols if there is no bit writer.
+     */
+    private void encodeMcus(final short[] coefficients, int offset, final int mcus, final BitWriter bitWriter) throws IOException {
+        for (int mcu = 0; mcu < mcus; mcu++) {
+            if (restartInterval != 0) {
+                if (restartsToGo == 0) {
+                    if (bitWriter != null) {
+                        bitWriter.writeMarker(JpegConstants.RST0_MARKER + nextRestart);
+                    }
+                    nextRestart = nextRestart + 1 & 7;
+                    restartsToGo = restartInterval;
+                    entropyEncoder.resetPredictors();
+                }
+                restartsToGo--;
+            }
+            for (int block = 0; block < blocksPerMcu; block++) {
+                if (bitWriter != null) {
+                    entropyEncoder.encodeBlock(coefficients, offset, blockComponent[block], blockComponent[block] == 0 ? 0 : 1, bitWriter);
+                } else {
+                    entropyEncoder.countBlock(coefficients, offset, blockComponent[block], blockComponent[block] == 0 ? 0 : 1);
+                }
+                offset += 64;
+            }
+        }
+    }
+
+    /**
+     * Converts the pixels of an MCU row to samples in the planes, repeating the last column and row of the image to fill partial MCUs.
+     */
+    private void loadMcuRow(final BufferedImage src, final int mcuY) {
+        final int y0 = mcuY * 8 * vMax;
+        final int rows = Math.min(8 * vMax, height - y0);
+        readPixels(src, y0, rows);
+        final int[] ys = planes[0];
+        for (int row = 0; row < rows; row++) {
+            final int in = row * width;
+            final int out = row * lumaStride;
+            if (grayscale) {
+                for (int x = 0; x < width; x++) {
+                    ys[out + x] = 0xff & pixels[in + x];
+                }
+            } else {
+                for (int x = 0; x < width; x++) {
+                    final int pixel = pixels[in + x];
+                    final int r = 0xff & pixel >> 16;
+                    final int g = 0xff & pixel >> 8;
+                    final int b = 0xff & pixel;
+                    // IJG's jccolor.c, with 16 fractional bits
+                    ys[out + x] = 19595 * r + 38470 * g + 7471 * b + 32768 >> 16;
+                    cbSamples[out + x] = -11059 * r - 21709 * g + 32768 * b + (128 << 16) + 32767 >> 16;
+                    crSamples[out + x] = 32768 * r - 27439 * g - 5329 * b + (128 << 16) + 32767 >> 16;
+                }
+            }
+        }
+        for (final int[] plane : grayscale ? planes : new int[][] { ys, cbSamples, crSamples }) {
+            for (int row = 0; row < rows; row++) {
+                final int out = row * lumaStride;
+                for (int x = width; x < lumaStride; x++) {
+                    plane[out + x] = plane[out + width - 1];
+                }
+            }
+            for (int row = rows; row < 8 * vMax; row++) {
+                System.arraycopy(plane, (rows - 1) * lumaStride, plane, row * lumaStride, lumaStride);
+            }
+        }
+        if (!grayscale && (hMax != 1 || vMax != 1)) {
+            downsample(cbSamples, planes[1], (rows + vMax - 1) / vMax);
+            downsample(crSamples, planes[2], (rows + vMax - 1) / vMax);
+        }
+    }
+
+    /**
+     * Transforms and quantizes a block, writing its coefficients in zig-zag order.
+     */
+    private void quantizeBlock(final int[] plane, final int offset, final int stride, final int table, final short[] coefficients,
+            final int coefficientOffset) {
+        final int[] quantizationTable = quantizationTables[table];
+        final long[] reciprocal = reciprocals[table];
+        final int[] data = workspace;
+        for (int row = 0; row < 8; row++) {
+            final int in = offset + row * stride;
+            for (int x = 0; x < 8; x++) {
+                data[row * 8 + x] = plane[in + x] - 128;
+            }
+        }
+        ForwardDct.forwardDct8x8(data);
+        for (int k = 0; k < 64; k++) {
+            final int i = NATURAL_ORDER[k];
+            final int coefficient = data[i];
+            // round half away from zero, as IJG's jcdctmgr.c does
+            final int quotient = (int) ((Math.abs(coefficient) + quantizationTable[i] * 4) * reciprocal[i] >>> 32);
+            coefficients[coefficientOffset + k] = (short) (coefficient < 0 ? -quotient : quotient);
+        }
+    }
+
+    /**
+     * Quantizes the blocks of an MCU row in the order they are encoded.
+     */
+    private void quantizeMcuRow(final BufferedImage src, final int mcuY, final short[] coefficients, int offset) {
+        loadMcuRow(src, mcuY);
+        final int lumaBlocksWide = (width + 7) / 8;
+        final int lumaBlocksHigh = (height + 7) / 8;
+        for (int mcuX = 0; mcuX < mcusPerLine; mcuX++) {
+            for (int by = 0; by < vMax; by++) {
+                for (int bx = 0; bx < hMax; bx++) {
+                    if (mcuX * hMax + bx < lumaBlocksWide && mcuY * vMax + by < lumaBlocksHigh) {
+                        quantizeBlock(planes[0], by * 8 * lumaStride + (mcuX * hMax + bx) * 8, lumaStride, 0, coefficients, offset);
+                    } else {
+                        // a block entirely outside the image, which IJG's jccoefct.c makes flat with the DC of the previous block to keep it cheap
+                        Arrays.fill(coefficients, offset, offset + 64, (short) 0);
+                        coefficients[offset] = coefficients[offset - 64];
+                    }
+                    offset += 64;
+                }
+            }
+            for (int component = 1; component < componentCount; component++) {
+                final int stride = lumaStride / hMax;
+                quantizeBlock(planes[component], mcuX * 8, stride, 1, coefficients, offset);
+                offset += 64;
+            }
+        }
+    }
+
+    /**
+     * Reads rows of pixels as packed RGB in {@link #pixels}. The RGB image types ImageIO and most code create are read straight from their rasters, which
+     * is much faster than converting each pixel through the color model. Gray images go through the color model like every other writer's, as their
+     * rasters hold linear rather than sRGB values.
+     */
+    private void readPixels(final BufferedImage src, final int y0, final int rows) {
+        switch (src.getType()) {
+        case BufferedImage.TYPE_INT_RGB:
+        case BufferedImage.TYPE_INT_ARGB:
+            src.getRaster().getDataElements(0, y0, width, rows, pixels);
+            break;
+        case BufferedImage.TYPE_3BYTE_BGR:
+            // the data elements are the samples in band order, red first
+            pixelBytes = (byte[]) src.getRaster().getDataElements(0, y0, width, rows, pixelBytes);
+            for (int i = 0, j = 0; i < width * rows; i++, j += 3) {
+                pixels[i] = (0xff & pixelBytes[j]) << 16 | (0xff & pixelBytes[j + 1]) << 8 | 0xff & pixelBytes[j + 2];
+            }
+            break;
+        default:
+            src.getRGB(0, y0, width, rows, pixels, 0, width);
+            break;
+        }
+    }
+
+    private void startScan() {
+        entropyEncoder.resetPredictors();
+        restartsToGo = restartInterval;
+        nextRestart = 0;
+    }
+
+    private void writeApp0(final BinaryOutputStream bos, final PixelDensity pixelDensity) throws IOException {
+        int units = 0;
+        double xDensity = 1;
+        double yDensity = 1;
+        if (pixelDensity != null) {
+            if (pixelDensity.isUnitless()) {
+                xDensity = pixelDensity.getRawHorizontalDensity();
+                yDensity = pixelDensity.getRawVerticalDensity();
+            } else if (pixelDensity.isInInches()) {
+                units = 1;
+                xDensity = pixelDensity.horizontalDensityInches();
+                yDensity = pixelDensity.verticalDensityInches();
+            } else {
+                units = 2;
+                xDensity = pixelDensity.horizontalDensityCentimetres();
+                yDensity = pixelDensity.verticalDensityCentimetres();
+            }
+        }
+        bos.write2Bytes(JpegConstants.JFIF_MARKER);
+        bos.write2Bytes(16);
+        bos.write(JFIF_IDENTIFIER);
+        bos.write2Bytes(0x0101);
+        bos.write(units);
+        bos.write2Bytes((int) Math.max(1, Math.min(0xffff, Math.round(xDensity))));
+        bos.write2Bytes((int) Math.max(1, Math.min(0xffff, Math.round(yDensity))));
+        // no thumbnail
+        bos.write(0);
+        bos.write(0);
+    }
+
+    private void writeDqt(final BinaryOutputStream bos) throws IOException {
+        bos.write2Bytes(JpegConstants.DQT_MARKER);
+        bos.write2Bytes(2 + 65 * quantizationTables.length);
+        for (int t = 0; t < quantizationTables.length; t++) {
+            // 8-bit precision
+            bos.write(t);
+            for (int k = 0; k < 64; k++) {
+                bos.write(quantizationTables[t][NATURAL_ORDER[k]]);
+            }
+        }
+    }
+
+    private void writeScanHeaders(final BinaryOutputStream bos) throws IOException {
+        entropyEncoder.writeDht(bos);
+
+        if (restartInterval != 0) {
+            bos.write2Bytes(JpegConstants.DRI_MARKER);
+            bos.write2Bytes(4);
+            bos.write2Bytes(restartInterval);
+        }
+
+        bos.write2Bytes(JpegConstants.SOS_MARKER);
+        bos.write2Bytes(6 + 2 * componentCount);
+        bos.write(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            bos.write(i + 1);
+            bos.write(i == 0 ? 0x00 : 0x11);
+        }
+        // spectral selection 0 to 63 and no successive approximation
+        bos.write(0);
+        bos.write(63);
+        bos.write(0);
+    }
+
+    private void writeSof0(final BinaryOutputStream bos) throws IOException {
+        bos.write2Bytes(JpegConstants.SOF0_MARKER);
+        bos.write2Bytes(8 + 3 * componentCount);
+        bos.write(8);
+        bos.write2Bytes(height);
+        bos.write2Bytes(width);
+        bos.write(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            bos.write(i + 1);
+            bos.write(i == 0 ? hMax << 4 | vMax : 0x11);
+            bos.write(i == 0 ? 0 : 1);
+        }
+    }
+
+    private void writeXmp(final BinaryOutputStream bos, final String xmpXml) throws ImagingException, IOException {
+        final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
+        final int length = 2 + JpegConstants.XMP_IDENTIFIER.size() + xmpXmlBytes.length;
+        if (length > JpegConstants.MAX_SEGMENT_SIZE) {
+            throw new ImagingException("XMP XML of " + xmpXmlBytes.length + " bytes is too large for a JPEG APP1 segment");
+        }
+        bos.write2Bytes(JpegConstants.JPEG_APP1_MARKER);
+        bos.write2Bytes(length);
+        JpegConstants.XMP_IDENTIFIER.writeTo(bos);
+        bos.write(xmpXmlBytes);
+    }
+}
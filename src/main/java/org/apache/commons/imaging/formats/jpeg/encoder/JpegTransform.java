@@ -0,0 +1,98 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+/**
+ * The lossless transforms of {@link JpegTransformer}: the rotations by multiples of 90 degrees and the reflections, those of the EXIF orientation tag.
+ *
+ * @since 1.0-alpha6
+ */
+public enum JpegTransform {
+
+    /** Leaves the image as it is. */
+    NONE(false, false, false),
+    /** Mirrors the image left to right. */
+    FLIP_HORIZONTAL(false, true, false),
+    /** Mirrors the image top to bottom. */
+    FLIP_VERTICAL(false, false, true),
+    /** Reflects the image across its top left to bottom right diagonal. */
+    TRANSPOSE(true, false, false),
+    /** Reflects the image across its top right to bottom left diagonal. */
+    TRANSVERSE(true, true, true),
+    /** Rotates the image 90 degrees clockwise. */
+    ROTATE_90(true, true, false),
+    /** Rotates the image 180 degrees. */
+    ROTATE_180(false, true, true),
+    /** Rotates the image 90 degrees counterclockwise. */
+    ROTATE_270(true, false, true);
+
+    // the transform is a transposition, if any, followed by the mirroring of columns and of rows
+    final boolean transposes;
+    final boolean flipsHorizontally;
+    final boolean flipsVertically;
+
+    /** The zig-zag index of the source coefficient of each coefficient of a transformed block. */
+    final int[] sourceIndexes = new int[64];
+    /** Whether each coefficient of a transformed block is the negation of its source coefficient. */
+    final boolean[] negated = new boolean[64];
+
+    JpegTransform(final boolean transposes, final boolean flipsHorizontally, final boolean flipsVertically) {
+        this.transposes = transposes;
+        this.flipsHorizontally = flipsHorizontally;
+        this.flipsVertically = flipsVertically;
+        final int[] zigZag = new int[64];
+        for (int k = 0; k < 64; k++) {
+            zigZag[JpegEncoder.NATURAL_ORDER[k]] = k;
+        }
+        for (int k = 0; k < 64; k++) {
+            final int row = JpegEncoder.NATURAL_ORDER[k] >> 3;
+            final int column = JpegEncoder.NATURAL_ORDER[k] & 7;
+            sourceIndexes[k] = transposes ? zigZag[column << 3 | row] : k;
+            // mirroring a block negates its odd frequency basis functions along the mirrored axis
+            negated[k] = ((flipsHorizontally ? column : 0) + (flipsVertically ? row : 0) & 1) != 0;
+        }
+    }
+
+    /**
+     * Gets the transform that displays an image stored with an EXIF orientation upright.
+     *
+     * @param orientation the value of the orientation tag, from 1 to 8.
+     * @return the transform.
+     * @throws IllegalArgumentException if the orientation is not from 1 to 8.
+     */
+    public static JpegTransform forExifOrientation(final int orientation) {
+        switch (orientation) {
+        case 1:
+            return NONE;
+        case 2:
+            return FLIP_HORIZONTAL;
+        case 3:
+            return ROTATE_180;
+        case 4:
+            return FLIP_VERTICAL;
+        case 5:
+            return TRANSPOSE;
+        case 6:
+            return ROTATE_90;
+        case 7:
+            return TRANSVERSE;
+        case 8:
+            return ROTATE_270;
+        default:
+            throw new IllegalArgumentException("Invalid EXIF orientation " + orientation);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.BinaryFunctions;
+import org.apache.commons.imaging.common.BinaryOutputStream;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegUtils;
+import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
+import org.apache.commons.imaging.formats.jpeg.segments.DqtSegment;
+import org.apache.commons.imaging.formats.jpeg.segments.SofnSegment;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.AbstractFieldType;
+
+/**
+ * Rotates, mirrors and crops JPEGs without decoding them to pixels, the way IJG's jpegtran does.
+ * <p>
+ * The quantized DCT coefficients are read with {@link JpegDecoder#decodeCoefficients(ByteSource)}, each block is transposed and has coefficients negated
+ * as needed, the blocks are moved to their new places and Huffman coded again, so no quality is lost. Application segments, comments and quantization
+ * tables are copied; the result is always a baseline sequential JPEG with Huffman tables optimized for it, and without restart intervals.
+ * </p>
+ * <p>
+ * Blocks can only be moved whole, so a transform that mirrors an axis drops the partial MCU at the end of that axis of the source image, like jpegtran's
+ * {@code -trim}, and a crop region starts on the MCU grid.
+ * </p>
+ * <p>
+ * A rotation or mirroring updates the EXIF orientation tag, if there is one, so that viewers still display the image the same way: applying
+ * {@link JpegTransform#forExifOrientation(int)} of the tag resets it to 1, the image being upright. The rest of the EXIF data, including the image
+ * dimensions and thumbnail, is copied as it is.
+ * </p>
+ *
+ * @since 1.0-alpha6
+ */
+public class JpegTransformer {
+
+    private SofnSegment sofnSegment;
+    private final List<Integer> markers = new ArrayList<>();
+    private final List<byte[]> segments = new ArrayList<>();
+    private int componentCount;
+    private int[] hSamplingFactors;
+    private int[] vSamplingFactors;
+    private int hMax;
+    private int vMax;
+    private short[][] coefficients;
+
+    /**
+     * Copies the MCUs of a region of a JPEG.
+     *
+     * @param byteSource the JPEG.
+     * @param os         the stream to write the cropped JPEG to.
+     * @param region     the region to keep; its left and top edges are moved left and up to the nearest MCU boundary, and it is clipped to the image.
+     * @throws ImagingException         if the data is not a supported JPEG.
+     * @throws IOException              if it fails to read the JPEG or write to the stream.
+     * @throws IllegalArgumentException if the region is empty or outside the image.
+     */
+    public void crop(final ByteSource byteSource, final OutputStream os, final Rectangle region) throws ImagingException, IOException {
+        Objects.requireNonNull(region, "region");
+        read(byteSource);
+        final Rectangle clipped = region.intersection(new Rectangle(sofnSegment.width, sofnSegment.height));
+        if (region.isEmpty() || clipped.isEmpty()) {
+            throw new IllegalArgumentException("Crop region " + region + " is empty or outside the " + sofnSegment.width + "x" + sofnSegment.height + " image");
+        }
+        final int mcuX = clipped.x / (8 * hMax);
+        final int mcuY = clipped.y / (8 * vMax);
+        write(os, JpegTransform.NONE, mcuX, mcuY, clipped.x + clipped.width - mcuX * 8 * hMax, clipped.y + clipped.height - mcuY * 8 * vMax);
+    }
+
+    /**
+     * Rotates or mirrors a JPEG.
+     *
+     * @param byteSource the JPEG.
+     * @param os         the stream to write the transformed JPEG to.
+     * @param transform  the transform.
+     * @throws ImagingException if the data is not a supported JPEG, or if the transform needs to trim an image smaller than one MCU.
+     * @throws IOException      if it fails to read the JPEG or write to the stream.
+     */
+    public void transform(final ByteSource byteSource, final OutputStream os, final JpegTransform transform) throws ImagingException, IOException {
+        Objects.requireNonNull(transform, "transform");
+        read(byteSource);
+        final boolean trimsRight = transform.transposes ? transform.flipsVertically : transform.flipsHorizontally;
+        final boolean trimsBottom = transform.transposes ? transform.flipsHorizontally : transform.flipsVertically;
+        final int width = trimsRight ? sofnSegment.width / (8 * hMax) * 8 * hMax : sofnSegment.width;
+        final int height = trimsBottom ? sofnSegment.height / (8 * vMax) * 8 * vMax : sofnSegment.height;
+        if (width == 0 || height == 0) {
+            throw new ImagingException("Cannot apply " + transform + " to a " + sofnSegment.width + "x" + sofnSegment.height + " image smaller than one MCU");
+        }
+        for (int i = 0; i < markers.size(); i++) {
+            if (markers.get(i) == JpegConstants.JPEG_APP1_MARKER && BinaryFunctions.startsWith(segments.get(i), JpegConstants.EXIF_IDENTIFIER_CODE)) {
+                segments.set(i, transformExifOrientation(segments.get(i), transform));
+            }
+        }
+        write(os, transform, 0, 0, width, height);
+    }
+
+    /**
+     * Reads the segments to copy, the frame header and the coefficients.
+     */
+    private void read(final ByteSource byteSource) throws ImagingException, IOException {
+        sofnSegment = null;
+        markers.clear();
+        segments.clear();
+        new JpegUtils().traverseJfif(byteSource, new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSos() {
+                return false;
+            }
+
+            @Override
+            public boolean visitSegment(final int marker, final byte[] markerBytes, final int segmentLength, final byte[] segmentLengthBytes,
+                    final byte[] segmentData) throws ImagingException, IOException {
+                if (marker == JpegConstants.SOF0_MARKER || marker == JpegConstants.SOF2_MARKER) {
+                    sofnSegment = new SofnSegment(marker, segmentData);
+                } else if (marker == JpegConstants.DQT_MARKER || marker == JpegConstants.COM_MARKER
+                        || marker >= JpegConstants.JPEG_APP0_MARKER && marker <= JpegConstants.JPEG_APP15_MARKER) {
+                    markers.add(marker);
+                    segments.add(segmentData);
+                }
+                return true;
+            }
+
+            @Override
+            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
+                // not reached
+            }
+        });
+        // the decoder rejects the other frame types
+        coefficients = new JpegDecoder().decodeCoefficients(byteSource);
+
+        componentCount = sofnSegment.numberOfComponents;
+        hSamplingFactors = new int[componentCount];
+        vSamplingFactors = new int[componentCount];
+        hMax = 1;
+        vMax = 1;
+        // a lone component is coded one block per MCU whatever its sampling factors, section A.2.2 of T.81
+        if (componentCount > 1) {
+            for (int i = 0; i < componentCount; i++) {
+                hSamplingFactors[i] = sofnSegment.getComponents(i).horizontalSamplingFactor;
+                vSamplingFactors[i] = sofnSegment.getComponents(i).verticalSamplingFactor;
+                hMax = Math.max(hMax, hSamplingFactors[i]);
+                vMax = Math.max(vMax, vSamplingFactors[i]);
+            }
+        } else {
+            hSamplingFactors[0] = 1;
+            vSamplingFactors[0] = 1;
+        }
+    }
+
+    /**
+     * Writes the transformed JPEG.
+     *
+     * @param mcuX   the first MCU column of the source to keep.
+     * @param mcuY   the first MCU row of the source to keep.
+     * @param width  the width of the source region to keep.
+     * @param height the height of the source region to keep.
+     */
+    private void write(final OutputStream os, final JpegTransform transform, final int mcuX, final int mcuY, final int width, final int height)
+            throws ImagingException, IOException {
+        final int sourceMcusPerLine = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+        final boolean transposes = transform.transposes;
+        final int outputWidth = transposes ? height : width;
+        final int outputHeight = transposes ? width : height;
+        final int outputHMax = transposes ? vMax : hMax;
+        final int outputVMax = transposes ? hMax : vMax;
+        final int mcusPerLine = (outputWidth + 8 * outputHMax - 1) / (8 * outputHMax);
+        final int mcusPerColumn = (outputHeight + 8 * outputVMax - 1) / (8 * outputVMax);
+
+        // gather the transformed blocks in MCU order
+        int blocksPerMcu = 0;
+        for (int i = 0; i < componentCount; i++) {
+            blocksPerMcu += hSamplingFactors[i] * vSamplingFactors[i];
+        }
+        final int[] blockComponent = new int[blocksPerMcu];
+        final short[] output = Allocator.shortArray(Allocator.check(64L * blocksPerMcu * mcusPerLine * mcusPerColumn, Short.BYTES));
+        int offset = 0;
+        for (int y = 0; y < mcusPerColumn; y++) {
+            for (int x = 0; x < mcusPerLine; x++) {
+                int block = 0;
+                for (int c = 0; c < componentCount; c++) {
+                    final int h = transposes ? vSamplingFactors[c] : hSamplingFactors[c];
+                    final int v = transposes ? hSamplingFactors[c] : vSamplingFactors[c];
+                    // the source blocks of the component in the kept region, whole since the mirrored axes are trimmed to whole MCUs
+                    final int sourceBlocksWide = width / (8 * hMax) * hSamplingFactors[c];
+                    final int sourceBlocksHigh = height / (8 * vMax) * vSamplingFactors[c];
+                    for (int by = 0; by < v; by++) {
+                        for (int bx = 0; bx < h; bx++) {
+                            int blockX = x * h + bx;
+                            int blockY = y * v + by;
+                            if (transform.flipsHorizontally) {
+                                blockX = (transposes ? sourceBlocksHigh : sourceBlocksWide) - 1 - blockX;
+                            }
+                            if (transform.flipsVertically) {
+                                blockY = (transposes ? sourceBlocksWide : sourceBlocksHigh) - 1 - blockY;
+                            }
+                            final int sourceX = (transposes ? blockY : blockX) + mcuX * hSamplingFactors[c];
+                            final int sourceY = (transposes ? blockX : blockY) + mcuY * vSamplingFactors[c];
+                            transformBlock(transform, coefficients[c], (sourceY * sourceMcusPerLine * hSamplingFactors[c] + sourceX) * 64, output, offset);
+                            blockComponent[block++] = c;
+                            offset += 64;
+                        }
+                    }
+                }
+            }
+        }
+
+        final BinaryOutputStream bos = BinaryOutputStream.bigEndian(os);
+        JpegConstants.SOI.writeTo(bos);
+        boolean extended = false;
+        for (int i = 0; i < markers.size(); i++) {
+            if (markers.get(i) == JpegConstants.DQT_MARKER) {
+                extended |= writeDqt(bos, new DqtSegment(JpegConstants.DQT_MARKER, segments.get(i)), transposes);
+            } else {
+                bos.write2Bytes(markers.get(i));
+                bos.write2Bytes(2 + segments.get(i).length);
+                bos.write(segments.get(i));
+            }
+        }
+
+        // baseline frames only allow 8-bit quantization tables
+        bos.write2Bytes(extended ? JpegConstants.SOF1_MARKER : JpegConstants.SOF0_MARKER);
+        bos.write2Bytes(8 + 3 * componentCount);
+        bos.write(8);
+        bos.write2Bytes(outputHeight);
+        bos.write2Bytes(outputWidth);
+        bos.write(componentCount);
+        for (int c = 0; c < componentCount; c++) {
+            bos.write(sofnSegment.getComponents(c).componentIdentifier);
+            bos.write(transposes ? vSamplingFactors[c] << 4 | hSamplingFactors[c] : hSamplingFactors[c] << 4 | vSamplingFactors[c]);
+            bos.write(sofnSegment.getComponents(c).quantTabDestSelector);
+        }
+
+        final int mcus = mcusPerLine * mcusPerColumn;
+        final EntropyEncoder entropyEncoder = new EntropyEncoder(componentCount == 1 ? 1 : 2, componentCount);
+        for (int mcu = 0, i = 0; mcu < mcus; mcu++) {
+            for (int block = 0; block < blocksPerMcu; block++, i += 64) {
+                entropyEncoder.countBlock(output, i, blockComponent[block], blockComponent[block] == 0 ? 0 : 1);
+            }
+        }
+        entropyEncoder.optimizeTables();
+        entropyEncoder.writeDht(bos);
+
+        bos.write2Bytes(JpegConstants.SOS_MARKER);
+        bos.write2Bytes(6 + 2 * componentCount);
+        bos.write(componentCount);
+        for (int c = 0; c < componentCount; c++) {
+            bos.write(sofnSegment.getComponents(c).componentIdentifier);
+            bos.write(c == 0 ? 0x00 : 0x11);
+        }
+        // spectral selection 0 to 63 and no successive approximation
+        bos.write(0);
+        bos.write(63);
+        bos.write(0);
+
+        final BitWriter bitWriter = new BitWriter(os);
+        for (int mcu = 0, i = 0; mcu < mcus; mcu++) {
+            for (int block = 0; block < blocksPerMcu; block++, i += 64) {
+                entropyEncoder.encodeBlock(output, i, blockComponent[block], blockComponent[block] == 0 ? 0 : 1, bitWriter);
+            }
+        }
+        bitWriter.padToByte();
+        bitWriter.flush();
+        JpegConstants.EOI.writeTo(bos);
+        bos.flush();
+    }
+
+    /**
+     * Writes the quantization tables of a DQT segment, transposed if the blocks are.
+     *
+     * @return whether any table has 16-bit entries.
+     */
+    private static boolean writeDqt(final BinaryOutputStream bos, final DqtSegment dqtSegment, final boolean transposes) throws IOException {
+        int length = 2;
+        boolean extended = false;
+        for (final DqtSegment.QuantizationTable table : dqtSegment.quantizationTables) {
+            length += 1 + 64 * (table.precision + 1);
+            extended |= table.precision != 0;
+        }
+        bos.write2Bytes(JpegConstants.DQT_MARKER);
+        bos.write2Bytes(length);
+        for (final DqtSegment.QuantizationTable table : dqtSegment.quantizationTables) {
+            bos.write(table.precision << 4 | table.destinationIdentifier);
+            for (int k = 0; k < 64; k++) {
+                final int element = table.getElements()[transposes ? JpegTransform.TRANSPOSE.sourceIndexes[k] : k];
+                if (table.precision == 0) {
+                    bos.write(element);
+                } else {
+                    bos.write2Bytes(element);
+                }
+            }
+        }
+        return extended;
+    }
+
+    private static void transformBlock(final JpegTransform transform, final short[] source, final int sourceOffset, final short[] destination,
+            final int destinationOffset) {
+        for (int k = 0; k < 64; k++) {
+            final short coefficient = source[sourceOffset + transform.sourceIndexes[k]];
+            destination[destinationOffset + k] = transform.negated[k] ? (short) -coefficient : coefficient;
+        }
+    }
+
+    /**
+     * Transforms a point relative to the center of the image.
+     */
+    private static int[] apply(final JpegTransform transform, final int x, final int y) {
+        final int transposedX = transform.transposes ? y : x;
+        final int transposedY = transform.transposes ? x : y;
+        return new int[] { transform.flipsHorizontally ? -transposedX : transposedX, transform.flipsVertically ? -transposedY : transposedY };
+    }
+
+    /**
+     * Updates the orientation tag of an EXIF segment for a transform.
+     *
+     * @return the updated copy of the segment, or the segment itself if it has no valid orientation tag.
+     * @throws ImagingException if no orientation displays the transformed image like the original.
+     */
+    private static byte[] transformExifOrientation(final byte[] segment, final JpegTransform transform) throws ImagingException {
+        // the TIFF header follows "Exif" and two bytes of padding
+        final int tiff = JpegConstants.EXIF_IDENTIFIER_CODE.size() + 2;
+        if (segment.length < tiff + 8 || segment[tiff] != segment[tiff + 1] || segment[tiff] != 'I' && segment[tiff] != 'M') {
+            return segment;
+        }
+        final ByteOrder byteOrder = segment[tiff] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        final long ifd0 = tiff + (0xffffffffL & ByteConversions.toInt(segment, tiff + 4, byteOrder));
+        if (ifd0 + 2 > segment.length) {
+            return segment;
+        }
+        final int entryCount = ByteConversions.toUInt16(segment, (int) ifd0, byteOrder);
+        for (int i = 0, entry = (int) ifd0 + 2; i < entryCount && entry + 12 <= segment.length; i++, entry += 12) {
+            if (ByteConversions.toUInt16(segment, entry, byteOrder) != TiffTagConstants.TIFF_TAG_ORIENTATION.tag) {
+                continue;
+            }
+            final int orientation = ByteConversions.toUInt16(segment, entry + 8, byteOrder);
+            if (ByteConversions.toUInt16(segment, entry + 2, byteOrder) != AbstractFieldType.SHORT.getType()
+                    || ByteConversions.toInt(segment, entry + 4, byteOrder) != 1 || orientation < 1 || orientation > 8) {
+                return segment;
+            }
+            final byte[] updated = segment.clone();
+            final byte[] value = ByteConversions.toBytes((short) transformOrientation(orientation, transform), byteOrder);
+            System.arraycopy(value, 0, updated, entry + 8, value.length);
+            return updated;
+        }
+        return segment;
+    }
+
+    /**
+     * Gets the EXIF orientation that displays a transformed image the way the source image displayed with its orientation.
+     *
+     * @throws ImagingException if no orientation displays the transformed image like the original.
+     */
+    private static int transformOrientation(final int orientation, final JpegTransform transform) throws ImagingException {
+        // the new orientation's transform, applied after this one, is the old orientation's; the orientations act differently on (1, 2)
+        final int[] expected = apply(JpegTransform.forExifOrientation(orientation), 1, 2);
+        final int[] transformed = apply(transform, 1, 2);
+        for (int candidate = 1; candidate <= 8; candidate++) {
+            final int[] actual = apply(JpegTransform.forExifOrientation(candidate), transformed[0], transformed[1]);
+            if (actual[0] == expected[0] && actual[1] == expected[1]) {
+                return candidate;
+            }
+        }
+        throw new ImagingException("No EXIF orientation displays the result of " + transform + " like orientation " + orientation);
+    }
+}
@@ -226,8 +226,9 @@ public class ExifRewriter extends BinaryFileParser {
      * @see java.io.OutputStream
      */
     public void removeExifMetadata(final File src, final OutputStream os) throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.file(src);
-        removeExifMetadata(byteSource, os);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            removeExifMetadata(byteSource, os);
+        }
     }
 
     /**
@@ -240,8 +241,9 @@ public class ExifRewriter extends BinaryFileParser {
      * @throws ImagingException if it fails to write the updated data
      */
     public void removeExifMetadata(final InputStream src, final OutputStream os) throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        removeExifMetadata(byteSource, os);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            removeExifMetadata(byteSource, os);
+        }
     }
 
     /**
@@ -327,8 +329,9 @@ public class ExifRewriter extends BinaryFileParser {
      */
     public void updateExifMetadataLossless(final File src, final OutputStream os, final TiffOutputSet outputSet)
             throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.file(src);
-        updateExifMetadataLossless(byteSource, os, outputSet);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            updateExifMetadataLossless(byteSource, os, outputSet);
+        }
     }
 
     /**
@@ -349,8 +352,9 @@ public class ExifRewriter extends BinaryFileParser {
      */
     public void updateExifMetadataLossless(final InputStream src, final OutputStream os, final TiffOutputSet outputSet)
             throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        updateExifMetadataLossless(byteSource, os, outputSet);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            updateExifMetadataLossless(byteSource, os, outputSet);
+        }
     }
 
     /**
@@ -419,8 +423,9 @@ public class ExifRewriter extends BinaryFileParser {
      */
     public void updateExifMetadataLossy(final File src, final OutputStream os, final TiffOutputSet outputSet)
             throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.file(src);
-        updateExifMetadataLossy(byteSource, os, outputSet);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            updateExifMetadataLossy(byteSource, os, outputSet);
+        }
     }
 
     /**
@@ -440,8 +445,9 @@ public class ExifRewriter extends BinaryFileParser {
      */
     public void updateExifMetadataLossy(final InputStream src, final OutputStream os, final TiffOutputSet outputSet)
             throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        updateExifMetadataLossy(byteSource, os, outputSet);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            updateExifMetadataLossy(byteSource, os, outputSet);
+        }
     }
 
     private byte[] writeExifSegment(final AbstractTiffImageWriter writer, final TiffOutputSet outputSet, final boolean includeEXIFPrefix)
@@ -151,8 +151,9 @@ public class JpegIptcRewriter extends JpegRewriter {
      * @throws ImagingException if it fails to write the target image
      */
     public void removeIptc(final File src, final OutputStream os, final boolean removeSegment) throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.file(src);
-        removeIptc(byteSource, os, removeSegment);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            removeIptc(byteSource, os, removeSegment);
+        }
     }
 
     /**
@@ -183,8 +184,9 @@ public class JpegIptcRewriter extends JpegRewriter {
      * @throws ImagingException if it fails to write the target image
      */
     public void removeIptc(final InputStream src, final OutputStream os, final boolean removeSegment) throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        removeIptc(byteSource, os, removeSegment);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            removeIptc(byteSource, os, removeSegment);
+        }
     }
 
     /**
@@ -258,8 +260,9 @@ public class JpegIptcRewriter extends JpegRewriter {
      * @throws ImagingException if it fails to write the target image
      */
     public void writeIptc(final File src, final OutputStream os, final PhotoshopApp13Data newData) throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.file(src);
-        writeIptc(byteSource, os, newData);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            writeIptc(byteSource, os, newData);
+        }
     }
 
     /**
@@ -275,8 +278,9 @@ public class JpegIptcRewriter extends JpegRewriter {
      */
     public void writeIptc(final InputStream src, final OutputStream os, final PhotoshopApp13Data newData)
             throws ImagingException, IOException, ImagingException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        writeIptc(byteSource, os, newData);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            writeIptc(byteSource, os, newData);
+        }
     }
 
 }
@@ -76,8 +76,9 @@ public class JpegXmpRewriter extends JpegRewriter {
      * @throws IOException      if it fails to read or write the data from the segments
      */
     public void removeXmpXml(final File src, final OutputStream os) throws ImagingException, IOException {
-        final ByteSource byteSource = ByteSource.file(src);
-        removeXmpXml(byteSource, os);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            removeXmpXml(byteSource, os);
+        }
     }
 
     /**
@@ -90,8 +91,9 @@ public class JpegXmpRewriter extends JpegRewriter {
      * @throws IOException      if it fails to read or write the data from the segments
      */
     public void removeXmpXml(final InputStream src, final OutputStream os) throws ImagingException, IOException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        removeXmpXml(byteSource, os);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            removeXmpXml(byteSource, os);
+        }
     }
 
     /**
@@ -147,8 +149,9 @@ public class JpegXmpRewriter extends JpegRewriter {
      * @throws IOException      if it fails to read or write the data from the segments
      */
     public void updateXmpXml(final File src, final OutputStream os, final String xmpXml) throws ImagingException, IOException {
-        final ByteSource byteSource = ByteSource.file(src);
-        updateXmpXml(byteSource, os, xmpXml);
+        try (ByteSource byteSource = ByteSource.file(src)) {
+            updateXmpXml(byteSource, os, xmpXml);
+        }
     }
 
     /**
@@ -161,8 +164,9 @@ public class JpegXmpRewriter extends JpegRewriter {
      * @throws IOException      if it fails to read or write the data from the segments
      */
     public void updateXmpXml(final InputStream src, final OutputStream os, final String xmpXml) throws ImagingException, IOException {
-        final ByteSource byteSource = ByteSource.inputStream(src, null);
-        updateXmpXml(byteSource, os, xmpXml);
+        try (ByteSource byteSource = ByteSource.inputStream(src, null)) {
+            updateXmpXml(byteSource, os, xmpXml);
+        }
     }
 
     private byte[] writeXmpSegment(final byte[] xmpXmlData, final int start, final int length) throws IOException {
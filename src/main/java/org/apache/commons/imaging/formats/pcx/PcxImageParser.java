@@ -48,6 +48,7 @@ import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RowConsumer;
 
 public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
     // ZSoft's official spec is at [BROKEN URL] http://www.qzx.com/pc-gpe/pcx.txt
@@ -155,6 +156,41 @@ public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
         super(ByteOrder.LITTLE_ENDIAN);
     }
 
+    private BufferedImage createIndexedImage(final PcxHeader pcxHeader, final DataBufferByte dataBuffer, final int xSize, final int ySize,
+            final int bytesPerImageRow, final int[] palette) {
+        final WritableRaster raster;
+        if (pcxHeader.bitsPerPixel == 8) {
+            raster = Raster.createInterleavedRaster(dataBuffer, xSize, ySize, bytesPerImageRow, 1, new int[] { 0 }, null);
+        } else {
+            raster = Raster.createPackedRaster(dataBuffer, xSize, ySize, pcxHeader.bitsPerPixel, null);
+        }
+        final IndexColorModel colorModel = new IndexColorModel(pcxHeader.bitsPerPixel, 1 << pcxHeader.bitsPerPixel, palette, 0, false, -1,
+                DataBuffer.TYPE_BYTE);
+        return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
+    }
+
+    /**
+     * Decodes the image row by row. The palette of an 8-bit indexed image is expected at the end of the file, since the image data before it isn't kept.
+     */
+    @Override
+    public void decodeRows(final ByteSource byteSource, PcxImagingParameters params, final RowConsumer rowConsumer) throws ImagingException, IOException {
+        if (params == null) {
+            params = new PcxImagingParameters();
+        }
+        try (InputStream is = byteSource.getInputStream()) {
+            final PcxHeader pcxHeader = readPcxHeader(is, params.isStrict());
+            readImage(pcxHeader, is, byteSource, rowConsumer);
+        }
+    }
+
+    /**
+     * Hands row 0 of a one-row image to the consumer as row {@code y}.
+     */
+    private void deliverRow(final BufferedImage image, final int y, final int[] argb, final RowConsumer rowConsumer) {
+        image.getRGB(0, 0, argb.length, 1, argb, 0, argb.length);
+        rowConsumer.accept(y, argb);
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource) throws ImagingException, IOException {
         readPcxHeader(byteSource).dump(pw);
@@ -179,7 +215,7 @@ public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
         }
         try (InputStream is = byteSource.getInputStream()) {
             final PcxHeader pcxHeader = readPcxHeader(is, params.isStrict());
-            return readImage(pcxHeader, is, byteSource);
+            return readImage(pcxHeader, is, byteSource, null);
         }
     }
 
@@ -252,7 +288,11 @@ public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
         }
     }
 
-    private BufferedImage readImage(final PcxHeader pcxHeader, final InputStream is, final ByteSource byteSource) throws ImagingException, IOException {
+    /**
+     * Reads the image data. With a row consumer, each row is decoded into a one-row image and delivered from there, and that image is returned.
+     */
+    private BufferedImage readImage(final PcxHeader pcxHeader, final InputStream is, final ByteSource byteSource, final RowConsumer rowConsumer)
+            throws ImagingException, IOException {
         final int xSize = pcxHeader.xMax - pcxHeader.xMin + 1;
         if (xSize < 0) {
             throw new ImagingException("Image width is negative");
@@ -274,19 +314,34 @@ public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
         }
         final int scanlineLength = pcxHeader.bytesPerLine * pcxHeader.nPlanes;
         final byte[] scanline = Allocator.byteArray(scanlineLength);
+        final boolean streaming = rowConsumer != null;
+        final int imageHeight = streaming ? 1 : ySize;
+        final int[] argb = streaming ? Allocator.intArray(xSize) : null;
         if ((pcxHeader.bitsPerPixel == 1 || pcxHeader.bitsPerPixel == 2 || pcxHeader.bitsPerPixel == 4 || pcxHeader.bitsPerPixel == 8)
                 && pcxHeader.nPlanes == 1) {
             final int bytesPerImageRow = (xSize * pcxHeader.bitsPerPixel + 7) / 8;
-            final byte[] image = Allocator.byteArray(ySize * bytesPerImageRow);
-            for (int y = 0; y < ySize; y++) {
-                rleReader.read(is, scanline);
-                System.arraycopy(scanline, 0, image, y * bytesPerImageRow, bytesPerImageRow);
-            }
+            final byte[] image = Allocator.byteArray(imageHeight * bytesPerImageRow);
             final DataBufferByte dataBuffer = new DataBufferByte(image, image.length);
-            int[] palette;
+            int[] palette = null;
             if (pcxHeader.bitsPerPixel == 1) {
                 palette = new int[] { 0x000000, 0xffffff };
-            } else if (pcxHeader.bitsPerPixel == 8) {
+            } else if (pcxHeader.bitsPerPixel != 8) {
+                palette = pcxHeader.colormap;
+            } else if (streaming) {
+                palette = read256ColorPaletteFromEndOfFile(byteSource);
+                if (palette == null) {
+                    throw new ImagingException("No 256 color palette found at the end of the file");
+                }
+            }
+            BufferedImage result = palette == null ? null : createIndexedImage(pcxHeader, dataBuffer, xSize, imageHeight, bytesPerImageRow, palette);
+            for (int y = 0; y < ySize; y++) {
+                rleReader.read(is, scanline);
+                System.arraycopy(scanline, 0, image, (streaming ? 0 : y) * bytesPerImageRow, bytesPerImageRow);
+                if (streaming) {
+                    deliverRow(result, y, argb, rowConsumer);
+                }
+            }
+            if (result == null) {
                 // Normally the palette is read 769 bytes from the end of the
                 // file.
                 // However DCX files have multiple PCX images in one file, so
@@ -300,23 +355,14 @@ public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
                 if (palette == null) {
                     throw new ImagingException("No 256 color palette found in image that needs it");
                 }
-            } else {
-                palette = pcxHeader.colormap;
-            }
-            final WritableRaster raster;
-            if (pcxHeader.bitsPerPixel == 8) {
-                raster = Raster.createInterleavedRaster(dataBuffer, xSize, ySize, bytesPerImageRow, 1, new int[] { 0 }, null);
-            } else {
-                raster = Raster.createPackedRaster(dataBuffer, xSize, ySize, pcxHeader.bitsPerPixel, null);
+                result = createIndexedImage(pcxHeader, dataBuffer, xSize, ySize, bytesPerImageRow, palette);
             }
-            final IndexColorModel colorModel = new IndexColorModel(pcxHeader.bitsPerPixel, 1 << pcxHeader.bitsPerPixel, palette, 0, false, -1,
-                    DataBuffer.TYPE_BYTE);
-            return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
+            return result;
         }
         if (pcxHeader.bitsPerPixel == 1 && 2 <= pcxHeader.nPlanes && pcxHeader.nPlanes <= 4) {
             final IndexColorModel colorModel = new IndexColorModel(pcxHeader.nPlanes, 1 << pcxHeader.nPlanes, pcxHeader.colormap, 0, false, -1,
                     DataBuffer.TYPE_BYTE);
-            final BufferedImage image = new BufferedImage(xSize, ySize, BufferedImage.TYPE_BYTE_BINARY, colorModel);
+            final BufferedImage image = new BufferedImage(xSize, imageHeight, BufferedImage.TYPE_BYTE_BINARY, colorModel);
             final byte[] unpacked = Allocator.byteArray(xSize);
             for (int y = 0; y < ySize; y++) {
                 rleReader.read(is, scanline);
@@ -330,50 +376,66 @@ public class PcxImageParser extends AbstractImageParser<PcxImagingParameters> {
                         }
                     }
                 }
-                image.getRaster().setDataElements(0, y, xSize, 1, unpacked);
+                if (streaming) {
+                    image.getRaster().setDataElements(0, 0, xSize, 1, unpacked);
+                    deliverRow(image, y, argb, rowConsumer);
+                } else {
+                    image.getRaster().setDataElements(0, y, xSize, 1, unpacked);
+                }
             }
             return image;
         }
         if (pcxHeader.bitsPerPixel == 8 && pcxHeader.nPlanes == 3) {
             final byte[][] image = new byte[3][];
-            final int xySize = xSize * ySize;
+            final int xySize = xSize * imageHeight;
             image[0] = Allocator.byteArray(xySize);
             image[1] = Allocator.byteArray(xySize);
             image[2] = Allocator.byteArray(xySize);
-            for (int y = 0; y < ySize; y++) {
-                rleReader.read(is, scanline);
-                System.arraycopy(scanline, 0, image[0], y * xSize, xSize);
-                System.arraycopy(scanline, pcxHeader.bytesPerLine, image[1], y * xSize, xSize);
-                System.arraycopy(scanline, 2 * pcxHeader.bytesPerLine, image[2], y * xSize, xSize);
-            }
             final DataBufferByte dataBuffer = new DataBufferByte(image, image[0].length);
-            final WritableRaster raster = Raster.createBandedRaster(dataBuffer, xSize, ySize, xSize, new int[] { 0, 1, 2 }, new int[] { 0, 0, 0 }, null);
+            final WritableRaster raster = Raster.createBandedRaster(dataBuffer, xSize, imageHeight, xSize, new int[] { 0, 1, 2 }, new int[] { 0, 0, 0 },
+                    null);
             final ColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE,
                     DataBuffer.TYPE_BYTE);
-            return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
+            final BufferedImage result = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
+            for (int y = 0; y < ySize; y++) {
+                rleReader.read(is, scanline);
+                final int offset = (streaming ? 0 : y) * xSize;
+                System.arraycopy(scanline, 0, image[0], offset, xSize);
+                System.arraycopy(scanline, pcxHeader.bytesPerLine, image[1], offset, xSize);
+                System.arraycopy(scanline, 2 * pcxHeader.bytesPerLine, image[2], offset, xSize);
+                if (streaming) {
+                    deliverRow(result, y, argb, rowConsumer);
+                }
+            }
+            return result;
         }
         if ((pcxHeader.bitsPerPixel != 24 || pcxHeader.nPlanes != 1) && (pcxHeader.bitsPerPixel != 32 || pcxHeader.nPlanes != 1)) {
             throw new ImagingException("Invalid/unsupported image with bitsPerPixel " + pcxHeader.bitsPerPixel + " and planes " + pcxHeader.nPlanes);
         }
         final int rowLength = 3 * xSize;
-        final byte[] image = Allocator.byteArray(rowLength * ySize);
+        final byte[] image = Allocator.byteArray(rowLength * imageHeight);
+        final DataBufferByte dataBuffer = new DataBufferByte(image, image.length);
+        final WritableRaster raster = Raster.createInterleavedRaster(dataBuffer, xSize, imageHeight, rowLength, 3, new int[] { 2, 1, 0 }, null);
+        final ColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE,
+                DataBuffer.TYPE_BYTE);
+        final BufferedImage result = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
         for (int y = 0; y < ySize; y++) {
             rleReader.read(is, scanline);
+            final int offset = (streaming ? 0 : y) * rowLength;
             if (pcxHeader.bitsPerPixel == 24) {
-                System.arraycopy(scanline, 0, image, y * rowLength, rowLength);
+                System.arraycopy(scanline, 0, image, offset, rowLength);
             } else {
                 for (int x = 0; x < xSize; x++) {
-                    image[y * rowLength + 3 * x] = scanline[4 * x];
-                    image[y * rowLength + 3 * x + 1] = scanline[4 * x + 1];
-                    image[y * rowLength + 3 * x + 2] = scanline[4 * x + 2];
+                    image[offset + 3 * x] = scanline[4 * x];
+                    image[offset + 3 * x + 1] = scanline[4 * x + 1];
+                    image[offset + 3 * x + 2] = scanline[4 * x + 2];
                 }
             }
+            if (streaming) {
+                deliverRow(result, y, argb, rowConsumer);
+            }
         }
-        final DataBufferByte dataBuffer = new DataBufferByte(image, image.length);
-        final WritableRaster raster = Raster.createInterleavedRaster(dataBuffer, xSize, ySize, rowLength, 3, new int[] { 2, 1, 0 }, null);
-        final ColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE,
-                DataBuffer.TYPE_BYTE);
-        return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
+        return result;
     }
 
     private PcxHeader readPcxHeader(final ByteSource byteSource) throws ImagingException, IOException {
@@ -16,21 +16,17 @@
  */
 package org.apache.commons.imaging.formats.png;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
-
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
-import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilter;
-import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterAverage;
-import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterNone;
-import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterPaeth;
-import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterSub;
-import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterUp;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
 
 abstract class AbstractScanExpediter {
@@ -46,6 +42,12 @@ abstract class AbstractScanExpediter {
     final PngChunkPlte pngChunkPlte;
     final GammaCorrection gammaCorrection;
     final AbstractTransparencyFilter abstractTransparencyFilter;
+    /** The pixels of {@link #bi} if they are packed ARGB or RGB ints that rows can be converted into directly, or null to go through setRGB. */
+    final int[] pixels;
+    /** The distance between rows of {@link #pixels}. */
+    final int scanlineStride;
+    /** Clears the alpha of pixels stored into an image without alpha, as setRGB does. */
+    private final int pixelMask;
 
     AbstractScanExpediter(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
             final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
@@ -61,26 +63,105 @@ abstract class AbstractScanExpediter {
         this.pngChunkPlte = pngChunkPLTE;
         this.gammaCorrection = gammaCorrection;
         this.abstractTransparencyFilter = abstractTransparencyFilter;
-    }
 
-    public abstract void drive() throws ImagingException, IOException;
-
-    final int getBitsToBytesRoundingUp(final int bits) {
-        return (bits + 7) / 8;
+        final WritableRaster raster = bi.getRaster();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        if (isPackedArgb(bi) && raster.getParent() == null && dataBuffer instanceof DataBufferInt && dataBuffer.getNumBanks() == 1
+                && dataBuffer.getOffset() == 0) {
+            pixels = ((DataBufferInt) dataBuffer).getData();
+            scanlineStride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            pixelMask = bi.getColorModel().hasAlpha() ? 0xffffffff : 0x00ffffff;
+        } else {
+            pixels = null;
+            scanlineStride = 0;
+            pixelMask = 0;
+        }
     }
 
-    byte[] getNextScanline(final InputStream is, final int length, final byte[] prev, final int bytesPerPixel) throws ImagingException, IOException {
-        final int filterType = is.read();
-        if (filterType < 0) {
-            throw new ImagingException("PNG: missing filter type");
+    /**
+     * Converts the pixels of an unfiltered scanline to ARGB, with fast paths for 8-bit samples.
+     *
+     * @param scanline the unfiltered scanline.
+     * @param first    the index of the first pixel to convert.
+     * @param count    the number of pixels to convert.
+     * @param argb     receives the pixels.
+     * @param offset   the index of the first pixel in {@code argb}.
+     */
+    final void convertPixels(final byte[] scanline, final int first, final int count, final int[] argb, final int offset)
+            throws ImagingException, IOException {
+        if (bitDepth == 8) {
+            switch (pngColorType) {
+            case GREYSCALE:
+                for (int i = 0, j = first; i < count; i++, j++) {
+                    int sample = 0xff & scanline[j];
+                    if (gammaCorrection != null) {
+                        sample = gammaCorrection.correctSample(sample);
+                    }
+                    int rgb = 0xff000000 | sample * 0x010101;
+                    if (abstractTransparencyFilter != null) {
+                        rgb = abstractTransparencyFilter.filter(rgb, sample);
+                    }
+                    argb[offset + i] = rgb;
+                }
+                return;
+            case TRUE_COLOR:
+                for (int i = 0, j = 3 * first; i < count; i++, j += 3) {
+                    final int red = 0xff & scanline[j];
+                    final int green = 0xff & scanline[j + 1];
+                    final int blue = 0xff & scanline[j + 2];
+                    int rgb = 0xff000000 | red << 16 | green << 8 | blue;
+                    if (abstractTransparencyFilter != null) {
+                        rgb = abstractTransparencyFilter.filter(rgb, -1);
+                    }
+                    if (gammaCorrection != null) {
+                        // only the alpha of the filtered pixel is kept
+                        rgb = rgb & 0xff000000 | gammaCorrection.correctSample(red) << 16 | gammaCorrection.correctSample(green) << 8
+                                | gammaCorrection.correctSample(blue);
+                    }
+                    argb[offset + i] = rgb;
+                }
+                return;
+            case INDEXED_COLOR:
+                if (pngChunkPlte == null) {
+                    throw new ImagingException("A PLTE chunk is required for an indexed color type.");
+                }
+                for (int i = 0, j = first; i < count; i++, j++) {
+                    final int index = 0xff & scanline[j];
+                    int rgb = pngChunkPlte.getRgb(index);
+                    if (abstractTransparencyFilter != null) {
+                        rgb = abstractTransparencyFilter.filter(rgb, index);
+                    }
+                    argb[offset + i] = rgb;
+                }
+                return;
+            case GREYSCALE_WITH_ALPHA:
+                for (int i = 0, j = 2 * first; i < count; i++, j += 2) {
+                    int sample = 0xff & scanline[j];
+                    if (gammaCorrection != null) {
+                        sample = gammaCorrection.correctSample(sample);
+                    }
+                    argb[offset + i] = scanline[j + 1] << 24 | sample * 0x010101;
+                }
+                return;
+            case TRUE_COLOR_WITH_ALPHA:
+                for (int i = 0, j = 4 * first; i < count; i++, j += 4) {
+                    final int rgba = scanline[j + 3] << 24 | (0xff & scanline[j]) << 16 | (0xff & scanline[j + 1]) << 8 | 0xff & scanline[j + 2];
+                    argb[offset + i] = gammaCorrection != null ? gammaCorrection.correctArgb(rgba) : rgba;
+                }
+                return;
+            default:
+                break;
+            }
         }
-        if (filterType >= FilterType.values().length) {
-            throw new ImagingException("PNG: unknown filterType: " + filterType);
+        for (int i = 0; i < count; i++) {
+            argb[offset + i] = getRgb(scanline, first + i);
         }
+    }
 
-        final byte[] scanline = readBytes("scanline", is, length, "PNG: missing image data");
+    public abstract void drive() throws ImagingException, IOException;
 
-        return unfilterScanline(FilterType.values()[filterType], scanline, prev, bytesPerPixel);
+    final int getBitsToBytesRoundingUp(final int bits) {
+        return (bits + 7) / 8;
     }
 
     final int getPixelArgb(final int alpha, final int red, final int green, final int blue) {
@@ -91,12 +172,12 @@ abstract class AbstractScanExpediter {
         return getPixelArgb(0xff, red, green, blue);
     }
 
-    int getRgb(final BitParser bitParser, final int pixelIndexInScanline) throws ImagingException, IOException {
+    int getRgb(final byte[] scanline, final int pixelIndexInScanline) throws ImagingException, IOException {
 
         switch (pngColorType) {
         case GREYSCALE: {
             // 1,2,4,8,16 Each pixel is a grayscale sample.
-            int sample = bitParser.getSampleAsByte(pixelIndexInScanline, 0);
+            int sample = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 0);
 
             if (gammaCorrection != null) {
                 sample = gammaCorrection.correctSample(sample);
@@ -113,9 +194,9 @@ abstract class AbstractScanExpediter {
         }
         case TRUE_COLOR: {
             // 8,16 Each pixel is an R,G,B triple.
-            int red = bitParser.getSampleAsByte(pixelIndexInScanline, 0);
-            int green = bitParser.getSampleAsByte(pixelIndexInScanline, 1);
-            int blue = bitParser.getSampleAsByte(pixelIndexInScanline, 2);
+            int red = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 0);
+            int green = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 1);
+            int blue = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 2);
 
             int rgb = getPixelRgb(red, green, blue);
 
@@ -141,7 +222,7 @@ abstract class AbstractScanExpediter {
             if (pngChunkPlte == null) {
                 throw new ImagingException("A PLTE chunk is required for an indexed color type.");
             }
-            final int index = bitParser.getSample(pixelIndexInScanline, 0);
+            final int index = BitParser.getSample(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 0);
 
             int rgb = pngChunkPlte.getRgb(index);
 
@@ -154,8 +235,8 @@ abstract class AbstractScanExpediter {
         case GREYSCALE_WITH_ALPHA: {
             // 8,16 Each pixel is a grayscale sample,
             // followed by an alpha sample.
-            int sample = bitParser.getSampleAsByte(pixelIndexInScanline, 0);
-            final int alpha = bitParser.getSampleAsByte(pixelIndexInScanline, 1);
+            int sample = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 0);
+            final int alpha = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 1);
 
             if (gammaCorrection != null) {
                 sample = gammaCorrection.correctSample(sample);
@@ -165,10 +246,10 @@ abstract class AbstractScanExpediter {
         }
         case TRUE_COLOR_WITH_ALPHA: {
             // 8,16 Each pixel is an R,G,B triple,
-            int red = bitParser.getSampleAsByte(pixelIndexInScanline, 0);
-            int green = bitParser.getSampleAsByte(pixelIndexInScanline, 1);
-            int blue = bitParser.getSampleAsByte(pixelIndexInScanline, 2);
-            final int alpha = bitParser.getSampleAsByte(pixelIndexInScanline, 3);
+            int red = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 0);
+            int green = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 1);
+            int blue = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 2);
+            final int alpha = BitParser.getSampleAsByte(scanline, bitsPerPixel, bitDepth, pixelIndexInScanline, 3);
 
             if (gammaCorrection != null) {
                 red = gammaCorrection.correctSample(red);
@@ -183,29 +264,79 @@ abstract class AbstractScanExpediter {
         }
     }
 
-    ScanlineFilter getScanlineFilter(final FilterType filterType, final int bytesPerPixel) {
-        switch (filterType) {
-        case NONE:
-            return new ScanlineFilterNone();
-        case SUB:
-            return new ScanlineFilterSub(bytesPerPixel);
-        case UP:
-            return new ScanlineFilterUp();
-        case AVERAGE:
-            return new ScanlineFilterAverage(bytesPerPixel);
-        case PAETH:
-            return new ScanlineFilterPaeth(bytesPerPixel);
-        }
-
-        return null;
+    FilterType readFilterType(final InputStream is) throws ImagingException, IOException {
+        final int filterType = is.read();
+        if (filterType < 0) {
+            throw new ImagingException("PNG: missing filter type");
+        }
+        if (filterType >= FilterType.values().length) {
+            throw new ImagingException("PNG: unknown filterType: " + filterType);
+        }
+        return FilterType.values()[filterType];
     }
 
-    byte[] unfilterScanline(final FilterType filterType, final byte[] src, final byte[] prev, final int bytesPerPixel) throws ImagingException, IOException {
-        final ScanlineFilter filter = getScanlineFilter(filterType, bytesPerPixel);
+    /**
+     * Reads the filtered bytes of a scanline.
+     */
+    final void readScanline(final byte[] scanline, final int length) throws ImagingException, IOException {
+        int read = 0;
+        while (read < length) {
+            final int n = is.read(scanline, read, length - read);
+            if (n < 0) {
+                throw new ImagingException("PNG: missing image data");
+            }
+            read += n;
+        }
+    }
 
-        final byte[] dst = Allocator.byteArray(src.length);
-        filter.unfilter(src, dst, prev);
-        return dst;
+    /**
+     * Converts pixels of an unfiltered scanline into a row of {@link #bi}, directly into its pixels when possible.
+     *
+     * @param scanline the unfiltered scanline.
+     * @param first    the index of the first pixel to convert.
+     * @param count    the number of pixels to convert, stored from the left edge of the image.
+     * @param y        the row of the image.
+     * @param row      a buffer of at least {@code count} pixels, for images whose pixels cannot be written directly.
+     */
+    final void writeRow(final byte[] scanline, final int first, final int count, final int y, final int[] row) throws ImagingException, IOException {
+        if (pixels == null) {
+            convertPixels(scanline, first, count, row, 0);
+            bi.setRGB(0, y, count, 1, row, 0, count);
+            return;
+        }
+        final int offset = y * scanlineStride;
+        convertPixels(scanline, first, count, pixels, offset);
+        if (pixelMask != 0xffffffff) {
+            for (int i = offset; i < offset + count; i++) {
+                pixels[i] &= pixelMask;
+            }
+        }
+    }
+
+    /**
+     * Stores a pixel into {@link #bi}.
+     */
+    final void writePixel(final int x, final int y, final int argb) {
+        if (pixels == null) {
+            bi.setRGB(x, y, argb);
+        } else {
+            pixels[y * scanlineStride + x] = argb & pixelMask;
+        }
     }
 
+    /**
+     * Tests whether setRGB stores ARGB values in an image as they are, or without their alpha.
+     */
+    private static boolean isPackedArgb(final BufferedImage image) {
+        if (!(image.getColorModel() instanceof DirectColorModel) || !(image.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+            return false;
+        }
+        final DirectColorModel colorModel = (DirectColorModel) image.getColorModel();
+        final int[] masks = ((SinglePixelPackedSampleModel) image.getSampleModel()).getBitMasks();
+        final boolean alpha = colorModel.hasAlpha();
+        return colorModel.getColorSpace().isCS_sRGB() && !colorModel.isAlphaPremultiplied() && colorModel.getRedMask() == 0x00ff0000
+                && colorModel.getGreenMask() == 0x0000ff00 && colorModel.getBlueMask() == 0x000000ff && (!alpha || colorModel.getAlphaMask() == 0xff000000)
+                && masks.length == (alpha ? 4 : 3) && masks[0] == 0x00ff0000 && masks[1] == 0x0000ff00 && masks[2] == 0x000000ff
+                && (!alpha || masks[3] == 0xff000000);
+    }
 }
@@ -18,18 +18,13 @@ package org.apache.commons.imaging.formats.png;
 
 import org.apache.commons.imaging.ImagingException;
 
+/**
+ * Reads samples of any bit depth from an unfiltered scanline.
+ */
 final class BitParser {
-    private final byte[] bytes;
-    private final int bitsPerPixel;
-    private final int bitDepth;
-
-    BitParser(final byte[] bytes, final int bitsPerPixel, final int bitDepth) {
-        this.bytes = bytes.clone();
-        this.bitsPerPixel = bitsPerPixel;
-        this.bitDepth = bitDepth;
-    }
 
-    public int getSample(final int pixelIndexInScanline, final int sampleIndex) throws ImagingException {
+    static int getSample(final byte[] bytes, final int bitsPerPixel, final int bitDepth, final int pixelIndexInScanline, final int sampleIndex)
+            throws ImagingException {
         final int pixelIndexBits = bitsPerPixel * pixelIndexInScanline;
         final int sampleIndexBits = pixelIndexBits + sampleIndex * bitDepth;
         final int sampleIndexBytes = sampleIndexBits >> 3;
@@ -52,8 +47,9 @@ final class BitParser {
         throw new ImagingException("PNG: bad BitDepth: " + bitDepth);
     }
 
-    public int getSampleAsByte(final int pixelIndexInScanline, final int sampleIndex) throws ImagingException {
-        int sample = getSample(pixelIndexInScanline, sampleIndex);
+    static int getSampleAsByte(final byte[] bytes, final int bitsPerPixel, final int bitDepth, final int pixelIndexInScanline, final int sampleIndex)
+            throws ImagingException {
+        int sample = getSample(bytes, bitsPerPixel, bitDepth, pixelIndexInScanline, sampleIndex);
 
         final int rot = 8 - bitDepth;
         if (rot > 0) {
@@ -64,4 +60,7 @@ final class BitParser {
 
         return 0xff & sample;
     }
+
+    private BitParser() {
+    }
 }
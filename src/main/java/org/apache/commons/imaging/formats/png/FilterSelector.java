@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.util.zip.Deflater;
+
+import org.apache.commons.imaging.common.Allocator;
+
+/**
+ * Filters the rows of an image with the filters a {@link PngFilterStrategy} chooses, reusing the same buffers for every row.
+ */
+final class FilterSelector {
+
+    private static final FilterType[] FILTER_TYPES = FilterType.values();
+
+    private final PngFilterStrategy strategy;
+    private final int length;
+    private final int bytesPerPixel;
+    /** For each filter type tried, the filter type followed by the filtered row. */
+    private final byte[][] candidates;
+    /** Compresses the candidates for {@link PngFilterStrategy#BRUTE_FORCE}, or null. */
+    private final Deflater deflater;
+    private final byte[] deflated;
+    /** The last row returned, the context in which {@link PngFilterStrategy#BRUTE_FORCE} compresses the next row's candidates. */
+    private byte[] last;
+    private boolean hasLast;
+
+    /**
+     * @param strategy         how to choose the filters.
+     * @param length           the number of bytes in a row.
+     * @param bytesPerPixel    the number of bytes per complete pixel, rounding up to 1.
+     * @param compressionLevel the level the image data is compressed at, which {@link PngFilterStrategy#BRUTE_FORCE} compresses the candidates at.
+     */
+    FilterSelector(final PngFilterStrategy strategy, final int length, final int bytesPerPixel, final int compressionLevel) {
+        this.strategy = strategy;
+        this.length = length;
+        this.bytesPerPixel = bytesPerPixel;
+        candidates = new byte[strategy.getFilterType() == null ? FILTER_TYPES.length : 1][];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = Allocator.byteArray(length + 1L);
+        }
+        if (strategy == PngFilterStrategy.BRUTE_FORCE) {
+            deflater = new Deflater(compressionLevel);
+            deflated = Allocator.byteArray(length + 64L);
+            last = Allocator.byteArray(length + 1L);
+        } else {
+            deflater = null;
+            deflated = null;
+        }
+    }
+
+    /**
+     * Releases the resources held for {@link PngFilterStrategy#BRUTE_FORCE}.
+     */
+    void end() {
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Filters a row.
+     *
+     * @param scanline the bytes of the row.
+     * @param previous the bytes of the previous row, or null for the first row.
+     * @return the filter type followed by the filtered row, in a buffer that is reused by the next call.
+     */
+    byte[] filter(final byte[] scanline, final byte[] previous) {
+        final FilterType filterType = strategy.getFilterType();
+        if (filterType != null) {
+            return filter(0, filterType, scanline, previous);
+        }
+        for (final FilterType candidate : FILTER_TYPES) {
+            filter(candidate.ordinal(), candidate, scanline, previous);
+        }
+        int best = 0;
+        long bestCost = Long.MAX_VALUE;
+        for (int i = 0; i < candidates.length; i++) {
+            final long cost = strategy == PngFilterStrategy.BRUTE_FORCE ? getCompressedLength(candidates[i]) : getSumOfAbsoluteValues(candidates[i]);
+            if (cost < bestCost) {
+                best = i;
+                bestCost = cost;
+            }
+        }
+        if (strategy != PngFilterStrategy.BRUTE_FORCE) {
+            return candidates[best];
+        }
+        final byte[] chosen = candidates[best];
+        candidates[best] = last;
+        last = chosen;
+        hasLast = true;
+        return chosen;
+    }
+
+    private byte[] filter(final int candidate, final FilterType filterType, final byte[] scanline, final byte[] previous) {
+        final byte[] filtered = candidates[candidate];
+        filtered[0] = (byte) filterType.ordinal();
+        filterType.filter(scanline, previous, length, bytesPerPixel, filtered, 1);
+        return filtered;
+    }
+
+    private long getCompressedLength(final byte[] filtered) {
+        deflater.reset();
+        if (hasLast) {
+            deflater.setDictionary(last, 0, length + 1);
+        }
+        deflater.setInput(filtered, 0, length + 1);
+        deflater.finish();
+        long compressedLength = 0;
+        while (!deflater.finished()) {
+            compressedLength += deflater.deflate(deflated);
+        }
+        return compressedLength;
+    }
+
+    private long getSumOfAbsoluteValues(final byte[] filtered) {
+        long sum = 0;
+        for (int i = 1; i <= length; i++) {
+            sum += Math.abs(filtered[i]);
+        }
+        return sum;
+    }
+}
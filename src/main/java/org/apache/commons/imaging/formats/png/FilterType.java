@@ -22,5 +22,148 @@ package org.apache.commons.imaging.formats.png;
  * @see <a href="https://www.w3.org/TR/png/#9Filters">Portable Network Graphics Specification - Filtering</a>
  */
 enum FilterType {
-    NONE, SUB, UP, AVERAGE, PAETH
+    NONE, SUB, UP, AVERAGE, PAETH;
+
+    /**
+     * Applies this filter to a scanline.
+     *
+     * @param scanline      the bytes of the scanline.
+     * @param previous      the previous scanline, or null for the first scanline, whose previous scanline is all zeros.
+     * @param length        the number of bytes in the scanline.
+     * @param bytesPerPixel the number of bytes per complete pixel, rounding up to 1.
+     * @param filtered      receives the filtered bytes.
+     * @param offset        the offset of the first filtered byte in {@code filtered}.
+     */
+    void filter(final byte[] scanline, final byte[] previous, final int length, final int bytesPerPixel, final byte[] filtered, final int offset) {
+        final int left = Math.min(bytesPerPixel, length);
+        switch (this) {
+        case SUB:
+            System.arraycopy(scanline, 0, filtered, offset, left);
+            for (int i = bytesPerPixel; i < length; i++) {
+                filtered[offset + i] = (byte) (scanline[i] - scanline[i - bytesPerPixel]);
+            }
+            break;
+        case UP:
+            if (previous == null) {
+                System.arraycopy(scanline, 0, filtered, offset, length);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    filtered[offset + i] = (byte) (scanline[i] - previous[i]);
+                }
+            }
+            break;
+        case AVERAGE:
+            if (previous == null) {
+                System.arraycopy(scanline, 0, filtered, offset, left);
+                for (int i = bytesPerPixel; i < length; i++) {
+                    filtered[offset + i] = (byte) (scanline[i] - ((0xff & scanline[i - bytesPerPixel]) >> 1));
+                }
+            } else {
+                for (int i = 0; i < left; i++) {
+                    filtered[offset + i] = (byte) (scanline[i] - ((0xff & previous[i]) >> 1));
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    filtered[offset + i] = (byte) (scanline[i] - ((0xff & scanline[i - bytesPerPixel]) + (0xff & previous[i]) >> 1));
+                }
+            }
+            break;
+        case PAETH:
+            if (previous == null) {
+                // with zeros above, the predictor is the left byte
+                System.arraycopy(scanline, 0, filtered, offset, left);
+                for (int i = bytesPerPixel; i < length; i++) {
+                    filtered[offset + i] = (byte) (scanline[i] - scanline[i - bytesPerPixel]);
+                }
+            } else {
+                for (int i = 0; i < left; i++) {
+                    filtered[offset + i] = (byte) (scanline[i] - previous[i]);
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    filtered[offset + i] = (byte) (scanline[i]
+                            - paethPredictor(0xff & scanline[i - bytesPerPixel], 0xff & previous[i], 0xff & previous[i - bytesPerPixel]));
+                }
+            }
+            break;
+        default:
+            System.arraycopy(scanline, 0, filtered, offset, length);
+            break;
+        }
+    }
+
+    /**
+     * Reverses this filter in place.
+     *
+     * @param scanline      the filtered bytes of a scanline, replaced by the unfiltered bytes.
+     * @param previous      the unfiltered previous scanline of the pass, or null for the first scanline, whose previous scanline is all zeros.
+     * @param length        the number of bytes in the scanline.
+     * @param bytesPerPixel the number of bytes per complete pixel, rounding up to 1.
+     */
+    void unfilter(final byte[] scanline, final byte[] previous, final int length, final int bytesPerPixel) {
+        switch (this) {
+        case SUB:
+            for (int i = bytesPerPixel; i < length; i++) {
+                scanline[i] += scanline[i - bytesPerPixel];
+            }
+            break;
+        case UP:
+            if (previous != null) {
+                for (int i = 0; i < length; i++) {
+                    scanline[i] += previous[i];
+                }
+            }
+            break;
+        case AVERAGE:
+            if (previous == null) {
+                for (int i = bytesPerPixel; i < length; i++) {
+                    scanline[i] += (0xff & scanline[i - bytesPerPixel]) >> 1;
+                }
+            } else {
+                for (int i = 0; i < bytesPerPixel && i < length; i++) {
+                    scanline[i] += (0xff & previous[i]) >> 1;
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    scanline[i] += (0xff & scanline[i - bytesPerPixel]) + (0xff & previous[i]) >> 1;
+                }
+            }
+            break;
+        case PAETH:
+            if (previous == null) {
+                // with zeros above, the predictor is the left byte
+                for (int i = bytesPerPixel; i < length; i++) {
+                    scanline[i] += scanline[i - bytesPerPixel];
+                }
+            } else {
+                for (int i = 0; i < bytesPerPixel && i < length; i++) {
+                    scanline[i] += previous[i];
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    scanline[i] += paethPredictor(0xff & scanline[i - bytesPerPixel], 0xff & previous[i], 0xff & previous[i - bytesPerPixel]);
+                }
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Tests whether unfiltering a scanline with this filter needs the unfiltered previous scanline.
+     *
+     * @return true for UP, AVERAGE and PAETH.
+     */
+    boolean usesPreviousScanline() {
+        return this == UP || this == AVERAGE || this == PAETH;
+    }
+
+    private static int paethPredictor(final int left, final int above, final int upperLeft) {
+        final int p = left + above - upperLeft;
+        final int pa = Math.abs(p - left);
+        final int pb = Math.abs(p - above);
+        final int pc = Math.abs(p - upperLeft);
+        // the nearest of left, above and upper left, breaking ties in that order
+        if (pa <= pb && pa <= pc) {
+            return left;
+        }
+        return pb <= pc ? above : upperLeft;
+    }
 }
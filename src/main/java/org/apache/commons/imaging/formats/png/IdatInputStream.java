@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.BinaryFunctions;
+
+/**
+ * Reads the data of consecutive IDAT chunks as one stream, straight from the PNG file, checking the CRC of each chunk once its data has been read.
+ * Chunks the decoder never reads to the end, because it stops early, are not checked.
+ * <p>
+ * The stream starts at the data of the first IDAT chunk, whose length and type have already been read, and ends at the first chunk of another type. Closing
+ * it does not close the underlying stream.
+ * </p>
+ */
+final class IdatInputStream extends InputStream {
+
+    private static final byte[] IDAT_TYPE = ChunkType.IDAT.array;
+
+    private final InputStream is;
+    private final CRC32 crc = new CRC32();
+    /** The number of data bytes left in the current chunk. */
+    private int remaining;
+    private boolean ended;
+
+    /**
+     * @param is     the PNG file, positioned at the data of the first IDAT chunk.
+     * @param length the length of the first IDAT chunk.
+     */
+    IdatInputStream(final InputStream is, final int length) {
+        this.is = is;
+        this.remaining = length;
+        crc.update(IDAT_TYPE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : 0xff & b[0];
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        final int count = is.read(b, off, Math.min(len, remaining));
+        if (count < 0) {
+            throw new IOException("Not a Valid PNG File: Couldn't read Chunk Data.");
+        }
+        crc.update(b, off, count);
+        remaining -= count;
+        return count;
+    }
+
+    /**
+     * Reads the CRC of the current chunk and the header of the next one, until a chunk with data is reached or the IDAT chunks end.
+     *
+     * @return whether there is data left.
+     */
+    private boolean nextChunk() throws ImagingException, IOException {
+        while (remaining == 0 && !ended) {
+            final int expected = BinaryFunctions.read4Bytes("CRC", is, "Not a Valid PNG File", ByteOrder.BIG_ENDIAN);
+            if (expected != (int) crc.getValue()) {
+                throw new ImagingException("PNG: IDAT chunk CRC mismatch");
+            }
+            final int length = BinaryFunctions.read4Bytes("Length", is, "Not a Valid PNG File", ByteOrder.BIG_ENDIAN);
+            if (length < 0) {
+                throw new ImagingException("Invalid PNG chunk length: " + length);
+            }
+            final int chunkType = BinaryFunctions.read4Bytes("ChunkType", is, "Not a Valid PNG File", ByteOrder.BIG_ENDIAN);
+            if (chunkType != ChunkType.IDAT.value) {
+                ended = true;
+            } else {
+                remaining = length;
+                crc.reset();
+                crc.update(IDAT_TYPE);
+            }
+        }
+        return !ended;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.imaging.ImagingException;
+
+/**
+ * Compresses data into one zlib stream by compressing blocks of it concurrently, as pigz does.
+ * <p>
+ * Each block is compressed as raw deflate data with the last 32 KiB of the data before it as preset dictionary, so matches can still reach back into the
+ * previous block, and is ended with a sync flush so the blocks can be concatenated. The zlib header goes before the first block, and the Adler-32 of the
+ * whole data, combined from the checksums of the blocks, goes after the last.
+ * </p>
+ *
+ * @see <a href="https://zlib.net/pigz/">pigz</a>
+ */
+final class ParallelDeflater {
+
+    /** The amount of data compressed per task, as in pigz. */
+    static final int BLOCK_SIZE = 128 * 1024;
+    /** The deflate window size. */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int ADLER_BASE = 65521;
+
+    private static final class Block {
+        final byte[] compressed;
+        final long adler;
+
+        Block(final byte[] compressed, final long adler) {
+            this.compressed = compressed;
+            this.adler = adler;
+        }
+    }
+
+    /**
+     * Compresses data into a zlib stream.
+     *
+     * @param data             the data.
+     * @param compressionLevel the compression level, or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param executor         the executor to compress blocks on.
+     * @return the zlib stream, in pieces: the zlib header and first block, the following blocks, and the last block and the checksum.
+     * @throws ImagingException if compressing a block fails.
+     */
+    static List<byte[]> deflate(final byte[] data, final int compressionLevel, final Executor executor) throws ImagingException {
+        final int blockCount = Math.max(1, (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        final List<CompletableFuture<Block>> tasks = new ArrayList<>(blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            final int offset = b * BLOCK_SIZE;
+            final int length = Math.min(BLOCK_SIZE, data.length - offset);
+            final boolean last = b == blockCount - 1;
+            tasks.add(CompletableFuture.supplyAsync(() -> deflateBlock(data, offset, length, last, compressionLevel), executor));
+        }
+
+        final List<byte[]> result = new ArrayList<>(blockCount);
+        long adler = 1;
+        for (int b = 0; b < blockCount; b++) {
+            final Block block;
+            try {
+                block = tasks.get(b).join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new ImagingException("Error compressing PNG image data", e.getCause());
+            }
+            final int length = Math.min(BLOCK_SIZE, data.length - b * BLOCK_SIZE);
+            adler = b == 0 ? block.adler : combineAdler32(adler, block.adler, length);
+
+            byte[] piece = block.compressed;
+            if (b == 0) {
+                piece = concatenate(getZlibHeader(compressionLevel), piece);
+            }
+            if (b == blockCount - 1) {
+                final byte[] checksum = { (byte) (adler >> 24), (byte) (adler >> 16), (byte) (adler >> 8), (byte) adler };
+                piece = concatenate(piece, checksum);
+            }
+            result.add(piece);
+        }
+        return result;
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two pieces of data into the checksum of their concatenation, as zlib's adler32_combine does.
+     *
+     * @param adler1  the checksum of the first piece.
+     * @param adler2  the checksum of the second piece.
+     * @param length2 the length of the second piece.
+     * @return the checksum of both pieces.
+     */
+    static long combineAdler32(final long adler1, final long adler2, final long length2) {
+        final long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+        sum2 += (adler1 >> 16 & 0xffff) + (adler2 >> 16 & 0xffff) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= 2L * ADLER_BASE) {
+            sum2 -= 2L * ADLER_BASE;
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | sum2 << 16;
+    }
+
+    private static byte[] concatenate(final byte[] first, final byte[] second) {
+        final byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static Block deflateBlock(final byte[] data, final int offset, final int length, final boolean last, final int compressionLevel) {
+        final Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (offset > 0) {
+                final int dictionaryLength = Math.min(DICTIONARY_SIZE, offset);
+                deflater.setDictionary(data, offset - dictionaryLength, dictionaryLength);
+            }
+            deflater.setInput(data, offset, length);
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            final byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // a sync flush ends the block on a byte boundary, with the output complete once it no longer fills the buffer
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            final Adler32 adler = new Adler32();
+            adler.update(data, offset, length);
+            return new Block(compressed.toByteArray(), adler.getValue());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Gets the zlib header for a 32 KiB window and the level the data is compressed at.
+     */
+    private static byte[] getZlibHeader(final int compressionLevel) {
+        final int cmf = 0x78;
+        final int level;
+        if (compressionLevel == Deflater.DEFAULT_COMPRESSION || compressionLevel == 6) {
+            level = 2;
+        } else if (compressionLevel < 2) {
+            level = 0;
+        } else if (compressionLevel < 6) {
+            level = 1;
+        } else {
+            level = 3;
+        }
+        int flg = level << 6;
+        flg += (31 - (cmf << 8 | flg) % 31) % 31;
+        return new byte[] { (byte) cmf, (byte) flg };
+    }
+
+    private ParallelDeflater() {
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+/**
+ * How the PNG writer chooses the filter applied to each row before compression.
+ *
+ * @see <a href="https://www.w3.org/TR/png/#12Filter-selection">Portable Network Graphics Specification - Filter selection</a>
+ * @since 1.0-alpha6
+ */
+public enum PngFilterStrategy {
+
+    /** Writes every row unfiltered. */
+    NONE(FilterType.NONE),
+
+    /** Filters every row against the pixel to its left. */
+    SUB(FilterType.SUB),
+
+    /** Filters every row against the row above. */
+    UP(FilterType.UP),
+
+    /** Filters every row against the average of the pixel to the left and the pixel above. */
+    AVERAGE(FilterType.AVERAGE),
+
+    /** Filters every row against the Paeth predictor of the pixels to the left, above and upper left. */
+    PAETH(FilterType.PAETH),
+
+    /**
+     * Tries the five filters on each row and keeps the one whose filtered bytes, taken as signed values, have the smallest sum of absolute values. This is
+     * the heuristic libpng uses, and usually the best choice for photographs and other true color images.
+     */
+    ADAPTIVE(null),
+
+    /**
+     * Compresses each row with each of the five filters, with the previous row as context, and keeps the filter giving the least output. Slower than
+     * {@link #ADAPTIVE}, but often smaller for graphics and indexed color images.
+     */
+    BRUTE_FORCE(null);
+
+    private final FilterType filterType;
+
+    PngFilterStrategy(final FilterType filterType) {
+        this.filterType = filterType;
+    }
+
+    /**
+     * Gets the filter applied to every row, or null if the filter is chosen per row.
+     */
+    FilterType getFilterType() {
+        return filterType;
+    }
+}
@@ -17,13 +17,12 @@
 package org.apache.commons.imaging.formats.png;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.color.ColorSpace;
 import java.awt.color.ICC_ColorSpace;
 import java.awt.color.ICC_Profile;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -32,6 +31,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.imaging.AbstractImageParser;
@@ -39,19 +39,20 @@ import org.apache.commons.imaging.ColorTools;
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.ImagingConstants;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.imaging.common.GenericImageMetadata;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RowConsumer;
 import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.common.XmpImagingParameters;
 import org.apache.commons.imaging.formats.png.chunks.AbstractPngTextChunk;
 import org.apache.commons.imaging.formats.png.chunks.PngChunk;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkGama;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkIccp;
-import org.apache.commons.imaging.formats.png.chunks.PngChunkIdat;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkIhdr;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkItxt;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPhys;
@@ -74,6 +75,8 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     private static final String DEFAULT_EXTENSION = ImageFormats.PNG.getDefaultExtension();
     private static final String[] ACCEPTED_EXTENSIONS = ImageFormats.PNG.getExtensions();
+    /** The number of compressed bytes read from the IDAT chunks at a time. */
+    private static final int INFLATER_BUFFER_SIZE = 8192;
 
     public static String getChunkTypeName(final int chunkType) {
         final StringBuilder result = new StringBuilder();
@@ -84,6 +87,11 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
         return result.toString();
     }
 
+    @Override
+    public void decodeRows(final ByteSource byteSource, final PngImagingParameters params, final RowConsumer rowConsumer) throws ImagingException, IOException {
+        readImage(byteSource, params, rowConsumer);
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource) throws ImagingException, IOException {
         final ImageInfo imageInfo = getImageInfo(byteSource);
@@ -149,166 +157,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
-
-        final List<PngChunk> chunks = readChunks(byteSource,
-                new ChunkType[] { ChunkType.IHDR, ChunkType.PLTE, ChunkType.IDAT, ChunkType.tRNS, ChunkType.iCCP, ChunkType.gAMA, ChunkType.sRGB, }, false);
-
-        if (chunks.isEmpty()) {
-            throw new ImagingException("PNG: no chunks");
-        }
-
-        final List<PngChunk> IHDRs = filterChunks(chunks, ChunkType.IHDR);
-        if (IHDRs.size() != 1) {
-            throw new ImagingException("PNG contains more than one Header");
-        }
-
-        final PngChunkIhdr pngChunkIHDR = (PngChunkIhdr) IHDRs.get(0);
-
-        final List<PngChunk> PLTEs = filterChunks(chunks, ChunkType.PLTE);
-        if (PLTEs.size() > 1) {
-            throw new ImagingException("PNG contains more than one Palette");
-        }
-
-        PngChunkPlte pngChunkPLTE = null;
-        if (PLTEs.size() == 1) {
-            pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
-        }
-
-        final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
-        if (IDATs.isEmpty()) {
-            throw new ImagingException("PNG missing image data");
-        }
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        for (final PngChunk IDAT : IDATs) {
-            final PngChunkIdat pngChunkIDAT = (PngChunkIdat) IDAT;
-            final byte[] bytes = pngChunkIDAT.getBytes();
-            // System.out.println(i + ": bytes: " + bytes.length);
-            baos.write(bytes);
-        }
-
-        final byte[] compressed = baos.toByteArray();
-
-        baos = null;
-
-        AbstractTransparencyFilter abstractTransparencyFilter = null;
-
-        final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
-        if (!tRNSs.isEmpty()) {
-            final PngChunk pngChunktRNS = tRNSs.get(0);
-            abstractTransparencyFilter = getTransparencyFilter(pngChunkIHDR.getPngColorType(), pngChunktRNS);
-        }
-
-        ICC_Profile iccProfile = null;
-        GammaCorrection gammaCorrection = null;
-        {
-            final List<PngChunk> sRGBs = filterChunks(chunks, ChunkType.sRGB);
-            final List<PngChunk> gAMAs = filterChunks(chunks, ChunkType.gAMA);
-            final List<PngChunk> iCCPs = filterChunks(chunks, ChunkType.iCCP);
-            if (sRGBs.size() > 1) {
-                throw new ImagingException("PNG: unexpected sRGB chunk");
-            }
-            if (gAMAs.size() > 1) {
-                throw new ImagingException("PNG: unexpected gAMA chunk");
-            }
-            if (iCCPs.size() > 1) {
-                throw new ImagingException("PNG: unexpected iCCP chunk");
-            }
-
-            if (sRGBs.size() == 1) {
-                // no color management necessary.
-                if (LOGGER.isLoggable(Level.FINEST)) {
-                    LOGGER.finest("sRGB, no color management necessary.");
-                }
-            } else if (iCCPs.size() == 1) {
-                if (LOGGER.isLoggable(Level.FINEST)) {
-                    LOGGER.finest("iCCP.");
-                }
-
-                final PngChunkIccp pngChunkiCCP = (PngChunkIccp) iCCPs.get(0);
-                final byte[] bytes = pngChunkiCCP.getUncompressedProfile();
-
-                try {
-                    iccProfile = ICC_Profile.getInstance(bytes);
-                } catch (final IllegalArgumentException iae) {
-                    throw new ImagingException("The image data does not correspond to a valid ICC Profile", iae);
-                }
-            } else if (gAMAs.size() == 1) {
-                final PngChunkGama pngChunkgAMA = (PngChunkGama) gAMAs.get(0);
-                final double gamma = pngChunkgAMA.getGamma();
-
-                // charles: what is the correct target value here?
-                // double targetGamma = 2.2;
-                final double targetGamma = 1.0;
-                final double diff = Math.abs(targetGamma - gamma);
-                if (diff >= 0.5) {
-                    gammaCorrection = new GammaCorrection(gamma, targetGamma);
-                }
-
-                if (gammaCorrection != null && pngChunkPLTE != null) {
-                    pngChunkPLTE.correct(gammaCorrection);
-                }
-
-            }
-        }
-
-        {
-            final int width = pngChunkIHDR.getWidth();
-            final int height = pngChunkIHDR.getHeight();
-            final PngColorType pngColorType = pngChunkIHDR.getPngColorType();
-            final int bitDepth = pngChunkIHDR.getBitDepth();
-
-            if (pngChunkIHDR.getFilterMethod() != 0) {
-                throw new ImagingException("PNG: unknown FilterMethod: " + pngChunkIHDR.getFilterMethod());
-            }
-
-            final int bitsPerPixel = bitDepth * pngColorType.getSamplesPerPixel();
-
-            final boolean hasAlpha = pngColorType.hasAlpha() || abstractTransparencyFilter != null;
-
-            BufferedImage result;
-            if (pngColorType.isGreyscale()) {
-                result = getBufferedImageFactory(params).getGrayscaleBufferedImage(width, height, hasAlpha);
-            } else {
-                result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
-            }
-
-            final ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
-            final InflaterInputStream iis = new InflaterInputStream(bais);
-
-            final AbstractScanExpediter abstractScanExpediter;
-
-            switch (pngChunkIHDR.getInterlaceMethod()) {
-            case NONE:
-                abstractScanExpediter = new ScanExpediterSimple(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection,
-                        abstractTransparencyFilter);
-                break;
-            case ADAM7:
-                abstractScanExpediter = new ScanExpediterInterlaced(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE,
-                        gammaCorrection, abstractTransparencyFilter);
-                break;
-            default:
-                throw new ImagingException("Unknown InterlaceMethod: " + pngChunkIHDR.getInterlaceMethod());
-            }
-
-            abstractScanExpediter.drive();
-
-            if (iccProfile != null) {
-                final boolean isSrgb = new IccProfileParser().isSrgb(iccProfile);
-                if (!isSrgb) {
-                    final ICC_ColorSpace cs = new ICC_ColorSpace(iccProfile);
-
-                    final ColorModel srgbCM = ColorModel.getRGBdefault();
-                    final ColorSpace csSrgb = srgbCM.getColorSpace();
-
-                    result = new ColorTools().convertBetweenColorSpaces(result, cs, csSrgb);
-                }
-            }
-
-            return result;
-
-        }
-
+        return readImage(byteSource, params, null);
     }
 
     /**
@@ -652,6 +501,16 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
     }
 
     private List<PngChunk> readChunks(final InputStream is, final ChunkType[] chunkTypes, final boolean returnAfterFirst) throws ImagingException, IOException {
+        return readChunks(is, chunkTypes, returnAfterFirst, false);
+    }
+
+    /**
+     * Reads the chunks of the given types.
+     *
+     * @param stopAtImageData whether to stop at the first IDAT chunk, leaving the stream at its data; it is returned last, with its length but no data.
+     */
+    private List<PngChunk> readChunks(final InputStream is, final ChunkType[] chunkTypes, final boolean returnAfterFirst, final boolean stopAtImageData)
+            throws ImagingException, IOException {
         final List<PngChunk> result = new ArrayList<>();
 
         while (true) {
@@ -665,6 +524,10 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
                 BinaryFunctions.logCharQuad("ChunkType", chunkType);
                 debugNumber("Length", length, 4);
             }
+            if (stopAtImageData && chunkType == ChunkType.IDAT.value) {
+                result.add(ChunkType.makeChunk(length, chunkType, 0, ImagingConstants.EMPTY_BYTE_ARRAY));
+                break;
+            }
             final boolean keep = keepChunk(chunkType, chunkTypes);
 
             byte[] bytes = null;
@@ -698,6 +561,190 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     }
 
+    /**
+     * Decodes the image, into the returned BufferedImage or, if a row consumer is given, row by row into the consumer.
+     *
+     * @return the image, or null if a row consumer is given.
+     */
+    private BufferedImage readImage(final ByteSource byteSource, final PngImagingParameters params, final RowConsumer rowConsumer)
+            throws ImagingException, IOException {
+        try (InputStream is = byteSource.getInputStream()) {
+            readSignature(is);
+            // the chunks the decoder needs all precede the image data, which is inflated as it is read
+            final List<PngChunk> chunks = readChunks(is,
+                    new ChunkType[] { ChunkType.IHDR, ChunkType.PLTE, ChunkType.tRNS, ChunkType.iCCP, ChunkType.gAMA, ChunkType.sRGB, }, false, true);
+            return readImage(is, chunks, params, rowConsumer);
+        }
+    }
+
+    /**
+     * Decodes the image from the chunks before the image data, ending with the first IDAT chunk, and the stream positioned at the image data.
+     */
+    private BufferedImage readImage(final InputStream is, final List<PngChunk> chunks, final PngImagingParameters params, final RowConsumer rowConsumer)
+            throws ImagingException, IOException {
+
+        if (chunks.isEmpty()) {
+            throw new ImagingException("PNG: no chunks");
+        }
+
+        final List<PngChunk> IHDRs = filterChunks(chunks, ChunkType.IHDR);
+        if (IHDRs.size() != 1) {
+            throw new ImagingException("PNG contains more than one Header");
+        }
+
+        final PngChunkIhdr pngChunkIHDR = (PngChunkIhdr) IHDRs.get(0);
+
+        final List<PngChunk> PLTEs = filterChunks(chunks, ChunkType.PLTE);
+        if (PLTEs.size() > 1) {
+            throw new ImagingException("PNG contains more than one Palette");
+        }
+
+        PngChunkPlte pngChunkPLTE = null;
+        if (PLTEs.size() == 1) {
+            pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
+        }
+
+        final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
+        if (IDATs.isEmpty()) {
+            throw new ImagingException("PNG missing image data");
+        }
+
+        AbstractTransparencyFilter abstractTransparencyFilter = null;
+
+        final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
+        if (!tRNSs.isEmpty()) {
+            final PngChunk pngChunktRNS = tRNSs.get(0);
+            abstractTransparencyFilter = getTransparencyFilter(pngChunkIHDR.getPngColorType(), pngChunktRNS);
+        }
+
+        ICC_Profile iccProfile = null;
+        GammaCorrection gammaCorrection = null;
+        {
+            final List<PngChunk> sRGBs = filterChunks(chunks, ChunkType.sRGB);
+            final List<PngChunk> gAMAs = filterChunks(chunks, ChunkType.gAMA);
+            final List<PngChunk> iCCPs = filterChunks(chunks, ChunkType.iCCP);
+            if (sRGBs.size() > 1) {
+                throw new ImagingException("PNG: unexpected sRGB chunk");
+            }
+            if (gAMAs.size() > 1) {
+                throw new ImagingException("PNG: unexpected gAMA chunk");
+            }
+            if (iCCPs.size() > 1) {
+                throw new ImagingException("PNG: unexpected iCCP chunk");
+            }
+
+            if (sRGBs.size() == 1) {
+                // no color management necessary.
+                if (LOGGER.isLoggable(Level.FINEST)) {
+                    LOGGER.finest("sRGB, no color management necessary.");
+                }
+            } else if (iCCPs.size() == 1) {
+                if (LOGGER.isLoggable(Level.FINEST)) {
+                    LOGGER.finest("iCCP.");
+                }
+
+                final PngChunkIccp pngChunkiCCP = (PngChunkIccp) iCCPs.get(0);
+                final byte[] bytes = pngChunkiCCP.getUncompressedProfile();
+
+                try {
+                    iccProfile = ICC_Profile.getInstance(bytes);
+                } catch (final IllegalArgumentException iae) {
+                    throw new ImagingException("The image data does not correspond to a valid ICC Profile", iae);
+                }
+            } else if (gAMAs.size() == 1) {
+                final PngChunkGama pngChunkgAMA = (PngChunkGama) gAMAs.get(0);
+                final double gamma = pngChunkgAMA.getGamma();
+
+                // charles: what is the correct target value here?
+                // double targetGamma = 2.2;
+                final double targetGamma = 1.0;
+                final double diff = Math.abs(targetGamma - gamma);
+                if (diff >= 0.5) {
+                    gammaCorrection = new GammaCorrection(gamma, targetGamma);
+                }
+
+                if (gammaCorrection != null && pngChunkPLTE != null) {
+                    pngChunkPLTE.correct(gammaCorrection);
+                }
+
+            }
+        }
+
+        {
+            final int width = pngChunkIHDR.getWidth();
+            final int height = pngChunkIHDR.getHeight();
+            final PngColorType pngColorType = pngChunkIHDR.getPngColorType();
+            final int bitDepth = pngChunkIHDR.getBitDepth();
+
+            if (pngChunkIHDR.getFilterMethod() != 0) {
+                throw new ImagingException("PNG: unknown FilterMethod: " + pngChunkIHDR.getFilterMethod());
+            }
+
+            final int bitsPerPixel = bitDepth * pngColorType.getSamplesPerPixel();
+
+            final boolean hasAlpha = pngColorType.hasAlpha() || abstractTransparencyFilter != null;
+            final boolean convertColorSpace = iccProfile != null && !new IccProfileParser().isSrgb(iccProfile);
+            // rows are streamed through a one-row image, unless they arrive interlaced or need converting as a whole.
+            final boolean streaming = rowConsumer != null && pngChunkIHDR.getInterlaceMethod() == InterlaceMethod.NONE && !convertColorSpace;
+            final Rectangle region = getRegion(params, width, height);
+            final int imageWidth = region == null ? width : region.width;
+            final int imageHeight = streaming ? 1 : region == null ? height : region.height;
+
+            BufferedImage result;
+            if (pngColorType.isGreyscale()) {
+                result = getBufferedImageFactory(params).getGrayscaleBufferedImage(imageWidth, imageHeight, hasAlpha);
+            } else {
+                result = getBufferedImageFactory(params).getColorBufferedImage(imageWidth, imageHeight, hasAlpha);
+            }
+
+            final Inflater inflater = new Inflater();
+            final InflaterInputStream iis = new InflaterInputStream(new IdatInputStream(is, IDATs.get(0).getLength()), inflater, INFLATER_BUFFER_SIZE);
+
+            final AbstractScanExpediter abstractScanExpediter;
+
+            switch (pngChunkIHDR.getInterlaceMethod()) {
+            case NONE:
+                abstractScanExpediter = new ScanExpediterSimple(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection,
+                        abstractTransparencyFilter, region, streaming ? rowConsumer : null);
+                break;
+            case ADAM7:
+                abstractScanExpediter = new ScanExpediterInterlaced(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE,
+                        gammaCorrection, abstractTransparencyFilter, region);
+                break;
+            default:
+                throw new ImagingException("Unknown InterlaceMethod: " + pngChunkIHDR.getInterlaceMethod());
+            }
+
+            try {
+                abstractScanExpediter.drive();
+            } finally {
+                inflater.end();
+            }
+
+            if (streaming) {
+                return null;
+            }
+
+            if (convertColorSpace) {
+                final ICC_ColorSpace cs = new ICC_ColorSpace(iccProfile);
+
+                final ColorModel srgbCM = ColorModel.getRGBdefault();
+                final ColorSpace csSrgb = srgbCM.getColorSpace();
+
+                result = new ColorTools().convertBetweenColorSpaces(result, cs, csSrgb);
+            }
+
+            if (rowConsumer != null) {
+                deliverRows(result, rowConsumer);
+                return null;
+            }
+
+            return result;
+
+        }
+
+    }
+
     public void readSignature(final InputStream is) throws ImagingException, IOException {
         BinaryFunctions.readAndVerifyBytes(is, PngConstants.PNG_SIGNATURE, "Not a Valid PNG Segment: Incorrect Signature");
 
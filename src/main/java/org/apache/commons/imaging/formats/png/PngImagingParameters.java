@@ -17,6 +17,7 @@ package org.apache.commons.imaging.formats.png;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
@@ -34,6 +35,13 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
      */
     private byte bitDepth = DEFAULT_BIT_DEPTH;
 
+    private Executor compressionExecutor;
+
+    /**
+     * How rows are filtered when writing, or null to follow {@link #isPredictorEnabled()}.
+     */
+    private PngFilterStrategy filterStrategy;
+
     private boolean forceIndexedColor;
 
     private boolean forceTrueColor;
@@ -66,6 +74,26 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return bitDepth;
     }
 
+    /**
+     * Gets the executor that compresses the image data of written images in parallel.
+     *
+     * @return the executor, or null to compress on the calling thread.
+     * @since 1.0-alpha6
+     */
+    public Executor getCompressionExecutor() {
+        return compressionExecutor;
+    }
+
+    /**
+     * Gets how the rows of a written image are filtered.
+     *
+     * @return the filter strategy, or null if {@link #isPredictorEnabled()} decides.
+     * @since 1.0-alpha6
+     */
+    public PngFilterStrategy getFilterStrategy() {
+        return filterStrategy;
+    }
+
     public PhysicalScale getPhysicalScale() {
         return physicalScale;
     }
@@ -96,6 +124,34 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return asThis();
     }
 
+    /**
+     * Sets an executor on which the image data of written images is compressed concurrently, for example a {@link java.util.concurrent.ForkJoinPool}. The
+     * filtered image data is split into 128 KiB blocks compressed as separate tasks, each primed with the end of the block before it, and joined into a
+     * single zlib stream. The output is a few bytes per block larger than when compressing on the calling thread, which waits for all the blocks.
+     *
+     * @param compressionExecutor the executor, or null to compress on the calling thread.
+     * @return {@code this} instance.
+     * @since 1.0-alpha6
+     */
+    public PngImagingParameters setCompressionExecutor(final Executor compressionExecutor) {
+        this.compressionExecutor = compressionExecutor;
+        return asThis();
+    }
+
+    /**
+     * Sets how the rows of a written image are filtered. Filtering does not change the image, but the right filters can make the compressed image data much
+     * smaller. When not set, rows are filtered with {@link PngFilterStrategy#SUB} if the predictor is enabled and the image is written as true color, and not
+     * filtered otherwise.
+     *
+     * @param filterStrategy the filter strategy, or null to follow {@link #isPredictorEnabled()}.
+     * @return {@code this} instance.
+     * @since 1.0-alpha6
+     */
+    public PngImagingParameters setFilterStrategy(final PngFilterStrategy filterStrategy) {
+        this.filterStrategy = filterStrategy;
+        return asThis();
+    }
+
     public PngImagingParameters setForceIndexedColor(final boolean forceIndexedColor) {
         this.forceIndexedColor = forceIndexedColor;
         return asThis();
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+
+/**
+ * Writes a PNG image row by row, for images too large to hold in memory as a {@link java.awt.image.BufferedImage}.
+ * <p>
+ * The header and the ancillary chunks the parameters ask for are written when the writer is created. Each row is then filtered and compressed as it is
+ * written, and the compressed data goes out in IDAT chunks of {@value #IDAT_CHUNK_SIZE} bytes as soon as there is enough of it, so the memory used depends
+ * on the width of the image, not its height. The image data is compressed on the calling thread, whatever
+ * {@link PngImagingParameters#getCompressionExecutor()} is.
+ * </p>
+ * <p>
+ * Indexed color images are not supported.
+ * </p>
+ *
+ * <pre>
+ * try (PngStreamWriter writer = new PngStreamWriter(os, width, height, PngColorType.TRUE_COLOR, params)) {
+ *     for (int y = 0; y &lt; height; y++) {
+ *         writer.writeRow(renderRow(y));
+ *     }
+ * }
+ * </pre>
+ *
+ * @since 1.0-alpha6
+ */
+public class PngStreamWriter implements Closeable {
+
+    /** The length of the data of each IDAT chunk but the last. */
+    public static final int IDAT_CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream os;
+    private final PngWriter pngWriter = new PngWriter();
+    private final int width;
+    private final int height;
+    private final PngColorType pngColorType;
+    private final int bitDepth;
+    private final int rowLength;
+    private final FilterSelector filterSelector;
+    private final Deflater deflater;
+    /** Collects compressed data until it fills an IDAT chunk. */
+    private final byte[] chunk = Allocator.byteArray(IDAT_CHUNK_SIZE);
+    private int chunkLength;
+    /** The samples of the row being written, filled by {@link #writeRow(int[])}. */
+    private byte[] scanline;
+    private byte[] previous;
+    private int rowsWritten;
+    private boolean closed;
+
+    /**
+     * Constructs a new instance and writes the PNG signature, the header and the ancillary chunks the parameters ask for.
+     *
+     * @param os           the output stream, closed by {@link #close()}.
+     * @param width        the width of the image.
+     * @param height       the height of the image.
+     * @param pngColorType the color type of the image; not {@link PngColorType#INDEXED_COLOR}.
+     * @param params       the parameters, or null for the default; the bit depth, filter strategy and chunks to write are used.
+     * @throws IllegalArgumentException if the size or color type is invalid.
+     * @throws ImagingException         if the parameters cannot be written.
+     * @throws IOException              if the output stream fails.
+     */
+    public PngStreamWriter(final OutputStream os, final int width, final int height, final PngColorType pngColorType, final PngImagingParameters params)
+            throws ImagingException, IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid PNG image size: " + width + "x" + height);
+        }
+        if (pngColorType == PngColorType.INDEXED_COLOR) {
+            throw new IllegalArgumentException("Indexed color PNG images cannot be written row by row");
+        }
+        final PngImagingParameters parameters = params == null ? new PngImagingParameters() : params;
+        this.os = os;
+        this.width = width;
+        this.height = height;
+        this.pngColorType = pngColorType;
+        this.bitDepth = pngColorType.isBitDepthAllowed(parameters.getBitDepth()) ? parameters.getBitDepth() : PngImagingParameters.DEFAULT_BIT_DEPTH;
+        final int bitsPerPixel = bitDepth * pngColorType.getSamplesPerPixel();
+        rowLength = Math.toIntExact(((long) width * bitsPerPixel + 7) / 8);
+        scanline = Allocator.byteArray(rowLength);
+        previous = Allocator.byteArray(rowLength);
+        filterSelector = new FilterSelector(pngWriter.getFilterStrategy(parameters, pngColorType.isGreyscale(), null), rowLength, Math.max(1, bitsPerPixel / 8),
+                Deflater.DEFAULT_COMPRESSION);
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+        PngConstants.PNG_SIGNATURE.writeTo(os);
+        pngWriter.writeChunkIHDR(os, new PngWriter.ImageHeader(width, height, (byte) bitDepth, pngColorType, PngConstants.COMPRESSION_TYPE_INFLATE_DEFLATE,
+                PngConstants.FILTER_METHOD_ADAPTIVE, InterlaceMethod.NONE));
+        pngWriter.writeAncillaryChunks(os, parameters);
+    }
+
+    /**
+     * Finishes the image data, writes the IEND chunk and closes the output stream.
+     *
+     * @throws ImagingException if fewer rows than the height of the image were written; the output stream is closed without ending the image.
+     * @throws IOException      if the output stream fails.
+     */
+    @Override
+    public void close() throws ImagingException, IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (rowsWritten < height) {
+                throw new ImagingException("PNG: only " + rowsWritten + " of " + height + " rows written");
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            if (chunkLength > 0) {
+                writeChunk();
+            }
+            pngWriter.writeChunkIEND(os);
+        } finally {
+            deflater.end();
+            filterSelector.end();
+            os.close();
+        }
+    }
+
+    private void deflate() throws IOException {
+        chunkLength += deflater.deflate(chunk, chunkLength, chunk.length - chunkLength);
+        if (chunkLength == chunk.length) {
+            writeChunk();
+        }
+    }
+
+    /**
+     * Gets the number of bytes in a row passed to {@link #writeRow(byte[])}.
+     *
+     * @return the number of bytes per row.
+     */
+    public int getRowLength() {
+        return rowLength;
+    }
+
+    private void writeChunk() throws IOException {
+        pngWriter.writeChunk(os, ChunkType.IDAT, chunk, chunkLength);
+        chunkLength = 0;
+    }
+
+    /**
+     * Writes the next row as samples, in the order and with the bit depth they have in the PNG format: for each pixel, gray or red, green and blue,
+     * followed by alpha if the color type has alpha, 16-bit samples most significant byte first, and samples smaller than a byte packed from the most
+     * significant bit.
+     *
+     * @param samples the samples; the first {@link #getRowLength()} bytes are used.
+     * @throws IllegalArgumentException if there are too few samples.
+     * @throws IllegalStateException    if all rows have been written or the writer is closed.
+     * @throws IOException              if the output stream fails.
+     */
+    public void writeRow(final byte[] samples) throws IOException {
+        if (samples.length < rowLength) {
+            throw new IllegalArgumentException("PNG row has " + samples.length + " bytes, needs " + rowLength);
+        }
+        if (closed || rowsWritten == height) {
+            throw new IllegalStateException("PNG: all " + height + " rows written");
+        }
+        final byte[] filtered = filterSelector.filter(samples, rowsWritten == 0 ? null : previous);
+        deflater.setInput(filtered, 0, rowLength + 1);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+        System.arraycopy(samples, 0, previous, 0, rowLength);
+        rowsWritten++;
+    }
+
+    /**
+     * Writes the next row as ARGB pixels, converted the way {@link PngWriter} converts them: gray is the average of red, green and blue, and alpha is
+     * dropped if the color type has none. Only images with a bit depth of 8 can be written this way.
+     *
+     * @param argb the pixels; the first {@code width} are used.
+     * @throws IllegalArgumentException if there are too few pixels.
+     * @throws IllegalStateException    if the bit depth is not 8, or all rows have been written or the writer is closed.
+     * @throws IOException              if the output stream fails.
+     */
+    public void writeRow(final int[] argb) throws IOException {
+        if (bitDepth != 8) {
+            throw new IllegalStateException("PNG rows of " + bitDepth + "-bit samples cannot be written as ARGB pixels");
+        }
+        if (argb.length < width) {
+            throw new IllegalArgumentException("PNG row has " + argb.length + " pixels, needs " + width);
+        }
+        final boolean isGrayscale = pngColorType.isGreyscale();
+        final boolean useAlpha = pngColorType.hasAlpha();
+        int index = 0;
+        for (int x = 0; x < width; x++) {
+            final int red = 0xff & argb[x] >> 16;
+            final int green = 0xff & argb[x] >> 8;
+            final int blue = 0xff & argb[x];
+            if (isGrayscale) {
+                scanline[index++] = (byte) ((red + green + blue) / 3);
+            } else {
+                scanline[index++] = (byte) red;
+                scanline[index++] = (byte) green;
+                scanline[index++] = (byte) blue;
+            }
+            if (useAlpha) {
+                scanline[index++] = (byte) (argb[x] >>> 24);
+            }
+        }
+        writeRow(scanline);
+    }
+}
@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
@@ -45,7 +47,7 @@ public class PngWriter {
      * 11.3.5: Miscellaneous information). 5. Time information: tIME (see 11.3.6: Time stamp information).
      */
 
-    private static final class ImageHeader {
+    static final class ImageHeader {
         public final int width;
         public final int height;
         public final byte bitDepth;
@@ -83,37 +85,91 @@ public class PngWriter {
         return pngColorType.isBitDepthAllowed(depth) ? depth : PngImagingParameters.DEFAULT_BIT_DEPTH;
     }
 
+    PngFilterStrategy getFilterStrategy(final PngImagingParameters params, final boolean isGrayscale, final Palette palette) {
+        if (params.getFilterStrategy() != null) {
+            return params.getFilterStrategy();
+        }
+        // 28 March 2022. At this time, we only apply the predictor
+        // for non-grayscale, true-color images. This choice is made
+        // out of caution and is not necessarily required by the PNG
+        // spec. We may broaden the use of predictors in future versions.
+        return params.isPredictorEnabled() && !isGrayscale && palette == null ? PngFilterStrategy.SUB : PngFilterStrategy.NONE;
+    }
+
     private boolean isValidISO_8859_1(final String s) {
         final String roundtrip = new String(s.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1);
         return s.equals(roundtrip);
     }
 
-    private void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data) throws IOException {
-        final int dataLength = data == null ? 0 : data.length;
-        writeInt(os, dataLength);
-        os.write(chunkType.array);
-        if (data != null) {
-            os.write(data);
+    /**
+     * Writes the chunks the parameters ask for that may go anywhere before the image data: pHYs, sCAL, the XMP iTXt chunk and the text chunks.
+     */
+    void writeAncillaryChunks(final OutputStream os, final PngImagingParameters params) throws ImagingException, IOException {
+        final Object pixelDensityObj = params.getPixelDensity();
+        if (pixelDensityObj != null) {
+            final PixelDensity pixelDensity = (PixelDensity) pixelDensityObj;
+            if (pixelDensity.isUnitless()) {
+                writeChunkPHYS(os, (int) Math.round(pixelDensity.getRawHorizontalDensity()), (int) Math.round(pixelDensity.getRawVerticalDensity()), (byte) 0);
+            } else {
+                writeChunkPHYS(os, (int) Math.round(pixelDensity.horizontalDensityMetres()), (int) Math.round(pixelDensity.verticalDensityMetres()), (byte) 1);
+            }
         }
 
-        final PngCrc pngCrc = new PngCrc();
+        final PhysicalScale physicalScale = params.getPhysicalScale();
+        if (physicalScale != null) {
+            writeChunkSCAL(os, physicalScale.getHorizontalUnitsPerPixel(), physicalScale.getVerticalUnitsPerPixel(),
+                    physicalScale.isInMeters() ? (byte) 1 : (byte) 2);
+        }
 
-        final long crc1 = pngCrc.startPartialCrc(chunkType.array, chunkType.array.length);
-        final long crc2 = data == null ? crc1 : pngCrc.continuePartialCrc(crc1, data, data.length);
-        final int crc = (int) pngCrc.finishPartialCrc(crc2);
+        final String xmpXml = params.getXmpXml();
+        if (xmpXml != null) {
+            writeChunkXmpiTXt(os, xmpXml);
+        }
 
-        writeInt(os, crc);
+        final List<? extends AbstractPngText> outputTexts = params.getTextChunks();
+        if (outputTexts != null) {
+            for (final AbstractPngText text : outputTexts) {
+                if (text instanceof AbstractPngText.Text) {
+                    writeChunktEXt(os, (AbstractPngText.Text) text);
+                } else if (text instanceof AbstractPngText.Ztxt) {
+                    writeChunkzTXt(os, (AbstractPngText.Ztxt) text);
+                } else if (text instanceof AbstractPngText.Itxt) {
+                    writeChunkiTXt(os, (AbstractPngText.Itxt) text);
+                } else {
+                    throw new ImagingException("Unknown text to embed in PNG: " + text);
+                }
+            }
+        }
+    }
+
+    private void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data) throws IOException {
+        writeChunk(os, chunkType, data, data == null ? 0 : data.length);
+    }
+
+    /**
+     * Writes a chunk with the first bytes of an array as data.
+     */
+    void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data, final int length) throws IOException {
+        writeInt(os, length);
+        os.write(chunkType.array);
+        final CRC32 crc = new CRC32();
+        crc.update(chunkType.array);
+        if (data != null) {
+            os.write(data, 0, length);
+            crc.update(data, 0, length);
+        }
+        writeInt(os, (int) crc.getValue());
     }
 
     private void writeChunkIDAT(final OutputStream os, final byte[] bytes) throws IOException {
         writeChunk(os, ChunkType.IDAT, bytes);
     }
 
-    private void writeChunkIEND(final OutputStream os) throws IOException {
+    void writeChunkIEND(final OutputStream os) throws IOException {
         writeChunk(os, ChunkType.IEND, null);
     }
 
-    private void writeChunkIHDR(final OutputStream os, final ImageHeader value) throws IOException {
+    void writeChunkIHDR(final OutputStream os, final ImageHeader value) throws IOException {
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         writeInt(baos, value.width);
         writeInt(baos, value.height);
@@ -304,7 +360,6 @@ public class PngWriter {
         if (paletteFactory == null) {
             paletteFactory = new PaletteFactory();
         }
-        final int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
         final int width = src.getWidth();
         final int height = src.getHeight();
@@ -384,71 +439,34 @@ public class PngWriter {
             }
         }
 
-        final Object pixelDensityObj = params.getPixelDensity();
-        if (pixelDensityObj != null) {
-            final PixelDensity pixelDensity = (PixelDensity) pixelDensityObj;
-            if (pixelDensity.isUnitless()) {
-                writeChunkPHYS(os, (int) Math.round(pixelDensity.getRawHorizontalDensity()), (int) Math.round(pixelDensity.getRawVerticalDensity()), (byte) 0);
-            } else {
-                writeChunkPHYS(os, (int) Math.round(pixelDensity.horizontalDensityMetres()), (int) Math.round(pixelDensity.verticalDensityMetres()), (byte) 1);
-            }
-        }
-
-        final PhysicalScale physicalScale = params.getPhysicalScale();
-        if (physicalScale != null) {
-            writeChunkSCAL(os, physicalScale.getHorizontalUnitsPerPixel(), physicalScale.getVerticalUnitsPerPixel(),
-                    physicalScale.isInMeters() ? (byte) 1 : (byte) 2);
-        }
-
-        final String xmpXml = params.getXmpXml();
-        if (xmpXml != null) {
-            writeChunkXmpiTXt(os, xmpXml);
-        }
-
-        final List<? extends AbstractPngText> outputTexts = params.getTextChunks();
-        if (outputTexts != null) {
-            for (final AbstractPngText text : outputTexts) {
-                if (text instanceof AbstractPngText.Text) {
-                    writeChunktEXt(os, (AbstractPngText.Text) text);
-                } else if (text instanceof AbstractPngText.Ztxt) {
-                    writeChunkzTXt(os, (AbstractPngText.Ztxt) text);
-                } else if (text instanceof AbstractPngText.Itxt) {
-                    writeChunkiTXt(os, (AbstractPngText.Itxt) text);
-                } else {
-                    throw new ImagingException("Unknown text to embed in PNG: " + text);
-                }
-            }
-        }
+        writeAncillaryChunks(os, params);
 
         {
             // Debug.debug("writing IDAT");
 
             // IDAT Yes Multiple IDAT chunks shall be consecutive
 
-            // 28 March 2022. At this time, we only apply the predictor
-            // for non-grayscale, true-color images. This choice is made
-            // out of caution and is not necessarily required by the PNG
-            // spec. We may broaden the use of predictors in future versions.
-            final boolean usePredictor = params.isPredictorEnabled() && !isGrayscale && palette == null;
-
-            final byte[] uncompressed;
-            if (!usePredictor) {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
-
-                final int[] row = Allocator.intArray(width);
+            final PngFilterStrategy filterStrategy = getFilterStrategy(params, isGrayscale, palette);
+            final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
+            final int bytesPerPixel = palette != null ? 1 : (isGrayscale ? 1 : 3) + (useAlpha ? 1 : 0);
+            final int rowLength = width * bytesPerPixel;
+            final FilterSelector filterSelector = new FilterSelector(filterStrategy, rowLength, bytesPerPixel, Deflater.DEFAULT_COMPRESSION);
+
+            final ByteArrayOutputStream filteredRows = new ByteArrayOutputStream();
+            final int[] row = Allocator.intArray(width);
+            byte[] scanline = Allocator.byteArray(rowLength);
+            byte[] previous = Allocator.byteArray(rowLength);
+            try {
                 for (int y = 0; y < height; y++) {
                     // Debug.debug("y", y + "/" + height);
                     src.getRGB(0, y, width, 1, row, 0, width);
 
-                    baos.write(FilterType.NONE.ordinal());
+                    int index = 0;
                     for (int x = 0; x < width; x++) {
                         final int argb = row[x];
 
                         if (palette != null) {
-                            final int index = palette.getPaletteIndex(argb);
-                            baos.write(0xff & index);
+                            scanline[index++] = (byte) palette.getPaletteIndex(argb);
                         } else {
                             final int alpha = 0xff & argb >> 24;
                             final int red = 0xff & argb >> 16;
@@ -456,99 +474,65 @@ public class PngWriter {
                             final int blue = 0xff & argb >> 0;
 
                             if (isGrayscale) {
-                                final int gray = (red + green + blue) / 3;
-                                // if (y == 0)
-                                // {
-                                // Debug.debug("gray: " + x + ", " + y +
-                                // " argb: 0x"
-                                // + Integer.toHexString(argb) + " gray: 0x"
-                                // + Integer.toHexString(gray));
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // Debug.debug(x + ", " + y + " gray", gray +
-                                // " " + Integer.toHexString(gray));
-                                // Debug.debug();
-                                // }
-                                baos.write(gray);
+                                scanline[index++] = (byte) ((red + green + blue) / 3);
                             } else {
-                                baos.write(red);
-                                baos.write(green);
-                                baos.write(blue);
+                                scanline[index++] = (byte) red;
+                                scanline[index++] = (byte) green;
+                                scanline[index++] = (byte) blue;
                             }
                             if (useAlpha) {
-                                baos.write(alpha);
+                                scanline[index++] = (byte) alpha;
                             }
                         }
                     }
-                }
-                uncompressed = baos.toByteArray();
-            } else {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
+                    filteredRows.write(filterSelector.filter(scanline, y == 0 ? null : previous), 0, rowLength + 1);
 
-                final int[] row = Allocator.intArray(width);
-                for (int y = 0; y < height; y++) {
-                    // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
-
-                    int priorA = 0;
-                    int priorR = 0;
-                    int priorG = 0;
-                    int priorB = 0;
-                    baos.write(FilterType.SUB.ordinal());
-                    for (int x = 0; x < width; x++) {
-                        final int argb = row[x];
-                        final int alpha = 0xff & argb >> 24;
-                        final int red = 0xff & argb >> 16;
-                        final int green = 0xff & argb >> 8;
-                        final int blue = 0xff & argb;
-
-                        baos.write(red - priorR);
-                        baos.write(green - priorG);
-                        baos.write(blue - priorB);
-                        priorR = red;
-                        priorG = green;
-                        priorB = blue;
-
-                        if (useAlpha) {
-                            baos.write(alpha - priorA);
-                            priorA = alpha;
-                        }
-                    }
+                    final byte[] written = scanline;
+                    scanline = previous;
+                    previous = written;
                 }
-                uncompressed = baos.toByteArray();
+            } finally {
+                filterSelector.end();
             }
+            final byte[] uncompressed = filteredRows.toByteArray();
 
             // Debug.debug("uncompressed", uncompressed.length);
 
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final int chunkSize = 256 * 1024;
-            final Deflater deflater = new Deflater(compressionLevel);
-            final DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater, chunkSize);
-
-            for (int index = 0; index < uncompressed.length; index += chunkSize) {
-                final int end = Math.min(uncompressed.length, index + chunkSize);
-                final int length = end - index;
-
-                dos.write(uncompressed, index, length);
-                dos.flush();
-                baos.flush();
-
-                final byte[] compressed = baos.toByteArray();
-                baos.reset();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed", compressed.length);
+            final Executor compressionExecutor = params.getCompressionExecutor();
+            if (compressionExecutor != null) {
+                for (final byte[] compressed : ParallelDeflater.deflate(uncompressed, Deflater.DEFAULT_COMPRESSION, compressionExecutor)) {
                     writeChunkIDAT(os, compressed);
                 }
+            } else {
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                final int chunkSize = 256 * 1024;
+                final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+                final DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater, chunkSize);
+
+                for (int index = 0; index < uncompressed.length; index += chunkSize) {
+                    final int end = Math.min(uncompressed.length, index + chunkSize);
+                    final int length = end - index;
+
+                    dos.write(uncompressed, index, length);
+                    dos.flush();
+                    baos.flush();
+
+                    final byte[] compressed = baos.toByteArray();
+                    baos.reset();
+                    if (compressed.length > 0) {
+                        // Debug.debug("compressed", compressed.length);
+                        writeChunkIDAT(os, compressed);
+                    }
 
-            }
-            {
-                dos.finish();
-                final byte[] compressed = baos.toByteArray();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed final", compressed.length);
-                    writeChunkIDAT(os, compressed);
+                }
+                {
+                    dos.finish();
+                    final byte[] compressed = baos.toByteArray();
+                    if (compressed.length > 0) {
+                        // Debug.debug("compressed final", compressed.length);
+                        writeChunkIDAT(os, compressed);
+                    }
                 }
             }
         }
@@ -568,8 +552,7 @@ public class PngWriter {
          */
 
         os.close();
-    } // todo: filter types
-      // proper color types
+    } // todo: proper color types
       // srgb, etc.
 
     private void writeInt(final OutputStream os, final int value) throws IOException {
@@ -16,11 +16,13 @@
  */
 package org.apache.commons.imaging.formats.png;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
 
@@ -32,54 +34,71 @@ final class ScanExpediterInterlaced extends AbstractScanExpediter {
 //    private static final int[] Block_Height = { 8, 8, 4, 4, 2, 2, 1 };
 //    private static final int[] Block_Width = { 8, 4, 4, 2, 2, 1, 1 };
 
+    /** The region of the image to decode into {@link #bi}. */
+    private final Rectangle region;
+
     ScanExpediterInterlaced(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType,
             final int bitDepth, final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
             final AbstractTransparencyFilter abstractTransparencyFilter) {
+        this(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter, null);
+    }
+
+    /**
+     * @param region the region of the image to decode, or null for the whole image; {@code bi} has the region's size.
+     */
+    ScanExpediterInterlaced(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType,
+            final int bitDepth, final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
+            final AbstractTransparencyFilter abstractTransparencyFilter, final Rectangle region) {
         super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter);
+        this.region = region == null ? new Rectangle(0, 0, width, height) : region;
     }
 
     @Override
     public void drive() throws ImagingException, IOException {
+        // the scanlines of the first pass with columns are the longest
+        final int maxPixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerPixel * width);
+        byte[] scanline = Allocator.byteArray(maxPixelBytesPerScanLine);
+        byte[] prev = Allocator.byteArray(maxPixelBytesPerScanLine);
+        final int[] row = Allocator.intArray(width);
 
         int pass = 1;
         while (pass <= 7) {
-            byte[] prev = null;
+            boolean hasPrev = false;
 
             int y = STARTING_ROW[pass - 1];
             // int y_stride = ROW_INCREMENT[pass - 1];
             // final boolean rows_in_pass = (y < height);
             while (y < height) {
-                int x = STARTING_COL[pass - 1];
-                int pixelIndexInScanline = 0;
+                final int startingCol = STARTING_COL[pass - 1];
 
-                if (x < width) {
+                if (startingCol < width) {
                     // only get data if there are pixels in this scanline/pass
-                    final int columnsInRow = 1 + (width - STARTING_COL[pass - 1] - 1) / COL_INCREMENT[pass - 1];
+                    final int columnsInRow = 1 + (width - startingCol - 1) / COL_INCREMENT[pass - 1];
                     final int bitsPerScanLine = bitsPerPixel * columnsInRow;
                     final int pixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerScanLine);
 
-                    final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
-
-                    prev = unfiltered;
+                    final FilterType filterType = readFilterType(is);
+                    readScanline(scanline, pixelBytesPerScanLine);
+                    filterType.unfilter(scanline, hasPrev ? prev : null, pixelBytesPerScanLine, bytesPerPixel);
 
-                    final BitParser fBitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
-
-                    while (x < width) {
-                        visit(x, y, bi, fBitParser, pixelIndexInScanline);
-
-                        x += COL_INCREMENT[pass - 1];
-                        pixelIndexInScanline++;
+                    if (y >= region.y && y < region.y + region.height) {
+                        convertPixels(scanline, 0, columnsInRow, row, 0);
+                        int x = startingCol;
+                        for (int i = 0; i < columnsInRow; i++, x += COL_INCREMENT[pass - 1]) {
+                            if (x >= region.x && x < region.x + region.width) {
+                                writePixel(x - region.x, y - region.y, row[i]);
+                            }
+                        }
                     }
+
+                    final byte[] unfiltered = scanline;
+                    scanline = prev;
+                    prev = unfiltered;
+                    hasPrev = true;
                 }
                 y += ROW_INCREMENT[pass - 1];
             }
             pass += 1;
         }
     }
-
-    private void visit(final int x, final int y, final BufferedImage bi, final BitParser fBitParser, final int pixelIndexInScanline)
-            throws ImagingException, IOException {
-        final int rgb = getRgb(fBitParser, pixelIndexInScanline);
-        bi.setRGB(x, y, rgb);
-    }
 }
@@ -16,39 +16,81 @@
  */
 package org.apache.commons.imaging.formats.png;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.RowConsumer;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
 
 final class ScanExpediterSimple extends AbstractScanExpediter {
+    /** Receives each row once it is in the one-row image {@link #bi}, or null if {@link #bi} holds the whole image. */
+    private final RowConsumer rowConsumer;
+    /** The region of the image to decode into {@link #bi}. */
+    private final Rectangle region;
+
     ScanExpediterSimple(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
             final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
             final AbstractTransparencyFilter abstractTransparencyFilter) {
+        this(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter, null, null);
+    }
+
+    /**
+     * @param region      the region of the image to decode, or null for the whole image; {@code bi} has the region's size.
+     * @param rowConsumer receives each row, or null to decode into {@code bi}.
+     */
+    ScanExpediterSimple(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
+            final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
+            final AbstractTransparencyFilter abstractTransparencyFilter, final Rectangle region, final RowConsumer rowConsumer) {
         super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter);
+        this.region = region == null ? new Rectangle(0, 0, width, height) : region;
+        this.rowConsumer = rowConsumer;
     }
 
     @Override
     public void drive() throws ImagingException, IOException {
         final int bitsPerScanLine = bitsPerPixel * width;
         final int pixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerScanLine);
-        byte[] prev = null;
+        final int top = region.y;
+        final int bottom = region.y + region.height;
+        // the scanline being decoded and the previous one, swapped after each row
+        byte[] scanline = Allocator.byteArray(pixelBytesPerScanLine);
+        byte[] prev = Allocator.byteArray(pixelBytesPerScanLine);
+        boolean hasPrev = false;
+        final int[] row = Allocator.intArray(region.width);
 
-        for (int y = 0; y < height; y++) {
-            final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
+        // rows after the region are never inflated.
+        FilterType filterType = readFilterType(is);
+        for (int y = 0; y < bottom; y++) {
+            readScanline(scanline, pixelBytesPerScanLine);
+            final FilterType nextFilterType = y + 1 < bottom ? readFilterType(is) : null;
 
-            prev = unfiltered;
-
-            final BitParser bitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
-
-            for (int x = 0; x < width; x++) {
-                final int rgb = getRgb(bitParser, x);
+            // a row above the region is only unfiltered if the next row is filtered against it.
+            if (y < top && (nextFilterType == null || !nextFilterType.usesPreviousScanline())) {
+                hasPrev = false;
+                filterType = nextFilterType;
+                continue;
+            }
+            filterType.unfilter(scanline, hasPrev ? prev : null, pixelBytesPerScanLine, bytesPerPixel);
+            filterType = nextFilterType;
 
-                bi.setRGB(x, y, rgb);
+            if (y >= top) {
+                final int biY = rowConsumer == null ? y - top : 0;
+                writeRow(scanline, region.x, region.width, biY, row);
+                if (rowConsumer != null) {
+                    bi.getRGB(0, 0, region.width, 1, row, 0, region.width);
+                    rowConsumer.accept(y - top, row);
+                }
             }
+
+            final byte[] unfiltered = scanline;
+            scanline = prev;
+            prev = unfiltered;
+            hasPrev = true;
         }
 
     }
@@ -16,13 +16,16 @@
  */
 package org.apache.commons.imaging.formats.pnm;
 
+import static org.apache.commons.imaging.common.BinaryFunctions.skipBytes;
+
+import java.awt.Rectangle;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 abstract class AbstractFileInfo {
 
@@ -75,6 +78,13 @@ abstract class AbstractFileInfo {
 
     abstract int getNumComponents();
 
+    /**
+     * Gets the length of a row of raw image data.
+     *
+     * @return the number of bytes per row.
+     */
+    abstract long getRawRowLength();
+
     abstract int getRgb(InputStream is) throws IOException;
 
     abstract int getRgb(WhiteSpaceReader wsr) throws IOException;
@@ -85,31 +95,51 @@ abstract class AbstractFileInfo {
         // do nothing by default.
     }
 
-    void readImage(final ImageBuilder imageBuilder, final InputStream is) throws IOException {
+    void readImage(final PixelSink imageBuilder, final InputStream is) throws IOException {
+        readImage(imageBuilder, is, new Rectangle(0, 0, width, height));
+    }
+
+    /**
+     * Reads the pixels within a region of the image into an image builder the size of the region. Raw image data is skipped up to the region's first row,
+     * and no data is read past its last row.
+     *
+     * @param imageBuilder receives the pixels, with coordinates relative to the region.
+     * @param is           the image data.
+     * @param region       the region to read.
+     */
+    void readImage(final PixelSink imageBuilder, final InputStream is, final Rectangle region) throws IOException {
         // is = new BufferedInputStream(is);
         // int count = 0;
         //
         // try
         // {
+        final int right = region.x + region.width;
+        final int bottom = region.y + region.height;
 
         if (!rawBits) {
             final WhiteSpaceReader wsr = new WhiteSpaceReader(is);
 
-            for (int y = 0; y < height; y++) {
+            for (int y = 0; y < bottom; y++) {
+                final boolean inRegion = y >= region.y;
                 for (int x = 0; x < width; x++) {
                     final int rgb = getRgb(wsr);
 
-                    imageBuilder.setRgb(x, y, rgb);
+                    if (inRegion && x >= region.x && x < right) {
+                        imageBuilder.setRgb(x - region.x, y - region.y, rgb);
+                    }
                     // count++;
                 }
                 newline();
             }
         } else {
-            for (int y = 0; y < height; y++) {
+            skipBytes(is, region.y * getRawRowLength(), "PNM: Unexpected EOF");
+            for (int y = region.y; y < bottom; y++) {
                 // System.out.println("y: " + y);
                 for (int x = 0; x < width; x++) {
                     final int rgb = getRgb(is);
-                    imageBuilder.setRgb(x, y, rgb);
+                    if (x >= region.x && x < right) {
+                        imageBuilder.setRgb(x - region.x, y - region.y, rgb);
+                    }
                     // count++;
                 }
                 newline();
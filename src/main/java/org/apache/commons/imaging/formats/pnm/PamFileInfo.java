@@ -171,6 +171,11 @@ final class PamFileInfo extends AbstractFileInfo {
         throw new UnsupportedOperationException("PAM files are only ever binary");
     }
 
+    @Override
+    public long getRawRowLength() {
+        return (long) width * depth * bytesPerSample;
+    }
+
     @Override
     public boolean hasAlpha() {
         return hasAlpha;
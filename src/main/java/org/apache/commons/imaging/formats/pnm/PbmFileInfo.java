@@ -98,6 +98,11 @@ final class PbmFileInfo extends AbstractFileInfo {
         throw new ImagingException("PBM: bad bit: " + bit);
     }
 
+    @Override
+    public long getRawRowLength() {
+        return (width + 7) / 8;
+    }
+
     @Override
     public boolean hasAlpha() {
         return false;
@@ -98,6 +98,11 @@ final class PgmFileInfo extends AbstractFileInfo {
         return (0xff & alpha) << 24 | (0xff & sample) << 16 | (0xff & sample) << 8 | (0xff & sample) << 0;
     }
 
+    @Override
+    public long getRawRowLength() {
+        return (long) width * bytesPerSample;
+    }
+
     @Override
     public boolean hasAlpha() {
         return false;
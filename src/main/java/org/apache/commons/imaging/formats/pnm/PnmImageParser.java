@@ -19,6 +19,7 @@ package org.apache.commons.imaging.formats.pnm;
 import static org.apache.commons.imaging.common.BinaryFunctions.readByte;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +39,8 @@ import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RowConsumer;
+import org.apache.commons.imaging.common.RowImageBuilder;
 import org.apache.commons.imaging.palette.PaletteFactory;
 
 public class PnmImageParser extends AbstractImageParser<PnmImagingParameters> {
@@ -90,6 +93,25 @@ public class PnmImageParser extends AbstractImageParser<PnmImagingParameters> {
         return Integer.parseInt(checkNextTokens(tokenizer, type));
     }
 
+    @Override
+    public void decodeRows(final ByteSource byteSource, final PnmImagingParameters params, final RowConsumer rowConsumer) throws ImagingException, IOException {
+        try (InputStream is = byteSource.getInputStream()) {
+            final AbstractFileInfo info = readHeader(is);
+            final Rectangle region = getRegion(info, params);
+            final RowImageBuilder imageBuilder = new RowImageBuilder(region.width, region.height, info.hasAlpha(), false, rowConsumer);
+            info.readImage(imageBuilder, is, region);
+            imageBuilder.finish();
+        }
+    }
+
+    /**
+     * Gets the region of the image to read, which is the whole image if the parameters set none.
+     */
+    private Rectangle getRegion(final AbstractFileInfo info, final PnmImagingParameters params) throws ImagingException {
+        final Rectangle region = getRegion(params, info.width, info.height);
+        return region == null ? new Rectangle(0, 0, info.width, info.height) : region;
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource) throws ImagingException, IOException {
         pw.println("pnm.dumpImageFile");
@@ -120,13 +142,11 @@ public class PnmImageParser extends AbstractImageParser<PnmImagingParameters> {
     public BufferedImage getBufferedImage(final ByteSource byteSource, final PnmImagingParameters params) throws ImagingException, IOException {
         try (InputStream is = byteSource.getInputStream()) {
             final AbstractFileInfo info = readHeader(is);
-
-            final int width = info.width;
-            final int height = info.height;
+            final Rectangle region = getRegion(info, params);
 
             final boolean hasAlpha = info.hasAlpha();
-            final ImageBuilder imageBuilder = new ImageBuilder(width, height, hasAlpha);
-            info.readImage(imageBuilder, is);
+            final ImageBuilder imageBuilder = new ImageBuilder(region.width, region.height, hasAlpha, false, params);
+            info.readImage(imageBuilder, is, region);
 
             return imageBuilder.getBufferedImage();
         }
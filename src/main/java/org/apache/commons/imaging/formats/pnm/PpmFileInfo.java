@@ -104,6 +104,11 @@ final class PpmFileInfo extends AbstractFileInfo {
         return (0xff & alpha) << 24 | (0xff & red) << 16 | (0xff & green) << 8 | (0xff & blue) << 0;
     }
 
+    @Override
+    public long getRawRowLength() {
+        return 3L * width * bytesPerSample;
+    }
+
     @Override
     public boolean hasAlpha() {
         return false;
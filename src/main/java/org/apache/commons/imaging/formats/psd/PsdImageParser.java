@@ -17,11 +17,13 @@
 package org.apache.commons.imaging.formats.psd;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -139,8 +141,11 @@ public class PsdImageParser extends AbstractImageParser<PsdImagingParameters> im
 
         // transfer_type = DataBuffer.TYPE_BYTE;
 
+        final Rectangle requestedRegion = getRegion(params, width, height);
+        final Rectangle region = requestedRegion == null ? new Rectangle(0, 0, width, height) : requestedRegion;
+
         final boolean hasAlpha = false;
-        final BufferedImage result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
+        final BufferedImage result = getBufferedImageFactory(params).getColorBufferedImage(region.width, region.height, hasAlpha);
 
         final DataParser dataParser;
         switch (imageContents.header.mode) {
@@ -196,7 +201,7 @@ public class PsdImageParser extends AbstractImageParser<PsdImagingParameters> im
         }
 
         try (InputStream is = getInputStream(byteSource, PSD_SECTION_IMAGE_DATA)) {
-            fDataReader.readData(is, result, imageContents, this);
+            fDataReader.readData(is, result, imageContents, this, region);
 
             // is.
             // ImageContents imageContents = readImageContents(is);
@@ -232,52 +237,31 @@ public class PsdImageParser extends AbstractImageParser<PsdImagingParameters> im
     }
 
     private byte[] getData(final ByteSource byteSource, final int section) throws ImagingException, IOException {
-        try (InputStream is = byteSource.getInputStream()) {
-            // PsdHeaderInfo header = readHeader(is);
-            if (section == PSD_SECTION_HEADER) {
-                return BinaryFunctions.readBytes("Header", is, PSD_HEADER_LENGTH, "Not a Valid PSD File");
-            }
-            BinaryFunctions.skipBytes(is, PSD_HEADER_LENGTH);
-
-            final int colorModeDataLength = BinaryFunctions.read4Bytes("ColorModeDataLength", is, "Not a Valid PSD File", getByteOrder());
-
-            if (section == PSD_SECTION_COLOR_MODE) {
-                return BinaryFunctions.readBytes("ColorModeData", is, colorModeDataLength, "Not a Valid PSD File");
-            }
-
-            BinaryFunctions.skipBytes(is, colorModeDataLength);
-            // byte[] ColorModeData = readByteArray("ColorModeData",
-            // ColorModeDataLength, is, "Not a Valid PSD File");
-
-            final int imageResourcesLength = BinaryFunctions.read4Bytes("ImageResourcesLength", is, "Not a Valid PSD File", getByteOrder());
-
-            if (section == PSD_SECTION_IMAGE_RESOURCES) {
-                return BinaryFunctions.readBytes("ImageResources", is, imageResourcesLength, "Not a Valid PSD File");
-            }
-
-            BinaryFunctions.skipBytes(is, imageResourcesLength);
-            // byte[] ImageResources = readByteArray("ImageResources",
-            // ImageResourcesLength, is, "Not a Valid PSD File");
-
-            final int layerAndMaskDataLength = BinaryFunctions.read4Bytes("LayerAndMaskDataLength", is, "Not a Valid PSD File", getByteOrder());
-
-            if (section == PSD_SECTION_LAYER_AND_MASK_DATA) {
-                return BinaryFunctions.readBytes("LayerAndMaskData", is, layerAndMaskDataLength, "Not a Valid PSD File");
-            }
-
-            BinaryFunctions.skipBytes(is, layerAndMaskDataLength);
-            // byte[] LayerAndMaskData = readByteArray("LayerAndMaskData",
-            // LayerAndMaskDataLength, is, "Not a Valid PSD File");
+        // walk the section lengths with positional reads, reusing one small buffer.
+        final ByteBuffer lengthBuffer = ByteBuffer.allocate(4).order(getByteOrder());
+        if (section == PSD_SECTION_HEADER) {
+            return readData(byteSource, 0, PSD_HEADER_LENGTH, "Header");
+        }
+        long position = PSD_HEADER_LENGTH;
 
-            BinaryFunctions.read2Bytes("Compression", is, "Not a Valid PSD File", getByteOrder());
+        final int colorModeDataLength = readLength(byteSource, position, lengthBuffer);
+        position += 4;
+        if (section == PSD_SECTION_COLOR_MODE) {
+            return readData(byteSource, position, colorModeDataLength, "ColorModeData");
+        }
+        position += colorModeDataLength;
 
-            // byte[] ImageData = readByteArray("ImageData",
-            // LayerAndMaskDataLength, is, "Not a Valid PSD File");
+        final int imageResourcesLength = readLength(byteSource, position, lengthBuffer);
+        position += 4;
+        if (section == PSD_SECTION_IMAGE_RESOURCES) {
+            return readData(byteSource, position, imageResourcesLength, "ImageResources");
+        }
+        position += imageResourcesLength;
 
-            // if (section == kPSD_SECTION_IMAGE_DATA)
-            // return readByteArray("LayerAndMaskData", LayerAndMaskDataLength,
-            // is,
-            // "Not a Valid PSD File");
+        final int layerAndMaskDataLength = readLength(byteSource, position, lengthBuffer);
+        position += 4;
+        if (section == PSD_SECTION_LAYER_AND_MASK_DATA) {
+            return readData(byteSource, position, layerAndMaskDataLength, "LayerAndMaskData");
         }
         throw new ImagingException("getInputStream: Unknown Section: " + section);
     }
@@ -496,6 +480,21 @@ public class PsdImageParser extends AbstractImageParser<PsdImagingParameters> im
         return false;
     }
 
+    private byte[] readData(final ByteSource byteSource, final long position, final int length, final String name) throws IOException {
+        if (length < 0 || position + length > byteSource.size()) {
+            throw new IOException("Not a Valid PSD File, name: " + name + ", length: " + length);
+        }
+        return byteSource.getByteArray(position, length);
+    }
+
+    private int readLength(final ByteSource byteSource, final long position, final ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        if (position < 0 || byteSource.read(position, buffer) < 4) {
+            throw new IOException("Not a Valid PSD File");
+        }
+        return buffer.getInt(0);
+    }
+
     private PsdHeaderInfo readHeader(final ByteSource byteSource) throws ImagingException, IOException {
         try (InputStream is = byteSource.getInputStream()) {
             return readHeader(is);
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.psd.dataparsers;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 
@@ -28,16 +29,26 @@ public abstract class DataParser {
     protected abstract int getRgb(int[][][] data, int x, int y, PsdImageContents imageContents);
 
     public final void parseData(final int[][][] data, final BufferedImage bi, final PsdImageContents imageContents) {
-        final DataBuffer buffer = bi.getRaster().getDataBuffer();
-
         final PsdHeaderInfo header = imageContents.header;
-        final int width = header.columns;
-        final int height = header.rows;
+        parseData(data, bi, imageContents, new Rectangle(0, 0, header.columns, header.rows));
+    }
+
+    /**
+     * Converts the pixels within a region of the image into an image the size of the region.
+     *
+     * @param data          the samples of the region's rows, indexed by channel, row within the region and column within the image.
+     * @param bi            receives the pixels, with coordinates relative to the region.
+     * @param imageContents the image contents.
+     * @param region        the region to convert.
+     * @since 1.0-alpha6
+     */
+    public final void parseData(final int[][][] data, final BufferedImage bi, final PsdImageContents imageContents, final Rectangle region) {
+        final DataBuffer buffer = bi.getRaster().getDataBuffer();
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                final int rgb = getRgb(data, x, y, imageContents);
-                buffer.setElem(y * width + x, rgb);
+        for (int y = 0; y < region.height; y++) {
+            for (int x = 0; x < region.width; x++) {
+                final int rgb = getRgb(data, region.x + x, y, imageContents);
+                buffer.setElem(y * region.width + x, rgb);
             }
         }
     }
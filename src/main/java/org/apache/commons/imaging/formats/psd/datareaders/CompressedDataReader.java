@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.psd.datareaders;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -42,11 +43,12 @@ public class CompressedDataReader implements DataReader {
     }
 
     @Override
-    public void readData(final InputStream is, final BufferedImage bi, final PsdImageContents imageContents, final BinaryFileParser bfp)
-            throws ImagingException, IOException {
+    public void readData(final InputStream is, final BufferedImage bi, final PsdImageContents imageContents, final BinaryFileParser bfp,
+            final Rectangle region) throws ImagingException, IOException {
         final PsdHeaderInfo header = imageContents.header;
         final int width = header.columns;
         final int height = header.rows;
+        final int bottom = region.y + region.height;
 
         // this.setDebug(true);
         final int scanlineCount = height * header.channels;
@@ -60,11 +62,18 @@ public class CompressedDataReader implements DataReader {
         final int depth = header.depth;
 
         final int channelCount = dataParser.getBasicChannelsCount();
-        final int[][][] data = new int[Allocator.check(channelCount)][Allocator.check(height)][];
+        final int[][][] data = new int[Allocator.check(channelCount)][Allocator.check(region.height)][];
         // channels[0] =
         for (int channel = 0; channel < channelCount; channel++) {
             for (int y = 0; y < height; y++) {
                 final int index = channel * height + y;
+                if (y < region.y || y >= bottom) {
+                    // scanlines outside the region are skipped without unpacking them.
+                    if (channel < channelCount - 1 || y < region.y) {
+                        BinaryFunctions.skipBytes(is, scanlineByteCounts[index], "PSD: Missing Image Data");
+                    }
+                    continue;
+                }
                 final byte[] packed = BinaryFunctions.readBytes("scanline", is, scanlineByteCounts[index], "PSD: Missing Image Data");
 
                 final byte[] unpacked = PackBits.decompress(packed, width);
@@ -73,12 +82,12 @@ public class CompressedDataReader implements DataReader {
                     // we want all samples to be bytes
                     try (BitsToByteInputStream bbis = new BitsToByteInputStream(mbis, 8)) {
                         final int[] scanline = bbis.readBitsArray(depth, width);
-                        data[channel][y] = scanline;
+                        data[channel][y - region.y] = scanline;
                     }
                 }
             }
         }
-        dataParser.parseData(data, bi, imageContents);
+        dataParser.parseData(data, bi, imageContents, region);
     }
 
 }
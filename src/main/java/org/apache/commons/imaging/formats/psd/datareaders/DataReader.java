@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.psd.datareaders;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
@@ -26,6 +27,24 @@ import org.apache.commons.imaging.formats.psd.PsdImageContents;
 
 public interface DataReader {
 
-    void readData(InputStream is, BufferedImage bi, PsdImageContents imageContents, BinaryFileParser bfp) throws ImagingException, IOException;
+    default void readData(final InputStream is, final BufferedImage bi, final PsdImageContents imageContents, final BinaryFileParser bfp)
+            throws ImagingException, IOException {
+        readData(is, bi, imageContents, bfp, new Rectangle(0, 0, imageContents.header.columns, imageContents.header.rows));
+    }
+
+    /**
+     * Reads the pixels within a region of the image into an image the size of the region.
+     *
+     * @param is            the image data.
+     * @param bi            receives the pixels, with coordinates relative to the region.
+     * @param imageContents the image contents.
+     * @param bfp           the parser, for its byte order.
+     * @param region        the region to read.
+     * @throws ImagingException if the image data is invalid.
+     * @throws IOException      if an I/O error occurs.
+     * @since 1.0-alpha6
+     */
+    void readData(InputStream is, BufferedImage bi, PsdImageContents imageContents, BinaryFileParser bfp, Rectangle region)
+            throws ImagingException, IOException;
 
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.psd.datareaders;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,6 +25,7 @@ import java.nio.ByteOrder;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.BinaryFunctions;
 import org.apache.commons.imaging.formats.psd.PsdHeaderInfo;
 import org.apache.commons.imaging.formats.psd.PsdImageContents;
 import org.apache.commons.imaging.formats.psd.dataparsers.DataParser;
@@ -39,29 +41,45 @@ public class UncompressedDataReader implements DataReader {
     }
 
     @Override
-    public void readData(final InputStream is, final BufferedImage bi, final PsdImageContents imageContents, final BinaryFileParser bfp)
-            throws ImagingException, IOException {
+    public void readData(final InputStream is, final BufferedImage bi, final PsdImageContents imageContents, final BinaryFileParser bfp,
+            final Rectangle region) throws ImagingException, IOException {
         final PsdHeaderInfo header = imageContents.header;
         final int width = header.columns;
         final int height = header.rows;
+        final int bottom = region.y + region.height;
 
         final int channelCount = dataParser.getBasicChannelsCount();
         final int depth = header.depth;
+        // rows of whole bytes can be skipped without decoding them.
+        final boolean skipRows = depth % 8 == 0;
+        final long bytesPerRow = (long) width * depth / 8;
         final MyBitInputStream mbis = new MyBitInputStream(is, ByteOrder.BIG_ENDIAN, false);
         // we want all samples to be bytes
         try (BitsToByteInputStream bbis = new BitsToByteInputStream(mbis, 8)) {
-            final int[][][] data = new int[Allocator.check(channelCount)][Allocator.check(height)][Allocator.check(width)];
+            final int[][][] data = new int[Allocator.check(channelCount)][Allocator.check(region.height)][Allocator.check(width)];
             for (int channel = 0; channel < channelCount; channel++) {
-                for (int y = 0; y < height; y++) {
+                if (skipRows) {
+                    BinaryFunctions.skipBytes(is, region.y * bytesPerRow, "PSD: Missing Image Data");
+                }
+                for (int y = skipRows ? region.y : 0; y < height; y++) {
+                    if (skipRows && y == bottom) {
+                        if (channel < channelCount - 1) {
+                            BinaryFunctions.skipBytes(is, (height - bottom) * bytesPerRow, "PSD: Missing Image Data");
+                        }
+                        break;
+                    }
+                    final boolean inRegion = y >= region.y && y < bottom;
                     for (int x = 0; x < width; x++) {
                         final int b = bbis.readBits(depth);
 
-                        data[channel][y][x] = (byte) b;
+                        if (inRegion) {
+                            data[channel][y - region.y][x] = (byte) b;
+                        }
                     }
                 }
             }
 
-            dataParser.parseData(data, bi, imageContents);
+            dataParser.parseData(data, bi, imageContents, region);
         }
     }
 }
@@ -16,24 +16,47 @@
  */
 package org.apache.commons.imaging.formats.tiff;
 
+import java.nio.ByteBuffer;
 import java.util.Comparator;
 
 public abstract class AbstractTiffElement {
     public abstract static class DataElement extends AbstractTiffElement {
-        private final byte[] data;
+        private final ByteBuffer data;
 
         public DataElement(final long offset, final int length, final byte[] data) {
+            this(offset, length, ByteBuffer.wrap(data));
+        }
+
+        /**
+         * Constructs a data element over a buffer, for example a slice of a memory-mapped byte source, without copying it.
+         *
+         * @param offset the offset of the element in the file.
+         * @param length the length of the element in the file.
+         * @param data   the element bytes, from the buffer position to its limit.
+         */
+        public DataElement(final long offset, final int length, final ByteBuffer data) {
             super(offset, length);
 
-            this.data = data;
+            this.data = data.slice();
         }
 
         public byte[] getData() {
-            return data.clone();
+            final byte[] bytes = new byte[data.remaining()];
+            data.duplicate().get(bytes);
+            return bytes;
+        }
+
+        /**
+         * Gets a read-only view of the element bytes without copying them.
+         *
+         * @return a read-only buffer positioned at zero.
+         */
+        public ByteBuffer getDataBuffer() {
+            return data.asReadOnlyBuffer();
         }
 
         public int getDataLength() {
-            return data.length;
+            return data.remaining();
         }
     }
 
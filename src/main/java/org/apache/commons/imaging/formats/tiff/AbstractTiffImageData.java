@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImagingException;
@@ -35,6 +36,10 @@ public abstract class AbstractTiffImageData {
             super(offset, length, data);
         }
 
+        public Data(final long offset, final int length, final ByteBuffer data) {
+            super(offset, length, data);
+        }
+
         @Override
         public String getElementDescription() {
             return "TIFF image data: " + getDataLength() + " bytes";
@@ -141,7 +146,7 @@ public abstract class AbstractTiffImageData {
         // }
     }
 
-    private static int extractSampleFormat(final TiffDirectory directory) throws ImagingException {
+    static int extractSampleFormat(final TiffDirectory directory) throws ImagingException {
         final short[] sSampleFmt = directory.getFieldValue(TiffTagConstants.TIFF_TAG_SAMPLE_FORMAT, false);
         if (sSampleFmt != null && sSampleFmt.length > 0) {
             return sSampleFmt[0];
@@ -37,6 +37,8 @@ import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RowConsumer;
+import org.apache.commons.imaging.common.RowImageBuilder;
 import org.apache.commons.imaging.common.XmpEmbeddable;
 import org.apache.commons.imaging.common.XmpImagingParameters;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
@@ -44,6 +46,7 @@ import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffEpTagConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffPlanarConfiguration;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.datareaders.DataReaderStrips;
 import org.apache.commons.imaging.formats.tiff.datareaders.ImageDataReader;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreter;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterBiLevel;
@@ -69,7 +72,8 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         // sub-image, but does not have knowledge of the actual
         // dimensions of the image that is being read. This method
         // returns the sub-image specification, if any, and leaves
-        // further tests to the calling module.
+        // further tests to the calling module. A format-neutral region
+        // is read as a sub-image when no sub-image is set.
         if (params != null && params.isSubImageSet()) {
             final int ix0 = params.getSubImageX();
             final int iy0 = params.getSubImageY();
@@ -77,7 +81,7 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
             final int iheight = params.getSubImageHeight();
             return new Rectangle(ix0, iy0, iwidth, iheight);
         }
-        return null;
+        return params == null ? null : params.getRegion();
     }
 
     public List<byte[]> collectRawImageData(final ByteSource byteSource, final TiffImagingParameters params) throws ImagingException, IOException {
@@ -96,6 +100,24 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         return result;
     }
 
+    @Override
+    public void decodeRows(final ByteSource byteSource, TiffImagingParameters params, final RowConsumer rowConsumer) throws ImagingException, IOException {
+        if (params == null) {
+            params = new TiffImagingParameters();
+        }
+        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+        final TiffReader reader = new TiffReader(params.isStrict());
+        // the strips of a whole image are read one at a time as they are decoded, so the directory is read without its image data
+        TiffDirectory directory = reader.readFirstDirectory(byteSource, false, formatCompliance).directories.get(0);
+        if (!directory.hasTiffImageData()) {
+            throw new ImagingException("TIFF does not contain an image.");
+        }
+        if (!directory.imageDataInStrips() || checkForSubImage(params) != null) {
+            directory = reader.readFirstDirectory(byteSource, true, formatCompliance).directories.get(0);
+        }
+        readImage(directory, byteSource, reader.getByteOrder(), params, rowConsumer);
+    }
+
     @Override
     public boolean dumpImageFile(final PrintWriter pw, final ByteSource byteSource) throws ImagingException, IOException {
         try {
@@ -230,135 +252,7 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
 
     protected BufferedImage getBufferedImage(final TiffDirectory directory, final ByteOrder byteOrder, final TiffImagingParameters params)
             throws ImagingException, IOException {
-        final short compressionFieldValue;
-        if (directory.findField(TiffTagConstants.TIFF_TAG_COMPRESSION) != null) {
-            compressionFieldValue = directory.getFieldValue(TiffTagConstants.TIFF_TAG_COMPRESSION);
-        } else {
-            compressionFieldValue = TiffConstants.COMPRESSION_UNCOMPRESSED_1;
-        }
-        final int compression = 0xffff & compressionFieldValue;
-        final int width = directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH);
-        final int height = directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
-
-        final Rectangle subImage = checkForSubImage(params);
-        if (subImage != null) {
-            // Check for valid subimage specification. The following checks
-            // are consistent with BufferedImage.getSubimage()
-            if (subImage.width <= 0) {
-                throw new ImagingException("Negative or zero subimage width.");
-            }
-            if (subImage.height <= 0) {
-                throw new ImagingException("Negative or zero subimage height.");
-            }
-            if (subImage.x < 0 || subImage.x >= width) {
-                throw new ImagingException("Subimage x is outside raster.");
-            }
-            if (subImage.x + subImage.width > width) {
-                throw new ImagingException("Subimage (x+width) is outside raster.");
-            }
-            if (subImage.y < 0 || subImage.y >= height) {
-                throw new ImagingException("Subimage y is outside raster.");
-            }
-            if (subImage.y + subImage.height > height) {
-                throw new ImagingException("Subimage (y+height) is outside raster.");
-            }
-        }
-
-        int samplesPerPixel = 1;
-        final TiffField samplesPerPixelField = directory.findField(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL);
-        if (samplesPerPixelField != null) {
-            samplesPerPixel = samplesPerPixelField.getIntValue();
-        }
-        int[] bitsPerSample = { 1 };
-        int bitsPerPixel = samplesPerPixel;
-        final TiffField bitsPerSampleField = directory.findField(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE);
-        if (bitsPerSampleField != null) {
-            bitsPerSample = bitsPerSampleField.getIntArrayValue();
-            bitsPerPixel = bitsPerSampleField.getIntValueOrArraySum();
-        }
-
-        // int bitsPerPixel = getTagAsValueOrArraySum(entries,
-        // TIFF_TAG_BITS_PER_SAMPLE);
-
-        int predictor = -1;
-        {
-            // dumpOptionalNumberTag(entries, TIFF_TAG_FILL_ORDER);
-            // dumpOptionalNumberTag(entries, TIFF_TAG_FREE_BYTE_COUNTS);
-            // dumpOptionalNumberTag(entries, TIFF_TAG_FREE_OFFSETS);
-            // dumpOptionalNumberTag(entries, TIFF_TAG_ORIENTATION);
-            // dumpOptionalNumberTag(entries, TIFF_TAG_PLANAR_CONFIGURATION);
-            final TiffField predictorField = directory.findField(TiffTagConstants.TIFF_TAG_PREDICTOR);
-            if (null != predictorField) {
-                predictor = predictorField.getIntValueOrArraySum();
-            }
-        }
-
-        if (samplesPerPixel != bitsPerSample.length) {
-            throw new ImagingException("Tiff: samplesPerPixel (" + samplesPerPixel + ")!=fBitsPerSample.length (" + bitsPerSample.length + ")");
-        }
-
-        final int photometricInterpretation = 0xffff & directory.getFieldValue(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION);
-
-        boolean hasAlpha = false;
-        boolean isAlphaPremultiplied = false;
-        if (photometricInterpretation == TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_RGB && samplesPerPixel == 4) {
-            final TiffField extraSamplesField = directory.findField(TiffTagConstants.TIFF_TAG_EXTRA_SAMPLES);
-            if (extraSamplesField == null) {
-                // this state is not defined in the TIFF specification
-                // and so this code will interpret it as meaning that the
-                // proper handling would be ARGB.
-                hasAlpha = true;
-                isAlphaPremultiplied = false;
-            } else {
-                final int extraSamplesValue = extraSamplesField.getIntValue();
-                switch (extraSamplesValue) {
-                case TiffTagConstants.EXTRA_SAMPLE_UNASSOCIATED_ALPHA:
-                    hasAlpha = true;
-                    isAlphaPremultiplied = false;
-                    break;
-                case TiffTagConstants.EXTRA_SAMPLE_ASSOCIATED_ALPHA:
-                    hasAlpha = true;
-                    isAlphaPremultiplied = true;
-                    break;
-                case 0:
-                default:
-                    hasAlpha = false;
-                    isAlphaPremultiplied = false;
-                    break;
-                }
-            }
-        }
-
-        PhotometricInterpreter photometricInterpreter = params == null ? null : params.getCustomPhotometricInterpreter();
-        if (photometricInterpreter == null) {
-            photometricInterpreter = getPhotometricInterpreter(directory, photometricInterpretation, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel,
-                    width, height);
-        }
-
-        // Obtain the planar configuration
-        final TiffField pcField = directory.findField(TiffTagConstants.TIFF_TAG_PLANAR_CONFIGURATION);
-        final TiffPlanarConfiguration planarConfiguration = pcField == null ? TiffPlanarConfiguration.CHUNKY
-                : TiffPlanarConfiguration.lenientValueOf(pcField.getIntValue());
-
-        if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
-            // currently, we support the non-interleaved (non-chunky)
-            // option only in the case of a 24-bit RBG photometric interpreter
-            // and for strips (not for tiles).
-            if (photometricInterpretation != TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_RGB || bitsPerPixel != 24) {
-                throw new ImagingException("For planar configuration 2, only 24 bit RGB is currently supported");
-            }
-            if (null == directory.findField(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS)) {
-                throw new ImagingException("For planar configuration 2, only strips-organization is supported");
-            }
-        }
-
-        final AbstractTiffImageData imageData = directory.getTiffImageData();
-
-        final ImageDataReader dataReader = imageData.getDataReader(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel,
-                width, height, compression, planarConfiguration, byteOrder);
-
-        final ImageBuilder iBuilder = dataReader.readImageData(subImage, hasAlpha, isAlphaPremultiplied);
-        return iBuilder.getBufferedImage();
+        return readImage(directory, null, byteOrder, params, null);
     }
 
     @Override
@@ -858,6 +752,160 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         return new String(bytes, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Decodes the image of a directory, into the returned BufferedImage or, if a row consumer is given, row by row into the consumer. Only whole
+     * strip-organized images are decoded a row at a time, with each strip read from the byte source when the directory was read without its image data;
+     * tiled images and sub-images are decoded as a whole and then delivered.
+     *
+     * @return the image, or null if a row consumer is given.
+     */
+    private BufferedImage readImage(final TiffDirectory directory, final ByteSource byteSource, final ByteOrder byteOrder, final TiffImagingParameters params,
+            final RowConsumer rowConsumer) throws ImagingException, IOException {
+        final short compressionFieldValue;
+        if (directory.findField(TiffTagConstants.TIFF_TAG_COMPRESSION) != null) {
+            compressionFieldValue = directory.getFieldValue(TiffTagConstants.TIFF_TAG_COMPRESSION);
+        } else {
+            compressionFieldValue = TiffConstants.COMPRESSION_UNCOMPRESSED_1;
+        }
+        final int compression = 0xffff & compressionFieldValue;
+        final int width = directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH);
+        final int height = directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
+
+        final Rectangle subImage = checkForSubImage(params);
+        if (subImage != null) {
+            // Check for valid subimage specification. The following checks
+            // are consistent with BufferedImage.getSubimage()
+            if (subImage.width <= 0) {
+                throw new ImagingException("Negative or zero subimage width.");
+            }
+            if (subImage.height <= 0) {
+                throw new ImagingException("Negative or zero subimage height.");
+            }
+            if (subImage.x < 0 || subImage.x >= width) {
+                throw new ImagingException("Subimage x is outside raster.");
+            }
+            if (subImage.x + subImage.width > width) {
+                throw new ImagingException("Subimage (x+width) is outside raster.");
+            }
+            if (subImage.y < 0 || subImage.y >= height) {
+                throw new ImagingException("Subimage y is outside raster.");
+            }
+            if (subImage.y + subImage.height > height) {
+                throw new ImagingException("Subimage (y+height) is outside raster.");
+            }
+        }
+
+        int samplesPerPixel = 1;
+        final TiffField samplesPerPixelField = directory.findField(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL);
+        if (samplesPerPixelField != null) {
+            samplesPerPixel = samplesPerPixelField.getIntValue();
+        }
+        int[] bitsPerSample = { 1 };
+        int bitsPerPixel = samplesPerPixel;
+        final TiffField bitsPerSampleField = directory.findField(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE);
+        if (bitsPerSampleField != null) {
+            bitsPerSample = bitsPerSampleField.getIntArrayValue();
+            bitsPerPixel = bitsPerSampleField.getIntValueOrArraySum();
+        }
+
+        // int bitsPerPixel = getTagAsValueOrArraySum(entries,
+        // TIFF_TAG_BITS_PER_SAMPLE);
+
+        int predictor = -1;
+        {
+            // dumpOptionalNumberTag(entries, TIFF_TAG_FILL_ORDER);
+            // dumpOptionalNumberTag(entries, TIFF_TAG_FREE_BYTE_COUNTS);
+            // dumpOptionalNumberTag(entries, TIFF_TAG_FREE_OFFSETS);
+            // dumpOptionalNumberTag(entries, TIFF_TAG_ORIENTATION);
+            // dumpOptionalNumberTag(entries, TIFF_TAG_PLANAR_CONFIGURATION);
+            final TiffField predictorField = directory.findField(TiffTagConstants.TIFF_TAG_PREDICTOR);
+            if (null != predictorField) {
+                predictor = predictorField.getIntValueOrArraySum();
+            }
+        }
+
+        if (samplesPerPixel != bitsPerSample.length) {
+            throw new ImagingException("Tiff: samplesPerPixel (" + samplesPerPixel + ")!=fBitsPerSample.length (" + bitsPerSample.length + ")");
+        }
+
+        final int photometricInterpretation = 0xffff & directory.getFieldValue(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION);
+
+        boolean hasAlpha = false;
+        boolean isAlphaPremultiplied = false;
+        if (photometricInterpretation == TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_RGB && samplesPerPixel == 4) {
+            final TiffField extraSamplesField = directory.findField(TiffTagConstants.TIFF_TAG_EXTRA_SAMPLES);
+            if (extraSamplesField == null) {
+                // this state is not defined in the TIFF specification
+                // and so this code will interpret it as meaning that the
+                // proper handling would be ARGB.
+                hasAlpha = true;
+                isAlphaPremultiplied = false;
+            } else {
+                final int extraSamplesValue = extraSamplesField.getIntValue();
+                switch (extraSamplesValue) {
+                case TiffTagConstants.EXTRA_SAMPLE_UNASSOCIATED_ALPHA:
+                    hasAlpha = true;
+                    isAlphaPremultiplied = false;
+                    break;
+                case TiffTagConstants.EXTRA_SAMPLE_ASSOCIATED_ALPHA:
+                    hasAlpha = true;
+                    isAlphaPremultiplied = true;
+                    break;
+                case 0:
+                default:
+                    hasAlpha = false;
+                    isAlphaPremultiplied = false;
+                    break;
+                }
+            }
+        }
+
+        PhotometricInterpreter photometricInterpreter = params == null ? null : params.getCustomPhotometricInterpreter();
+        if (photometricInterpreter == null) {
+            photometricInterpreter = getPhotometricInterpreter(directory, photometricInterpretation, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel,
+                    width, height);
+        }
+
+        // Obtain the planar configuration
+        final TiffField pcField = directory.findField(TiffTagConstants.TIFF_TAG_PLANAR_CONFIGURATION);
+        final TiffPlanarConfiguration planarConfiguration = pcField == null ? TiffPlanarConfiguration.CHUNKY
+                : TiffPlanarConfiguration.lenientValueOf(pcField.getIntValue());
+
+        if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
+            // currently, we support the non-interleaved (non-chunky)
+            // option only in the case of a 24-bit RBG photometric interpreter
+            // and for strips (not for tiles).
+            if (photometricInterpretation != TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_RGB || bitsPerPixel != 24) {
+                throw new ImagingException("For planar configuration 2, only 24 bit RGB is currently supported");
+            }
+            if (null == directory.findField(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS)) {
+                throw new ImagingException("For planar configuration 2, only strips-organization is supported");
+            }
+        }
+
+        final AbstractTiffImageData imageData = directory.getTiffImageData();
+
+        if (imageData == null) {
+            final DataReaderStrips dataReader = new DataReaderStrips(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor,
+                    samplesPerPixel, AbstractTiffImageData.extractSampleFormat(directory), width, height, compression, planarConfiguration, byteOrder,
+                    TiffReader.getRowsPerStrip(directory), byteSource, directory.getTiffRawImageDataElements());
+            final RowImageBuilder rowBuilder = new RowImageBuilder(width, height, hasAlpha, isAlphaPremultiplied, rowConsumer);
+            dataReader.readImageData(rowBuilder);
+            rowBuilder.finish();
+            return null;
+        }
+
+        final ImageDataReader dataReader = imageData.getDataReader(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel,
+                width, height, compression, planarConfiguration, byteOrder);
+
+        if (rowConsumer == null) {
+            final ImageBuilder iBuilder = dataReader.readImageData(subImage, hasAlpha, isAlphaPremultiplied);
+            return iBuilder.getBufferedImage();
+        }
+        deliverRows(dataReader.readImageData(subImage, hasAlpha, isAlphaPremultiplied).getBufferedImage(), rowConsumer);
+        return null;
+    }
+
     @Override
     public void writeImage(final BufferedImage src, final OutputStream os, TiffImagingParameters params) throws ImagingException, IOException {
         if (params == null) {
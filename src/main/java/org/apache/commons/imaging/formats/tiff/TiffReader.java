@@ -23,6 +23,7 @@ import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.VE
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
@@ -122,7 +123,12 @@ public class TiffReader extends BinaryFileParser {
         boolean setTiffHeader(TiffHeader tiffHeader);
     }
 
+    private static final int DIRECTORY_BUFFER_SIZE = 4096;
+
     private final boolean strict;
+    // a window of the source reused for all directory entries read by this reader.
+    private final ByteBuffer directoryBuffer = ByteBuffer.allocate(DIRECTORY_BUFFER_SIZE);
+    private long directoryBufferStart = -1;
     private boolean bigTiff;
     private boolean standardTiff;
     private int entryMaxValueLength;
@@ -147,6 +153,33 @@ public class TiffReader extends BinaryFileParser {
         return new JpegImageData(offset, length, data);
     }
 
+    /**
+     * Gets the number of rows in each strip of a strip-organized directory.
+     */
+    static int getRowsPerStrip(final TiffDirectory directory) throws ImagingException {
+        final TiffField rowsPerStripField = directory.findField(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP);
+        //
+        // Default value of rowsPerStripField is assumed to be infinity
+        // https://www.awaresystems.be/imaging/tiff/tifftags/rowsperstrip.html
+        //
+        int rowsPerStrip = Integer.MAX_VALUE;
+
+        if (null != rowsPerStripField) {
+            rowsPerStrip = rowsPerStripField.getIntValue();
+        } else {
+            final TiffField imageHeight = directory.findField(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
+            //
+            // if rows per strip not present then rowsPerStrip is equal to
+            // imageLength or an infinity value;
+            //
+            if (imageHeight != null) {
+                rowsPerStrip = imageHeight.getIntValue();
+            }
+
+        }
+        return rowsPerStrip;
+    }
+
     private ByteOrder getTiffByteOrder(final int byteOrderByte) throws ImagingException {
         if (byteOrderByte == 'I') {
             return ByteOrder.LITTLE_ENDIAN; // Intel
@@ -164,33 +197,13 @@ public class TiffReader extends BinaryFileParser {
 
         for (int i = 0; i < elements.size(); i++) {
             final TiffDirectory.ImageDataElement element = elements.get(i);
-            final byte[] bytes = byteSource.getByteArray(element.offset, element.length);
+            // memory-mapped sources hand back slices here, so strips and tiles stay off-heap until decoded
+            final ByteBuffer bytes = byteSource.getByteBuffer(element.offset, element.length);
             data[i] = new AbstractTiffImageData.Data(element.offset, element.length, bytes);
         }
 
         if (directory.imageDataInStrips()) {
-            final TiffField rowsPerStripField = directory.findField(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP);
-            //
-            // Default value of rowsPerStripField is assumed to be infinity
-            // https://www.awaresystems.be/imaging/tiff/tifftags/rowsperstrip.html
-            //
-            int rowsPerStrip = Integer.MAX_VALUE;
-
-            if (null != rowsPerStripField) {
-                rowsPerStrip = rowsPerStripField.getIntValue();
-            } else {
-                final TiffField imageHeight = directory.findField(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
-                //
-                // if rows per strip not present then rowsPerStrip is equal to
-                // imageLength or an infinity value;
-                //
-                if (imageHeight != null) {
-                    rowsPerStrip = imageHeight.getIntValue();
-                }
-
-            }
-
-            return new AbstractTiffImageData.Strips(data, rowsPerStrip);
+            return new AbstractTiffImageData.Strips(data, getRowsPerStrip(directory));
         }
         final TiffField tileWidthField = directory.findField(TiffTagConstants.TIFF_TAG_TILE_WIDTH);
         if (null == tileWidthField) {
@@ -255,6 +268,8 @@ public class TiffReader extends BinaryFileParser {
     private void readDirectories(final ByteSource byteSource, final FormatCompliance formatCompliance, final Listener listener)
             throws ImagingException, IOException {
         final TiffHeader tiffHeader = readTiffHeader(byteSource);
+        // the reader may be reused with another source.
+        directoryBufferStart = -1;
         if (!listener.setTiffHeader(tiffHeader)) {
             return;
         }
@@ -274,142 +289,146 @@ public class TiffReader extends BinaryFileParser {
         }
         visited.add(directoryOffset);
 
-        try (InputStream is = byteSource.getInputStream()) {
-            if (directoryOffset >= byteSource.size()) {
-                return true;
-            }
-
-            BinaryFunctions.skipBytes(is, directoryOffset);
+        if (directoryOffset >= byteSource.size()) {
+            return true;
+        }
 
-            final List<TiffField> fields = new ArrayList<>();
+        long position = directoryOffset;
+        final List<TiffField> fields = new ArrayList<>();
 
-            final long entryCount;
-            try {
-                if (standardTiff) {
-                    entryCount = BinaryFunctions.read2Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
-                } else {
-                    entryCount = BinaryFunctions.read8Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
-                }
-            } catch (final IOException e) {
-                if (strict) {
-                    throw e;
-                }
-                return true;
+        final long entryCount;
+        try {
+            if (standardTiff) {
+                entryCount = 0xffff & readDirectoryBytes(byteSource, position, 2).getShort();
+                position += 2;
+            } else {
+                entryCount = readDirectoryBytes(byteSource, position, 8).getLong();
+                position += 8;
             }
+        } catch (final IOException e) {
+            if (strict) {
+                throw e;
+            }
+            return true;
+        }
 
-            for (int i = 0; i < entryCount; i++) {
-                final int tag = BinaryFunctions.read2Bytes("Tag", is, "Not a Valid TIFF File", getByteOrder());
-                final int type = BinaryFunctions.read2Bytes("Type", is, "Not a Valid TIFF File", getByteOrder());
-                final long count;
-                final byte[] offsetBytes;
-                final long offset;
-                if (standardTiff) {
-                    count = 0xFFFFffffL & BinaryFunctions.read4Bytes("Count", is, "Not a Valid TIFF File", getByteOrder());
-                    offsetBytes = BinaryFunctions.readBytes("Offset", is, 4, "Not a Valid TIFF File");
-                    offset = 0xFFFFffffL & ByteConversions.toInt(offsetBytes, getByteOrder());
-                } else {
-                    count = BinaryFunctions.read8Bytes("Count", is, "Not a Valid TIFF File", getByteOrder());
-                    offsetBytes = BinaryFunctions.readBytes("Offset", is, 8, "Not a Valid TIFF File");
-                    offset = ByteConversions.toLong(offsetBytes, getByteOrder());
-                }
+        final int entryLength = standardTiff ? 12 : 20;
+        for (int i = 0; i < entryCount; i++) {
+            final ByteBuffer entry = readDirectoryBytes(byteSource, position, entryLength);
+            position += entryLength;
+            final int tag = 0xffff & entry.getShort();
+            final int type = 0xffff & entry.getShort();
+            final long count;
+            final int offsetLength;
+            final long offset;
+            if (standardTiff) {
+                count = 0xFFFFffffL & entry.getInt();
+                offsetLength = 4;
+                offset = 0xFFFFffffL & entry.getInt(entry.position());
+            } else {
+                count = entry.getLong();
+                offsetLength = 8;
+                offset = entry.getLong(entry.position());
+            }
 
-                if (tag == 0) {
-                    // skip invalid fields.
-                    // These are seen very rarely, but can have invalid value
-                    // lengths,
-                    // which can cause OOM problems.
-                    continue;
-                }
+            if (tag == 0) {
+                // skip invalid fields.
+                // These are seen very rarely, but can have invalid value
+                // lengths,
+                // which can cause OOM problems.
+                continue;
+            }
 
-                final AbstractFieldType abstractFieldType;
-                try {
-                    abstractFieldType = AbstractFieldType.getFieldType(type);
-                } catch (final ImagingException imageReadEx) {
-                    // skip over unknown fields types, since we
-                    // can't calculate their size without
-                    // knowing their type
-                    continue;
-                }
-                final long valueLength = count * abstractFieldType.getSize();
-                final byte[] value;
-                if (valueLength > entryMaxValueLength) {
-                    if (offset < 0 || offset + valueLength > byteSource.size()) {
-                        if (strict) {
-                            throw new IOException("Attempt to read byte range starting from " + offset + " " + "of length " + valueLength + " "
-                                    + "which is outside the file's size of " + byteSource.size());
-                        }
-                        // corrupt field, ignore it
-                        continue;
+            final AbstractFieldType abstractFieldType;
+            try {
+                abstractFieldType = AbstractFieldType.getFieldType(type);
+            } catch (final ImagingException imageReadEx) {
+                // skip over unknown fields types, since we
+                // can't calculate their size without
+                // knowing their type
+                continue;
+            }
+            final long valueLength = count * abstractFieldType.getSize();
+            final byte[] value;
+            if (valueLength > entryMaxValueLength) {
+                if (offset < 0 || offset + valueLength > byteSource.size()) {
+                    if (strict) {
+                        throw new IOException("Attempt to read byte range starting from " + offset + " " + "of length " + valueLength + " "
+                                + "which is outside the file's size of " + byteSource.size());
                     }
-                    value = byteSource.getByteArray(offset, (int) valueLength);
-                } else {
-                    value = offsetBytes;
+                    // corrupt field, ignore it
+                    continue;
                 }
+                value = byteSource.getByteArray(offset, (int) valueLength);
+            } else {
+                // the value is stored inline, in place of the offset
+                value = new byte[offsetLength];
+                entry.get(value);
+            }
 
-                final TiffField field = new TiffField(tag, dirType, abstractFieldType, count, offset, value, getByteOrder(), i);
+            final TiffField field = new TiffField(tag, dirType, abstractFieldType, count, offset, value, getByteOrder(), i);
 
-                fields.add(field);
+            fields.add(field);
 
-                if (!listener.addField(field)) {
-                    return true;
-                }
+            if (!listener.addField(field)) {
+                return true;
             }
+        }
 
-            final long nextDirectoryOffset = 0xFFFFffffL & BinaryFunctions.read4Bytes("nextDirectoryOffset", is, "Not a Valid TIFF File", getByteOrder());
+        final long nextDirectoryOffset = 0xFFFFffffL & readDirectoryBytes(byteSource, position, 4).getInt();
 
-            final TiffDirectory directory = new TiffDirectory(dirType, fields, directoryOffset, nextDirectoryOffset, getByteOrder());
+        final TiffDirectory directory = new TiffDirectory(dirType, fields, directoryOffset, nextDirectoryOffset, getByteOrder());
 
-            if (listener.readImageData()) {
-                if (directory.hasTiffImageData()) {
-                    final AbstractTiffImageData rawImageData = getTiffRawImageData(byteSource, directory);
-                    directory.setTiffImageData(rawImageData);
-                }
-                if (directory.hasJpegImageData()) {
-                    final JpegImageData rawJpegImageData = getJpegRawImageData(byteSource, directory);
-                    directory.setJpegImageData(rawJpegImageData);
-                }
+        if (listener.readImageData()) {
+            if (directory.hasTiffImageData()) {
+                final AbstractTiffImageData rawImageData = getTiffRawImageData(byteSource, directory);
+                directory.setTiffImageData(rawImageData);
             }
-
-            if (!listener.addDirectory(directory)) {
-                return true;
+            if (directory.hasJpegImageData()) {
+                final JpegImageData rawJpegImageData = getJpegRawImageData(byteSource, directory);
+                directory.setJpegImageData(rawJpegImageData);
             }
+        }
 
-            if (listener.readOffsetDirectories()) {
-                final TagInfoDirectory[] offsetFields = { ExifTagConstants.EXIF_TAG_EXIF_OFFSET, ExifTagConstants.EXIF_TAG_GPSINFO,
-                        ExifTagConstants.EXIF_TAG_INTEROP_OFFSET };
-                final int[] directoryTypes = { TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, TiffDirectoryConstants.DIRECTORY_TYPE_GPS,
-                        TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY };
-                for (int i = 0; i < offsetFields.length; i++) {
-                    final TagInfoDirectory offsetField = offsetFields[i];
-                    final TiffField field = directory.findField(offsetField);
-                    if (field != null) {
-                        final long subDirectoryOffset;
-                        final int subDirectoryType;
-                        boolean subDirectoryRead = false;
-                        try {
-                            subDirectoryOffset = directory.getFieldValue(offsetField);
-                            subDirectoryType = directoryTypes[i];
-                            subDirectoryRead = readDirectory(byteSource, subDirectoryOffset, subDirectoryType, formatCompliance, listener, true, visited);
-
-                        } catch (final ImagingException imageReadException) {
-                            if (strict) {
-                                throw imageReadException;
-                            }
-                        }
-                        if (!subDirectoryRead) {
-                            fields.remove(field);
+        if (!listener.addDirectory(directory)) {
+            return true;
+        }
+
+        if (listener.readOffsetDirectories()) {
+            final TagInfoDirectory[] offsetFields = { ExifTagConstants.EXIF_TAG_EXIF_OFFSET, ExifTagConstants.EXIF_TAG_GPSINFO,
+                    ExifTagConstants.EXIF_TAG_INTEROP_OFFSET };
+            final int[] directoryTypes = { TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, TiffDirectoryConstants.DIRECTORY_TYPE_GPS,
+                    TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY };
+            for (int i = 0; i < offsetFields.length; i++) {
+                final TagInfoDirectory offsetField = offsetFields[i];
+                final TiffField field = directory.findField(offsetField);
+                if (field != null) {
+                    final long subDirectoryOffset;
+                    final int subDirectoryType;
+                    boolean subDirectoryRead = false;
+                    try {
+                        subDirectoryOffset = directory.getFieldValue(offsetField);
+                        subDirectoryType = directoryTypes[i];
+                        subDirectoryRead = readDirectory(byteSource, subDirectoryOffset, subDirectoryType, formatCompliance, listener, true, visited);
+
+                    } catch (final ImagingException imageReadException) {
+                        if (strict) {
+                            throw imageReadException;
                         }
                     }
+                    if (!subDirectoryRead) {
+                        fields.remove(field);
+                    }
                 }
             }
+        }
 
-            if (!ignoreNextDirectory && directory.getNextDirectoryOffset() > 0) {
-                // Debug.debug("next dir", directory.nextDirectoryOffset );
-                readDirectory(byteSource, directory.getNextDirectoryOffset(), dirType + 1, formatCompliance, listener, visited);
-            }
-
-            return true;
+        if (!ignoreNextDirectory && directory.getNextDirectoryOffset() > 0) {
+            // Debug.debug("next dir", directory.nextDirectoryOffset );
+            readDirectory(byteSource, directory.getNextDirectoryOffset(), dirType + 1, formatCompliance, listener, visited);
         }
+
+        return true;
     }
 
     private boolean readDirectory(final ByteSource byteSource, final long offset, final int dirType, final FormatCompliance formatCompliance,
@@ -418,6 +437,24 @@ public class TiffReader extends BinaryFileParser {
         return readDirectory(byteSource, offset, dirType, formatCompliance, listener, ignoreNextDirectory, visited);
     }
 
+    /**
+     * Gets the directory buffer positioned at {@code position}, with at least {@code length} bytes remaining, refilling it from the source if needed.
+     */
+    private ByteBuffer readDirectoryBytes(final ByteSource byteSource, final long position, final int length) throws IOException {
+        if (directoryBufferStart < 0 || position < directoryBufferStart || position + length > directoryBufferStart + directoryBuffer.limit()) {
+            directoryBuffer.clear();
+            byteSource.read(position, directoryBuffer);
+            directoryBuffer.flip();
+            directoryBufferStart = position;
+            if (directoryBuffer.limit() < length) {
+                throw new IOException("Not a Valid TIFF File");
+            }
+        }
+        directoryBuffer.order(getByteOrder());
+        directoryBuffer.position((int) (position - directoryBufferStart));
+        return directoryBuffer;
+    }
+
     public TiffContents readFirstDirectory(final ByteSource byteSource, final boolean readImageData, final FormatCompliance formatCompliance)
             throws ImagingException, IOException {
         final Collector collector = new FirstDirectoryCollector(readImageData);
@@ -26,7 +26,7 @@ import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
 import org.apache.commons.imaging.formats.tiff.TiffField;
@@ -56,7 +56,7 @@ final class DataInterpreterJpeg {
      * @throws ImagingException in the event of an unsupported feature or JPEG-specific encoding error
      * @throws IOException      in the event of an unrecoverable I/O error
      */
-    static void intepretBlock(final TiffDirectory directory, final ImageBuilder workingBuilder, final int xBlock, final int yBlock, final int blockWidth,
+    static void intepretBlock(final TiffDirectory directory, final PixelSink workingBuilder, final int xBlock, final int yBlock, final int blockWidth,
             final int blockHeight, final byte[] compressed) throws ImagingException, IOException {
         // the data for the block. The TIFF format can store some
         // of the internal JPEG tables in a separate TIFF field (tag) called
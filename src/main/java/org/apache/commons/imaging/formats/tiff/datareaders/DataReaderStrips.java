@@ -19,15 +19,20 @@ package org.apache.commons.imaging.formats.tiff.datareaders;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.COMPRESSION_JPEG;
 
 import java.awt.Rectangle;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Objects;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffImageData;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
+import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
 import org.apache.commons.imaging.formats.tiff.TiffRasterData;
 import org.apache.commons.imaging.formats.tiff.TiffRasterDataFloat;
 import org.apache.commons.imaging.formats.tiff.TiffRasterDataInt;
@@ -51,11 +56,37 @@ public final class DataReaderStrips extends ImageDataReader {
     private int x;
     private int y;
     private final AbstractTiffImageData.Strips imageData;
+    private final ByteSource byteSource;
+    private final List<ImageDataElement> stripElements;
 
     public DataReaderStrips(final TiffDirectory directory, final PhotometricInterpreter photometricInterpreter, final int bitsPerPixel,
             final int[] bitsPerSample, final int predictor, final int samplesPerPixel, final int sampleFormat, final int width, final int height,
             final int compression, final TiffPlanarConfiguration planarConfiguration, final ByteOrder byteOrder, final int rowsPerStrip,
             final AbstractTiffImageData.Strips imageData) {
+        this(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel, sampleFormat, width, height, compression,
+                planarConfiguration, byteOrder, rowsPerStrip, imageData, null, null);
+    }
+
+    /**
+     * Constructs a reader for a directory read without its image data. Each strip is read from the byte source, at the offset and length given by
+     * {@link TiffDirectory#getTiffRawImageDataElements()}, only when the reader reaches it, so at most one strip is held in memory at a time. The byte source
+     * must remain open while the image is read.
+     *
+     * @since 1.0-alpha6
+     */
+    public DataReaderStrips(final TiffDirectory directory, final PhotometricInterpreter photometricInterpreter, final int bitsPerPixel,
+            final int[] bitsPerSample, final int predictor, final int samplesPerPixel, final int sampleFormat, final int width, final int height,
+            final int compression, final TiffPlanarConfiguration planarConfiguration, final ByteOrder byteOrder, final int rowsPerStrip,
+            final ByteSource byteSource, final List<ImageDataElement> stripElements) {
+        this(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor, samplesPerPixel, sampleFormat, width, height, compression,
+                planarConfiguration, byteOrder, rowsPerStrip, null, Objects.requireNonNull(byteSource, "byteSource"),
+                Objects.requireNonNull(stripElements, "stripElements"));
+    }
+
+    private DataReaderStrips(final TiffDirectory directory, final PhotometricInterpreter photometricInterpreter, final int bitsPerPixel,
+            final int[] bitsPerSample, final int predictor, final int samplesPerPixel, final int sampleFormat, final int width, final int height,
+            final int compression, final TiffPlanarConfiguration planarConfiguration, final ByteOrder byteOrder, final int rowsPerStrip,
+            final AbstractTiffImageData.Strips imageData, final ByteSource byteSource, final List<ImageDataElement> stripElements) {
         super(directory, photometricInterpreter, bitsPerSample, predictor, samplesPerPixel, sampleFormat, width, height, planarConfiguration);
 
         this.bitsPerPixel = bitsPerPixel;
@@ -63,10 +94,27 @@ public final class DataReaderStrips extends ImageDataReader {
         this.rowsPerStrip = rowsPerStrip;
         this.planarConfiguration = planarConfiguration;
         this.imageData = imageData;
+        this.byteSource = byteSource;
+        this.stripElements = stripElements;
         this.byteOrder = byteOrder;
     }
 
-    private void interpretStrip(final ImageBuilder imageBuilder, final byte[] bytes, final int pixelsPerStrip, final int yLimit)
+    private int getStripCount() {
+        return imageData != null ? imageData.getImageDataLength() : stripElements.size();
+    }
+
+    /**
+     * Gets the bytes of a strip, from the image data read with the directory or else from the byte source.
+     */
+    private ByteBuffer getStripData(final int strip) throws IOException {
+        if (imageData != null) {
+            return imageData.getImageData(strip).getDataBuffer();
+        }
+        final ImageDataElement element = stripElements.get(strip);
+        return byteSource.getByteBuffer(element.offset, element.length);
+    }
+
+    private void interpretStrip(final PixelSink imageBuilder, final ByteBuffer bytes, final int pixelsPerStrip, final int yLimit)
             throws ImagingException, IOException {
         if (y >= yLimit) {
             return;
@@ -84,7 +132,7 @@ public final class DataReaderStrips extends ImageDataReader {
             x = 0;
             y += nRows;
             final int[] samples = new int[1];
-            final int[] b = unpackFloatingPointSamples(width, i1 - i0, width, bytes, bitsPerPixel, byteOrder);
+            final int[] b = unpackFloatingPointSamples(width, i1 - i0, width, toByteArray(bytes), bitsPerPixel, byteOrder);
 
             for (int i = i0; i < i1; i++) {
                 for (int j = 0; j < width; j++) {
@@ -153,7 +201,7 @@ public final class DataReaderStrips extends ImageDataReader {
             final int[] samples = new int[1];
             for (int i = i0; i < i1; i++) {
                 for (int j = 0; j < width; j++) {
-                    samples[0] = bytes[k++] & 0xff;
+                    samples[0] = bytes.get(k++) & 0xff;
                     photometricInterpreter.interpretPixel(imageBuilder, samples, j, i);
                 }
             }
@@ -169,8 +217,12 @@ public final class DataReaderStrips extends ImageDataReader {
             final int i1 = y + nRows;
             x = 0;
             y += nRows;
+            ByteBuffer block = bytes;
             if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
-                applyPredictorToBlock(width, nRows, samplesPerPixel, bytes);
+                // the predictor works in place, so it needs a copy unless the strip was decompressed into an array of its own
+                final byte[] array = toByteArray(bytes);
+                applyPredictorToBlock(width, nRows, samplesPerPixel, array);
+                block = ByteBuffer.wrap(array);
             }
 
             if (bitsPerPixel == 24) {
@@ -178,7 +230,7 @@ public final class DataReaderStrips extends ImageDataReader {
                 // sign-extended bits get covered by opacity mask
                 for (int i = i0; i < i1; i++) {
                     for (int j = 0; j < width; j++, k += 3) {
-                        final int rgb = 0xff000000 | bytes[k] << 16 | (bytes[k + 1] & 0xff) << 8 | bytes[k + 2] & 0xff;
+                        final int rgb = 0xff000000 | block.get(k) << 16 | (block.get(k + 1) & 0xff) << 8 | block.get(k + 2) & 0xff;
                         imageBuilder.setRgb(j, i, rgb);
                     }
                 }
@@ -187,7 +239,7 @@ public final class DataReaderStrips extends ImageDataReader {
                 // sign-extended bits get shifted up and out of result
                 for (int i = i0; i < i1; i++) {
                     for (int j = 0; j < width; j++, k += 4) {
-                        final int rgb = (bytes[k] & 0xff) << 16 | (bytes[k + 1] & 0xff) << 8 | bytes[k + 2] & 0xff | bytes[k + 3] << 24;
+                        final int rgb = (block.get(k) & 0xff) << 16 | (block.get(k + 1) & 0xff) << 8 | block.get(k + 2) & 0xff | block.get(k + 3) << 24;
                         imageBuilder.setRgb(j, i, rgb);
                     }
                 }
@@ -199,7 +251,7 @@ public final class DataReaderStrips extends ImageDataReader {
         // original code before May 2012 modification
         // this logic will handle all cases not conforming to the
         // special case handled above
-        try (BitInputStream bis = new BitInputStream(new ByteArrayInputStream(bytes), byteOrder)) {
+        try (BitInputStream bis = new BitInputStream(new ByteBufferInputStream(bytes), byteOrder)) {
 
             int[] samples = Allocator.intArray(bitsPerSampleLength);
             resetPredictor();
@@ -266,6 +318,33 @@ public final class DataReaderStrips extends ImageDataReader {
         // to implement bounds checking for a subimage.
         final ImageBuilder workingBuilder = new ImageBuilder(width, workingHeight, hasAlpha, isAlphaPreMultiplied);
 
+        readStrips(workingBuilder, strip0, strip1, y0, yLimit);
+
+        if (subImage.x == 0 && subImage.y == y0 && subImage.width == width && subImage.height == workingHeight) {
+            // the subimage exactly matches the ImageBuilder bounds
+            // so we can return that.
+            return workingBuilder;
+        }
+        return workingBuilder.getSubset(subImage.x, subImage.y - y0, subImage.width, subImage.height);
+    }
+
+    /**
+     * Reads all strips of the image, in order, into the given sink, which must be of the image size. No other image is allocated, so this suits sinks
+     * that don't retain the image, such as a {@link org.apache.commons.imaging.common.RowImageBuilder}.
+     *
+     * @param imageBuilder receives the pixels of the image.
+     * @throws ImagingException in the event of incompatible or malformed data.
+     * @throws IOException      in the event of an I/O error.
+     */
+    public void readImageData(final PixelSink imageBuilder) throws ImagingException, IOException {
+        readStrips(imageBuilder, 0, (height - 1) / rowsPerStrip, 0, height);
+    }
+
+    /**
+     * Reads strips {@code strip0} to {@code strip1} into the image builder, whose row 0 is row {@code y0} of the image.
+     */
+    private void readStrips(final PixelSink imageBuilder, final int strip0, final int strip1, final int y0, final int yLimit)
+            throws ImagingException, IOException {
         // the following statement accounts for cases where planar configuration
         // is not specified and the default (CHUNKY) is assumed.
         final boolean interleaved = planarConfiguration != TiffPlanarConfiguration.PLANAR;
@@ -281,18 +360,19 @@ public final class DataReaderStrips extends ImageDataReader {
                 final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
                 final long pixelsPerStrip = rowsInThisStrip * width;
 
-                final byte[] compressed = imageData.getImageData(strip).getData();
-
                 if (compression == COMPRESSION_JPEG) {
                     final int yBlock = strip * rowsPerStrip;
                     final int yWork = yBlock - y0;
-                    DataInterpreterJpeg.intepretBlock(directory, workingBuilder, 0, yWork, width, (int) rowsInThisStrip, compressed);
+                    final byte[] compressed = toByteArray(getStripData(strip));
+                    DataInterpreterJpeg.intepretBlock(directory, imageBuilder, 0, yWork, width, (int) rowsInThisStrip, compressed);
                     continue;
                 }
 
-                final byte[] decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
+                // uncompressed strips are interpreted straight from their buffer, which is not copied
+                final ByteBuffer compressed = getStripData(strip);
+                final ByteBuffer decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
 
-                interpretStrip(workingBuilder, decompressed, (int) pixelsPerStrip, yLimit);
+                interpretStrip(imageBuilder, decompressed, (int) pixelsPerStrip, yLimit);
             }
         } else {
             // pixel definitions are organized in a 3 separate sections of input
@@ -302,7 +382,7 @@ public final class DataReaderStrips extends ImageDataReader {
             if (compression == COMPRESSION_JPEG) {
                 throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
             }
-            final int nStripsInPlane = imageData.getImageDataLength() / 3;
+            final int nStripsInPlane = getStripCount() / 3;
             for (int strip = strip0; strip <= strip1; strip++) {
                 final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
                 final long rowsRemaining = height - strip * rowsPerStripLong;
@@ -314,24 +394,17 @@ public final class DataReaderStrips extends ImageDataReader {
                 final byte[] b = Allocator.byteArray((int) bytesPerStrip);
                 for (int iPlane = 0; iPlane < 3; iPlane++) {
                     final int planeStrip = iPlane * nStripsInPlane + strip;
-                    final byte[] compressed = imageData.getImageData(planeStrip).getData();
-                    final byte[] decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
+                    final ByteBuffer compressed = getStripData(planeStrip);
+                    final ByteBuffer decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
                     int index = iPlane;
-                    for (final byte element : decompressed) {
-                        b[index] = element;
+                    for (int i = 0; i < decompressed.limit(); i++) {
+                        b[index] = decompressed.get(i);
                         index += 3;
                     }
                 }
-                interpretStrip(workingBuilder, b, (int) pixelsPerStrip, height);
+                interpretStrip(imageBuilder, ByteBuffer.wrap(b), (int) pixelsPerStrip, height);
             }
         }
-
-        if (subImage.x == 0 && subImage.y == y0 && subImage.width == width && subImage.height == workingHeight) {
-            // the subimage exactly matches the ImageBuilder bounds
-            // so we can return that.
-            return workingBuilder;
-        }
-        return workingBuilder.getSubset(subImage.x, subImage.y - y0, subImage.width, subImage.height);
     }
 
     @Override
@@ -382,8 +455,8 @@ public final class DataReaderStrips extends ImageDataReader {
             final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             final int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
-            final byte[] decompressed = decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip);
+            final ByteBuffer compressed = getStripData(strip);
+            final byte[] decompressed = toByteArray(decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip));
 
             final int[] blockData = unpackFloatingPointSamples(width, rowsInThisStrip, width, decompressed, bitsPerPixel, byteOrder);
             transferBlockToRaster(0, yStrip, width, rowsInThisStrip, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
@@ -427,8 +500,8 @@ public final class DataReaderStrips extends ImageDataReader {
             final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             final int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
-            final byte[] decompressed = decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip);
+            final ByteBuffer compressed = getStripData(strip);
+            final byte[] decompressed = toByteArray(decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip));
             final int[] blockData = unpackIntSamples(width, rowsInThisStrip, width, decompressed, predictor, bitsPerPixel, byteOrder);
             transferBlockToRaster(0, yStrip, width, rowsInThisStrip, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
         }
@@ -25,8 +25,8 @@ package org.apache.commons.imaging.formats.tiff.datareaders;
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.COMPRESSION_JPEG;
 
 import java.awt.Rectangle;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImagingException;
@@ -73,7 +73,7 @@ public final class DataReaderTiled extends ImageDataReader {
         this.byteOrder = byteOrder;
     }
 
-    private void interpretTile(final ImageBuilder imageBuilder, final byte[] bytes, final int startX, final int startY, final int xLimit, final int yLimit)
+    private void interpretTile(final ImageBuilder imageBuilder, final ByteBuffer bytes, final int startX, final int startY, final int xLimit, final int yLimit)
             throws ImagingException, IOException {
 
         // March 2020 change to handle floating-point with compression
@@ -97,7 +97,7 @@ public final class DataReaderTiled extends ImageDataReader {
                 j1 = xLimit;
             }
             final int[] samples = new int[4];
-            final int[] b = unpackFloatingPointSamples(j1 - j0, i1 - i0, tileWidth, bytes, bitsPerPixel, byteOrder);
+            final int[] b = unpackFloatingPointSamples(j1 - j0, i1 - i0, tileWidth, toByteArray(bytes), bitsPerPixel, byteOrder);
             for (int i = i0; i < i1; i++) {
                 final int row = i - startY;
                 final int rowOffset = row * tileWidth;
@@ -134,8 +134,12 @@ public final class DataReaderTiled extends ImageDataReader {
                 j1 = xLimit;
             }
 
+            ByteBuffer block = bytes;
             if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
-                applyPredictorToBlock(tileWidth, i1 - startY, samplesPerPixel, bytes);
+                // the predictor works in place, so it needs a copy unless the tile was decompressed into an array of its own
+                final byte[] array = toByteArray(bytes);
+                applyPredictorToBlock(tileWidth, i1 - startY, samplesPerPixel, array);
+                block = ByteBuffer.wrap(array);
             }
 
             if (bitsPerPixel == 24) {
@@ -144,7 +148,7 @@ public final class DataReaderTiled extends ImageDataReader {
                 for (int i = startY; i < i1; i++) {
                     int k = (i - startY) * tileWidth * 3;
                     for (int j = startX; j < j1; j++, k += 3) {
-                        final int rgb = 0xff000000 | bytes[k] << 16 | (bytes[k + 1] & 0xff) << 8 | bytes[k + 2] & 0xff;
+                        final int rgb = 0xff000000 | block.get(k) << 16 | (block.get(k + 1) & 0xff) << 8 | block.get(k + 2) & 0xff;
                         imageBuilder.setRgb(j, i, rgb);
                     }
                 }
@@ -154,7 +158,7 @@ public final class DataReaderTiled extends ImageDataReader {
                 for (int i = startY; i < i1; i++) {
                     int k = (i - startY) * tileWidth * 4;
                     for (int j = startX; j < j1; j++, k += 4) {
-                        final int rgb = (bytes[k] & 0xff) << 16 | (bytes[k + 1] & 0xff) << 8 | bytes[k + 2] & 0xff | bytes[k + 3] << 24;
+                        final int rgb = (block.get(k) & 0xff) << 16 | (block.get(k + 1) & 0xff) << 8 | block.get(k + 2) & 0xff | block.get(k + 3) << 24;
                         imageBuilder.setRgb(j, i, rgb);
                     }
                 }
@@ -164,7 +168,7 @@ public final class DataReaderTiled extends ImageDataReader {
         }
 
         // End of May 2012 changes
-        try (BitInputStream bis = new BitInputStream(new ByteArrayInputStream(bytes), byteOrder)) {
+        try (BitInputStream bis = new BitInputStream(new ByteBufferInputStream(bytes), byteOrder)) {
 
             final int pixelsPerTile = tileWidth * tileLength;
 
@@ -245,7 +249,6 @@ public final class DataReaderTiled extends ImageDataReader {
         for (int iRow = row0; iRow <= row1; iRow++) {
             for (int iCol = col0; iCol <= col1; iCol++) {
                 final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
                 final int x = iCol * tileWidth - x0;
                 final int y = iRow * tileLength - y0;
                 // Handle JPEG based compression
@@ -253,11 +256,14 @@ public final class DataReaderTiled extends ImageDataReader {
                     if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
                         throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
                     }
+                    final byte[] compressed = imageData.tiles[tile].getData();
                     DataInterpreterJpeg.intepretBlock(directory, workingBuilder, x, y, tileWidth, tileLength, compressed);
                     continue;
                 }
 
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+                // uncompressed tiles are interpreted straight from the buffer of the element, which is not copied
+                final ByteBuffer compressed = imageData.tiles[tile].getDataBuffer();
+                final ByteBuffer decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
 
                 interpretTile(workingBuilder, decompressed, x, y, width, height);
             }
@@ -315,8 +321,8 @@ public final class DataReaderTiled extends ImageDataReader {
         for (int iRow = row0; iRow <= row1; iRow++) {
             for (int iCol = col0; iCol <= col1; iCol++) {
                 final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+                final ByteBuffer compressed = imageData.tiles[tile].getDataBuffer();
+                final byte[] decompressed = toByteArray(decompress(compressed, compression, bytesPerTile, tileWidth, tileLength));
                 final int x = iCol * tileWidth;
                 final int y = iRow * tileLength;
 
@@ -361,8 +367,8 @@ public final class DataReaderTiled extends ImageDataReader {
         for (int iRow = row0; iRow <= row1; iRow++) {
             for (int iCol = col0; iCol <= col1; iCol++) {
                 final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+                final ByteBuffer compressed = imageData.tiles[tile].getDataBuffer();
+                final byte[] decompressed = toByteArray(decompress(compressed, compression, bytesPerTile, tileWidth, tileLength));
                 final int x = iCol * tileWidth;
                 final int y = iRow * tileLength;
                 final int[] blockData = unpackIntSamples(tileWidth, tileLength, tileWidth, decompressed, predictor, bitsPerPixel, byteOrder);
@@ -20,6 +20,7 @@ import java.awt.Rectangle;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
@@ -28,6 +29,7 @@ import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.PackBits;
 import org.apache.commons.imaging.common.ZlibDeflate;
+import org.apache.commons.imaging.formats.tiff.AbstractTiffElement;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory;
 import org.apache.commons.imaging.formats.tiff.TiffField;
 import org.apache.commons.imaging.formats.tiff.TiffRasterData;
@@ -184,13 +186,31 @@ public abstract class ImageDataReader {
         }
     }
 
-    protected byte[] decompress(final byte[] compressedInput, final int compression, final int expectedSize, final int tileWidth, final int tileHeight)
+    /**
+     * Decompresses a strip or tile held in a buffer, such as the one returned by {@link AbstractTiffElement.DataElement#getDataBuffer()}. Uncompressed data in
+     * the normal fill order is returned as a view of that buffer rather than copied, so callers must not modify the result; other data is decompressed as by
+     * {@link #decompress(byte[], int, int, int, int)}.
+     *
+     * @param compressedInput the strip or tile bytes, from the buffer position to its limit.
+     * @param compression     the TIFF compression scheme.
+     * @param expectedSize    the decompressed size in bytes.
+     * @param tileWidth       the width of the strip or tile in pixels.
+     * @param tileHeight      the height of the strip or tile in pixels.
+     * @return the decompressed bytes, positioned at zero.
+     * @throws ImagingException in the event of incompatible or malformed data.
+     * @throws IOException      in the event of an I/O error.
+     */
+    protected ByteBuffer decompress(final ByteBuffer compressedInput, final int compression, final int expectedSize, final int tileWidth, final int tileHeight)
             throws ImagingException, IOException {
-        final TiffField fillOrderField = directory.findField(TiffTagConstants.TIFF_TAG_FILL_ORDER);
-        int fillOrder = TiffTagConstants.FILL_ORDER_VALUE_NORMAL;
-        if (fillOrderField != null) {
-            fillOrder = fillOrderField.getIntValue();
+        if (compression == TiffConstants.COMPRESSION_UNCOMPRESSED && getFillOrder() == TiffTagConstants.FILL_ORDER_VALUE_NORMAL) {
+            return compressedInput.slice();
         }
+        return ByteBuffer.wrap(decompress(toByteArray(compressedInput), compression, expectedSize, tileWidth, tileHeight));
+    }
+
+    protected byte[] decompress(final byte[] compressedInput, final int compression, final int expectedSize, final int tileWidth, final int tileHeight)
+            throws ImagingException, IOException {
+        final int fillOrder = getFillOrder();
         final byte[] compressedOrdered; // re-ordered bytes (if necessary)
         if (fillOrder == TiffTagConstants.FILL_ORDER_VALUE_NORMAL) {
             compressedOrdered = compressedInput;
@@ -262,6 +282,14 @@ public abstract class ImageDataReader {
         }
     }
 
+    private int getFillOrder() throws ImagingException {
+        final TiffField fillOrderField = directory.findField(TiffTagConstants.TIFF_TAG_FILL_ORDER);
+        if (fillOrderField != null) {
+            return fillOrderField.getIntValue();
+        }
+        return TiffTagConstants.FILL_ORDER_VALUE_NORMAL;
+    }
+
     /**
      * Reads samples and returns them in an int array.
      *
@@ -329,6 +357,22 @@ public abstract class ImageDataReader {
         Arrays.fill(last, 0);
     }
 
+    /**
+     * Gets the bytes of a buffer, from its position to its limit, as an array the caller may modify. The array backing a writable buffer that holds exactly
+     * those bytes, such as a decompressed strip, is returned as is; the bytes of any other buffer are copied.
+     *
+     * @param buffer the buffer.
+     * @return the bytes.
+     */
+    protected static byte[] toByteArray(final ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
     /**
      * Transfer samples obtained from the TIFF file to a floating-point raster.
      *
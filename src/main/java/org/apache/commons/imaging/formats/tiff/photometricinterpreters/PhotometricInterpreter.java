@@ -20,7 +20,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 /**
  * Interpreter for photometric information in TIFF images. The photometric interpretation tag is a requirement for valid TIFF images, and defines the color
@@ -48,5 +48,5 @@ public abstract class PhotometricInterpreter {
         return bitsPerSample[offset];
     }
 
-    public abstract void interpretPixel(ImageBuilder imageBuilder, int[] samples, int x, int y) throws ImagingException, IOException;
+    public abstract void interpretPixel(PixelSink imageBuilder, int[] samples, int x, int y) throws ImagingException, IOException;
 }
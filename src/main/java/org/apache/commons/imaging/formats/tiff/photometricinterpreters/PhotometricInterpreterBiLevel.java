@@ -19,7 +19,7 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 public class PhotometricInterpreterBiLevel extends PhotometricInterpreter {
     private final boolean invert;
@@ -35,7 +35,7 @@ public class PhotometricInterpreterBiLevel extends PhotometricInterpreter {
     }
 
     @Override
-    public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
+    public void interpretPixel(final PixelSink imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         int sample = samples[0];
 
         if (invert) {
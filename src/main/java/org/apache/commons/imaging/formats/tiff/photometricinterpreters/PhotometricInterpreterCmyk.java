@@ -20,7 +20,7 @@ import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.color.ColorConversions;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 public class PhotometricInterpreterCmyk extends PhotometricInterpreter {
     public PhotometricInterpreterCmyk(final int samplesPerPixel, final int[] bitsPerSample, final int predictor, final int width, final int height) {
@@ -28,7 +28,7 @@ public class PhotometricInterpreterCmyk extends PhotometricInterpreter {
     }
 
     @Override
-    public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
+    public void interpretPixel(final PixelSink imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
 
         final int sc = samples[0];
         final int sm = samples[1];
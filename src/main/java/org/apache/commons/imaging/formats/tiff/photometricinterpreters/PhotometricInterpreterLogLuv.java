@@ -19,7 +19,7 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 /**
  * Photometric interpretation Logluv support. Logluv is an encoding for storing data inside TIFF images.
@@ -148,7 +148,7 @@ public class PhotometricInterpreterLogLuv extends PhotometricInterpreter {
     }
 
     @Override
-    public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
+    public void interpretPixel(final PixelSink imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         if (samples == null || samples.length != 3) {
             throw new ImagingException("Invalid length of bits per sample (expected 3).");
         }
@@ -23,7 +23,7 @@ import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.ImagingFormatException;
 import org.apache.commons.imaging.common.AllocationRequestException;
 import org.apache.commons.imaging.common.Allocator;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 public class PhotometricInterpreterPalette extends PhotometricInterpreter {
 
@@ -92,7 +92,7 @@ public class PhotometricInterpreterPalette extends PhotometricInterpreter {
     }
 
     @Override
-    public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
+    public void interpretPixel(final PixelSink imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         imageBuilder.setRgb(x, y, indexColorMap[samples[0] & bitsPerPixelMask]);
     }
 }
@@ -19,7 +19,7 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 public class PhotometricInterpreterRgb extends PhotometricInterpreter {
     public PhotometricInterpreterRgb(final int samplesPerPixel, final int[] bitsPerSample, final int predictor, final int width, final int height) {
@@ -27,7 +27,7 @@ public class PhotometricInterpreterRgb extends PhotometricInterpreter {
     }
 
     @Override
-    public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
+    public void interpretPixel(final PixelSink imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         final int red = samples[0];
         final int green = samples[1];
         final int blue = samples[2];
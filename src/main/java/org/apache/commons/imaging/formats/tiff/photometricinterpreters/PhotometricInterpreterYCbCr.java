@@ -19,7 +19,7 @@ package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 import java.io.IOException;
 
 import org.apache.commons.imaging.ImagingException;
-import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.common.PixelSink;
 
 public class PhotometricInterpreterYCbCr extends PhotometricInterpreter {
 
@@ -56,7 +56,7 @@ public class PhotometricInterpreterYCbCr extends PhotometricInterpreter {
     }
 
     @Override
-    public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
+    public void interpretPixel(final PixelSink imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         final int Y = samples[0];
         final int cb = samples[1];
         final int cr = samples[2];
@@ -71,7 +71,9 @@ public class IccProfileParser extends BinaryFileParser {
             return null;
         }
 
-        return getIccProfileInfo(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return getIccProfileInfo(byteSource);
+        }
     }
 
     public IccProfileInfo getIccProfileInfo(final ICC_Profile iccProfile) throws IOException {
@@ -131,7 +133,9 @@ public class IccProfileParser extends BinaryFileParser {
     }
 
     public boolean isSrgb(final File file) throws IOException {
-        return isSrgb(ByteSource.file(file));
+        try (ByteSource byteSource = ByteSource.file(file)) {
+            return isSrgb(byteSource);
+        }
     }
 
     public boolean isSrgb(final ICC_Profile iccProfile) throws IOException {
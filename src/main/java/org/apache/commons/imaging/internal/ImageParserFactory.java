@@ -17,6 +17,10 @@
 package org.apache.commons.imaging.internal;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -29,11 +33,29 @@ import org.apache.commons.imaging.bytesource.ByteSource;
 
 /**
  * Internal utilities.
+ * <p>
+ * Parsers hold no per-image state, so one shared instance of each is created once and reused by every lookup, from any thread.
+ * </p>
  *
  * @since 1.0-alpha3
  */
 public final class ImageParserFactory {
 
+    private static final List<AbstractImageParser<?>> IMAGE_PARSERS = Collections.unmodifiableList(AbstractImageParser.getAllImageParsers());
+
+    private static final Map<ImageFormats, AbstractImageParser<?>> IMAGE_PARSERS_BY_FORMAT = new EnumMap<>(ImageFormats.class);
+
+    static {
+        for (final ImageFormats format : ImageFormats.values()) {
+            for (final AbstractImageParser<?> parser : IMAGE_PARSERS) {
+                if (parser.canAcceptType(format)) {
+                    IMAGE_PARSERS_BY_FORMAT.put(format, parser);
+                    break;
+                }
+            }
+        }
+    }
+
     public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final ByteSource byteSource) throws IOException {
         // TODO: circular dependency between Imaging and internal Util class below.
         final ImageFormat format = Imaging.guessFormat(byteSource);
@@ -49,7 +71,15 @@ public final class ImageParserFactory {
         throw new IllegalArgumentException("Can't parse this format.");
     }
 
+    @SuppressWarnings("unchecked")
     public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final ImageFormat format) {
+        if (format instanceof ImageFormats) {
+            final AbstractImageParser<?> parser = IMAGE_PARSERS_BY_FORMAT.get(format);
+            if (parser == null) {
+                throw new IllegalArgumentException("Unknown ImageFormat: " + format);
+            }
+            return (AbstractImageParser<T>) parser;
+        }
         return getImageParser(parser -> parser.canAcceptType(format), () -> new IllegalArgumentException("Unknown ImageFormat: " + format));
     }
 
@@ -58,13 +88,23 @@ public final class ImageParserFactory {
     @SuppressWarnings("unchecked")
     private static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final Predicate<AbstractImageParser<?>> pred,
             final Supplier<? extends RuntimeException> supplier) {
-        return (AbstractImageParser<T>) AbstractImageParser.getAllImageParsers().stream().filter(pred).findFirst().orElseThrow(supplier);
+        return (AbstractImageParser<T>) IMAGE_PARSERS.stream().filter(pred).findFirst().orElseThrow(supplier);
     }
 
     public static <T extends ImagingParameters<T>> AbstractImageParser<T> getImageParser(final String fileExtension) {
         return getImageParser(parser -> parser.canAcceptExtension(fileExtension), () -> new IllegalArgumentException("Unknown extension: " + fileExtension));
     }
 
+    /**
+     * Gets the shared instances of all image parsers.
+     *
+     * @return an unmodifiable list of image parsers, in the order of {@link AbstractImageParser#getAllImageParsers()}.
+     * @since 1.0-alpha6
+     */
+    public static List<AbstractImageParser<?>> getImageParsers() {
+        return IMAGE_PARSERS;
+    }
+
     private ImageParserFactory() {
     }
 }
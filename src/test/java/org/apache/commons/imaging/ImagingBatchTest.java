@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.AllocationRequestException;
+import org.apache.commons.imaging.common.Allocator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ImagingBatchTest {
+
+    private ExecutorService executor;
+
+    private static List<ByteSource> images(final int count) throws Exception {
+        final List<ByteSource> byteSources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final BufferedImage image = new BufferedImage(10 + i, 20, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(i, 0, 0xffffff);
+            byteSources.add(ByteSource.array(Imaging.writeImageToBytes(image, ImageFormats.PNG), "image" + i + ".png"));
+        }
+        return byteSources;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDirectExecutor() throws Exception {
+        final List<ByteSource> byteSources = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            byteSources.add(ByteSource.array(new byte[0], "source" + i));
+        }
+        // completions run on the submitting thread, and must not recurse into the next submission.
+        assertEquals(100_000, new ImagingBatch(Runnable::run, 4).run(byteSources, ByteSource::getFileName).filter(ImagingBatch.Result::isSuccess).count());
+    }
+
+    @Test
+    public void testFailuresDoNotStopBatch() throws Exception {
+        final List<ByteSource> byteSources = images(3);
+        byteSources.add(ByteSource.array(new byte[] { 1, 2, 3, 4 }, "garbage.bin"));
+        final List<ImagingBatch.Result<ImageInfo>> results = new ImagingBatch(executor, 2).getImageInfos(byteSources).collect(Collectors.toList());
+        assertEquals(4, results.size());
+        assertEquals(3, results.stream().filter(ImagingBatch.Result::isSuccess).count());
+        final ImagingBatch.Result<ImageInfo> failed = results.stream().filter(result -> !result.isSuccess()).findFirst().get();
+        assertEquals("garbage.bin", failed.getByteSource().getFileName());
+        assertNull(failed.getValue());
+    }
+
+    @Test
+    public void testGetBufferedImages() throws Exception {
+        final List<ByteSource> byteSources = images(8);
+        final Map<String, BufferedImage> images = new ImagingBatch(executor, 3).getBufferedImages(byteSources)
+                .collect(Collectors.toMap(result -> result.getByteSource().getFileName(), ImagingBatch.Result::getValue));
+        assertEquals(8, images.size());
+        for (int i = 0; i < 8; i++) {
+            final BufferedImage image = images.get("image" + i + ".png");
+            assertEquals(10 + i, image.getWidth());
+            assertEquals(0xffffff, image.getRGB(i, 0) & 0xffffff);
+        }
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicLong inUse = new AtomicLong();
+        final AtomicLong maxInUse = new AtomicLong();
+        final ImagingBatch.Operation<Integer> operation = new ImagingBatch.Operation<Integer>() {
+
+            @Override
+            public Integer apply(final ByteSource byteSource) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                maxInUse.accumulateAndGet(inUse.addAndGet(byteSource.getFileName().length()), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inUse.addAndGet(-byteSource.getFileName().length());
+                running.decrementAndGet();
+                return byteSource.getFileName().length();
+            }
+
+            @Override
+            public long estimateMemory(final ByteSource byteSource) {
+                return byteSource.getFileName().length();
+            }
+        };
+        final List<ByteSource> byteSources = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            byteSources.add(ByteSource.array(new byte[0], new String(new char[i % 5 + 1]).replace('\0', 'x')));
+        }
+        // larger than the budget, so runs alone.
+        byteSources.add(ByteSource.array(new byte[0], "xxxxxxxxxxxx"));
+
+        final ImagingBatch batch = new ImagingBatch(executor, 3, 8);
+        assertEquals(21, batch.run(byteSources, operation).filter(ImagingBatch.Result::isSuccess).count());
+        assertTrue(maxRunning.get() <= 3);
+        assertTrue(maxInUse.get() <= 12, () -> "max in use " + maxInUse);
+    }
+
+    @Test
+    public void testOverAllocatorLimit() throws Exception {
+        final ImagingBatch.Result<Object> result = new ImagingBatch(executor, 1).run(images(1), new ImagingBatch.Operation<Object>() {
+
+            @Override
+            public Object apply(final ByteSource byteSource) {
+                return byteSource;
+            }
+
+            @Override
+            public long estimateMemory(final ByteSource byteSource) {
+                return Allocator.getLimit() + 1L;
+            }
+        }).findFirst().get();
+        assertFalse(result.isSuccess());
+        assertInstanceOf(AllocationRequestException.class, result.getFailure());
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.internal.ImageParserFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ImagingDecodeRowsTest extends AbstractImagingTest {
+
+    private static final Set<ImageFormats> FORMATS = EnumSet.of(ImageFormats.BMP, ImageFormats.GIF, ImageFormats.PAM, ImageFormats.PBM, ImageFormats.PCX,
+            ImageFormats.PGM, ImageFormats.PNG, ImageFormats.PNM, ImageFormats.PPM, ImageFormats.TIFF);
+
+    public static Stream<File> images() throws Exception {
+        return getTestImages(file -> FORMATS.contains(Imaging.guessFormat(file))
+                && !(file.getParentFile().getName().equalsIgnoreCase("pngsuite") && file.getName().toLowerCase().startsWith("x"))).stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("images")
+    public void testDecodeRows(final File file) throws Exception {
+        final BufferedImage expected = Imaging.getBufferedImage(file);
+        final int width = expected.getWidth();
+        final int[][] rows = new int[expected.getHeight()][];
+
+        ImageParserFactory.getImageParser(Imaging.guessFormat(file)).decodeRows(ByteSource.file(file), null, (y, argb) -> {
+            assertNull(rows[y], "row delivered twice");
+            rows[y] = argb.clone();
+        });
+
+        final int[] row = new int[width];
+        for (int y = 0; y < rows.length; y++) {
+            assertNotNull(rows[y], "row not delivered");
+            expected.getRGB(0, y, width, 1, row, 0, width);
+            assertArrayEquals(row, rows[y], "row " + y);
+        }
+    }
+}
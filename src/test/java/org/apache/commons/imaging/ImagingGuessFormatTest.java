@@ -18,12 +18,15 @@
 package org.apache.commons.imaging;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -60,6 +63,30 @@ public class ImagingGuessFormatTest extends AbstractImagingTest {
                 new Object[] { ImageFormats.UNKNOWN, UNKNOWN_IMAGE_FILE }).stream();
     }
 
+    public static Stream<Object[]> magicNumbers() {
+        return Stream.of(new Object[] { ImageFormats.JBIG2, new byte[] { (byte) 0x97, 0x4A, 0x42, 0x32 } },
+                new Object[] { ImageFormats.UNKNOWN, new byte[] { (byte) 0x97, 0x4A, 0x42, 0x33 } },
+                new Object[] { ImageFormats.WEBP, new byte[] { 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P' } },
+                new Object[] { ImageFormats.UNKNOWN, new byte[] { 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'A', 'V', 'E' } },
+                new Object[] { ImageFormats.UNKNOWN, new byte[] { 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W' } },
+                new Object[] { ImageFormats.PPM, new byte[] { 'P', '6' } },
+                new Object[] { ImageFormats.UNKNOWN, new byte[] { 'P', '9' } });
+    }
+
+    @Test
+    public void testGuessFormatTooShort() {
+        assertThrows(IllegalArgumentException.class, () -> Imaging.guessFormat(new byte[] { 'P' }));
+        assertThrows(IllegalArgumentException.class, () -> Imaging.guessFormat(new byte[] { (byte) 0x97, 0x4A, 0x42 }));
+        assertThrows(IllegalArgumentException.class, () -> Imaging.guessFormat(new byte[] { 'R', 'I', 'F', 'F', 0, 0 }));
+    }
+
+    @ParameterizedTest
+    @MethodSource("magicNumbers")
+    public void testGuessFormatFromMagicNumbers(final ImageFormats expectedFormat, final byte[] bytes) throws Exception {
+        assertEquals(expectedFormat, Imaging.guessFormat(bytes));
+        assertEquals(expectedFormat, Imaging.guessFormat(ByteSource.array(bytes, "image.bin")));
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     public void testGuessFormat(final ImageFormats expectedFormat, final String pathToFile) throws Exception {
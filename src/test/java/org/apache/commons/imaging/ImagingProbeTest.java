@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.stream.Stream;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ImagingProbeTest {
+
+    public static Stream<ImageFormats> formats() {
+        return Stream.of(ImageFormats.BMP, ImageFormats.GIF, ImageFormats.PNG, ImageFormats.PPM, ImageFormats.TIFF);
+    }
+
+    private static void assertProbe(final ImageInfo expected, final ImageProbe probe) {
+        assertEquals(expected.getFormat(), probe.getFormat());
+        assertEquals(expected.getWidth(), probe.getWidth());
+        assertEquals(expected.getHeight(), probe.getHeight());
+        assertEquals(expected.getBitsPerPixel(), probe.getBitsPerPixel());
+        assertEquals(expected.getNumberOfImages(), probe.getNumberOfImages());
+    }
+
+    @ParameterizedTest
+    @MethodSource("formats")
+    public void testProbe(final ImageFormats format) throws Exception {
+        final BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 5, 0xff8040);
+        final byte[] bytes = Imaging.writeImageToBytes(image, format);
+        final ImageInfo expected = Imaging.getImageInfo(bytes);
+
+        assertProbe(expected, Imaging.probe(ByteSource.array(bytes)));
+        // headers beyond the prefix are read from the source.
+        assertProbe(expected, Imaging.probe(ByteSource.array(bytes), 4));
+        assertProbe(expected, Imaging.probe(ByteSource.array(bytes), 0));
+        assertProbe(expected, Imaging.probe(ByteSource.array(bytes), 4, false));
+    }
+
+    @Test
+    public void testProbeMetadata() throws Exception {
+        final File file = new File(ImagingProbeTest.class.getResource("/images/png/IMAGING-340/image-with-exif.png").toURI());
+        final ImageProbe probe = Imaging.probe(ByteSource.file(file), 64);
+        assertProbe(Imaging.getImageInfo(file), probe);
+        assertTrue(probe.isMetadataProbed());
+        assertTrue(probe.hasMetadata());
+        assertEquals(Imaging.getXmpXml(file) != null, probe.hasXmpXml());
+        assertEquals(Imaging.getIccProfileBytes(file) != null, probe.hasIccProfile());
+
+        final BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        final byte[] bytes = Imaging.writeImageToBytes(image, ImageFormats.PNG);
+        final ImageProbe plain = Imaging.probe(ByteSource.array(bytes));
+        assertTrue(plain.isMetadataProbed());
+        assertFalse(plain.hasMetadata());
+        assertFalse(plain.hasXmpXml());
+        assertFalse(plain.hasIccProfile());
+
+        // skipping metadata leaves the flags false
+        final ImageProbe basic = Imaging.probe(ByteSource.file(file), Imaging.DEFAULT_PROBE_LENGTH, false);
+        assertProbe(Imaging.getImageInfo(file), basic);
+        assertFalse(basic.isMetadataProbed());
+        assertFalse(basic.hasMetadata());
+    }
+
+    @Test
+    public void testProbeJpegMetadata() throws Exception {
+        final File file = new File(ImagingProbeTest.class.getResource("/images/jpeg/iptc/IMAGING-168/111083453-c07f1880-851e-11eb-8b61-2757f7d934bf.jpg").toURI());
+        final ImageProbe probe = Imaging.probe(ByteSource.file(file), 64);
+        assertProbe(Imaging.getImageInfo(file), probe);
+        // EXIF, XMP and an ICC profile
+        assertTrue(probe.hasMetadata());
+        assertTrue(probe.hasXmpXml());
+        assertTrue(probe.hasIccProfile());
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.internal.ImageParserFactory;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ImagingRegionTest extends AbstractImagingTest {
+
+    private static final Set<ImageFormats> FORMATS = EnumSet.of(ImageFormats.BMP, ImageFormats.PAM, ImageFormats.PBM, ImageFormats.PGM, ImageFormats.PNG,
+            ImageFormats.PNM, ImageFormats.PPM, ImageFormats.PSD, ImageFormats.TIFF);
+
+    public static Stream<File> images() throws Exception {
+        return getTestImages(file -> FORMATS.contains(Imaging.guessFormat(file))
+                && !(file.getParentFile().getName().equalsIgnoreCase("pngsuite") && file.getName().toLowerCase().startsWith("x"))).stream();
+    }
+
+    private static <T extends ImagingParameters<T>> BufferedImage read(final File file, final Rectangle region) throws Exception {
+        final AbstractImageParser<T> parser = ImageParserFactory.getImageParser(Imaging.guessFormat(file));
+        return parser.getBufferedImage(ByteSource.file(file), parser.getDefaultParameters().setRegion(region));
+    }
+
+    @ParameterizedTest
+    @MethodSource("images")
+    public void testRegion(final File file) throws Exception {
+        final BufferedImage full = Imaging.getBufferedImage(file);
+        final int width = full.getWidth();
+        final int height = full.getHeight();
+        final Rectangle[] regions = { new Rectangle(width / 3, height / 4, Math.max(1, width / 2), Math.max(1, height / 3)),
+                new Rectangle(0, height - 1, width, 1), new Rectangle(width - 1, 0, 1, height) };
+
+        for (final Rectangle region : regions) {
+            final BufferedImage image = read(file, region);
+            assertEquals(region.width, image.getWidth());
+            assertEquals(region.height, image.getHeight());
+
+            final int[] expected = full.getRGB(region.x, region.y, region.width, region.height, null, 0, region.width);
+            final int[] actual = image.getRGB(0, 0, region.width, region.height, null, 0, region.width);
+            assertArrayEquals(expected, actual, region.toString());
+        }
+
+        assertThrows(ImagingException.class, () -> read(file, new Rectangle(width - 1, 0, 2, 1)));
+        assertThrows(ImagingException.class, () -> read(file, new Rectangle(0, 0, 0, height)));
+    }
+}
@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -52,6 +53,15 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         }
     }
 
+    private final class ByteSourceFileChannelFactory implements ByteSourceFactory {
+
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final Path file = createTempFile(src).toPath();
+            return ByteSource.fileChannel(file);
+        }
+    }
+
     private final class ByteSourceInputStreamFileFactory implements ByteSourceFactory {
 
         @Override
@@ -72,6 +82,26 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
 
     }
 
+    private static final class ByteSourceInputStreamSpillFactory implements ByteSourceFactory {
+
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final ByteArrayInputStream is = new ByteArrayInputStream(src);
+            // small enough that the longer test arrays spill to disk.
+            return ByteSource.inputStream(is, null, 2 * IOUtils.DEFAULT_BUFFER_SIZE);
+        }
+
+    }
+
+    private final class ByteSourceMappedFactory implements ByteSourceFactory {
+
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final Path file = createTempFile(src).toPath();
+            return ByteSource.mapped(file);
+        }
+    }
+
     private final class ByteSourcePathFactory implements ByteSourceFactory {
 
         @Override
@@ -83,6 +113,16 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         }
     }
 
+    private final class ByteSourcePrefixFactory implements ByteSourceFactory {
+
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final Path file = createTempFile(src).toPath();
+            // shorter than some test arrays and longer than others.
+            return ByteSource.prefix(ByteSource.path(file), 100);
+        }
+    }
+
     public static Stream<byte[]> data() {
         return Arrays.asList(getTestByteArrays()).stream();
     }
@@ -93,6 +133,12 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         writeAndReadBytes(new ByteSourceFileFactory(), testByteArray);
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceFileChannelFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceFileChannelFactory(), testByteArray);
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     public void testByteSourceInputStreamFileFactory(final byte[] testByteArray) throws Exception {
@@ -105,14 +151,37 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
         writeAndReadBytes(new ByteSourceInputStreamRawFactory(), testByteArray);
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceInputStreamSpillFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceInputStreamSpillFactory(), testByteArray);
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourceMappedFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceMappedFactory(), testByteArray);
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     public void testByteSourcePathFactory(final byte[] testByteArray) throws Exception {
         writeAndReadBytes(new ByteSourcePathFactory(), testByteArray);
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testByteSourcePrefixFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourcePrefixFactory(), testByteArray);
+    }
+
     protected void writeAndReadBytes(final ByteSourceFactory byteSourceFactory, final byte[] src) throws IOException {
-        final ByteSource byteSource = byteSourceFactory.getByteSource(src);
+        try (ByteSource byteSource = byteSourceFactory.getByteSource(src)) {
+            readBytes(byteSource, src);
+        }
+    }
+
+    private void readBytes(final ByteSource byteSource, final byte[] src) throws IOException {
         // test cache during interrupted read cache by reading only first N
         // bytes.
         {
@@ -142,6 +211,28 @@ public class ByteSourceDataTest extends AbstractByteSourceTest {
                     assertEquals(dst[i], src[i + start]);
                 }
             }
+            // test random access to the second half.
+            final ByteBuffer buffer = byteSource.getByteBuffer(start, src.length - start);
+            assertTrue(buffer.isReadOnly());
+            assertEquals(src.length - start, buffer.remaining());
+            final byte[] dst = new byte[buffer.remaining()];
+            buffer.get(dst);
+            assertArrayEquals(Arrays.copyOfRange(src, start, src.length), dst);
+            assertArrayEquals(dst, byteSource.getByteArray(start, src.length - start));
+        }
+        // test positional reads into caller-owned buffers.
+        {
+            final byte[] dst = new byte[src.length + 2];
+            assertEquals(src.length == 0 ? -1 : src.length, byteSource.read(0, dst, 1, src.length + 1));
+            assertArrayEquals(src, Arrays.copyOfRange(dst, 1, src.length + 1));
+            assertEquals(-1, byteSource.read(src.length, dst, 0, 1));
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+            if (src.length >= 3) {
+                assertEquals(3, byteSource.read(src.length - 3, buffer));
+                assertEquals(0, buffer.remaining());
+                buffer.flip();
+                assertEquals(src[src.length - 1], buffer.get(2));
+            }
         }
 
     }
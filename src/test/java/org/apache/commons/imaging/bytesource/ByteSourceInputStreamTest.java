@@ -16,10 +16,13 @@
  */
 package org.apache.commons.imaging.bytesource;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -28,6 +31,7 @@ import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.ImagingTestConstants;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 
 final class ByteSourceInputStreamTest {
@@ -36,6 +40,23 @@ final class ByteSourceInputStreamTest {
     public static final int ICO_IMAGE_WIDTH = 300;
     public static final int ICO_IMAGE_HEIGHT = 225;
 
+    @Test
+    public void testCloseSpilled() throws IOException {
+        final byte[] data = new byte[10 * IOUtils.DEFAULT_BUFFER_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        final ByteSource byteSource = ByteSource.inputStream(new ByteArrayInputStream(data), null, 2 * IOUtils.DEFAULT_BUFFER_SIZE);
+        // reading the whole stream spills all but the last two blocks.
+        assertEquals(data.length, byteSource.size());
+        assertArrayEquals(data, byteSource.getByteArray(0, data.length));
+        byteSource.close();
+        assertThrows(IOException.class, () -> byteSource.getByteArray(0, 1));
+        assertThrows(IOException.class, () -> byteSource.read(0, new byte[1], 0, 1));
+        // closing again does nothing.
+        byteSource.close();
+    }
+
     @Test
     public void testReadFromStream() throws IOException, ImagingException {
 
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class FileChannelByteSourceTest extends AbstractByteSourceTest {
+
+    private static byte[] longArray() {
+        final byte[][] arrays = getTestByteArrays();
+        return arrays[arrays.length - 1];
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final byte[] src = longArray();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (FileChannelByteSource byteSource = ByteSource.fileChannel(createTempFile(src).toPath())) {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                final int start = i * 997 % (src.length - 1000);
+                results.add(executor.submit(() -> {
+                    final byte[] dst = new byte[1000];
+                    byteSource.read(start, dst, 0, dst.length);
+                    return Arrays.equals(Arrays.copyOfRange(src, start, start + dst.length), dst);
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInterruptedReadDoesNotCloseSharedChannel() throws Exception {
+        final byte[] src = longArray();
+        try (FileChannelByteSource byteSource = ByteSource.fileChannel(createTempFile(src).toPath())) {
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(ClosedChannelException.class, () -> byteSource.read(0, new byte[16], 0, 16));
+            } finally {
+                Thread.interrupted();
+            }
+            assertArrayEquals(Arrays.copyOf(src, 16), byteSource.getByteArray(0, 16));
+        }
+    }
+
+    @Test
+    public void testReferenceCounting() throws IOException {
+        final byte[] src = longArray();
+        final FileChannelByteSource byteSource = ByteSource.fileChannel(createTempFile(src).toPath());
+        assertTrue(byteSource.isOpen());
+        byteSource.retain();
+        byteSource.close();
+        assertTrue(byteSource.isOpen());
+        assertArrayEquals(Arrays.copyOf(src, 16), byteSource.getByteArray(0, 16));
+        byteSource.close();
+        assertFalse(byteSource.isOpen());
+        assertThrows(IllegalStateException.class, byteSource::retain);
+        assertThrows(ClosedChannelException.class, () -> byteSource.read(0, new byte[16], 0, 16));
+        // extra releases are ignored
+        byteSource.close();
+    }
+
+}
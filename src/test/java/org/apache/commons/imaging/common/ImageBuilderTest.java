@@ -18,13 +18,17 @@ package org.apache.commons.imaging.common;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
 import java.awt.image.RasterFormatException;
 
+import org.apache.commons.imaging.formats.bmp.BmpImagingParameters;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -142,4 +146,39 @@ public class ImageBuilderTest {
         }
     }
 
+    @Test
+    public void testDestinationImage() {
+        final BufferedImage destination = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        destination.setRGB(99, 99, 0xffffff);
+        final BmpImagingParameters params = new BmpImagingParameters().setDestinationImage(destination);
+
+        final ImageBuilder imageBuilder = new ImageBuilder(100, 100, false, false, params);
+        // previous contents are cleared.
+        assertEquals(0, imageBuilder.getRgb(99, 99));
+        populate(imageBuilder);
+        assertSame(destination, imageBuilder.getBufferedImage());
+        assertEquals(0xff000000 | 5 * 100 + 7, destination.getRGB(7, 5));
+
+        // a different size or alpha needs a new image.
+        assertNotSame(destination, new ImageBuilder(100, 99, false, false, params).getBufferedImage());
+        assertNotSame(destination, new ImageBuilder(100, 100, true, false, params).getBufferedImage());
+    }
+
+    @Test
+    public void testPixelBufferPool() {
+        final PixelBufferPool pool = new PixelBufferPool();
+        final BmpImagingParameters params = new BmpImagingParameters().setPixelBufferPool(pool);
+        final ImageBuilder imageBuilder = new ImageBuilder(100, 100, true, false, params);
+        populate(imageBuilder);
+        final BufferedImage image = imageBuilder.getBufferedImage();
+        assertEquals(BufferedImage.TYPE_INT_ARGB, image.getType());
+        assertEquals(0xff000000 | 5 * 100 + 7, image.getRGB(7, 5));
+        pool.release(image);
+
+        final BufferedImage reused = new ImageBuilder(99, 100, true, false, params).getBufferedImage();
+        assertSame(((DataBufferInt) image.getRaster().getDataBuffer()).getData(),
+                ((DataBufferInt) reused.getRaster().getDataBuffer()).getData());
+        assertEquals(0, reused.getRGB(7, 5));
+    }
+
 }
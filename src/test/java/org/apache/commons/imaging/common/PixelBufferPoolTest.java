@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.png.PngImageParser;
+import org.apache.commons.imaging.formats.png.PngImagingParameters;
+import org.apache.commons.imaging.formats.pnm.PnmImageParser;
+import org.apache.commons.imaging.formats.pnm.PnmImagingParameters;
+import org.junit.jupiter.api.Test;
+
+public class PixelBufferPoolTest {
+
+    @Test
+    public void testAcquireRelease() {
+        final PixelBufferPool pool = new PixelBufferPool(1 << 20);
+        final int[] buffer = pool.acquire(5000);
+        assertTrue(buffer.length >= 5000);
+        buffer[4000] = 1;
+        pool.release(buffer);
+        pool.release(buffer);
+        assertEquals(buffer.length * 4L, pool.getRetainedBytes());
+
+        final int[] reused = pool.acquire(4900);
+        assertSame(buffer, reused);
+        assertEquals(0, reused[4000]);
+        assertEquals(0, pool.getRetainedBytes());
+        assertNotSame(reused, pool.acquire(4900));
+
+        // buffers the pool didn't hand out are ignored.
+        pool.release(new int[5001]);
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void testDecodeWithPool() throws Exception {
+        final BufferedImage source = new BufferedImage(70, 90, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(10, 20, 0x123456);
+        final PixelBufferPool pool = new PixelBufferPool();
+
+        final byte[] png = Imaging.writeImageToBytes(source, ImageFormats.PNG);
+        final BufferedImage first = new PngImageParser().getBufferedImage(ByteSource.array(png), new PngImagingParameters().setPixelBufferPool(pool));
+        assertEquals(0x123456, first.getRGB(10, 20) & 0xffffff);
+        pool.release(first);
+
+        final byte[] ppm = Imaging.writeImageToBytes(source, ImageFormats.PPM);
+        final BufferedImage second = new PnmImageParser().getBufferedImage(ByteSource.array(ppm), new PnmImagingParameters().setPixelBufferPool(pool));
+        assertEquals(0x123456, second.getRGB(10, 20) & 0xffffff);
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void testLimits() {
+        assertEquals(4096, PixelBufferPool.sizeClass(1));
+        assertEquals(10240, PixelBufferPool.sizeClass(8193));
+        assertEquals(8192, PixelBufferPool.sizeClass(8192));
+        final PixelBufferPool pool = new PixelBufferPool(4096 * 4);
+        pool.release(pool.acquire(100));
+        // over the pool's limit.
+        pool.release(new int[4096]);
+        assertEquals(4096 * 4, pool.getRetainedBytes());
+        assertThrows(AllocationRequestException.class, () -> pool.acquire(Integer.MAX_VALUE));
+    }
+
+}
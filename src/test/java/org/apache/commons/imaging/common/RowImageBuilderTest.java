@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.RasterFormatException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RowImageBuilderTest {
+
+    @Test
+    public void testBottomUpWithSkippedRows() {
+        final List<Integer> order = new ArrayList<>();
+        final int[][] rows = new int[4][];
+        final RowImageBuilder builder = new RowImageBuilder(2, 4, false, false, (y, argb) -> {
+            order.add(y);
+            rows[y] = argb.clone();
+        });
+        builder.setRgb(0, 3, 0x102030);
+        builder.setRgb(1, 3, 0x405060);
+        assertEquals(0x405060, builder.getRgb(1, 3));
+        builder.setRgb(1, 1, 0x708090);
+        builder.finish();
+        builder.finish();
+
+        assertEquals(4, order.size());
+        assertEquals(3, order.get(0).intValue());
+        assertEquals(1, order.get(1).intValue());
+        assertArrayEquals(new int[] { 0xff102030, 0xff405060 }, rows[3]);
+        assertArrayEquals(new int[] { 0xff000000, 0xff708090 }, rows[1]);
+        assertArrayEquals(new int[] { 0xff000000, 0xff000000 }, rows[0]);
+        assertArrayEquals(new int[] { 0xff000000, 0xff000000 }, rows[2]);
+    }
+
+    @Test
+    public void testPremultiplied() {
+        final int[][] rows = new int[1][];
+        final RowImageBuilder builder = new RowImageBuilder(1, 1, true, true, (y, argb) -> rows[y] = argb.clone());
+        builder.setRgb(0, 0, 0x80400000);
+        builder.finish();
+        assertEquals(0x80, rows[0][0] >>> 24);
+        assertEquals(0x80, rows[0][0] >> 16 & 0xff, 1);
+    }
+
+    @Test
+    public void testDimensions() {
+        final PixelSink sink = new RowImageBuilder(3, 2, false, false, (y, argb) -> {
+            // discard
+        });
+        assertEquals(3, sink.getWidth());
+        assertEquals(2, sink.getHeight());
+        assertThrows(RasterFormatException.class, () -> new RowImageBuilder(0, 2, false, false, (y, argb) -> {
+            // discard
+        }));
+    }
+
+    @Test
+    public void testRowsDeliveredOnce() {
+        final RowImageBuilder builder = new RowImageBuilder(2, 2, true, false, (y, argb) -> {
+            // discard
+        });
+        builder.setRgb(0, 0, 1);
+        builder.setRgb(0, 1, 1);
+        assertThrows(IllegalStateException.class, () -> builder.setRgb(0, 0, 1));
+        assertThrows(IllegalStateException.class, () -> builder.getRgb(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.setRgb(0, 2, 1));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class JpegSegmentIndexTest extends JpegBaseTest {
+
+    public static Stream<File> data() throws Exception {
+        return getJpegImages().stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testMatchesTraversal(final File imageFile) throws Exception {
+        final ByteSource byteSource = ByteSource.file(imageFile);
+        final List<Integer> markers = new ArrayList<>();
+        final List<byte[]> segments = new ArrayList<>();
+        new JpegUtils().traverseJfif(byteSource, new JpegUtils.Visitor() {
+            @Override
+            public boolean beginSos() {
+                return false;
+            }
+
+            @Override
+            public boolean visitSegment(final int marker, final byte[] markerBytes, final int segmentLength, final byte[] segmentLengthBytes,
+                    final byte[] segmentData) {
+                markers.add(marker);
+                segments.add(segmentData);
+                return true;
+            }
+
+            @Override
+            public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
+                // not reached
+            }
+        });
+
+        final JpegSegmentIndex index = JpegSegmentIndex.read(byteSource);
+        assertEquals(markers.size(), index.getEntries().size());
+        for (int i = 0; i < markers.size(); i++) {
+            final JpegSegmentIndex.Entry entry = index.getEntries().get(i);
+            assertEquals(markers.get(i).intValue(), entry.getMarker());
+            assertArrayEquals(segments.get(i), entry.getData());
+            assertArrayEquals(segments.get(i), byteSource.getByteArray(entry.getOffset(), entry.getLength()));
+        }
+        if (index.getScanOffset() >= 0) {
+            assertArrayEquals(new byte[] { (byte) 0xff, (byte) 0xda }, byteSource.getByteArray(index.getScanOffset(), 2));
+        }
+
+        final JpegImageParser parser = new JpegImageParser();
+        assertEquals(parser.getImageInfo(byteSource, null).toString(), parser.getImageInfo(index, null).toString());
+        assertEquals(parser.hasExifSegment(byteSource), parser.hasExifSegment(index));
+        assertEquals(parser.getXmpXml(byteSource, null), parser.getXmpXml(index));
+    }
+
+    @Test
+    public void testNotJpeg() {
+        assertThrows(ImagingException.class, () -> JpegSegmentIndex.read(ByteSource.array(new byte[] { (byte) 0xff, (byte) 0xd9 })));
+        // a segment longer than the data
+        assertThrows(IOException.class,
+                () -> JpegSegmentIndex.read(ByteSource.array(new byte[] { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0, 0, 10, 1, 2 })));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the floating point inverse DCT, with the dequantization, level shift and rounding the decoder used to do around it, against the integer
+ * {@link Dct#inverseDct8x8(int[], int[], int[], int[], int, int)}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=DctBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = { "-server", "-Xms512M", "-Xmx512M" })
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DctBenchmark {
+
+    private static final int BLOCKS = 256;
+
+    /** The luminance table of section K.1 of T.81, in natural order. */
+    private static final int[] QUANTIZATION = { 16, 11, 10, 16, 24, 40, 51, 61, 12, 12, 14, 19, 26, 58, 60, 55, 14, 13, 16, 24, 40, 57, 69, 56, 14, 17, 22,
+            29, 51, 87, 80, 62, 18, 22, 37, 56, 68, 109, 103, 77, 24, 35, 55, 64, 81, 104, 113, 92, 49, 64, 78, 87, 103, 121, 120, 101, 72, 92, 95, 98, 112,
+            100, 103, 99 };
+
+    private final int[][] coefficients = new int[BLOCKS][64];
+    private final float[] scaledQuantization = new float[64];
+    private final float[] block = new float[64];
+    private final int[] workspace = new int[64];
+    private final int[] output = new int[64];
+
+    /**
+     * Transforms a block the way the decoder did before it switched to integer arithmetic.
+     */
+    @Benchmark
+    public int[] floatIdct() {
+        for (final int[] c : coefficients) {
+            for (int i = 0; i < 64; i++) {
+                block[i] = c[i] * scaledQuantization[i];
+            }
+            Dct.inverseDct8x8(block);
+            for (int i = 0; i < 64; i++) {
+                final float sample = block[i] + 128;
+                if (sample < 0) {
+                    output[i] = 0;
+                } else if (sample > 255) {
+                    output[i] = 255;
+                } else {
+                    output[i] = (int) (sample + 0.5f);
+                }
+            }
+        }
+        return output;
+    }
+
+    @Benchmark
+    public int[] integerIdct() {
+        for (final int[] c : coefficients) {
+            Dct.inverseDct8x8(c, QUANTIZATION, workspace, output, 0, 8);
+        }
+        return output;
+    }
+
+    /**
+     * Quantizes random smooth blocks, so most high frequency coefficients are zero as in real images.
+     */
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final float[] samples = new float[64];
+        for (final int[] c : coefficients) {
+            final int base = random.nextInt(256);
+            final int dx = random.nextInt(33) - 16;
+            final int dy = random.nextInt(33) - 16;
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    samples[8 * y + x] = Math.max(0, Math.min(255, base + dx * x + dy * y + random.nextInt(9) - 4)) - 128;
+                }
+            }
+            Dct.forwardDct8x8(samples);
+            Dct.scaleQuantizationMatrix(samples);
+            for (int i = 0; i < 64; i++) {
+                c[i] = Math.round(samples[i] / QUANTIZATION[i]);
+            }
+        }
+        for (int i = 0; i < 64; i++) {
+            scaledQuantization[i] = QUANTIZATION[i];
+        }
+        Dct.scaleDequantizationMatrix(scaledQuantization);
+    }
+}
@@ -19,6 +19,9 @@ package org.apache.commons.imaging.formats.jpeg.decoder;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 public class DctTest {
@@ -85,6 +88,36 @@ public class DctTest {
         return ret;
     }
 
+    @Test
+    public void testIntegerInverseDct() {
+        final Random random = new Random(1234);
+        final int[] coefficients = new int[64];
+        final int[] quantization = new int[64];
+        final int[] workspace = new int[64];
+        final int[] output = new int[2 + 8 * 10];
+        final double[][] matrix = new double[8][8];
+        for (int n = 0; n < 1000; n++) {
+            for (int i = 0; i < 64; i++) {
+                // sparse high frequencies exercise the zero column and row shortcuts
+                coefficients[i] = i > 0 && random.nextInt(4) != 0 ? 0 : random.nextInt(64) - 32;
+                quantization[i] = 1 + random.nextInt(16);
+                matrix[i / 8][i % 8] = coefficients[i] * quantization[i];
+            }
+            final double[][] expected = REFERENCE_inverseDCT(matrix);
+            Arrays.fill(output, -1);
+            Dct.inverseDct8x8(coefficients, quantization, workspace, output, 2, 10);
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    final double sample = Math.max(0, Math.min(255, Math.round(expected[y][x] + 128)));
+                    assertEquals(sample, output[2 + 10 * y + x], 1.0);
+                }
+                if (y < 7) {
+                    assertEquals(-1, output[10 + 10 * y], "stride padding written");
+                }
+            }
+        }
+    }
+
     @Test
     public void testMatrices() {
         final float[] originalData = new float[8 * 8];
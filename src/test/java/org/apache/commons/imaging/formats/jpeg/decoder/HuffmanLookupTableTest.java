@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for class {@link HuffmanLookupTable}.
+ */
+public class HuffmanLookupTableTest {
+
+    /**
+     * An AC table with the codes 00 for 0x00, 010 for 0x12 and 011000000000 for 0x05.
+     */
+    private static HuffmanLookupTable acTable() throws IOException, ImagingException {
+        final byte[] segmentData = new byte[1 + 16 + 3];
+        segmentData[0] = 0x10;
+        segmentData[1 + 1] = 1;
+        segmentData[1 + 2] = 1;
+        segmentData[1 + 11] = 1;
+        segmentData[17] = 0x00;
+        segmentData[18] = 0x12;
+        segmentData[19] = 0x05;
+        return new HuffmanLookupTable(new DhtSegment(JpegConstants.DHT_MARKER, segmentData).huffmanTables.get(0));
+    }
+
+    @Test
+    public void testDecode() throws IOException, ImagingException {
+        final HuffmanLookupTable table = acTable();
+        // 00 010 011000000000 0 then padding
+        final JpegInputStream is = new JpegInputStream(new byte[] { 0x13, 0x00, 0x3f });
+
+        assertEquals(0x00, table.decode(is));
+        assertEquals(0x12, table.decode(is));
+        assertEquals(0x05, table.decode(is));
+        assertEquals(0, is.readBits(1));
+    }
+
+    @Test
+    public void testDecodeInvalidCode() throws IOException, ImagingException {
+        final HuffmanLookupTable table = acTable();
+
+        assertThrows(ImagingException.class, () -> table.decode(new JpegInputStream(new byte[] { (byte) 0xff, 0x00, (byte) 0xff, 0x00 })));
+    }
+
+    @Test
+    public void testLookupCoefficient() throws IOException, ImagingException {
+        final HuffmanLookupTable table = acTable();
+
+        // 010 then 10: run of 1 and the 2-bit coefficient 2
+        assertEquals(2 << 16 | 1 << 8 | 5, table.lookupCoefficient(new JpegInputStream(new byte[] { 0x50 })));
+        // 010 then 01: run of 1 and the 2-bit coefficient -2
+        assertEquals(-2 << 16 | 1 << 8 | 5, table.lookupCoefficient(new JpegInputStream(new byte[] { 0x48 })));
+        // end of block
+        assertEquals(0, table.lookupCoefficient(new JpegInputStream(new byte[] { 0x00 })));
+        // longer than the lookahead
+        assertEquals(0, table.lookupCoefficient(new JpegInputStream(new byte[] { 0x60, 0x00 })));
+    }
+}
@@ -17,20 +17,102 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 import org.apache.commons.imaging.test.TestResources;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * Tests for the JpegDecoder.
  */
 public class JpegDecoderTest {
 
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    private static BufferedImage createTestImage(final int type) {
+        final BufferedImage image = new BufferedImage(83, 45, type);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, x * 3 << 16 | y * 5 << 8 | (x ^ y) * 7 & 0xff);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Gets the index of the SOF0 marker.
+     */
+    private static int indexOfFrameHeader(final byte[] jpeg) {
+        for (int i = 2; i < jpeg.length;) {
+            if ((0xff & jpeg[i + 1]) == 0xc0) {
+                return i;
+            }
+            i += 2 + ((0xff & jpeg[i + 2]) << 8 | 0xff & jpeg[i + 3]);
+        }
+        return -1;
+    }
+
+    private static int[] getRgb(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static byte[] writeJpeg(final BufferedImage image, final boolean progressive) throws IOException {
+        return writeJpeg(image, progressive, 0);
+    }
+
+    private static byte[] writeJpeg(final BufferedImage image, final boolean progressive, final int restartInterval) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.9f);
+        if (progressive) {
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        }
+        IIOMetadata metadata = null;
+        if (restartInterval > 0) {
+            metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), param);
+            final Element root = (Element) metadata.getAsTree(JPEG_METADATA_FORMAT);
+            final Node markerSequence = root.getElementsByTagName("markerSequence").item(0);
+            final IIOMetadataNode dri = new IIOMetadataNode("dri");
+            dri.setAttribute("interval", Integer.toString(restartInterval));
+            markerSequence.insertBefore(dri, markerSequence.getFirstChild());
+            metadata.setFromTree(JPEG_METADATA_FORMAT, root);
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, metadata), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
     /**
      * Test that a bad file does not hang or take too long to be processed.
      */
@@ -41,4 +123,150 @@ public class JpegDecoderTest {
         final ByteSource byteSourceFile = ByteSource.file(inputFile);
         assertThrows(ImagingException.class, () -> new JpegDecoder().decode(byteSourceFile));
     }
+
+    /**
+     * ImageIO decodes with libjpeg's integer IDCT, colour conversion and fancy upsampling, so fancy upsampled chroma must give exactly the same pixels.
+     */
+    @Test
+    public void testDecodeFancyUpsampling() throws Exception {
+        final BufferedImage image = createTestImage(BufferedImage.TYPE_INT_RGB);
+        final JpegImagingParameters params = new JpegImagingParameters().setFancyUpsampling(true);
+        for (final boolean progressive : new boolean[] { false, true }) {
+            final byte[] jpeg = writeJpeg(image, progressive);
+            final int[] expected = getRgb(ImageIO.read(new ByteArrayInputStream(jpeg)));
+            assertArrayEquals(expected, getRgb(new JpegDecoder().decode(ByteSource.array(jpeg), params)));
+        }
+    }
+
+    /**
+     * Progressive scans only reorder how the quantized coefficients are coded, so a progressive JPEG must decode to exactly the same pixels as the
+     * baseline JPEG written with the same tables.
+     */
+    @Test
+    public void testDecodeProgressive() throws Exception {
+        for (final int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY }) {
+            final BufferedImage image = createTestImage(type);
+            final BufferedImage baseline = new JpegDecoder().decode(ByteSource.array(writeJpeg(image, false)));
+            final BufferedImage progressive = new JpegDecoder().decode(ByteSource.array(writeJpeg(image, true)));
+            assertArrayEquals(getRgb(baseline), getRgb(progressive));
+            final BufferedImage progressiveRestarts = new JpegDecoder().decode(ByteSource.array(writeJpeg(image, true, 2)));
+            assertArrayEquals(getRgb(baseline), getRgb(progressiveRestarts));
+        }
+    }
+
+    /**
+     * Restart intervals decode independently, on the calling thread or concurrently on an executor, to the same pixels as a single interval.
+     */
+    @Test
+    public void testDecodeRestartIntervals() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (final int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY }) {
+                final BufferedImage image = createTestImage(type);
+                final int[] expected = getRgb(new JpegDecoder().decode(ByteSource.array(writeJpeg(image, false))));
+                for (final int restartInterval : new int[] { 1, 3, 7 }) {
+                    final byte[] jpeg = writeJpeg(image, false, restartInterval);
+                    assertArrayEquals(expected, getRgb(new JpegDecoder().decode(ByteSource.array(jpeg))));
+                    final JpegImagingParameters params = new JpegImagingParameters().setDecodeExecutor(executor);
+                    assertArrayEquals(expected, getRgb(new JpegDecoder().decode(ByteSource.array(jpeg), params)));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Scaled decoding computes each reduced block from the block's lowest frequencies, which for smooth images is close to averaging the full size samples.
+     */
+    @Test
+    public void testDecodeScaled() throws Exception {
+        final BufferedImage image = new BufferedImage(83, 45, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int v = x + 2 * y;
+                image.setRGB(x, y, v << 16 | v << 8 | v);
+            }
+        }
+        final byte[] baseline = writeJpeg(image, false);
+        final byte[] progressive = writeJpeg(image, true);
+        final BufferedImage full = new JpegDecoder().decode(ByteSource.array(baseline));
+        for (final int scaleDenominator : new int[] { 1, 2, 4, 8 }) {
+            final JpegImagingParameters params = new JpegImagingParameters().setScaleDenominator(scaleDenominator);
+            final BufferedImage scaled = new JpegDecoder().decode(ByteSource.array(baseline), params);
+            assertEquals((83 + scaleDenominator - 1) / scaleDenominator, scaled.getWidth());
+            assertEquals((45 + scaleDenominator - 1) / scaleDenominator, scaled.getHeight());
+            assertArrayEquals(getRgb(scaled), getRgb(new JpegDecoder().decode(ByteSource.array(progressive), params)));
+            // partial blocks at the right and bottom edges also average the encoder's padding
+            for (int y = 0; y < 45 / scaleDenominator; y++) {
+                for (int x = 0; x < 83 / scaleDenominator; x++) {
+                    int sum = 0;
+                    for (int yy = y * scaleDenominator; yy < (y + 1) * scaleDenominator; yy++) {
+                        for (int xx = x * scaleDenominator; xx < (x + 1) * scaleDenominator; xx++) {
+                            sum += full.getRGB(xx, yy) & 0xff;
+                        }
+                    }
+                    assertEquals((double) sum / (scaleDenominator * scaleDenominator), scaled.getRGB(x, y) & 0xff, 2.0);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new JpegImagingParameters().setScaleDenominator(3));
+    }
+
+    /**
+     * With 4:2:0 subsampling each chroma block covers a 2x2 group of reduced luma blocks, so the same averaging holds as long as chroma changes slowly; the
+     * luma gradient is steep and the chroma tilt gentle.
+     */
+    @Test
+    public void testDecodeScaledYCbCr() throws Exception {
+        final BufferedImage image = new BufferedImage(83, 45, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int v = 40 + x + 2 * y;
+                image.setRGB(x, y, v + x / 4 << 16 | v << 8 | v - y / 4);
+            }
+        }
+        final byte[] baseline = writeJpeg(image, false);
+        // ImageIO subsamples the chroma of RGB images 2x2
+        assertEquals(0x22, baseline[indexOfFrameHeader(baseline) + 11]);
+        final byte[] progressive = writeJpeg(image, true);
+        for (final boolean fancyUpsampling : new boolean[] { false, true }) {
+            final BufferedImage full = new JpegDecoder().decode(ByteSource.array(baseline), new JpegImagingParameters().setFancyUpsampling(fancyUpsampling));
+            for (final int scaleDenominator : new int[] { 1, 2, 4, 8 }) {
+                final JpegImagingParameters params = new JpegImagingParameters().setScaleDenominator(scaleDenominator).setFancyUpsampling(fancyUpsampling);
+                final BufferedImage scaled = new JpegDecoder().decode(ByteSource.array(baseline), params);
+                assertEquals((83 + scaleDenominator - 1) / scaleDenominator, scaled.getWidth());
+                assertEquals((45 + scaleDenominator - 1) / scaleDenominator, scaled.getHeight());
+                assertArrayEquals(getRgb(scaled), getRgb(new JpegDecoder().decode(ByteSource.array(progressive), params)));
+                for (int y = 0; y < 45 / scaleDenominator; y++) {
+                    for (int x = 0; x < 83 / scaleDenominator; x++) {
+                        for (int shift = 0; shift < 24; shift += 8) {
+                            int sum = 0;
+                            for (int yy = y * scaleDenominator; yy < (y + 1) * scaleDenominator; yy++) {
+                                for (int xx = x * scaleDenominator; xx < (x + 1) * scaleDenominator; xx++) {
+                                    sum += full.getRGB(xx, yy) >> shift & 0xff;
+                                }
+                            }
+                            assertEquals((double) sum / (scaleDenominator * scaleDenominator), scaled.getRGB(x, y) >> shift & 0xff, 4.0,
+                                    "1/" + scaleDenominator + " at " + x + "," + y);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSplitByRstMarkers() throws ImagingException {
+        final byte[] scan = { 0x55, 0x11, (byte) 0xff, (byte) 0xd0, 0x22, 0x33, (byte) 0xff, (byte) 0xd1, 0x44, (byte) 0xff, (byte) 0xd9 };
+        final JpegInputStream[] intervals = JpegDecoder.splitByRstMarkers(scan, 1, scan.length - 3);
+
+        assertEquals(3, intervals.length);
+        assertEquals(0x11, intervals[0].readBits(8));
+        assertFalse(intervals[0].hasNext());
+        assertEquals(0x2233, intervals[1].readBits(16));
+        assertFalse(intervals[1].hasNext());
+        assertEquals(0x44, intervals[2].readBits(8));
+        assertFalse(intervals[2].hasNext());
+    }
 }
@@ -16,7 +16,10 @@
  */
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.apache.commons.imaging.ImagingException;
 import org.junit.jupiter.api.Test;
@@ -28,9 +31,53 @@ import org.junit.jupiter.api.Test;
  **/
 public class JpegInputStreamTest {
 
+    @Test
+    public void testHasNextWhileWholeBytesAreBuffered() throws ImagingException {
+        final JpegInputStream jpegInputStream = new JpegInputStream(new byte[] { 0x12, 0x34 });
+
+        assertEquals(0x1, jpegInputStream.readBits(4));
+        assertTrue(jpegInputStream.hasNext());
+        assertEquals(0x23, jpegInputStream.readBits(8));
+        assertFalse(jpegInputStream.hasNext());
+        assertEquals(0x4, jpegInputStream.readBits(4));
+    }
+
+    @Test
+    public void testIntervalOfLargerArray() throws ImagingException {
+        final byte[] byteArray = { (byte) 0xaa, 0x12, 0x34, (byte) 0xbb };
+        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray, 1, 2);
+
+        assertEquals(0x1234, jpegInputStream.peekBits(16));
+        assertEquals(0x1234, jpegInputStream.readBits(16));
+        assertFalse(jpegInputStream.hasNext());
+        assertThrows(IllegalStateException.class, jpegInputStream::nextBit);
+    }
+
+    @Test
+    public void testPeekBitsPadsWithZeroBeforeMarker() throws ImagingException {
+        final byte[] byteArray = { (byte) 0xab, (byte) 0xff, (byte) 0xd9 };
+        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
+
+        assertEquals(0xab00, jpegInputStream.peekBits(16));
+        assertEquals(0xab, jpegInputStream.readBits(8));
+        assertThrows(ImagingException.class, jpegInputStream::nextBit);
+    }
+
+    @Test
+    public void testReadBitsSkipsStuffedBytes() throws ImagingException {
+        final byte[] byteArray = { (byte) 0xff, 0x00, (byte) 0x81, (byte) 0xff, 0x00 };
+        final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
+
+        assertEquals(0x1ff, jpegInputStream.peekBits(9));
+        assertEquals(0x7, jpegInputStream.readBits(3));
+        assertEquals(0xfc0f, jpegInputStream.readBits(16));
+        assertEquals(0x1f, jpegInputStream.readBits(5));
+        assertEquals(0, jpegInputStream.readBits(0));
+    }
+
     @Test
     public void testNextBitThrowsImageReadExceptionOne() {
-        final int[] byteArray = new int[6];
+        final byte[] byteArray = new byte[6];
         byteArray[0] = (byte) -1;
         byteArray[1] = (byte) 74;
         final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
@@ -41,7 +88,7 @@ public class JpegInputStreamTest {
 
     @Test
     public void testNextBitThrowsImageReadExceptionTwo() {
-        final int[] byteArray = {};
+        final byte[] byteArray = {};
         final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
 
         assertThrows(IllegalStateException.class, jpegInputStream::nextBit);
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the {@link JpegEncoder} against ImageIO's libjpeg based writer, at the same quality and with the same chroma subsampling.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=JpegEncoderBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = { "-server", "-Xms512M", "-Xmx512M" })
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JpegEncoderBenchmark {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private BufferedImage image;
+    private ImageWriter imageIoWriter;
+    private ImageWriteParam imageIoParam;
+
+    @Benchmark
+    public int encoder() throws IOException {
+        output.reset();
+        new JpegEncoder().encode(image, output, new JpegImagingParameters());
+        return output.size();
+    }
+
+    @Benchmark
+    public int encoderOptimizedHuffmanTables() throws IOException {
+        output.reset();
+        new JpegEncoder().encode(image, output, new JpegImagingParameters().setOptimizeHuffmanTables(true));
+        return output.size();
+    }
+
+    @Benchmark
+    public int imageIo() throws IOException {
+        output.reset();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(output)) {
+            imageIoWriter.setOutput(ios);
+            imageIoWriter.write(null, new IIOImage(image, null, null), imageIoParam);
+        }
+        return output.size();
+    }
+
+    /**
+     * Draws a 1024x768 image of gradients with noise, so that the blocks have a realistic number of nonzero coefficients.
+     */
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int r = Math.min(255, x / 4 + random.nextInt(32));
+                final int g = Math.min(255, y / 3 + random.nextInt(32));
+                final int b = Math.min(255, (x + y) / 7 + random.nextInt(32));
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+        ImageIO.setUseCache(false);
+        imageIoWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+        imageIoParam = imageIoWriter.getDefaultWriteParam();
+        imageIoParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        imageIoParam.setCompressionQuality(0.75f);
+    }
+
+    @TearDown
+    public void tearDown() {
+        imageIoWriter.dispose();
+    }
+}
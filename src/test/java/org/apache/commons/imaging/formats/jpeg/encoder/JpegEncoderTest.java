@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.jpeg.ChromaSubsampling;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
+import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Tests for the JpegEncoder.
+ */
+public class JpegEncoderTest {
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    private static BufferedImage createTestImage(final int type) {
+        final BufferedImage image = new BufferedImage(83, 45, type);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, x * 3 << 16 | y * 5 << 8 | (x ^ y) * 7 & 0xff);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(final BufferedImage image, final JpegImagingParameters params) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new JpegEncoder().encode(image, baos, params);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Copies a gray image into one whose raster holds its sRGB values, which is what the encoder writes; ImageIO writes gray rasters as they are.
+     */
+    private static BufferedImage srgbGrayRaster(final BufferedImage image) {
+        final BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                result.getRaster().setSample(x, y, 0, 0xff & image.getRGB(x, y));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the entropy-coded data, which follows the SOS segment.
+     */
+    private static byte[] getScanData(final byte[] jpeg) {
+        for (int i = 2; i < jpeg.length;) {
+            final int marker = 0xff & jpeg[i + 1];
+            final int length = (0xff & jpeg[i + 2]) << 8 | 0xff & jpeg[i + 3];
+            if (marker == 0xda) {
+                return Arrays.copyOfRange(jpeg, i + 2 + length, jpeg.length);
+            }
+            i += 2 + length;
+        }
+        throw new IllegalArgumentException("No SOS segment");
+    }
+
+    /**
+     * Gets the mean absolute difference of the samples of two images.
+     */
+    private static double meanError(final BufferedImage expected, final BufferedImage actual) {
+        long sum = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                final int p = expected.getRGB(x, y);
+                final int q = actual.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    sum += Math.abs((0xff & p >> shift) - (0xff & q >> shift));
+                }
+            }
+        }
+        return sum / (3.0 * expected.getWidth() * expected.getHeight());
+    }
+
+    private static byte[] writeImageIo(final BufferedImage image, final boolean optimizeHuffmanTables, final int restartInterval) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final JPEGImageWriteParam param = (JPEGImageWriteParam) writer.getDefaultWriteParam();
+        param.setCompressionMode(JPEGImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.75f);
+        param.setOptimizeHuffmanTables(optimizeHuffmanTables);
+        IIOMetadata metadata = null;
+        if (restartInterval > 0) {
+            metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), param);
+            final Element root = (Element) metadata.getAsTree(JPEG_METADATA_FORMAT);
+            final Node markerSequence = root.getElementsByTagName("markerSequence").item(0);
+            final IIOMetadataNode dri = new IIOMetadataNode("dri");
+            dri.setAttribute("interval", Integer.toString(restartInterval));
+            markerSequence.insertBefore(dri, markerSequence.getFirstChild());
+            metadata.setFromTree(JPEG_METADATA_FORMAT, root);
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, metadata), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testChromaSubsampling() throws Exception {
+        final BufferedImage image = createTestImage(BufferedImage.TYPE_INT_RGB);
+        double previousError = 0;
+        for (final ChromaSubsampling subsampling : ChromaSubsampling.values()) {
+            final byte[] jpeg = encode(image, new JpegImagingParameters().setChromaSubsampling(subsampling).setQuality(90));
+            final BufferedImage decoded = new JpegDecoder().decode(ByteSource.array(jpeg));
+            assertEquals(image.getWidth(), decoded.getWidth());
+            assertEquals(image.getHeight(), decoded.getHeight());
+            // less chroma loses more detail
+            final double error = meanError(image, decoded);
+            assertTrue(error < 6, subsampling + " error " + error);
+            assertTrue(error >= previousError, subsampling + " error " + error);
+            previousError = error;
+        }
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        final JpegImagingParameters params = new JpegImagingParameters();
+        assertThrows(IllegalArgumentException.class, () -> params.setQuality(0));
+        assertThrows(IllegalArgumentException.class, () -> params.setQuality(101));
+        assertThrows(IllegalArgumentException.class, () -> params.setRestartInterval(-1));
+        assertThrows(IllegalArgumentException.class, () -> params.setRestartInterval(0x10000));
+        assertThrows(NullPointerException.class, () -> params.setChromaSubsampling(null));
+    }
+
+    /**
+     * The encoder follows libjpeg's color conversion, downsampling, DCT, quantization and Huffman table optimization, so its entropy-coded data must be
+     * exactly ImageIO's.
+     */
+    @Test
+    public void testMatchesImageIo() throws Exception {
+        for (final int type : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY }) {
+            final BufferedImage image = createTestImage(type);
+            final BufferedImage imageIoImage = type == BufferedImage.TYPE_BYTE_GRAY ? srgbGrayRaster(image) : image;
+            for (final boolean optimize : new boolean[] { false, true }) {
+                for (final int restartInterval : new int[] { 0, 1, 5 }) {
+                    final JpegImagingParameters params = new JpegImagingParameters().setOptimizeHuffmanTables(optimize).setRestartInterval(restartInterval);
+                    assertArrayEquals(getScanData(writeImageIo(imageIoImage, optimize, restartInterval)), getScanData(encode(image, params)),
+                            "type " + type + ", optimized " + optimize + ", restart interval " + restartInterval);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOptimizeHuffmanTables() throws Exception {
+        final BufferedImage image = createTestImage(BufferedImage.TYPE_INT_RGB);
+        final byte[] standard = encode(image, new JpegImagingParameters());
+        final byte[] optimized = encode(image, new JpegImagingParameters().setOptimizeHuffmanTables(true));
+        assertTrue(optimized.length < standard.length);
+        assertArrayEquals(ImageIO.read(new ByteArrayInputStream(standard)).getRGB(0, 0, 83, 45, null, 0, 83),
+                ImageIO.read(new ByteArrayInputStream(optimized)).getRGB(0, 0, 83, 45, null, 0, 83));
+    }
+
+    @Test
+    public void testWriteImage() throws Exception {
+        final BufferedImage image = createTestImage(BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Imaging.writeImage(image, baos, ImageFormats.JPEG);
+        final byte[] jpeg = baos.toByteArray();
+        assertEquals(ImageFormats.JPEG, Imaging.guessFormat(jpeg));
+        assertTrue(meanError(image, Imaging.getBufferedImage(jpeg)) < 10);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
+import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares rotating a JPEG by 90 degrees with the {@link JpegTransformer} against decoding it, rotating the pixels and encoding them again.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=JpegTransformerBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgs = { "-server", "-Xms512M", "-Xmx512M" })
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JpegTransformerBenchmark {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private byte[] jpeg;
+
+    @Benchmark
+    public int decodeRotateEncode() throws IOException {
+        final BufferedImage decoded = new JpegDecoder().decode(ByteSource.array(jpeg));
+        final int width = decoded.getWidth();
+        final int height = decoded.getHeight();
+        final int[] pixels = decoded.getRGB(0, 0, width, height, null, 0, width);
+        final int[] rotated = new int[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                rotated[x * height + height - 1 - y] = pixels[y * width + x];
+            }
+        }
+        final BufferedImage image = new BufferedImage(height, width, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, height, width, rotated, 0, height);
+        output.reset();
+        new JpegEncoder().encode(image, output, new JpegImagingParameters());
+        return output.size();
+    }
+
+    /**
+     * Encodes a 1024x768 image of gradients with noise, so that the blocks have a realistic number of nonzero coefficients.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(42);
+        final BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int r = Math.min(255, x / 4 + random.nextInt(32));
+                final int g = Math.min(255, y / 3 + random.nextInt(32));
+                final int b = Math.min(255, (x + y) / 7 + random.nextInt(32));
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+        new JpegEncoder().encode(image, output, new JpegImagingParameters());
+        jpeg = output.toByteArray();
+    }
+
+    @Benchmark
+    public int transformer() throws IOException {
+        output.reset();
+        new JpegTransformer().transform(ByteSource.array(jpeg), output, JpegTransform.ROTATE_90);
+        return output.size();
+    }
+}
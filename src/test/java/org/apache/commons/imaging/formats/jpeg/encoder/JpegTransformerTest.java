@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.jpeg.encoder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.jpeg.ChromaSubsampling;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
+import org.apache.commons.imaging.formats.jpeg.decoder.JpegDecoder;
+import org.apache.commons.imaging.formats.jpeg.exif.ExifRewriter;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the JpegTransformer.
+ */
+public class JpegTransformerTest {
+
+    private static BufferedImage createTestImage(final int width, final int height, final int type) {
+        final Random random = new Random(width * 31 + height);
+        final BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, x * 3 << 16 | y * 5 << 8 | (x ^ y) * 7 + random.nextInt(16) & 0xff);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(final BufferedImage image, final JpegImagingParameters params) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new JpegEncoder().encode(image, baos, params);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Gets the low byte of the SOF marker.
+     */
+    private static int getExifOrientation(final byte[] jpeg) throws IOException {
+        return ((JpegImageMetadata) Imaging.getMetadata(jpeg)).findExifValueWithExactMatch(TiffTagConstants.TIFF_TAG_ORIENTATION).getIntValue();
+    }
+
+    private static int getFrameMarker(final byte[] jpeg) {
+        for (int i = 2; i < jpeg.length;) {
+            final int marker = 0xff & jpeg[i + 1];
+            if (marker >= 0xc0 && marker <= 0xcf && marker != 0xc4 && marker != 0xc8 && marker != 0xcc) {
+                return marker;
+            }
+            i += 2 + ((0xff & jpeg[i + 2]) << 8 | 0xff & jpeg[i + 3]);
+        }
+        return -1;
+    }
+
+    private static JpegTransform inverse(final JpegTransform transform) {
+        switch (transform) {
+        case ROTATE_90:
+            return JpegTransform.ROTATE_270;
+        case ROTATE_270:
+            return JpegTransform.ROTATE_90;
+        default:
+            // the other transforms are their own inverses
+            return transform;
+        }
+    }
+
+    /**
+     * Gets the pixel of the source image that a transform moves to a pixel of an image of the given size.
+     */
+    private static int sourceRgb(final BufferedImage source, final JpegTransform transform, final int x, final int y, final int width, final int height) {
+        switch (transform) {
+        case FLIP_HORIZONTAL:
+            return source.getRGB(width - 1 - x, y);
+        case FLIP_VERTICAL:
+            return source.getRGB(x, height - 1 - y);
+        case TRANSPOSE:
+            return source.getRGB(y, x);
+        case TRANSVERSE:
+            return source.getRGB(height - 1 - y, width - 1 - x);
+        case ROTATE_90:
+            return source.getRGB(y, width - 1 - x);
+        case ROTATE_180:
+            return source.getRGB(width - 1 - x, height - 1 - y);
+        case ROTATE_270:
+            return source.getRGB(height - 1 - y, x);
+        default:
+            return source.getRGB(x, y);
+        }
+    }
+
+    private static byte[] transform(final byte[] jpeg, final JpegTransform transform) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new JpegTransformer().transform(ByteSource.array(jpeg), baos, transform);
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testCopiesMetadata() throws IOException {
+        final String xmpXml = "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"></x:xmpmeta>";
+        final byte[] jpeg = encode(createTestImage(32, 32, BufferedImage.TYPE_INT_RGB), new JpegImagingParameters().setXmpXml(xmpXml));
+        assertEquals(xmpXml, Imaging.getXmpXml(transform(jpeg, JpegTransform.ROTATE_90)));
+    }
+
+    @Test
+    public void testCrop() throws IOException {
+        final byte[] jpeg = encode(createTestImage(83, 45, BufferedImage.TYPE_INT_RGB), new JpegImagingParameters().setRestartInterval(3));
+        final BufferedImage source = Imaging.getBufferedImage(jpeg);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // the left edge moves to the MCU boundary at 16 and the bottom edge is clipped to the image
+        new JpegTransformer().crop(ByteSource.array(jpeg), baos, new Rectangle(20, 17, 30, 40));
+        final BufferedImage cropped = Imaging.getBufferedImage(baos.toByteArray());
+        assertEquals(34, cropped.getWidth());
+        assertEquals(29, cropped.getHeight());
+        for (int y = 0; y < cropped.getHeight(); y++) {
+            for (int x = 0; x < cropped.getWidth(); x++) {
+                assertEquals(source.getRGB(16 + x, 16 + y), cropped.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testExifOrientation() throws IOException {
+        final byte[] jpeg = encode(createTestImage(32, 48, BufferedImage.TYPE_INT_RGB), null);
+        for (final ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            for (int orientation = 1; orientation <= 8; orientation++) {
+                final TiffOutputSet outputSet = new TiffOutputSet(byteOrder);
+                final TiffOutputDirectory root = outputSet.getOrCreateRootDirectory();
+                root.add(TiffTagConstants.TIFF_TAG_ORIENTATION, (short) orientation);
+                root.add(TiffTagConstants.TIFF_TAG_SOFTWARE, "test");
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                new ExifRewriter().updateExifMetadataLossless(jpeg, baos, outputSet);
+                final byte[] oriented = baos.toByteArray();
+
+                // the transform the orientation asks for makes the image upright
+                final byte[] upright = transform(oriented, JpegTransform.forExifOrientation(orientation));
+                assertEquals(1, getExifOrientation(upright), byteOrder + " " + orientation);
+                assertEquals("test", ((JpegImageMetadata) Imaging.getMetadata(upright)).findExifValueWithExactMatch(TiffTagConstants.TIFF_TAG_SOFTWARE)
+                        .getStringValue());
+                // any other transform keeps the image displayed the same way
+                for (final JpegTransform transform : JpegTransform.values()) {
+                    final byte[] transformed = transform(oriented, transform);
+                    final JpegTransform display = JpegTransform.forExifOrientation(getExifOrientation(transformed));
+                    assertArrayEquals(new JpegDecoder().decodeCoefficients(ByteSource.array(upright))[0],
+                            new JpegDecoder().decodeCoefficients(ByteSource.array(transform(transformed, display)))[0], orientation + " " + transform);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testForExifOrientation() {
+        final JpegTransform[] expected = { JpegTransform.NONE, JpegTransform.FLIP_HORIZONTAL, JpegTransform.ROTATE_180, JpegTransform.FLIP_VERTICAL,
+                JpegTransform.TRANSPOSE, JpegTransform.ROTATE_90, JpegTransform.TRANSVERSE, JpegTransform.ROTATE_270 };
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            assertEquals(expected[orientation - 1], JpegTransform.forExifOrientation(orientation));
+        }
+        assertThrows(IllegalArgumentException.class, () -> JpegTransform.forExifOrientation(0));
+        assertThrows(IllegalArgumentException.class, () -> JpegTransform.forExifOrientation(9));
+    }
+
+    @Test
+    public void testInvalidArguments() throws IOException {
+        final byte[] jpeg = encode(createTestImage(12, 12, BufferedImage.TYPE_INT_RGB), null);
+        final JpegTransformer transformer = new JpegTransformer();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> transformer.crop(ByteSource.array(jpeg), baos, new Rectangle(12, 0, 4, 4)));
+        assertThrows(IllegalArgumentException.class, () -> transformer.crop(ByteSource.array(jpeg), baos, new Rectangle(0, 0, 0, 4)));
+        // mirroring needs a whole 16x16 MCU to keep
+        assertThrows(ImagingException.class, () -> transformer.transform(ByteSource.array(jpeg), baos, JpegTransform.FLIP_HORIZONTAL));
+        transformer.transform(ByteSource.array(jpeg), baos, JpegTransform.TRANSPOSE);
+    }
+
+    @Test
+    public void testProgressive() throws IOException {
+        final BufferedImage image = createTestImage(83, 45, BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream progressive = new ByteArrayOutputStream();
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(progressive)) {
+            writer.setOutput(ios);
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        final byte[] jpeg = progressive.toByteArray();
+        final byte[] transformed = transform(jpeg, JpegTransform.NONE);
+        final short[][] expected = new JpegDecoder().decodeCoefficients(ByteSource.array(jpeg));
+        final short[][] actual = new JpegDecoder().decodeCoefficients(ByteSource.array(transformed));
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i]);
+        }
+        assertEquals(0xc0, getFrameMarker(transformed), "baseline frame");
+    }
+
+    @Test
+    public void testRoundTrips() throws IOException {
+        for (final ChromaSubsampling chromaSubsampling : ChromaSubsampling.values()) {
+            final byte[] jpeg = encode(createTestImage(64, 48, BufferedImage.TYPE_INT_RGB),
+                    new JpegImagingParameters().setChromaSubsampling(chromaSubsampling).setQuality(95));
+            final short[][] expected = new JpegDecoder().decodeCoefficients(ByteSource.array(jpeg));
+            for (final JpegTransform transform : JpegTransform.values()) {
+                final byte[] roundTrip = transform(transform(jpeg, transform), inverse(transform));
+                final short[][] actual = new JpegDecoder().decodeCoefficients(ByteSource.array(roundTrip));
+                for (int i = 0; i < expected.length; i++) {
+                    assertArrayEquals(expected[i], actual[i], chromaSubsampling + " " + transform);
+                }
+            }
+        }
+        final byte[] gray = encode(createTestImage(40, 24, BufferedImage.TYPE_BYTE_GRAY), null);
+        final byte[] rotated = transform(transform(transform(transform(gray, JpegTransform.ROTATE_90), JpegTransform.ROTATE_90), JpegTransform.ROTATE_90),
+                JpegTransform.ROTATE_90);
+        assertArrayEquals(new JpegDecoder().decodeCoefficients(ByteSource.array(gray))[0], new JpegDecoder().decodeCoefficients(ByteSource.array(rotated))[0]);
+    }
+
+    @Test
+    public void testTransformPixels() throws IOException {
+        final byte[] jpeg = encode(createTestImage(83, 45, BufferedImage.TYPE_INT_RGB), null);
+        final BufferedImage source = Imaging.getBufferedImage(jpeg);
+        for (final JpegTransform transform : JpegTransform.values()) {
+            final BufferedImage transformed = Imaging.getBufferedImage(transform(jpeg, transform));
+            // mirrored axes lose the partial 16 pixel MCU at their end
+            final boolean mirrorsX = transform.transposes ? transform.flipsVertically : transform.flipsHorizontally;
+            final boolean mirrorsY = transform.transposes ? transform.flipsHorizontally : transform.flipsVertically;
+            assertEquals(mirrorsX ? 80 : 83, transform.transposes ? transformed.getHeight() : transformed.getWidth(), transform.name());
+            assertEquals(mirrorsY ? 32 : 45, transform.transposes ? transformed.getWidth() : transformed.getHeight(), transform.name());
+            for (int y = 0; y < transformed.getHeight(); y++) {
+                for (int x = 0; x < transformed.getWidth(); x++) {
+                    final int expected = sourceRgb(source, transform, x, y, transformed.getWidth(), transformed.getHeight());
+                    final int actual = transformed.getRGB(x, y);
+                    // the inverse DCT rounds mirrored blocks slightly differently
+                    for (int shift = 0; shift < 24; shift += 8) {
+                        assertTrue(Math.abs((expected >> shift & 0xff) - (actual >> shift & 0xff)) <= 3, transform.name());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -46,6 +46,7 @@ public class JpegImageParserTest {
         assertEquals(680, image.getWidth());
         assertEquals(241, image.getHeight());
         assertEquals(-16777216, image.getRGB(0, 0));
-        assertEquals(-12177367, image.getRGB(198, 13));
+        // a pixel of the signature's stroke
+        assertEquals(-12552348, image.getRGB(198, 13));
     }
 }
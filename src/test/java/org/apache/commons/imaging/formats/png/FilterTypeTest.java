@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilter;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterAverage;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterNone;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterPaeth;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterSub;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterUp;
+import org.junit.jupiter.api.Test;
+
+public class FilterTypeTest {
+
+    private static ScanlineFilter getScanlineFilter(final FilterType filterType, final int bytesPerPixel) {
+        switch (filterType) {
+        case SUB:
+            return new ScanlineFilterSub(bytesPerPixel);
+        case UP:
+            return new ScanlineFilterUp();
+        case AVERAGE:
+            return new ScanlineFilterAverage(bytesPerPixel);
+        case PAETH:
+            return new ScanlineFilterPaeth(bytesPerPixel);
+        default:
+            return new ScanlineFilterNone();
+        }
+    }
+
+    @Test
+    public void testUnfilterMatchesScanlineFilter() throws ImagingException, IOException {
+        final Random random = new Random(42);
+        for (final FilterType filterType : FilterType.values()) {
+            for (final int bytesPerPixel : new int[] { 1, 2, 3, 4, 6, 8 }) {
+                final byte[] previous = new byte[5 * bytesPerPixel + 1];
+                final byte[] filtered = new byte[previous.length];
+                random.nextBytes(previous);
+                random.nextBytes(filtered);
+                final ScanlineFilter scanlineFilter = getScanlineFilter(filterType, bytesPerPixel);
+
+                final byte[] expected = new byte[filtered.length];
+                scanlineFilter.unfilter(filtered, expected, previous);
+                // the buffers are longer than the scanline, as when they are reused for the passes of an interlaced image
+                final byte[] scanline = Arrays.copyOf(filtered, filtered.length + 7);
+                filterType.unfilter(scanline, Arrays.copyOf(previous, previous.length + 7), filtered.length, bytesPerPixel);
+                assertArrayEquals(expected, Arrays.copyOf(scanline, filtered.length));
+
+                scanlineFilter.unfilter(filtered, expected, null);
+                final byte[] first = filtered.clone();
+                filterType.unfilter(first, null, first.length, bytesPerPixel);
+                assertArrayEquals(expected, first);
+            }
+        }
+    }
+
+    @Test
+    public void testFilterIsReversedByUnfilter() {
+        final Random random = new Random(42);
+        for (final FilterType filterType : FilterType.values()) {
+            for (final int bytesPerPixel : new int[] { 1, 3, 4, 8 }) {
+                final byte[] previous = new byte[5 * bytesPerPixel + 1];
+                final byte[] scanline = new byte[previous.length];
+                random.nextBytes(previous);
+                random.nextBytes(scanline);
+
+                final byte[] filtered = new byte[scanline.length + 1];
+                filterType.filter(scanline, previous, scanline.length, bytesPerPixel, filtered, 1);
+                final byte[] unfiltered = Arrays.copyOfRange(filtered, 1, filtered.length);
+                filterType.unfilter(unfiltered, previous, unfiltered.length, bytesPerPixel);
+                assertArrayEquals(scanline, unfiltered);
+
+                filterType.filter(scanline, null, scanline.length, bytesPerPixel, filtered, 1);
+                final byte[] first = Arrays.copyOfRange(filtered, 1, filtered.length);
+                filterType.unfilter(first, null, first.length, bytesPerPixel);
+                assertArrayEquals(scanline, first);
+            }
+        }
+    }
+}
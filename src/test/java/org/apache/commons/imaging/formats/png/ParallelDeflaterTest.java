@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.imaging.ImagingException;
+import org.junit.jupiter.api.Test;
+
+public class ParallelDeflaterTest {
+
+    private static byte[] createData(final int length) {
+        // compressible, but not trivially
+        final Random random = new Random(length);
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 251 < 100 ? random.nextInt(8) : i / 7);
+        }
+        return data;
+    }
+
+    private static byte[] inflate(final byte[] compressed, final int length) throws DataFormatException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            final byte[] result = new byte[length];
+            int count = 0;
+            while (!inflater.finished()) {
+                final int inflated = inflater.inflate(result, count, result.length - count);
+                assertTrue(inflated > 0 || inflater.finished() || !inflater.needsInput(), "truncated stream");
+                count += inflated;
+            }
+            assertEquals(length, count);
+            assertEquals(0, inflater.getRemaining());
+            return result;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Test
+    public void testCombineAdler32() {
+        final byte[] data = createData(100_000);
+        for (final int split : new int[] { 0, 1, 65521, 70_000, 100_000 }) {
+            final Adler32 first = new Adler32();
+            first.update(data, 0, split);
+            final Adler32 second = new Adler32();
+            second.update(data, split, data.length - split);
+            final Adler32 whole = new Adler32();
+            whole.update(data);
+            assertEquals(whole.getValue(), ParallelDeflater.combineAdler32(first.getValue(), second.getValue(), data.length - split));
+        }
+    }
+
+    @Test
+    public void testDeflate() throws DataFormatException, ImagingException, IOException {
+        for (final int length : new int[] { 0, 1, ParallelDeflater.BLOCK_SIZE, 3 * ParallelDeflater.BLOCK_SIZE + 17 }) {
+            for (final int level : new int[] { Deflater.DEFAULT_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION }) {
+                final byte[] data = createData(length);
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                for (final byte[] piece : ParallelDeflater.deflate(data, level, ForkJoinPool.commonPool())) {
+                    compressed.write(piece);
+                }
+                // the inflater also checks the zlib header and the Adler-32
+                assertArrayEquals(data, inflate(compressed.toByteArray(), length));
+            }
+        }
+    }
+
+    @Test
+    public void testWriteWithCompressionExecutor() throws ImagingException, IOException {
+        final BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        final Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, x * y << 8 | random.nextInt(4) << 24 | y);
+            }
+        }
+        final PngImagingParameters params = new PngImagingParameters().setCompressionExecutor(ForkJoinPool.commonPool());
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            new PngImageParser().writeImage(image, os, params);
+            final BufferedImage read = new PngImageParser().getBufferedImage(os.toByteArray(), null);
+            assertArrayEquals(image.getRGB(0, 0, 400, 300, null, 0, 400), read.getRGB(0, 0, 400, 300, null, 0, 400));
+        }
+    }
+}
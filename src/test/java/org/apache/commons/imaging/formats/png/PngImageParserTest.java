@@ -17,6 +17,7 @@
 
 package org.apache.commons.imaging.formats.png;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -24,8 +25,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.CRC32;
 
 import org.apache.commons.imaging.ImageInfo;
+import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.AllocationRequestException;
 import org.junit.jupiter.api.Test;
 
@@ -38,6 +43,46 @@ public class PngImageParserTest extends AbstractPngTest {
         }
     }
 
+    /**
+     * Rewrites a PNG with its image data split into IDAT chunks of at most the given length.
+     */
+    private static byte[] splitImageData(final byte[] png, final int chunkLength) throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(png);
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+            os.write(png, 0, 8);
+            in.position(8);
+            while (in.hasRemaining()) {
+                final int length = in.getInt();
+                final int start = in.position();
+                final int chunkType = in.getInt();
+                in.position(start + 4 + length + 4);
+                if (chunkType == ChunkType.IDAT.value) {
+                    data.write(png, start + 4, length);
+                    continue;
+                }
+                if (chunkType == ChunkType.IEND.value) {
+                    final byte[] bytes = data.toByteArray();
+                    for (int offset = 0; offset < bytes.length; offset += chunkLength) {
+                        writeChunk(os, ChunkType.IDAT.array, bytes, offset, Math.min(chunkLength, bytes.length - offset));
+                    }
+                }
+                os.write(png, start - 4, 4 + 4 + length + 4);
+            }
+            return os.toByteArray();
+        }
+    }
+
+    private static void writeChunk(final ByteArrayOutputStream os, final byte[] chunkType, final byte[] bytes, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(chunkType);
+        crc.update(bytes, offset, length);
+        final ByteBuffer header = ByteBuffer.allocate(8).putInt(length).put(chunkType);
+        os.write(header.array(), 0, 8);
+        os.write(bytes, offset, length);
+        os.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array(), 0, 4);
+    }
+
     @Test
     public void testGetImageSize() {
         final byte[] bytes = {
@@ -72,4 +117,42 @@ public class PngImageParserTest extends AbstractPngTest {
         final ImageInfo imageInfo = new PngImageParser().getImageInfo(bytes, null);
         assertTrue(imageInfo.usesPalette());
     }
+
+    @Test
+    public void testImageDataCrcMismatch() throws IOException {
+        final BufferedImage image = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        final byte[] bytes = splitImageData(getPngImageBytes(image, new PngImagingParameters()), 16);
+        int idat = 8;
+        while (ByteBuffer.wrap(bytes).getInt(idat + 4) != ChunkType.IDAT.value) {
+            idat += 4 + 4 + ByteBuffer.wrap(bytes).getInt(idat) + 4;
+        }
+        // the last byte of the first IDAT chunk's CRC
+        bytes[idat + 4 + 4 + 16 + 3] ^= 1;
+        assertThrows(ImagingException.class, () -> new PngImageParser().getBufferedImage(bytes, null));
+    }
+
+    @Test
+    public void testImageDataSplitAcrossChunks() throws IOException {
+        final BufferedImage image = new BufferedImage(37, 29, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, x * 0x010305 + y * 0x07050300);
+            }
+        }
+        final byte[] bytes = getPngImageBytes(image, new PngImagingParameters());
+        for (final int chunkLength : new int[] { 1, 7, 100 }) {
+            final BufferedImage decoded = new PngImageParser().getBufferedImage(splitImageData(bytes, chunkLength), null);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    assertEquals(image.getRGB(x, y), decoded.getRGB(x, y));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.imaging.ImagingException;
+import org.junit.jupiter.api.Test;
+
+public class PngStreamWriterTest {
+
+    /**
+     * Gets the data lengths of the IDAT chunks of a PNG.
+     */
+    private static List<Integer> getIdatLengths(final byte[] png) {
+        final List<Integer> lengths = new ArrayList<>();
+        final ByteBuffer buffer = ByteBuffer.wrap(png);
+        for (int offset = 8; offset < png.length;) {
+            final int length = buffer.getInt(offset);
+            if (buffer.getInt(offset + 4) == ChunkType.IDAT.value) {
+                lengths.add(length);
+            }
+            offset += 4 + 4 + length + 4;
+        }
+        return lengths;
+    }
+
+    @Test
+    public void testIdatChunkSize() throws IOException {
+        final int width = 300;
+        final int height = 400;
+        final Random random = new Random(42);
+        final int[] row = new int[width];
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (PngStreamWriter writer = new PngStreamWriter(os, width, height, PngColorType.TRUE_COLOR, null)) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = random.nextInt();
+                }
+                writer.writeRow(row);
+            }
+        }
+        final List<Integer> lengths = getIdatLengths(os.toByteArray());
+        assertTrue(lengths.size() > 1);
+        for (int i = 0; i < lengths.size() - 1; i++) {
+            assertEquals(PngStreamWriter.IDAT_CHUNK_SIZE, lengths.get(i).intValue());
+        }
+        assertTrue(lengths.get(lengths.size() - 1) <= PngStreamWriter.IDAT_CHUNK_SIZE);
+    }
+
+    @Test
+    public void testMissingRows() throws IOException {
+        final PngStreamWriter writer = new PngStreamWriter(new ByteArrayOutputStream(), 10, 2, PngColorType.GREYSCALE, null);
+        writer.writeRow(new int[10]);
+        assertThrows(ImagingException.class, writer::close);
+    }
+
+    @Test
+    public void testTooManyRows() throws IOException {
+        try (PngStreamWriter writer = new PngStreamWriter(new ByteArrayOutputStream(), 10, 1, PngColorType.GREYSCALE, null)) {
+            writer.writeRow(new int[10]);
+            assertThrows(IllegalStateException.class, () -> writer.writeRow(new int[10]));
+        }
+    }
+
+    @Test
+    public void testWriteArgbRows() throws IOException {
+        final int width = 50;
+        final int height = 40;
+        final int[] argb = new int[width * height];
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = (i % 256) << 24 | i * 0x10305;
+        }
+        for (final PngColorType pngColorType : new PngColorType[] { PngColorType.TRUE_COLOR, PngColorType.TRUE_COLOR_WITH_ALPHA }) {
+            final PngImagingParameters params = new PngImagingParameters().setFilterStrategy(PngFilterStrategy.ADAPTIVE);
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try (PngStreamWriter writer = new PngStreamWriter(os, width, height, pngColorType, params)) {
+                for (int y = 0; y < height; y++) {
+                    final int[] row = new int[width];
+                    System.arraycopy(argb, y * width, row, 0, width);
+                    writer.writeRow(row);
+                }
+            }
+            final BufferedImage image = ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+            final int[] expected = argb.clone();
+            if (!pngColorType.hasAlpha()) {
+                for (int i = 0; i < expected.length; i++) {
+                    expected[i] |= 0xff000000;
+                }
+            }
+            assertArrayEquals(expected, image.getRGB(0, 0, width, height, null, 0, width), pngColorType.name());
+        }
+    }
+
+    @Test
+    public void testWriteSampleRows() throws IOException {
+        final int width = 21;
+        final int height = 13;
+        final Random random = new Random(42);
+        for (final byte bitDepth : new byte[] { 1, 2, 4, 8, 16 }) {
+            final PngImagingParameters params = new PngImagingParameters().setBitDepth(bitDepth).setFilterStrategy(PngFilterStrategy.PAETH);
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            final int[] expected = new int[width * height];
+            try (PngStreamWriter writer = new PngStreamWriter(os, width, height, PngColorType.GREYSCALE, params)) {
+                final byte[] row = new byte[writer.getRowLength()];
+                for (int y = 0; y < height; y++) {
+                    random.nextBytes(row);
+                    writer.writeRow(row);
+                    for (int x = 0; x < width; x++) {
+                        final int bit = x * bitDepth;
+                        final int sample = bitDepth == 16 ? (0xff & row[2 * x]) << 8 | 0xff & row[2 * x + 1] : (0xff & row[bit / 8]) >> 8 - bitDepth - bit % 8;
+                        expected[y * width + x] = sample & (1 << bitDepth) - 1;
+                    }
+                }
+            }
+            final BufferedImage image = ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+            assertArrayEquals(expected, image.getRaster().getSamples(0, 0, width, height, 0, (int[]) null), "bit depth " + bitDepth);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the PngWriter with each filter strategy, reading the images back with ImageIO.
+ */
+public class PngWriteFilterStrategyTest {
+
+    private static final int SIZE = 64;
+
+    private static BufferedImage createImage(final int type, final boolean grayscale, final boolean fewColors) {
+        final BufferedImage image = new BufferedImage(SIZE, SIZE, type);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                final int argb;
+                if (fewColors) {
+                    argb = (x / 8 + y / 4) % 3 == 0 ? 0xff204080 : 0xffe0c0a0;
+                } else if (grayscale) {
+                    argb = 0xff000000 | 0x010101 * (x * y / 16);
+                } else {
+                    argb = (x + y) % 256 << 24 | 4 * x << 16 | 255 - 4 * y << 8 | 2 * (x + y);
+                }
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] write(final BufferedImage image, final PngImagingParameters params) throws IOException {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+            new PngImageParser().writeImage(image, bos, params);
+            return bos.toByteArray();
+        }
+    }
+
+    @Test
+    public void testAdaptiveIsSmallerThanNone() throws IOException {
+        final BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, false, false);
+        final int unfiltered = write(image, new PngImagingParameters().setFilterStrategy(PngFilterStrategy.NONE)).length;
+        assertTrue(write(image, new PngImagingParameters().setFilterStrategy(PngFilterStrategy.ADAPTIVE)).length < unfiltered);
+        assertTrue(write(image, new PngImagingParameters().setFilterStrategy(PngFilterStrategy.BRUTE_FORCE)).length < unfiltered);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final BufferedImage[] images = { createImage(BufferedImage.TYPE_INT_RGB, false, false), createImage(BufferedImage.TYPE_INT_ARGB, false, false),
+                createImage(BufferedImage.TYPE_INT_RGB, true, false), createImage(BufferedImage.TYPE_INT_RGB, false, true) };
+        for (final PngFilterStrategy filterStrategy : PngFilterStrategy.values()) {
+            for (final BufferedImage image : images) {
+                final PngImagingParameters params = new PngImagingParameters().setFilterStrategy(filterStrategy);
+                params.setForceIndexedColor(image == images[3]);
+                final BufferedImage read = ImageIO.read(new ByteArrayInputStream(write(image, params)));
+                final int[] expected = image.getRGB(0, 0, SIZE, SIZE, null, 0, SIZE);
+                if (image == images[2]) {
+                    // getRGB converts gray through a linear color space, so compare the gray levels
+                    for (int i = 0; i < expected.length; i++) {
+                        expected[i] &= 0xff;
+                    }
+                    assertArrayEquals(expected, read.getRaster().getSamples(0, 0, SIZE, SIZE, 0, (int[]) null), filterStrategy.name());
+                } else {
+                    assertArrayEquals(expected, read.getRGB(0, 0, SIZE, SIZE, null, 0, SIZE), filterStrategy.name());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.internal;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.Stream;
+
+import org.apache.commons.imaging.AbstractImageParser;
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class ImageParserFactoryTest {
+
+    public static Stream<ImageFormats> formats() {
+        // no parser reads JBIG2 or TGA.
+        return Stream.of(ImageFormats.values()).filter(format -> format != ImageFormats.UNKNOWN && format != ImageFormats.JBIG2 && format != ImageFormats.TGA);
+    }
+
+    @ParameterizedTest
+    @MethodSource("formats")
+    public void testGetImageParserByFormat(final ImageFormats format) {
+        final AbstractImageParser<?> parser = ImageParserFactory.getImageParser(format);
+        assertTrue(parser.canAcceptType(format));
+        assertSame(parser, ImageParserFactory.getImageParser(format));
+        assertTrue(ImageParserFactory.getImageParsers().contains(parser));
+    }
+
+    @Test
+    public void testGetImageParserByteSource() throws Exception {
+        final byte[] png = { (byte) 0x89, 'P', 'N', 'G' };
+        assertSame(ImageParserFactory.getImageParser(ImageFormats.PNG), ImageParserFactory.getImageParser(ByteSource.array(png)));
+        assertSame(ImageParserFactory.getImageParser(ImageFormats.XPM), ImageParserFactory.getImageParser(ByteSource.array(new byte[] { '/', '*' }, "a.xpm")));
+        assertSame(ImageParserFactory.getImageParser(ImageFormats.JPEG), ImageParserFactory.getImageParser(".JPEG"));
+    }
+
+    @Test
+    public void testGetImageParserUnknown() {
+        assertThrows(IllegalArgumentException.class, () -> ImageParserFactory.getImageParser(ImageFormats.UNKNOWN));
+        assertThrows(IllegalArgumentException.class, () -> ImageParserFactory.getImageParser(".txt"));
+    }
+
+}
@@ -17,8 +17,13 @@
 
 package org.apache.commons.imaging.roundtrip;
 
+import java.util.function.Supplier;
+
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.ImagingParameters;
+import org.apache.commons.imaging.formats.jpeg.ChromaSubsampling;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 
 final class FormatInfo {
 
@@ -27,6 +32,10 @@ final class FormatInfo {
     static final int COLOR_GRAYSCALE = 2;
     static final int COLOR_BITMAP = 3;
 
+    /** Writes JPEGs at the best quality and without chroma subsampling, so that pixels survive the roundtrip within a small tolerance. */
+    private static final Supplier<ImagingParameters<?>> JPEG_BEST_QUALITY = () -> new JpegImagingParameters().setQuality(100)
+            .setChromaSubsampling(ChromaSubsampling.H1V1);
+
     static final FormatInfo[] PRESERVING_RESOLUTION_FORMATS = { new FormatInfo(ImageFormats.PNG, true, true, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.ICO, true, true, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.TIFF, true, true, COLOR_FULL_RGB, true, true), //
@@ -39,6 +48,7 @@ final class FormatInfo {
             new FormatInfo(ImageFormats.GIF, true, true, COLOR_LIMITED_INDEX, true, false), //
             new FormatInfo(ImageFormats.ICO, true, true, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.TIFF, true, true, COLOR_FULL_RGB, true, true), //
+            new FormatInfo(ImageFormats.JPEG, true, true, COLOR_FULL_RGB, false, true, 8, JPEG_BEST_QUALITY), //
             new FormatInfo(ImageFormats.BMP, true, true, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.PBM, true, true, COLOR_BITMAP, true, false), //
             new FormatInfo(ImageFormats.PGM, true, true, COLOR_GRAYSCALE, true, false), //
@@ -56,7 +66,7 @@ final class FormatInfo {
             new FormatInfo(ImageFormats.GIF, true, true, COLOR_LIMITED_INDEX, true, false), //
             new FormatInfo(ImageFormats.ICO, true, true, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.TIFF, true, true, COLOR_FULL_RGB, true, true), //
-            new FormatInfo(ImageFormats.JPEG, true, false, COLOR_FULL_RGB, true, true), //
+            new FormatInfo(ImageFormats.JPEG, true, true, COLOR_FULL_RGB, false, true, 8, JPEG_BEST_QUALITY), //
             new FormatInfo(ImageFormats.BMP, true, true, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.PSD, true, false, COLOR_FULL_RGB, true, true), //
             new FormatInfo(ImageFormats.PBM, true, true, COLOR_BITMAP, true, false), //
@@ -78,20 +88,31 @@ final class FormatInfo {
     final int colorSupport;
     final boolean identicalSecondWrite;
     final boolean preservesResolution;
+    /** The ARGB distance a pixel may move in a roundtrip, nonzero for lossy formats. */
+    final int tolerance;
+    /** Creates the parameters to write with, or null to use the parser's defaults. */
+    final Supplier<ImagingParameters<?>> writeParameters;
 
     FormatInfo(final ImageFormat format, final boolean canRead, final boolean canWrite, final int colorSupport, final boolean identicalSecondWrite,
             final boolean preservesResolution) {
+        this(format, canRead, canWrite, colorSupport, identicalSecondWrite, preservesResolution, 0, null);
+    }
+
+    FormatInfo(final ImageFormat format, final boolean canRead, final boolean canWrite, final int colorSupport, final boolean identicalSecondWrite,
+            final boolean preservesResolution, final int tolerance, final Supplier<ImagingParameters<?>> writeParameters) {
         this.canRead = canRead;
         this.canWrite = canWrite;
         this.colorSupport = colorSupport;
         this.format = format;
         this.identicalSecondWrite = identicalSecondWrite;
         this.preservesResolution = preservesResolution;
+        this.tolerance = tolerance;
+        this.writeParameters = writeParameters;
     }
 
     @Override
     public String toString() {
         return "FormatInfo{" + "format=" + format + ", canRead=" + canRead + ", canWrite=" + canWrite + ", colorSupport=" + colorSupport
-                + ", identicalSecondWrite=" + identicalSecondWrite + ", preservesResolution=" + preservesResolution + '}';
+                + ", identicalSecondWrite=" + identicalSecondWrite + ", preservesResolution=" + preservesResolution + ", tolerance=" + tolerance + '}';
     }
 }
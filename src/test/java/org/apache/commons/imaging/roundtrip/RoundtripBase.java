@@ -42,7 +42,8 @@ public class RoundtripBase {
 
         final AbstractImageParser abstractImageParser = ImageParserFactory.getImageParser(formatInfo.format);
 
-        final ImagingParameters params = ImageParserFactory.getImageParser(formatInfo.format).getDefaultParameters();
+        final ImagingParameters params = formatInfo.writeParameters != null ? formatInfo.writeParameters.get()
+                : ImageParserFactory.getImageParser(formatInfo.format).getDefaultParameters();
         final byte[] temp1;
         try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
             abstractImageParser.writeImage(testImage, bos, params);
@@ -57,7 +58,7 @@ public class RoundtripBase {
         if (imageExact) {
             // note tolerance when comparing grayscale images
             // BufferedImages of
-            ImageAsserts.assertImageEquals(testImage, image2);
+            ImageAsserts.assertImageEquals(testImage, image2, formatInfo.tolerance);
         }
 
         if (formatInfo.identicalSecondWrite) {